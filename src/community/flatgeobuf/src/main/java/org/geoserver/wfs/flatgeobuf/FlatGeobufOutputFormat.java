@@ -7,6 +7,7 @@ package org.geoserver.wfs.flatgeobuf;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geoserver.config.GeoServer;
@@ -15,8 +16,10 @@ import org.geoserver.platform.ServiceException;
 import org.geoserver.wfs.WFSGetFeatureOutputFormat;
 import org.geoserver.wfs.WFSInfo;
 import org.geoserver.wfs.request.FeatureCollectionResponse;
+import org.geoserver.wfs.request.GetFeatureRequest;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.feature.FeatureCollection;
+import org.geotools.util.Converters;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.wololo.flatgeobuf.geotools.FeatureCollectionConversions;
 
@@ -29,6 +32,18 @@ import org.wololo.flatgeobuf.geotools.FeatureCollectionConversions;
 public class FlatGeobufOutputFormat extends WFSGetFeatureOutputFormat {
     private final Logger LOGGER = org.geotools.util.logging.Logging.getLogger(this.getClass());
 
+    /** Format option enabling the spatial index */
+    public static final String INDEX_OPTION = "INDEX";
+
+    /** System variable enabling the spatial index by default */
+    public static final String INDEX_KEY = "org.geoserver.wfs.flatgeobuf.index";
+
+    /** System variable controlling the index node size, 16 by default */
+    public static final String NODE_SIZE_KEY = "org.geoserver.wfs.flatgeobuf.indexNodeSize";
+
+    /** System variable controlling the number of features sorted in memory at once */
+    public static final String RUN_SIZE_KEY = "org.geoserver.wfs.flatgeobuf.sortRunSize";
+
     public FlatGeobufOutputFormat(GeoServer gs) {
         super(gs, "application/flatgeobuf");
     }
@@ -66,7 +81,33 @@ public class FlatGeobufOutputFormat extends WFSGetFeatureOutputFormat {
 
         SimpleFeatureCollection fc =
                 (SimpleFeatureCollection) featureCollection.getFeature().get(0);
-        FeatureCollectionConversions.serialize(fc, 0, output);
+        if (isIndexed(operation)) {
+            new IndexedFlatGeobufWriter(
+                            Integer.getInteger(NODE_SIZE_KEY, 16),
+                            Integer.getInteger(RUN_SIZE_KEY, 100000))
+                    .write(fc, output);
+        } else {
+            FeatureCollectionConversions.serialize(fc, 0, output);
+        }
+    }
+
+    /**
+     * Checks the INDEX format option, falling back on the {@link #INDEX_KEY} system variable when
+     * not specified
+     */
+    protected boolean isIndexed(Operation operation) {
+        Object index = null;
+        if (operation != null && operation.getParameters().length > 0) {
+            GetFeatureRequest request = GetFeatureRequest.adapt(operation.getParameters()[0]);
+            Map formatOptions = request != null ? request.getFormatOptions() : null;
+            if (formatOptions != null) {
+                index = formatOptions.get(INDEX_OPTION);
+            }
+        }
+        if (index == null) {
+            return Boolean.getBoolean(INDEX_KEY);
+        }
+        return Boolean.TRUE.equals(Converters.convert(index, Boolean.class));
     }
 
     /** Is WFS configured to return feature and collection bounds? */
@@ -0,0 +1,696 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.flatgeobuf;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.io.FileUtils;
+import org.geoserver.util.IOUtils;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.collection.DecoratingSimpleFeatureCollection;
+import org.geotools.feature.collection.DecoratingSimpleFeatureIterator;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+import org.wololo.flatgeobuf.geotools.FeatureCollectionConversions;
+
+/**
+ * Writes FlatGeobuf files with a packed Hilbert R-tree index, allowing clients to read only the
+ * features intersecting a bounding box, via HTTP range requests, when the file is served
+ * statically.
+ *
+ * <p>The features are first serialized, in the order they are read, to a temporary FlatGeobuf file,
+ * recording their bounds. Their Hilbert codes, bounds and positions are then sorted with an
+ * external merge sort, in runs of bounded size, the index levels are built bottom up in temporary
+ * files, and the final file is assembled by copying the header, the index levels from the root
+ * down, and the features in Hilbert order. Memory usage is bounded by the run size, regardless of
+ * the number of features, and at most {@link #MERGE_FAN_IN} runs are open at any time, larger sorts
+ * are merged in multiple passes.
+ */
+class IndexedFlatGeobufWriter {
+
+    static final Logger LOGGER = Logging.getLogger(IndexedFlatGeobufWriter.class);
+
+    static final int HILBERT_MAX = (1 << 16) - 1;
+
+    /** FlatGeobuf header fields patched after writing, see header.fbs */
+    static final int FEATURES_COUNT_FIELD = 8;
+
+    static final int INDEX_NODE_SIZE_FIELD = 9;
+
+    /** Magic bytes, the header size prefix follows */
+    static final int MAGIC_SIZE = 8;
+
+    /** Four doubles plus the offset */
+    static final int NODE_SIZE_BYTES = 40;
+
+    /** Max number of sorted runs merged at once */
+    static final int MERGE_FAN_IN = 64;
+
+    final int nodeSize;
+
+    final int runSize;
+
+    final int fanIn;
+
+    IndexedFlatGeobufWriter(int nodeSize, int runSize) {
+        this(nodeSize, runSize, MERGE_FAN_IN);
+    }
+
+    IndexedFlatGeobufWriter(int nodeSize, int runSize, int fanIn) {
+        this.nodeSize = Math.max(nodeSize, 2);
+        this.runSize = Math.max(runSize, 1);
+        this.fanIn = Math.max(fanIn, 2);
+    }
+
+    void write(SimpleFeatureCollection collection, OutputStream output) throws IOException {
+        File directory = IOUtils.createTempDirectory("fgbidx");
+        try {
+            // serialize the features as they come, recording their bounds
+            File features = new File(directory, "features.fgb");
+            File bounds = new File(directory, "bounds.bin");
+            BoundsRecorder recorder;
+            try (DataOutputStream boundsOut = dataOutput(bounds);
+                    OutputStream featuresOut =
+                            new BufferedOutputStream(new FileOutputStream(features))) {
+                recorder = new BoundsRecorder(collection, boundsOut);
+                // the features are counted while spooling, the placeholder needs to be non zero
+                // for the field to be written, and patched later
+                FeatureCollectionConversions.serialize(recorder, 1, featuresOut);
+            }
+            long count = recorder.count;
+
+            try (RandomAccessFile source = new RandomAccessFile(features, "r")) {
+                byte[] header = readHeader(source);
+                long featuresStart = source.getFilePointer();
+                boolean indexed = count > 0 && patchHeader(header, count, nodeSize);
+                if (!indexed) {
+                    // nothing to index, or a header we cannot update, only fix the count
+                    if (count > 0) {
+                        LOGGER.warning("Could not add the index to the FlatGeobuf header");
+                    }
+                    patchHeader(header, count, 0);
+                }
+
+                // magic bytes and patched header
+                byte[] magic = new byte[MAGIC_SIZE];
+                source.seek(0);
+                source.readFully(magic);
+                output.write(magic);
+                ByteBuffer size = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+                size.putInt(header.length);
+                output.write(size.array());
+                output.write(header);
+
+                if (!indexed) {
+                    copy(
+                            source.getChannel(),
+                            featuresStart,
+                            source.length() - featuresStart,
+                            output);
+                    output.flush();
+                    return;
+                }
+
+                source.seek(featuresStart);
+                List<File> runs = sortRuns(source, bounds, recorder.extent, count, directory);
+                List<File> levels = buildIndex(runs, count, directory);
+
+                // index, root first
+                for (int i = levels.size() - 1; i >= 0; i--) {
+                    try (InputStream in = new FileInputStream(levels.get(i))) {
+                        org.apache.commons.io.IOUtils.copyLarge(in, output);
+                    }
+                }
+
+                // features, in hilbert order
+                File order = new File(directory, "order.bin");
+                try (DataInputStream in = dataInput(order)) {
+                    FileChannel channel = source.getChannel();
+                    for (long i = 0; i < count; i++) {
+                        long offset = in.readLong();
+                        int length = in.readInt();
+                        copy(channel, offset, length, output);
+                    }
+                }
+                output.flush();
+            }
+        } finally {
+            try {
+                FileUtils.deleteDirectory(directory);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Could not delete " + directory, e);
+            }
+        }
+    }
+
+    /** Reads the header flatbuffer, positioning the file at the beginning of the features */
+    byte[] readHeader(RandomAccessFile source) throws IOException {
+        source.seek(MAGIC_SIZE);
+        byte[] size = new byte[4];
+        source.readFully(size);
+        int headerSize = ByteBuffer.wrap(size).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        byte[] header = new byte[headerSize];
+        source.readFully(header);
+        return header;
+    }
+
+    /**
+     * Sets the features count and index node size in the header flatbuffer, in place. Returns false
+     * if the fields are not present in the buffer, in which case the header cannot be updated
+     * without rebuilding it.
+     *
+     * @param nodeSize the index node size, zero to leave it untouched
+     */
+    static boolean patchHeader(byte[] header, long count, int nodeSize) {
+        ByteBuffer bb = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+        int table = bb.getInt(0);
+        int vtable = table - bb.getInt(table);
+        int vtableSize = bb.getShort(vtable) & 0xFFFF;
+        int countOffset = fieldOffset(bb, vtable, vtableSize, FEATURES_COUNT_FIELD);
+        int nodeSizeOffset = fieldOffset(bb, vtable, vtableSize, INDEX_NODE_SIZE_FIELD);
+        // an absent node size field means the default, 16
+        if (countOffset == 0 || (nodeSizeOffset == 0 && nodeSize != 0 && nodeSize != 16)) {
+            return false;
+        }
+        bb.putLong(table + countOffset, count);
+        if (nodeSizeOffset != 0 && nodeSize != 0) {
+            bb.putShort(table + nodeSizeOffset, (short) nodeSize);
+        }
+        return true;
+    }
+
+    private static int fieldOffset(ByteBuffer bb, int vtable, int vtableSize, int field) {
+        int slot = 4 + 2 * field;
+        return slot < vtableSize ? bb.getShort(vtable + slot) & 0xFFFF : 0;
+    }
+
+    /**
+     * Walks the serialized features, pairing their position and size with the recorded bounds, and
+     * writes out sorted runs of items
+     */
+    List<File> sortRuns(
+            RandomAccessFile source, File bounds, Envelope extent, long count, File directory)
+            throws IOException {
+        List<File> runs = new ArrayList<>();
+        List<Item> run = new ArrayList<>();
+        long position = source.getFilePointer();
+        try (DataInputStream in = dataInput(bounds)) {
+            byte[] size = new byte[4];
+            for (long i = 0; i < count; i++) {
+                source.seek(position);
+                source.readFully(size);
+                int length = ByteBuffer.wrap(size).order(ByteOrder.LITTLE_ENDIAN).getInt() + 4;
+                Item item =
+                        new Item(
+                                in.readDouble(),
+                                in.readDouble(),
+                                in.readDouble(),
+                                in.readDouble(),
+                                position,
+                                length);
+                item.hilbert = hilbert(item, extent);
+                run.add(item);
+                position += length;
+                if (run.size() == runSize) {
+                    runs.add(writeRun(run, directory, runs.size()));
+                    run.clear();
+                }
+            }
+        }
+        if (!run.isEmpty()) {
+            runs.add(writeRun(run, directory, runs.size()));
+        }
+        return runs;
+    }
+
+    private File writeRun(List<Item> run, File directory, int index) throws IOException {
+        Item[] items = run.toArray(new Item[run.size()]);
+        Arrays.sort(items);
+        File file = new File(directory, "run-" + index + ".bin");
+        try (DataOutputStream out = dataOutput(file)) {
+            for (Item item : items) {
+                item.write(out);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Merges the sorted runs into the leaf level, recording the features order, then builds the
+     * upper levels. Returns the level files, leaves first.
+     */
+    List<File> buildIndex(List<File> runs, long count, File directory) throws IOException {
+        // level sizes, following the FlatGeobuf packed R-tree layout (there is always a root)
+        List<Long> sizes = new ArrayList<>();
+        long n = count;
+        sizes.add(n);
+        do {
+            n = (n + nodeSize - 1) / nodeSize;
+            sizes.add(n);
+        } while (n != 1);
+        // start index of each level in the whole tree, the root being at index 0
+        long[] starts = new long[sizes.size()];
+        long start = 0;
+        for (int i = sizes.size() - 1; i >= 0; i--) {
+            starts[i] = start;
+            start += sizes.get(i);
+        }
+
+        runs = reduceRuns(runs, directory);
+        List<File> levels = new ArrayList<>();
+        File leaves = new File(directory, "level-0.bin");
+        File order = new File(directory, "order.bin");
+        try (RunMerger merger = new RunMerger(runs);
+                OutputStream leavesOut = new BufferedOutputStream(new FileOutputStream(leaves));
+                DataOutputStream orderOut = dataOutput(order)) {
+            ByteBuffer node = ByteBuffer.allocate(NODE_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long offset = 0;
+            Item item;
+            while ((item = merger.next()) != null) {
+                writeNode(node, item.minX, item.minY, item.maxX, item.maxY, offset, leavesOut);
+                orderOut.writeLong(item.position);
+                orderOut.writeInt(item.length);
+                offset += item.length;
+            }
+        }
+        levels.add(leaves);
+
+        for (int level = 0; level < sizes.size() - 1; level++) {
+            File parents = new File(directory, "level-" + (level + 1) + ".bin");
+            writeParents(levels.get(level), starts[level], parents);
+            levels.add(parents);
+        }
+        return levels;
+    }
+
+    /**
+     * Merges the runs in groups of at most {@link #fanIn}, until they can be merged in a single
+     * pass
+     */
+    List<File> reduceRuns(List<File> runs, File directory) throws IOException {
+        int pass = 0;
+        while (runs.size() > fanIn) {
+            List<File> merged = new ArrayList<>();
+            for (int i = 0; i < runs.size(); i += fanIn) {
+                List<File> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                File file = new File(directory, "run-" + pass + "-" + merged.size() + ".bin");
+                try (RunMerger merger = new RunMerger(group);
+                        DataOutputStream out = dataOutput(file)) {
+                    Item item;
+                    while ((item = merger.next()) != null) {
+                        item.write(out);
+                    }
+                }
+                for (File run : group) {
+                    run.delete();
+                }
+                merged.add(file);
+            }
+            runs = merged;
+            pass++;
+        }
+        return runs;
+    }
+
+    /** Groups the nodes of a level, writing their parents */
+    private void writeParents(File children, long childrenStart, File parents) throws IOException {
+        ByteBuffer node = ByteBuffer.allocate(NODE_SIZE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] buffer = new byte[NODE_SIZE_BYTES];
+        try (InputStream in = new BufferedInputStream(new FileInputStream(children));
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(parents))) {
+            long index = 0;
+            Envelope bounds = new Envelope();
+            int grouped = 0;
+            long firstChild = childrenStart;
+            while (readFully(in, buffer)) {
+                ByteBuffer child = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+                double minX = child.getDouble(0);
+                if (!Double.isNaN(minX)) {
+                    bounds.expandToInclude(minX, child.getDouble(8));
+                    bounds.expandToInclude(child.getDouble(16), child.getDouble(24));
+                }
+                if (grouped == 0) {
+                    firstChild = childrenStart + index;
+                }
+                grouped++;
+                index++;
+                if (grouped == nodeSize) {
+                    writeParent(node, bounds, firstChild, out);
+                    bounds = new Envelope();
+                    grouped = 0;
+                }
+            }
+            if (grouped > 0) {
+                writeParent(node, bounds, firstChild, out);
+            }
+        }
+    }
+
+    private void writeParent(ByteBuffer node, Envelope bounds, long firstChild, OutputStream out)
+            throws IOException {
+        if (bounds.isNull()) {
+            writeNode(node, Double.NaN, Double.NaN, Double.NaN, Double.NaN, firstChild, out);
+        } else {
+            writeNode(
+                    node,
+                    bounds.getMinX(),
+                    bounds.getMinY(),
+                    bounds.getMaxX(),
+                    bounds.getMaxY(),
+                    firstChild,
+                    out);
+        }
+    }
+
+    private static void writeNode(
+            ByteBuffer node,
+            double minX,
+            double minY,
+            double maxX,
+            double maxY,
+            long offset,
+            OutputStream out)
+            throws IOException {
+        node.clear();
+        node.putDouble(minX).putDouble(minY).putDouble(maxX).putDouble(maxY).putLong(offset);
+        out.write(node.array());
+    }
+
+    private static boolean readFully(InputStream in, byte[] buffer) throws IOException {
+        int read = 0;
+        while (read < buffer.length) {
+            int r = in.read(buffer, read, buffer.length - read);
+            if (r < 0) {
+                if (read == 0) {
+                    return false;
+                }
+                throw new EOFException("Truncated index level");
+            }
+            read += r;
+        }
+        return true;
+    }
+
+    private static void copy(FileChannel channel, long position, long length, OutputStream output)
+            throws IOException {
+        WritableByteChannel target = Channels.newChannel(output);
+        long copied = 0;
+        while (copied < length) {
+            long n = channel.transferTo(position + copied, length - copied, target);
+            if (n <= 0) {
+                throw new EOFException("Unexpected end of the serialized features");
+            }
+            copied += n;
+        }
+    }
+
+    /** Hilbert code of the item center, on a 16 bits grid covering the extent */
+    static long hilbert(Item item, Envelope extent) {
+        if (Double.isNaN(item.minX) || extent.isNull()) {
+            return 0;
+        }
+        double width = extent.getWidth();
+        double height = extent.getHeight();
+        int x = 0;
+        int y = 0;
+        if (width > 0) {
+            x =
+                    (int)
+                            Math.floor(
+                                    HILBERT_MAX
+                                            * ((item.minX + item.maxX) / 2 - extent.getMinX())
+                                            / width);
+        }
+        if (height > 0) {
+            y =
+                    (int)
+                            Math.floor(
+                                    HILBERT_MAX
+                                            * ((item.minY + item.maxY) / 2 - extent.getMinY())
+                                            / height);
+        }
+        return hilbert(x, y) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Hilbert curve index of a point on a 16 bits grid, from "Fast Hilbert curve generation,
+     * sorting, and range queries" by rawrunprotected, the same used by the reference FlatGeobuf
+     * implementation
+     */
+    static int hilbert(int x, int y) {
+        int a = x ^ y;
+        int b = 0xFFFF ^ a;
+        int c = 0xFFFF ^ (x | y);
+        int d = x & (y ^ 0xFFFF);
+
+        int A = a | (b >>> 1);
+        int B = (a >>> 1) ^ a;
+        int C = ((c >>> 1) ^ (b & (d >>> 1))) ^ c;
+        int D = ((a & (c >>> 1)) ^ (d >>> 1)) ^ d;
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >>> 2)) ^ (b & (b >>> 2)));
+        B = ((a & (b >>> 2)) ^ (b & ((a ^ b) >>> 2)));
+        C ^= ((a & (c >>> 2)) ^ (b & (d >>> 2)));
+        D ^= ((b & (c >>> 2)) ^ ((a ^ b) & (d >>> 2)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        A = ((a & (a >>> 4)) ^ (b & (b >>> 4)));
+        B = ((a & (b >>> 4)) ^ (b & ((a ^ b) >>> 4)));
+        C ^= ((a & (c >>> 4)) ^ (b & (d >>> 4)));
+        D ^= ((b & (c >>> 4)) ^ ((a ^ b) & (d >>> 4)));
+
+        a = A;
+        b = B;
+        c = C;
+        d = D;
+        C ^= ((a & (c >>> 8)) ^ (b & (d >>> 8)));
+        D ^= ((b & (c >>> 8)) ^ ((a ^ b) & (d >>> 8)));
+
+        a = C ^ (C >>> 1);
+        b = D ^ (D >>> 1);
+
+        int i0 = x ^ y;
+        int i1 = b | (0xFFFF ^ (i0 | a));
+
+        i0 = (i0 | (i0 << 8)) & 0x00FF00FF;
+        i0 = (i0 | (i0 << 4)) & 0x0F0F0F0F;
+        i0 = (i0 | (i0 << 2)) & 0x33333333;
+        i0 = (i0 | (i0 << 1)) & 0x55555555;
+
+        i1 = (i1 | (i1 << 8)) & 0x00FF00FF;
+        i1 = (i1 | (i1 << 4)) & 0x0F0F0F0F;
+        i1 = (i1 | (i1 << 2)) & 0x33333333;
+        i1 = (i1 | (i1 << 1)) & 0x55555555;
+
+        return (i1 << 1) | i0;
+    }
+
+    private static DataOutputStream dataOutput(File file) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    }
+
+    private static DataInputStream dataInput(File file) throws IOException {
+        return new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    }
+
+    /** A feature, as far as the index is concerned */
+    static class Item implements Comparable<Item> {
+        final double minX, minY, maxX, maxY;
+
+        /** Position and length, size prefix included, in the temporary features file */
+        final long position;
+
+        final int length;
+
+        long hilbert;
+
+        Item(double minX, double minY, double maxX, double maxY, long position, int length) {
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.position = position;
+            this.length = length;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(hilbert);
+            out.writeDouble(minX);
+            out.writeDouble(minY);
+            out.writeDouble(maxX);
+            out.writeDouble(maxY);
+            out.writeLong(position);
+            out.writeInt(length);
+        }
+
+        static Item read(DataInputStream in) throws IOException {
+            long hilbert = in.readLong();
+            Item item =
+                    new Item(
+                            in.readDouble(),
+                            in.readDouble(),
+                            in.readDouble(),
+                            in.readDouble(),
+                            in.readLong(),
+                            in.readInt());
+            item.hilbert = hilbert;
+            return item;
+        }
+
+        @Override
+        public int compareTo(Item o) {
+            // ties keep the original order, which is also the position order
+            int result = Long.compare(hilbert, o.hilbert);
+            return result != 0 ? result : Long.compare(position, o.position);
+        }
+    }
+
+    /** Merges sorted runs of items */
+    static class RunMerger implements AutoCloseable {
+
+        static class Head implements Comparable<Head> {
+            final DataInputStream in;
+
+            final long remaining;
+
+            Item item;
+
+            long read;
+
+            Head(DataInputStream in, long remaining) {
+                this.in = in;
+                this.remaining = remaining;
+            }
+
+            boolean advance() throws IOException {
+                if (read == remaining) {
+                    item = null;
+                    return false;
+                }
+                item = Item.read(in);
+                read++;
+                return true;
+            }
+
+            @Override
+            public int compareTo(Head o) {
+                return item.compareTo(o.item);
+            }
+        }
+
+        /** Bytes of a serialized item */
+        static final int ITEM_SIZE = 8 * 6 + 4;
+
+        final List<DataInputStream> streams = new ArrayList<>();
+
+        final PriorityQueue<Head> queue = new PriorityQueue<>();
+
+        RunMerger(List<File> runs) throws IOException {
+            for (File run : runs) {
+                DataInputStream in = dataInput(run);
+                streams.add(in);
+                Head head = new Head(in, run.length() / ITEM_SIZE);
+                if (head.advance()) {
+                    queue.add(head);
+                }
+            }
+        }
+
+        Item next() throws IOException {
+            Head head = queue.poll();
+            if (head == null) {
+                return null;
+            }
+            Item item = head.item;
+            if (head.advance()) {
+                queue.add(head);
+            }
+            return item;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (DataInputStream in : streams) {
+                in.close();
+            }
+        }
+    }
+
+    /** Records the bounds of the features while they are being serialized */
+    static class BoundsRecorder extends DecoratingSimpleFeatureCollection {
+
+        final DataOutputStream out;
+
+        final Envelope extent = new Envelope();
+
+        long count;
+
+        BoundsRecorder(SimpleFeatureCollection delegate, DataOutputStream out) {
+            super(delegate);
+            this.out = out;
+        }
+
+        @Override
+        public SimpleFeatureIterator features() {
+            return new DecoratingSimpleFeatureIterator(super.features()) {
+                @Override
+                public SimpleFeature next() {
+                    SimpleFeature feature = super.next();
+                    Geometry geometry = (Geometry) feature.getDefaultGeometry();
+                    try {
+                        if (geometry == null || geometry.isEmpty()) {
+                            // cannot be found by bbox, but still needs an entry
+                            for (int i = 0; i < 4; i++) {
+                                out.writeDouble(Double.NaN);
+                            }
+                        } else {
+                            Envelope envelope = geometry.getEnvelopeInternal();
+                            out.writeDouble(envelope.getMinX());
+                            out.writeDouble(envelope.getMinY());
+                            out.writeDouble(envelope.getMaxX());
+                            out.writeDouble(envelope.getMaxY());
+                            extent.expandToInclude(envelope);
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException("Failed to record the feature bounds", e);
+                    }
+                    count++;
+                    return feature;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.flatgeobuf;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.wololo.flatgeobuf.generated.Feature;
+import org.wololo.flatgeobuf.generated.Header;
+
+public class IndexedFlatGeobufWriterTest {
+
+    static final GeometryFactory GF = new GeometryFactory();
+
+    static final int SIDE = 30;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("points", "geom:Point:srid=4326,id:int");
+        ListFeatureCollection features = new ListFeatureCollection(type);
+        // a grid of points, in row order
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                features.add(
+                        SimpleFeatureBuilder.build(
+                                type,
+                                new Object[] {GF.createPoint(new Coordinate(x, y)), y * SIDE + x},
+                                null));
+            }
+        }
+
+        // small runs and fan in, to go through the multi pass merge
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new IndexedFlatGeobufWriter(4, 50, 4).write(features, bos);
+        FlatGeobuf fgb = new FlatGeobuf(bos.toByteArray());
+
+        assertEquals(SIDE * SIDE, fgb.header.featuresCount());
+        assertEquals(4, fgb.header.indexNodeSize());
+
+        // every feature is found with the full extent, exactly once
+        List<String> all = fgb.search(new Envelope(0, SIDE, 0, SIDE));
+        assertEquals(SIDE * SIDE, all.size());
+        assertEquals(SIDE * SIDE, new HashSet<>(all).size());
+
+        // a bbox search returns the features inside it, and only those
+        Set<String> expected = new HashSet<>();
+        for (int y = 6; y <= 8; y++) {
+            for (int x = 6; x <= 10; x++) {
+                expected.add(x + " " + y);
+            }
+        }
+        List<String> found = fgb.search(new Envelope(5.5, 10.5, 5.5, 8.5));
+        assertEquals(expected.size(), found.size());
+        assertEquals(expected, new HashSet<>(found));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        SimpleFeatureType type = DataUtilities.createType("points", "geom:Point:srid=4326,id:int");
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new IndexedFlatGeobufWriter(16, 100).write(new ListFeatureCollection(type), bos);
+        FlatGeobuf fgb = new FlatGeobuf(bos.toByteArray());
+        assertEquals(0, fgb.header.featuresCount());
+    }
+
+    /** Minimal reader of an indexed FlatGeobuf file, following the packed R-tree layout */
+    static class FlatGeobuf {
+
+        final ByteBuffer bb;
+
+        final Header header;
+
+        final long indexStart;
+
+        final long featuresStart;
+
+        /** Start index and size of each level, root level first */
+        final List<long[]> levels = new ArrayList<>();
+
+        FlatGeobuf(byte[] contents) {
+            bb = ByteBuffer.wrap(contents).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals('f', bb.get(0));
+            assertEquals('g', bb.get(1));
+            assertEquals('b', bb.get(2));
+            int headerSize = bb.getInt(8);
+            header = Header.getRootAsHeader(slice(12, headerSize));
+            indexStart = 12 + headerSize;
+
+            long count = header.featuresCount();
+            int nodeSize = header.indexNodeSize();
+            // level sizes, leaves first, there is always a root above the leaves
+            List<Long> sizes = new ArrayList<>();
+            if (count > 0 && nodeSize > 0) {
+                long n = count;
+                sizes.add(n);
+                do {
+                    n = (n + nodeSize - 1) / nodeSize;
+                    sizes.add(n);
+                } while (n != 1);
+            }
+            long start = 0;
+            for (int i = sizes.size() - 1; i >= 0; i--) {
+                levels.add(new long[] {start, sizes.get(i)});
+                start += sizes.get(i);
+            }
+            featuresStart = indexStart + start * IndexedFlatGeobufWriter.NODE_SIZE_BYTES;
+        }
+
+        /** Returns the coordinates of the features intersecting the envelope */
+        List<String> search(Envelope envelope) {
+            List<String> result = new ArrayList<>();
+            search(envelope, 0, 0, result);
+            return result;
+        }
+
+        private void search(Envelope envelope, int level, long index, List<String> result) {
+            int nodeSize = header.indexNodeSize();
+            long[] bounds = levels.get(level);
+            boolean leaf = level == levels.size() - 1;
+            long end =
+                    level == 0 ? bounds[0] + 1 : Math.min(index + nodeSize, bounds[0] + bounds[1]);
+            for (long i = index; i < end; i++) {
+                int pos = (int) (indexStart + i * IndexedFlatGeobufWriter.NODE_SIZE_BYTES);
+                Envelope node =
+                        new Envelope(
+                                bb.getDouble(pos),
+                                bb.getDouble(pos + 16),
+                                bb.getDouble(pos + 8),
+                                bb.getDouble(pos + 24));
+                if (!node.intersects(envelope)) {
+                    continue;
+                }
+                long offset = bb.getLong(pos + 32);
+                if (leaf) {
+                    result.add(readPoint(featuresStart + offset));
+                } else {
+                    search(envelope, level + 1, offset, result);
+                }
+            }
+        }
+
+        private String readPoint(long position) {
+            int size = bb.getInt((int) position);
+            Feature feature = Feature.getRootAsFeature(slice((int) position + 4, size));
+            return (int) feature.geometry().xy(0) + " " + (int) feature.geometry().xy(1);
+        }
+
+        private ByteBuffer slice(int position, int length) {
+            ByteBuffer copy = bb.duplicate();
+            copy.position(position);
+            copy.limit(position + length);
+            return copy.slice().order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+}
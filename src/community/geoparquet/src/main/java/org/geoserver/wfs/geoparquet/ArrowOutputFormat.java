@@ -0,0 +1,212 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.geoserver.config.GeoServer;
+import org.geoserver.platform.Operation;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.wfs.request.FeatureCollectionResponse;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+
+/**
+ * Writes the features as an Arrow IPC stream. Features are accumulated in column vectors, and each
+ * record batch is written straight from the vector buffers to the response, without further copies.
+ * Geometries are encoded as WKB, and tagged with the {@code geoarrow.wkb} extension type.
+ */
+public class ArrowOutputFormat extends ColumnarOutputFormat {
+
+    public static final String MIME_TYPE = "application/vnd.apache.arrow.stream";
+
+    /** System variable controlling the number of features in each record batch */
+    public static final String BATCH_SIZE_KEY = "org.geoserver.wfs.arrow.batchSize";
+
+    static final String EXTENSION_NAME = "ARROW:extension:name";
+
+    static final String GEOARROW_WKB = "geoarrow.wkb";
+
+    public ArrowOutputFormat(GeoServer gs) {
+        super(gs, new LinkedHashSet<>(Arrays.asList(MIME_TYPE, "arrow")), "arrows");
+    }
+
+    @Override
+    public String getCapabilitiesElementName() {
+        return "Arrow";
+    }
+
+    @Override
+    public String getMimeType(Object value, Operation operation) throws ServiceException {
+        return MIME_TYPE;
+    }
+
+    @Override
+    protected void write(
+            FeatureCollectionResponse featureCollection, OutputStream output, Operation operation)
+            throws IOException {
+        SimpleFeatureCollection collection = getCollection(featureCollection);
+        SimpleFeatureType schema = collection.getSchema();
+        List<ColumnType> types = new ArrayList<>();
+        List<GeometryColumn> geometries = new ArrayList<>();
+        Schema arrowSchema = toArrowSchema(schema, types, geometries);
+        int batchSize = Math.max(Integer.getInteger(BATCH_SIZE_KEY, 10000), 1);
+
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+                VectorSchemaRoot root = VectorSchemaRoot.create(arrowSchema, allocator);
+                ArrowStreamWriter writer =
+                        new ArrowStreamWriter(
+                                root,
+                                null,
+                                Channels.newChannel(new CloseShieldOutputStream(output)));
+                SimpleFeatureIterator it = collection.features()) {
+            writer.start();
+            root.allocateNew();
+            int row = 0;
+            while (it.hasNext()) {
+                SimpleFeature feature = it.next();
+                for (int i = 0; i < types.size(); i++) {
+                    set(
+                            root.getVector(i),
+                            types.get(i),
+                            geometries.get(i),
+                            row,
+                            feature.getAttribute(i));
+                }
+                row++;
+                if (row == batchSize) {
+                    root.setRowCount(row);
+                    writer.writeBatch();
+                    root.allocateNew();
+                    row = 0;
+                }
+            }
+            if (row > 0) {
+                root.setRowCount(row);
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+    }
+
+    /** Builds the Arrow schema, collecting the column types and geometry columns in order */
+    static Schema toArrowSchema(
+            SimpleFeatureType schema, List<ColumnType> types, List<GeometryColumn> geometries) {
+        List<Field> fields = new ArrayList<>();
+        for (AttributeDescriptor ad : schema.getAttributeDescriptors()) {
+            ColumnType type = ColumnType.of(ad);
+            types.add(type);
+            geometries.add(
+                    type == ColumnType.GEOMETRY
+                            ? new GeometryColumn((GeometryDescriptor) ad)
+                            : null);
+            fields.add(toField(ad.getLocalName(), type));
+        }
+        Map<String, String> metadata = new HashMap<>();
+        if (schema.getGeometryDescriptor() != null) {
+            metadata.put("geometry_column", schema.getGeometryDescriptor().getLocalName());
+        }
+        return new Schema(fields, metadata);
+    }
+
+    static Field toField(String name, ColumnType type) {
+        switch (type) {
+            case INTEGER:
+                return Field.nullable(name, new ArrowType.Int(32, true));
+            case LONG:
+                return Field.nullable(name, new ArrowType.Int(64, true));
+            case DOUBLE:
+                return Field.nullable(
+                        name, new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE));
+            case BOOLEAN:
+                return Field.nullable(name, ArrowType.Bool.INSTANCE);
+            case TIMESTAMP:
+                return Field.nullable(name, new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC"));
+            case GEOMETRY:
+                return new Field(
+                        name,
+                        new FieldType(
+                                true,
+                                ArrowType.Binary.INSTANCE,
+                                null,
+                                Collections.singletonMap(EXTENSION_NAME, GEOARROW_WKB)),
+                        null);
+            default:
+                return Field.nullable(name, ArrowType.Utf8.INSTANCE);
+        }
+    }
+
+    private void set(
+            FieldVector vector,
+            ColumnType type,
+            GeometryColumn geometry,
+            int row,
+            Object attribute) {
+        Object value = type.convert(attribute);
+        if (type == ColumnType.GEOMETRY) {
+            value = geometry.encode((Geometry) value);
+        }
+        if (value == null) {
+            // vectors are allocated with all values unset, that is, null
+            return;
+        }
+        switch (type) {
+            case INTEGER:
+                ((IntVector) vector).setSafe(row, (Integer) value);
+                break;
+            case LONG:
+                ((BigIntVector) vector).setSafe(row, (Long) value);
+                break;
+            case DOUBLE:
+                ((Float8Vector) vector).setSafe(row, (Double) value);
+                break;
+            case BOOLEAN:
+                ((BitVector) vector).setSafe(row, ((Boolean) value) ? 1 : 0);
+                break;
+            case TIMESTAMP:
+                ((TimeStampMilliTZVector) vector).setSafe(row, (Long) value);
+                break;
+            case GEOMETRY:
+                ((VarBinaryVector) vector).setSafe(row, (byte[]) value);
+                break;
+            default:
+                ((VarCharVector) vector)
+                        .setSafe(row, ((String) value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.math.BigInteger;
+import java.util.Date;
+import org.geotools.util.Converters;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.type.AttributeDescriptor;
+
+/**
+ * The column types used by the columnar output formats, and the conversion of attribute values into
+ * them. Attributes whose binding has no direct columnar equivalent are written as strings.
+ */
+enum ColumnType {
+    STRING,
+    INTEGER,
+    LONG,
+    DOUBLE,
+    BOOLEAN,
+    /** Milliseconds since the epoch, UTC */
+    TIMESTAMP,
+    /** WKB, see {@link GeometryColumn} */
+    GEOMETRY;
+
+    /** Returns the column type for the given attribute */
+    static ColumnType of(AttributeDescriptor descriptor) {
+        Class<?> binding = descriptor.getType().getBinding();
+        if (Geometry.class.isAssignableFrom(binding)) {
+            return GEOMETRY;
+        } else if (Integer.class.equals(binding)
+                || Short.class.equals(binding)
+                || Byte.class.equals(binding)) {
+            return INTEGER;
+        } else if (Long.class.equals(binding) || BigInteger.class.equals(binding)) {
+            return LONG;
+        } else if (Number.class.isAssignableFrom(binding)) {
+            return DOUBLE;
+        } else if (Boolean.class.equals(binding)) {
+            return BOOLEAN;
+        } else if (Date.class.isAssignableFrom(binding)) {
+            return TIMESTAMP;
+        }
+        return STRING;
+    }
+
+    /**
+     * Converts the attribute value to the java type associated to the column: {@link String},
+     * {@link Integer}, {@link Long} (also for timestamps), {@link Double}, {@link Boolean} or
+     * {@link Geometry}
+     *
+     * @return the converted value, or null if the value is null or cannot be converted
+     */
+    Object convert(Object value) {
+        if (value == null) {
+            return null;
+        }
+        switch (this) {
+            case INTEGER:
+                return value instanceof Number
+                        ? Integer.valueOf(((Number) value).intValue())
+                        : Converters.convert(value, Integer.class);
+            case LONG:
+                return value instanceof Number
+                        ? Long.valueOf(((Number) value).longValue())
+                        : Converters.convert(value, Long.class);
+            case DOUBLE:
+                return value instanceof Number
+                        ? Double.valueOf(((Number) value).doubleValue())
+                        : Converters.convert(value, Double.class);
+            case BOOLEAN:
+                return Converters.convert(value, Boolean.class);
+            case TIMESTAMP:
+                Date date =
+                        value instanceof Date
+                                ? (Date) value
+                                : Converters.convert(value, Date.class);
+                return date != null ? date.getTime() : null;
+            case GEOMETRY:
+                return value instanceof Geometry ? value : null;
+            default:
+                return value instanceof String ? value : Converters.convert(value, String.class);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.util.List;
+import java.util.Set;
+import org.geoserver.config.GeoServer;
+import org.geoserver.platform.Operation;
+import org.geoserver.wfs.WFSException;
+import org.geoserver.wfs.WFSGetFeatureOutputFormat;
+import org.geoserver.wfs.request.FeatureCollectionResponse;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.feature.FeatureCollection;
+
+/**
+ * Base class for the columnar output formats, which write a single table and thus support a single
+ * feature type of simple features.
+ */
+public abstract class ColumnarOutputFormat extends WFSGetFeatureOutputFormat {
+
+    private final String extension;
+
+    protected ColumnarOutputFormat(GeoServer gs, Set<String> outputFormats, String extension) {
+        super(gs, outputFormats);
+        this.extension = extension;
+    }
+
+    /** Returns the only collection of the response, checking it contains simple features */
+    protected SimpleFeatureCollection getCollection(FeatureCollectionResponse response) {
+        List<FeatureCollection> collections = response.getFeatures();
+        if (collections.size() != 1) {
+            throw new WFSException(
+                    "The "
+                            + getCapabilitiesElementName()
+                            + " output format supports a single feature type");
+        }
+        FeatureCollection collection = collections.get(0);
+        if (!(collection instanceof SimpleFeatureCollection)) {
+            throw new WFSException(
+                    "The "
+                            + getCapabilitiesElementName()
+                            + " output format does not support complex features");
+        }
+        return (SimpleFeatureCollection) collection;
+    }
+
+    @Override
+    public String getPreferredDisposition(Object value, Operation operation) {
+        return DISPOSITION_ATTACH;
+    }
+
+    @Override
+    protected String getExtension(FeatureCollectionResponse response) {
+        return extension;
+    }
+}
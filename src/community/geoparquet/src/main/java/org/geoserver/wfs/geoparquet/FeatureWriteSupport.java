@@ -0,0 +1,174 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import net.sf.json.JSONObject;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Types;
+import org.locationtech.jts.geom.Geometry;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.GeometryDescriptor;
+
+/**
+ * Writes simple features as Parquet records, one optional column per attribute, and adds the
+ * GeoParquet {@code geo} metadata to the file footer.
+ */
+class FeatureWriteSupport extends WriteSupport<SimpleFeature> {
+
+    static final String GEO_KEY = "geo";
+
+    static final String GEOPARQUET_VERSION = "1.0.0";
+
+    final SimpleFeatureType featureType;
+
+    final MessageType schema;
+
+    final List<String> names = new ArrayList<>();
+
+    final List<ColumnType> types = new ArrayList<>();
+
+    final List<GeometryColumn> geometries = new ArrayList<>();
+
+    RecordConsumer consumer;
+
+    FeatureWriteSupport(SimpleFeatureType featureType) {
+        this.featureType = featureType;
+        Types.MessageTypeBuilder builder = Types.buildMessage();
+        for (AttributeDescriptor ad : featureType.getAttributeDescriptors()) {
+            String name = ad.getLocalName();
+            ColumnType type = ColumnType.of(ad);
+            names.add(name);
+            types.add(type);
+            geometries.add(
+                    type == ColumnType.GEOMETRY
+                            ? new GeometryColumn((GeometryDescriptor) ad)
+                            : null);
+            switch (type) {
+                case INTEGER:
+                    builder.optional(PrimitiveTypeName.INT32).named(name);
+                    break;
+                case LONG:
+                    builder.optional(PrimitiveTypeName.INT64).named(name);
+                    break;
+                case DOUBLE:
+                    builder.optional(PrimitiveTypeName.DOUBLE).named(name);
+                    break;
+                case BOOLEAN:
+                    builder.optional(PrimitiveTypeName.BOOLEAN).named(name);
+                    break;
+                case TIMESTAMP:
+                    builder.optional(PrimitiveTypeName.INT64)
+                            .as(
+                                    LogicalTypeAnnotation.timestampType(
+                                            true, LogicalTypeAnnotation.TimeUnit.MILLIS))
+                            .named(name);
+                    break;
+                case GEOMETRY:
+                    builder.optional(PrimitiveTypeName.BINARY).named(name);
+                    break;
+                default:
+                    builder.optional(PrimitiveTypeName.BINARY)
+                            .as(LogicalTypeAnnotation.stringType())
+                            .named(name);
+            }
+        }
+        this.schema = builder.named(featureType.getTypeName());
+    }
+
+    @Override
+    public WriteContext init(Configuration configuration) {
+        return new WriteContext(schema, new HashMap<>());
+    }
+
+    @Override
+    public void prepareForWrite(RecordConsumer recordConsumer) {
+        this.consumer = recordConsumer;
+    }
+
+    @Override
+    public void write(SimpleFeature feature) {
+        consumer.startMessage();
+        for (int i = 0; i < types.size(); i++) {
+            ColumnType type = types.get(i);
+            Object value = type.convert(feature.getAttribute(i));
+            if (type == ColumnType.GEOMETRY) {
+                value = geometries.get(i).encode((Geometry) value);
+            }
+            if (value == null) {
+                // optional fields are left out
+                continue;
+            }
+            String name = names.get(i);
+            consumer.startField(name, i);
+            switch (type) {
+                case INTEGER:
+                    consumer.addInteger((Integer) value);
+                    break;
+                case LONG:
+                case TIMESTAMP:
+                    consumer.addLong((Long) value);
+                    break;
+                case DOUBLE:
+                    consumer.addDouble((Double) value);
+                    break;
+                case BOOLEAN:
+                    consumer.addBoolean((Boolean) value);
+                    break;
+                case GEOMETRY:
+                    consumer.addBinary(Binary.fromConstantByteArray((byte[]) value));
+                    break;
+                default:
+                    consumer.addBinary(Binary.fromString((String) value));
+            }
+            consumer.endField(name, i);
+        }
+        consumer.endMessage();
+    }
+
+    @Override
+    public FinalizedWriteContext finalizeWrite() {
+        JSONObject geo = getGeoMetadata();
+        if (geo == null) {
+            return new FinalizedWriteContext(Collections.emptyMap());
+        }
+        return new FinalizedWriteContext(Collections.singletonMap(GEO_KEY, geo.toString()));
+    }
+
+    /**
+     * The GeoParquet file metadata, with the geometry types and bounds found while writing, or null
+     * if there are no geometry columns
+     */
+    JSONObject getGeoMetadata() {
+        JSONObject columns = new JSONObject();
+        for (GeometryColumn geometry : geometries) {
+            if (geometry != null) {
+                columns.put(geometry.name, geometry.getMetadata());
+            }
+        }
+        if (columns.isEmpty()) {
+            return null;
+        }
+        GeometryDescriptor primary = featureType.getGeometryDescriptor();
+        JSONObject geo = new JSONObject();
+        geo.put("version", GEOPARQUET_VERSION);
+        geo.put(
+                "primary_column",
+                primary != null ? primary.getLocalName() : (String) columns.keys().next());
+        geo.put("columns", columns);
+        return geo;
+    }
+}
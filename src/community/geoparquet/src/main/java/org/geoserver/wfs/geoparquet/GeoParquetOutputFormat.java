@@ -0,0 +1,95 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.geoserver.config.GeoServer;
+import org.geoserver.platform.Operation;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.wfs.request.FeatureCollectionResponse;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+/**
+ * Writes the features as a GeoParquet file. Features are written one row group at a time, each row
+ * group being buffered in memory in columnar form, compressed, and then written to the response.
+ * Geometries are encoded as WKB.
+ */
+public class GeoParquetOutputFormat extends ColumnarOutputFormat {
+
+    public static final String MIME_TYPE = "application/vnd.apache.parquet";
+
+    /** System variable controlling the size, in bytes, of the row groups */
+    public static final String ROW_GROUP_SIZE_KEY = "org.geoserver.wfs.geoparquet.rowGroupSize";
+
+    public GeoParquetOutputFormat(GeoServer gs) {
+        super(
+                gs,
+                new LinkedHashSet<>(Arrays.asList(MIME_TYPE, "parquet", "geoparquet")),
+                "parquet");
+    }
+
+    @Override
+    public String getCapabilitiesElementName() {
+        return "GeoParquet";
+    }
+
+    @Override
+    public String getMimeType(Object value, Operation operation) throws ServiceException {
+        return MIME_TYPE;
+    }
+
+    @Override
+    protected void write(
+            FeatureCollectionResponse featureCollection, OutputStream output, Operation operation)
+            throws IOException {
+        SimpleFeatureCollection collection = getCollection(featureCollection);
+        int rowGroupSize =
+                Math.max(Integer.getInteger(ROW_GROUP_SIZE_KEY, 32 * 1024 * 1024), 1024 * 1024);
+
+        try (ParquetWriter<SimpleFeature> writer =
+                        new Builder(new ResponseOutputFile(output), collection.getSchema())
+                                .withWriteMode(ParquetFileWriter.Mode.OVERWRITE)
+                                .withCompressionCodec(CompressionCodecName.SNAPPY)
+                                .withRowGroupSize(rowGroupSize)
+                                .build();
+                SimpleFeatureIterator it = collection.features()) {
+            while (it.hasNext()) {
+                writer.write(it.next());
+            }
+        }
+    }
+
+    static class Builder extends ParquetWriter.Builder<SimpleFeature, Builder> {
+
+        final SimpleFeatureType featureType;
+
+        Builder(OutputFile file, SimpleFeatureType featureType) {
+            super(file);
+            this.featureType = featureType;
+        }
+
+        @Override
+        protected Builder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<SimpleFeature> getWriteSupport(Configuration conf) {
+            return new FeatureWriteSupport(featureType);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.util.Set;
+import java.util.TreeSet;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import org.geotools.referencing.CRS;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.CoordinateSequenceFilter;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKBWriter;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Encodes the values of a geometry column as ISO WKB, in x/y order as required by GeoParquet and
+ * GeoArrow, and collects the geometry types and bounds found along the way.
+ */
+class GeometryColumn {
+
+    final String name;
+
+    final CoordinateReferenceSystem crs;
+
+    /** True if the coordinates are in y/x order and need to be flipped */
+    final boolean flipAxes;
+
+    final WKBWriter writer = new WKBWriter(2);
+
+    final Set<String> geometryTypes = new TreeSet<>();
+
+    final Envelope bounds = new Envelope();
+
+    GeometryColumn(GeometryDescriptor descriptor) {
+        this.name = descriptor.getLocalName();
+        this.crs = descriptor.getCoordinateReferenceSystem();
+        this.flipAxes = crs != null && CRS.getAxisOrder(crs) == CRS.AxisOrder.NORTH_EAST;
+    }
+
+    /** Encodes the geometry, returns null for null or empty geometries */
+    byte[] encode(Geometry geometry) {
+        if (geometry == null || geometry.isEmpty()) {
+            return null;
+        }
+        if (flipAxes) {
+            geometry = geometry.copy();
+            geometry.apply(FLIP);
+            geometry.geometryChanged();
+        }
+        geometryTypes.add(geometry.getGeometryType());
+        bounds.expandToInclude(geometry.getEnvelopeInternal());
+        return writer.write(geometry);
+    }
+
+    /**
+     * The column metadata, as described by the GeoParquet specification. The CRS is encoded as a
+     * full PROJJSON object, and explicitly set to null when it is not known or cannot be encoded,
+     * as a missing {@code crs} member would be read as OGC:CRS84.
+     */
+    JSONObject getMetadata() {
+        JSONObject column = new JSONObject();
+        column.put("encoding", "WKB");
+        column.put("geometry_types", JSONArray.fromObject(geometryTypes));
+        JSONObject projjson = crs != null ? ProjJSON.encode(crs) : null;
+        column.put("crs", projjson != null ? projjson : JSONNull.getInstance());
+        if (!bounds.isNull()) {
+            JSONArray bbox = new JSONArray();
+            bbox.add(bounds.getMinX());
+            bbox.add(bounds.getMinY());
+            bbox.add(bounds.getMaxX());
+            bbox.add(bounds.getMaxY());
+            column.put("bbox", bbox);
+        }
+        return column;
+    }
+
+    static final CoordinateSequenceFilter FLIP =
+            new CoordinateSequenceFilter() {
+                @Override
+                public void filter(CoordinateSequence seq, int i) {
+                    double x = seq.getOrdinate(i, CoordinateSequence.X);
+                    seq.setOrdinate(
+                            i, CoordinateSequence.X, seq.getOrdinate(i, CoordinateSequence.Y));
+                    seq.setOrdinate(i, CoordinateSequence.Y, x);
+                }
+
+                @Override
+                public boolean isDone() {
+                    return false;
+                }
+
+                @Override
+                public boolean isGeometryChanged() {
+                    return true;
+                }
+            };
+}
@@ -0,0 +1,245 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.measure.Unit;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.geotools.metadata.iso.citation.Citations;
+import org.geotools.referencing.AbstractIdentifiedObject;
+import org.geotools.referencing.CRS;
+import org.geotools.util.logging.Logging;
+import org.opengis.metadata.Identifier;
+import org.opengis.parameter.GeneralParameterValue;
+import org.opengis.parameter.ParameterValue;
+import org.opengis.referencing.IdentifiedObject;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.crs.GeographicCRS;
+import org.opengis.referencing.crs.ProjectedCRS;
+import org.opengis.referencing.cs.CartesianCS;
+import org.opengis.referencing.cs.CoordinateSystem;
+import org.opengis.referencing.cs.CoordinateSystemAxis;
+import org.opengis.referencing.cs.EllipsoidalCS;
+import org.opengis.referencing.datum.Ellipsoid;
+import org.opengis.referencing.datum.GeodeticDatum;
+import org.opengis.referencing.datum.PrimeMeridian;
+import org.opengis.referencing.operation.Conversion;
+import si.uom.NonSI;
+import si.uom.SI;
+
+/**
+ * Encodes geographic and projected CRSs as PROJJSON, as required by the GeoParquet {@code crs}
+ * column metadata. Names are taken from the EPSG aliases when available, so that readers can match
+ * the projection methods and parameters.
+ */
+class ProjJSON {
+
+    static final Logger LOGGER = Logging.getLogger(ProjJSON.class);
+
+    static final String SCHEMA = "https://proj.org/schemas/v0.5/projjson.schema.json";
+
+    /** Semi axis parameters GeoTools adds to the conversions, already part of the base CRS */
+    static final String SEMI_MAJOR = "semi_major";
+
+    static final String SEMI_MINOR = "semi_minor";
+
+    /**
+     * Encodes the CRS, or returns null if the CRS is not supported (only geographic and projected
+     * CRSs are)
+     */
+    static JSONObject encode(CoordinateReferenceSystem crs) {
+        try {
+            JSONObject result;
+            if (crs instanceof ProjectedCRS) {
+                result = projected((ProjectedCRS) crs);
+            } else if (crs instanceof GeographicCRS) {
+                result = geographic((GeographicCRS) crs);
+            } else {
+                return null;
+            }
+            JSONObject json = new JSONObject();
+            json.put("$schema", SCHEMA);
+            json.putAll(result);
+            return json;
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Could not encode the CRS as PROJJSON: " + crs, e);
+            return null;
+        }
+    }
+
+    static JSONObject projected(ProjectedCRS crs) throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("type", "ProjectedCRS");
+        json.put("name", crs.getName().getCode());
+        json.put("base_crs", geographic(crs.getBaseCRS()));
+        json.put("conversion", conversion(crs.getConversionFromBase()));
+        json.put("coordinate_system", coordinateSystem(crs.getCoordinateSystem()));
+        putId(json, crs);
+        return json;
+    }
+
+    static JSONObject geographic(GeographicCRS crs) throws Exception {
+        JSONObject json = new JSONObject();
+        json.put("type", "GeographicCRS");
+        json.put("name", crs.getName().getCode());
+        json.put("datum", datum(crs.getDatum()));
+        json.put("coordinate_system", coordinateSystem(crs.getCoordinateSystem()));
+        putId(json, crs);
+        return json;
+    }
+
+    static JSONObject datum(GeodeticDatum datum) {
+        JSONObject json = new JSONObject();
+        json.put("type", "GeodeticReferenceFrame");
+        json.put("name", getName(datum));
+        Ellipsoid ellipsoid = datum.getEllipsoid();
+        double toMetres = ellipsoid.getAxisUnit().getConverterTo(SI.METRE).convert(1);
+        JSONObject ellipsoidJson = new JSONObject();
+        ellipsoidJson.put("name", getName(ellipsoid));
+        if (ellipsoid.isSphere()) {
+            ellipsoidJson.put("radius", ellipsoid.getSemiMajorAxis() * toMetres);
+        } else {
+            ellipsoidJson.put("semi_major_axis", ellipsoid.getSemiMajorAxis() * toMetres);
+            ellipsoidJson.put("inverse_flattening", ellipsoid.getInverseFlattening());
+        }
+        json.put("ellipsoid", ellipsoidJson);
+        PrimeMeridian pm = datum.getPrimeMeridian();
+        JSONObject pmJson = new JSONObject();
+        pmJson.put("name", getName(pm));
+        pmJson.put(
+                "longitude",
+                pm.getAngularUnit()
+                        .getConverterTo(NonSI.DEGREE_ANGLE)
+                        .convert(pm.getGreenwichLongitude()));
+        json.put("prime_meridian", pmJson);
+        return json;
+    }
+
+    static JSONObject conversion(Conversion conversion) {
+        JSONObject json = new JSONObject();
+        json.put("name", getName(conversion));
+        JSONObject method = new JSONObject();
+        method.put("name", getName(conversion.getMethod()));
+        putEpsgId(method, conversion.getMethod());
+        json.put("method", method);
+        JSONArray parameters = new JSONArray();
+        for (GeneralParameterValue value : conversion.getParameterValues().values()) {
+            if (!(value instanceof ParameterValue)) {
+                continue;
+            }
+            ParameterValue<?> pv = (ParameterValue<?>) value;
+            String code = pv.getDescriptor().getName().getCode();
+            if (SEMI_MAJOR.equals(code) || SEMI_MINOR.equals(code)) {
+                continue;
+            }
+            JSONObject parameter = new JSONObject();
+            parameter.put("name", getName(pv.getDescriptor()));
+            parameter.put("value", pv.doubleValue());
+            if (pv.getUnit() != null) {
+                parameter.put("unit", unit(pv.getUnit()));
+            }
+            putEpsgId(parameter, pv.getDescriptor());
+            parameters.add(parameter);
+        }
+        json.put("parameters", parameters);
+        return json;
+    }
+
+    static JSONObject coordinateSystem(CoordinateSystem cs) {
+        JSONObject json = new JSONObject();
+        if (cs instanceof EllipsoidalCS) {
+            json.put("subtype", "ellipsoidal");
+        } else if (cs instanceof CartesianCS) {
+            json.put("subtype", "Cartesian");
+        } else {
+            throw new IllegalArgumentException("Unsupported coordinate system " + cs);
+        }
+        JSONArray axes = new JSONArray();
+        for (int i = 0; i < cs.getDimension(); i++) {
+            CoordinateSystemAxis axis = cs.getAxis(i);
+            JSONObject axisJson = new JSONObject();
+            axisJson.put("name", axis.getName().getCode());
+            axisJson.put("abbreviation", axis.getAbbreviation());
+            axisJson.put("direction", direction(axis.getDirection().name()));
+            axisJson.put("unit", unit(axis.getUnit()));
+            axes.add(axisJson);
+        }
+        json.put("axis", axes);
+        return json;
+    }
+
+    /** Turns an axis direction code (e.g. NORTH_EAST) into the PROJJSON one (e.g. northEast) */
+    static String direction(String name) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : name.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Returns the unit as one of the PROJJSON predefined names, or as a unit object */
+    static Object unit(Unit<?> unit) {
+        if (SI.METRE.equals(unit)) {
+            return "metre";
+        } else if (NonSI.DEGREE_ANGLE.equals(unit)) {
+            return "degree";
+        } else if (unit.isCompatible(SI.METRE)) {
+            return unit("LinearUnit", unit, SI.METRE);
+        } else if (unit.isCompatible(SI.RADIAN)) {
+            return unit("AngularUnit", unit, SI.RADIAN);
+        } else if (unit.isCompatible(SI.ONE)) {
+            return SI.ONE.equals(unit) ? "unity" : unit("ScaleUnit", unit, SI.ONE);
+        }
+        throw new IllegalArgumentException("Unsupported unit " + unit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JSONObject unit(String type, Unit<?> unit, Unit<?> base) {
+        JSONObject json = new JSONObject();
+        json.put("type", type);
+        json.put("name", unit.toString());
+        json.put("conversion_factor", ((Unit) unit).getConverterTo((Unit) base).convert(1d));
+        return json;
+    }
+
+    /** The EPSG name of the object, if any, or its primary name otherwise */
+    static String getName(IdentifiedObject object) {
+        String name = AbstractIdentifiedObject.getName(object, Citations.EPSG);
+        return name != null ? name : object.getName().getCode();
+    }
+
+    private static void putId(JSONObject json, CoordinateReferenceSystem crs) throws Exception {
+        Integer code = CRS.lookupEpsgCode(crs, false);
+        if (code != null) {
+            putId(json, code);
+        }
+    }
+
+    private static void putEpsgId(JSONObject json, IdentifiedObject object) {
+        Identifier id = AbstractIdentifiedObject.getIdentifier(object, Citations.EPSG);
+        if (id != null) {
+            try {
+                putId(json, Integer.parseInt(id.getCode()));
+            } catch (NumberFormatException e) {
+                // not a numeric EPSG code, skip it
+            }
+        }
+    }
+
+    private static void putId(JSONObject json, int code) {
+        JSONObject id = new JSONObject();
+        id.put("authority", "EPSG");
+        id.put("code", code);
+        json.put("id", id);
+    }
+}
@@ -0,0 +1,89 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.geoserver.wfs.WFSTestSupport;
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKBReader;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ArrowOutputFormatTest extends WFSTestSupport {
+
+    @Test
+    public void testBuildings() throws Exception {
+        MockHttpServletResponse response =
+                getAsServletResponse(
+                        "wfs?service=WFS&version=1.0.0&request=GetFeature&typeName=cite:Buildings"
+                                + "&outputFormat=arrow");
+        assertEquals(ArrowOutputFormat.MIME_TYPE, response.getContentType());
+        assertTrue(response.getHeader("Content-Disposition").contains("Buildings.arrows"));
+
+        Set<String> addresses = new HashSet<>();
+        int count = 0;
+        try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+                ArrowStreamReader reader =
+                        new ArrowStreamReader(
+                                new ByteArrayInputStream(response.getContentAsByteArray()),
+                                allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Field geometry = root.getSchema().findField("the_geom");
+            assertEquals(
+                    ArrowOutputFormat.GEOARROW_WKB,
+                    geometry.getMetadata().get(ArrowOutputFormat.EXTENSION_NAME));
+            while (reader.loadNextBatch()) {
+                VarBinaryVector geometries = (VarBinaryVector) root.getVector("the_geom");
+                VarCharVector address = (VarCharVector) root.getVector("ADDRESS");
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    Geometry g = new WKBReader().read(geometries.get(i));
+                    assertFalse(g.isEmpty());
+                    addresses.add(new String(address.get(i), "UTF-8"));
+                    count++;
+                }
+            }
+        }
+        assertEquals(2, count);
+        assertTrue(addresses.contains("123 Main Street"));
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        System.setProperty(ArrowOutputFormat.BATCH_SIZE_KEY, "1");
+        try {
+            MockHttpServletResponse response =
+                    getAsServletResponse(
+                            "wfs?service=WFS&version=1.0.0&request=GetFeature"
+                                    + "&typeName=cite:Buildings&outputFormat=arrow");
+            int batches = 0;
+            try (BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
+                    ArrowStreamReader reader =
+                            new ArrowStreamReader(
+                                    new ByteArrayInputStream(response.getContentAsByteArray()),
+                                    allocator)) {
+                while (reader.loadNextBatch()) {
+                    assertEquals(1, reader.getVectorSchemaRoot().getRowCount());
+                    batches++;
+                }
+            }
+            assertEquals(2, batches);
+        } finally {
+            System.clearProperty(ArrowOutputFormat.BATCH_SIZE_KEY);
+        }
+    }
+}
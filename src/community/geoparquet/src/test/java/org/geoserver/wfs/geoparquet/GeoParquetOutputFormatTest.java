@@ -0,0 +1,108 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.DelegatingSeekableInputStream;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+import org.apache.parquet.schema.MessageType;
+import org.geoserver.wfs.WFSTestSupport;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class GeoParquetOutputFormatTest extends WFSTestSupport {
+
+    @Test
+    public void testBuildings() throws Exception {
+        MockHttpServletResponse response =
+                getAsServletResponse(
+                        "wfs?service=WFS&version=1.0.0&request=GetFeature&typeName=cite:Buildings"
+                                + "&outputFormat=parquet");
+        assertEquals(GeoParquetOutputFormat.MIME_TYPE, response.getContentType());
+        byte[] contents = response.getContentAsByteArray();
+
+        try (ParquetFileReader reader = ParquetFileReader.open(new BytesInputFile(contents))) {
+            assertEquals(2, reader.getRecordCount());
+            MessageType schema = reader.getFileMetaData().getSchema();
+            assertTrue(schema.containsField("the_geom"));
+            assertTrue(schema.containsField("ADDRESS"));
+
+            Map<String, String> metadata = reader.getFileMetaData().getKeyValueMetaData();
+            JSONObject geo = JSONObject.fromObject(metadata.get(FeatureWriteSupport.GEO_KEY));
+            assertEquals("the_geom", geo.getString("primary_column"));
+            JSONObject column = geo.getJSONObject("columns").getJSONObject("the_geom");
+            assertEquals("WKB", column.getString("encoding"));
+            assertEquals("MultiPolygon", column.getJSONArray("geometry_types").getString(0));
+            JSONObject crs = column.getJSONObject("crs");
+            assertEquals("GeographicCRS", crs.getString("type"));
+            assertEquals(4326, crs.getJSONObject("id").getInt("code"));
+            assertEquals(
+                    6378137,
+                    crs.getJSONObject("datum")
+                            .getJSONObject("ellipsoid")
+                            .getDouble("semi_major_axis"),
+                    1e-9);
+            JSONArray bbox = column.getJSONArray("bbox");
+            assertEquals(0.0008, bbox.getDouble(0), 1e-9);
+            assertEquals(0.0005, bbox.getDouble(1), 1e-9);
+            assertEquals(0.0024, bbox.getDouble(2), 1e-9);
+            assertEquals(0.001, bbox.getDouble(3), 1e-9);
+        }
+    }
+
+    /** Reads a Parquet file from memory */
+    static class BytesInputFile implements InputFile {
+
+        final byte[] contents;
+
+        BytesInputFile(byte[] contents) {
+            this.contents = contents;
+        }
+
+        @Override
+        public long getLength() {
+            return contents.length;
+        }
+
+        @Override
+        public SeekableInputStream newStream() {
+            SeekableBytes bytes = new SeekableBytes(contents);
+            return new DelegatingSeekableInputStream(bytes) {
+                @Override
+                public long getPos() {
+                    return bytes.position();
+                }
+
+                @Override
+                public void seek(long newPos) {
+                    bytes.seek((int) newPos);
+                }
+            };
+        }
+    }
+
+    static class SeekableBytes extends ByteArrayInputStream {
+
+        SeekableBytes(byte[] buf) {
+            super(buf);
+        }
+
+        int position() {
+            return pos;
+        }
+
+        void seek(int position) {
+            pos = position;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.geoparquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import net.sf.json.JSONArray;
+import net.sf.json.JSONNull;
+import net.sf.json.JSONObject;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.crs.DefaultEngineeringCRS;
+import org.junit.Test;
+import org.locationtech.jts.geom.Point;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+public class ProjJSONTest {
+
+    @Test
+    public void testGeographic() throws Exception {
+        JSONObject json = ProjJSON.encode(CRS.decode("EPSG:4326"));
+        assertEquals(ProjJSON.SCHEMA, json.getString("$schema"));
+        assertEquals("GeographicCRS", json.getString("type"));
+        assertEquals("WGS 84", json.getString("name"));
+        JSONObject datum = json.getJSONObject("datum");
+        assertEquals("GeodeticReferenceFrame", datum.getString("type"));
+        JSONObject ellipsoid = datum.getJSONObject("ellipsoid");
+        assertEquals(6378137, ellipsoid.getDouble("semi_major_axis"), 1e-9);
+        assertEquals(298.257223563, ellipsoid.getDouble("inverse_flattening"), 1e-9);
+        JSONObject cs = json.getJSONObject("coordinate_system");
+        assertEquals("ellipsoidal", cs.getString("subtype"));
+        JSONArray axes = cs.getJSONArray("axis");
+        assertEquals(2, axes.size());
+        assertEquals("north", axes.getJSONObject(0).getString("direction"));
+        assertEquals("degree", axes.getJSONObject(0).getString("unit"));
+        assertEquals("EPSG", json.getJSONObject("id").getString("authority"));
+        assertEquals(4326, json.getJSONObject("id").getInt("code"));
+    }
+
+    @Test
+    public void testProjected() throws Exception {
+        JSONObject json = ProjJSON.encode(CRS.decode("EPSG:32632"));
+        assertEquals("ProjectedCRS", json.getString("type"));
+        assertEquals(32632, json.getJSONObject("id").getInt("code"));
+        JSONObject base = json.getJSONObject("base_crs");
+        assertEquals("GeographicCRS", base.getString("type"));
+        assertEquals(4326, base.getJSONObject("id").getInt("code"));
+        // the base CRS is not a standalone document
+        assertTrue(!base.containsKey("$schema"));
+
+        JSONObject conversion = json.getJSONObject("conversion");
+        JSONObject method = conversion.getJSONObject("method");
+        assertEquals("Transverse Mercator", method.getString("name"));
+        assertEquals(9807, method.getJSONObject("id").getInt("code"));
+        JSONArray parameters = conversion.getJSONArray("parameters");
+        assertEquals(5, parameters.size());
+        for (int i = 0; i < parameters.size(); i++) {
+            JSONObject parameter = parameters.getJSONObject(i);
+            if ("Longitude of natural origin".equals(parameter.getString("name"))) {
+                assertEquals(9, parameter.getDouble("value"), 1e-9);
+                assertEquals("degree", parameter.getString("unit"));
+            } else if ("False easting".equals(parameter.getString("name"))) {
+                assertEquals(500000, parameter.getDouble("value"), 1e-9);
+                assertEquals("metre", parameter.getString("unit"));
+            }
+        }
+
+        JSONObject cs = json.getJSONObject("coordinate_system");
+        assertEquals("Cartesian", cs.getString("subtype"));
+        assertEquals("east", cs.getJSONArray("axis").getJSONObject(0).getString("direction"));
+        assertEquals("metre", cs.getJSONArray("axis").getJSONObject(0).getString("unit"));
+    }
+
+    @Test
+    public void testUnsupported() {
+        assertNull(ProjJSON.encode(DefaultEngineeringCRS.CARTESIAN_2D));
+    }
+
+    @Test
+    public void testDirection() {
+        assertEquals("north", ProjJSON.direction("NORTH"));
+        assertEquals("northEast", ProjJSON.direction("NORTH_EAST"));
+    }
+
+    @Test
+    public void testUnknownCRS() {
+        // a missing crs would be read as OGC:CRS84, it has to be explicitly null
+        assertEquals(JSONNull.getInstance(), getMetadata(null).get("crs"));
+        assertTrue(getMetadata(null).toString().contains("\"crs\":null"));
+        assertEquals(
+                JSONNull.getInstance(), getMetadata(DefaultEngineeringCRS.CARTESIAN_2D).get("crs"));
+    }
+
+    private JSONObject getMetadata(CoordinateReferenceSystem crs) {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("test");
+        tb.add("geom", Point.class, crs);
+        SimpleFeatureType schema = tb.buildFeatureType();
+        return new GeometryColumn(schema.getGeometryDescriptor()).getMetadata();
+    }
+}
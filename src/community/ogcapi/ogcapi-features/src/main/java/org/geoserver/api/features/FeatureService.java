@@ -47,6 +47,8 @@ import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory2;
 import org.opengis.filter.expression.Literal;
 import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -241,7 +243,19 @@ public class FeatureService {
             @PathVariable(name = "itemId") String itemId,
             @RequestParam(name = "crs", required = false) String crs)
             throws Exception {
-        return items(collectionId, startIndex, limit, bbox, bboxCRS, crs, time, null, null, itemId);
+        return items(
+                collectionId,
+                startIndex,
+                limit,
+                bbox,
+                bboxCRS,
+                crs,
+                time,
+                null,
+                null,
+                null,
+                null,
+                itemId);
     }
 
     @GetMapping(path = "collections/{collectionId}/items", name = "getFeatures")
@@ -258,6 +272,8 @@ public class FeatureService {
             @RequestParam(name = "filter", required = false) String filter,
             @RequestParam(name = "filter-lang", required = false) String filterLanguage,
             @RequestParam(name = "crs", required = false) String crs,
+            @RequestParam(name = "sortby", required = false) String sortBy,
+            @RequestParam(name = "cursor", required = false) String cursor,
             String itemId)
             throws Exception {
         // build the request in a way core WFS machinery can understand it
@@ -285,6 +301,9 @@ public class FeatureService {
             filters.add(parsedFilter);
         }
         query.setFilter(mergeFiltersAnd(filters));
+        if (sortBy != null) {
+            query.setSortBy(parseSortBy(sortBy));
+        }
         if (crs != null) {
             query.setSrsName(new URI(crs));
         } else {
@@ -296,7 +315,7 @@ public class FeatureService {
         request.getAdaptedQueries().add(query.getAdaptee());
 
         // run it
-        FeaturesGetFeature gf = new FeaturesGetFeature(getService(), getCatalog());
+        FeaturesGetFeature gf = new FeaturesGetFeature(getService(), getCatalog(), cursor);
         gf.setFilterFactory(FF);
         gf.setStoredQueryProvider(getStoredQueryProvider());
         FeatureCollectionResponse response = gf.run(request);
@@ -312,6 +331,32 @@ public class FeatureService {
         return new FeaturesResponse(request.getAdaptee(), response);
     }
 
+    /**
+     * Parses a sort specification in the form {@code [+|-]property[,[+|-]property]*}, the default
+     * order is ascending
+     */
+    private List<SortBy> parseSortBy(String spec) {
+        List<SortBy> result = new ArrayList<>();
+        for (String token : spec.split(",")) {
+            token = token.trim();
+            SortOrder order = SortOrder.ASCENDING;
+            if (token.startsWith("-")) {
+                order = SortOrder.DESCENDING;
+                token = token.substring(1);
+            } else if (token.startsWith("+")) {
+                token = token.substring(1);
+            }
+            if (token.isEmpty()) {
+                throw new ServiceException(
+                        "Invalid sort specification: " + spec,
+                        ServiceException.INVALID_PARAMETER_VALUE,
+                        "sortby");
+            }
+            result.add(FF.sort(token, order));
+        }
+        return result;
+    }
+
     private Filter buildTimeFilter(FeatureTypeInfo ft, String time)
             throws ParseException, IOException {
         Collection times = timeParser.parse(time);
@@ -18,6 +18,7 @@ import org.geoserver.catalog.FeatureTypeInfo;
 import org.geoserver.ows.URLMangler.URLType;
 import org.geoserver.ows.util.CaseInsensitiveMap;
 import org.geoserver.ows.util.ResponseUtils;
+import org.geoserver.wfs.PagingCursor;
 import org.geoserver.wfs.WFSInfo;
 import org.geoserver.wfs.request.FeatureCollectionResponse;
 import org.geoserver.wfs.request.GetFeatureRequest;
@@ -29,8 +30,17 @@ class FeaturesGetFeature extends org.geoserver.wfs.GetFeature {
 
     static final Logger LOGGER = Logging.getLogger(FeaturesGetFeature.class);
 
-    public FeaturesGetFeature(WFSInfo wfs, Catalog catalog) {
+    private PagingCursor cursor;
+
+    /** @param cursor the keyset paging cursor provided with the request, if any */
+    public FeaturesGetFeature(WFSInfo wfs, Catalog catalog, String cursor) {
         super(wfs, catalog);
+        this.cursor = parseCursor(null, cursor);
+    }
+
+    @Override
+    protected PagingCursor getCursor(GetFeatureRequest request) {
+        return cursor;
     }
 
     @Override
@@ -42,6 +52,49 @@ class FeaturesGetFeature extends org.geoserver.wfs.GetFeature {
             FeatureCollectionResponse result,
             Map<String, String> kvp) {
         // can we build the links?
+        String itemsPath = getItemsPath(request);
+        if (itemsPath == null) {
+            return;
+        }
+        kvp = cleanupKvp(kvp);
+
+        // build prev link if needed
+        if (offset > 0) {
+            // previous offset calculated as the current offset - maxFeatures, or 0 if this is a
+            // negative value, while  previous count should be current offset - previousOffset
+            int prevOffset = Math.max(offset - maxFeatures, 0);
+            kvp.put("startIndex", String.valueOf(prevOffset));
+            kvp.put("limit", String.valueOf(offset - prevOffset));
+            result.setPrevious(buildURL(itemsPath, kvp));
+        }
+
+        // build next link if needed
+        if (count > 0 && offset > -1 && maxFeatures <= count) {
+            kvp.put("startIndex", String.valueOf(offset > 0 ? offset + count : count));
+            kvp.put("limit", String.valueOf(maxFeatures));
+            result.setNext(buildURL(itemsPath, kvp));
+        }
+    }
+
+    @Override
+    protected void buildCursorLinks(
+            GetFeatureRequest request,
+            int maxFeatures,
+            FeatureCollectionResponse result,
+            Map<String, String> kvp,
+            PagingCursor cursor) {
+        String itemsPath = getItemsPath(request);
+        if (itemsPath == null) {
+            return;
+        }
+        kvp = cleanupKvp(kvp);
+        kvp.put(PagingCursor.CURSOR, cursor.encode());
+        kvp.put("limit", String.valueOf(maxFeatures));
+        result.setNext(buildURL(itemsPath, kvp));
+    }
+
+    /** Returns the path of the collection items, or null if it cannot be determined */
+    private String getItemsPath(GetFeatureRequest request) {
         List<Query> queries = request.getQueries();
         if (queries == null
                 || queries.size() != 1
@@ -50,7 +103,7 @@ class FeaturesGetFeature extends org.geoserver.wfs.GetFeature {
             LOGGER.log(
                     Level.INFO,
                     "Cannot build prev/next links, the the target typename is not known (or multiple type names available)");
-            return;
+            return null;
         }
         QName typeName = queries.get(0).getTypeNames().get(0);
         FeatureTypeInfo typeInfo =
@@ -61,12 +114,14 @@ class FeaturesGetFeature extends org.geoserver.wfs.GetFeature {
                     Level.INFO,
                     "Cannot build prev/next links, the the target typename was not found: "
                             + typeName);
-            return;
+            return null;
         }
         String collectionName = typeInfo.prefixedName();
-        String itemsPath =
-                "ogc/features/collections/" + ResponseUtils.urlEncode(collectionName) + "/items";
+        return "ogc/features/collections/" + ResponseUtils.urlEncode(collectionName) + "/items";
+    }
 
+    /** Removes the parameters that are not API Features specific, and normalizes their case */
+    private Map<String, String> cleanupKvp(Map<String, String> kvp) {
         // clean up the KVP params, remove the ones that are not WFS3 specific
         List<String> PARAMS_BLACKLIST =
                 Arrays.asList(
@@ -78,7 +133,8 @@ class FeaturesGetFeature extends org.geoserver.wfs.GetFeature {
                         "COUNT",
                         "OUTPUTFORMAT",
                         "STARTINDEX",
-                        "LIMIT");
+                        "LIMIT",
+                        "CURSOR");
         kvp = new CaseInsensitiveMap(kvp);
         for (String param : PARAMS_BLACKLIST) {
             kvp.remove(param);
@@ -92,30 +148,11 @@ class FeaturesGetFeature extends org.geoserver.wfs.GetFeature {
         // TODO: we might need a list of parameters and their "normalized case" for WFS3, we'll
         // wait for the filtering/crs extensions to show up before deciding exactly what exactly to
         // do
-        kvp =
-                kvp.entrySet()
-                        .stream()
-                        .collect(
-                                Collectors.toMap(
-                                        entry -> entry.getKey().toLowerCase(),
-                                        entry -> entry.getValue()));
-
-        // build prev link if needed
-        if (offset > 0) {
-            // previous offset calculated as the current offset - maxFeatures, or 0 if this is a
-            // negative value, while  previous count should be current offset - previousOffset
-            int prevOffset = Math.max(offset - maxFeatures, 0);
-            kvp.put("startIndex", String.valueOf(prevOffset));
-            kvp.put("limit", String.valueOf(offset - prevOffset));
-            result.setPrevious(buildURL(itemsPath, kvp));
-        }
-
-        // build next link if needed
-        if (count > 0 && offset > -1 && maxFeatures <= count) {
-            kvp.put("startIndex", String.valueOf(offset > 0 ? offset + count : count));
-            kvp.put("limit", String.valueOf(maxFeatures));
-            result.setNext(buildURL(itemsPath, kvp));
-        }
+        return kvp.entrySet()
+                .stream()
+                .collect(
+                        Collectors.toMap(
+                                entry -> entry.getKey().toLowerCase(), entry -> entry.getValue()));
     }
 
     private String buildURL(String itemsPath, Map<String, String> kvp) {
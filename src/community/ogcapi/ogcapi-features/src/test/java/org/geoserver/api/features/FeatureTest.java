@@ -8,6 +8,7 @@ import static org.geoserver.api.features.FeatureService.CRS_PREFIX;
 import static org.hamcrest.CoreMatchers.both;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.Matchers.closeTo;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.greaterThan;
@@ -19,6 +20,7 @@ import static org.junit.Assert.assertThat;
 
 import com.jayway.jsonpath.DocumentContext;
 import java.net.URLEncoder;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import net.minidev.json.JSONArray;
@@ -26,6 +28,7 @@ import org.geoserver.catalog.FeatureTypeInfo;
 import org.geoserver.data.test.MockData;
 import org.geoserver.ows.util.KvpUtils;
 import org.geoserver.ows.util.ResponseUtils;
+import org.geoserver.wfs.PagingCursor;
 import org.geotools.geometry.jts.ReferencedEnvelope;
 import org.geotools.referencing.CRS;
 import org.geotools.referencing.crs.DefaultGeographicCRS;
@@ -419,6 +422,51 @@ public class FeatureTest extends FeaturesTestSupport {
         assertThat(json.read("$.links[?(@.rel=='next')].href"), Matchers.empty());
     }
 
+    @Test
+    public void testSortBy() throws Exception {
+        String roadSegments = getLayerId(MockData.ROAD_SEGMENTS);
+        DocumentContext json =
+                getAsJSONPath(
+                        "ogc/features/collections/" + roadSegments + "/items?sortby=-FID", 200);
+        assertEquals(
+                Arrays.asList("106", "105", "104", "103", "102"),
+                json.read("features[*].properties.FID", List.class));
+    }
+
+    @Test
+    public void testCursor() throws Exception {
+        String roadSegments = getLayerId(MockData.ROAD_SEGMENTS);
+        String cursor = PagingCursor.position(2).encode();
+        MockHttpServletResponse response =
+                getAsMockHttpServletResponse(
+                        "ogc/features/collections/"
+                                + roadSegments
+                                + "/items?sortby=-FID&limit=2&cursor="
+                                + cursor,
+                        200);
+        DocumentContext json = getAsJSONPath(response);
+        assertEquals(
+                Arrays.asList("104", "103"), json.read("features[*].properties.FID", List.class));
+        // the next link keeps paging with a cursor
+        String next =
+                json.read("$.links[?(@.rel=='next')].href", JSONArray.class).get(0).toString();
+        assertThat(next, containsString("cursor=" + PagingCursor.position(4).encode()));
+        assertThat(next, containsString("sortby=-FID"));
+        assertThat(next, not(containsString("startIndex")));
+    }
+
+    @Test
+    public void testInvalidCursor() throws Exception {
+        String roadSegments = getLayerId(MockData.ROAD_SEGMENTS);
+        DocumentContext json =
+                getAsJSONPath(
+                        "ogc/features/collections/"
+                                + roadSegments
+                                + "/items?sortby=FID&cursor=notACursor",
+                        400);
+        assertEquals("InvalidParameterValue", json.read("code"));
+    }
+
     @Test
     public void testErrorHandling() throws Exception {
         String roadSegments = getLayerId(MockData.ROAD_SEGMENTS);
@@ -28,6 +28,8 @@ import org.geoserver.filters.GeoServerFilter;
 import org.geoserver.monitor.RequestData.Status;
 import org.geoserver.platform.GeoServerExtensions;
 import org.geoserver.security.SecurityUtils;
+import org.geoserver.wfs.GetFeature;
+import org.geoserver.wms.GetMap;
 import org.geoserver.wms.map.RenderTimeStatistics;
 import org.geotools.util.logging.Logging;
 import org.springframework.security.core.Authentication;
@@ -184,6 +186,19 @@ public class MonitorFilter implements GeoServerFilter {
             data.setResourcesProcessingTime(renderingTimeLayers);
             if (data.getEndTime() == null) data.setEndTime(new Date());
         }
+        @SuppressWarnings("unchecked")
+        List<Long> queryTimes = (List<Long>) request.getAttribute(GetFeature.QUERY_TIMES);
+        if (queryTimes != null && statistics == null) {
+            synchronized (queryTimes) {
+                data.setResourcesProcessingTime(new ArrayList<>(queryTimes));
+            }
+        }
+        @SuppressWarnings("unchecked")
+        List<Long> framesRenderingTime =
+                (List<Long>) request.getAttribute(GetMap.FRAMES_RENDERING_TIME);
+        if (framesRenderingTime != null) {
+            data.setFramesProcessingTime(new ArrayList<>(framesRenderingTime));
+        }
         monitor.update();
         data = monitor.current();
 
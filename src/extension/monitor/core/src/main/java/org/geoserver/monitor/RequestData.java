@@ -173,6 +173,9 @@ public class RequestData implements Serializable {
 
     private Long labellingProcessingTime;
 
+    /** The rendering time of each frame, for animated maps */
+    private List<Long> framesProcessingTime;
+
     public long getId() {
         return id;
     }
@@ -547,4 +550,21 @@ public class RequestData implements Serializable {
     public void setLabellingProcessingTime(Long labellingProcessingTime) {
         this.labellingProcessingTime = labellingProcessingTime;
     }
+
+    public List<Long> getFramesProcessingTime() {
+        return framesProcessingTime;
+    }
+
+    public String getFramesProcessingTimeList() {
+        if (framesProcessingTime != null && framesProcessingTime.size() > 0) {
+            String times = framesProcessingTime.toString();
+            return times.substring(1, times.length() - 1);
+        } else {
+            return null;
+        }
+    }
+
+    public void setFramesProcessingTime(List<Long> framesProcessingTime) {
+        this.framesProcessingTime = framesProcessingTime;
+    }
 }
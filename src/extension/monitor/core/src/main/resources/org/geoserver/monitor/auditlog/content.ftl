@@ -7,6 +7,7 @@
    <Resources>${resourcesList!""}</Resources>
    <ResourcesProcessingTime>${resourcesProcessingTimeList!""}</ResourcesProcessingTime>
    <LabelsProcessingTime>${labellingProcessingTime!""}</LabelsProcessingTime>
+   <FramesProcessingTime>${framesProcessingTimeList!""}</FramesProcessingTime>
    <Path>${path!""}</Path>
    <QueryString>${queryString!""}</QueryString>
    <#if bodyAsString??>
@@ -10,9 +10,20 @@ import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import javax.measure.UnconvertibleException;
 import javax.measure.Unit;
@@ -49,6 +60,51 @@ import ucar.nc2.dataset.NetcdfDataset;
  */
 public class DefaultNetCDFEncoder extends AbstractNetCDFEncoder {
 
+    /**
+     * System property setting the number of threads filling the output slices while the previous
+     * ones are written, 1 or less fills them on the request thread
+     */
+    public static final String ENCODING_THREADS_KEY = "org.geoserver.wcs.netcdf.encodingThreads";
+
+    /** The max number of slices held in memory, filled or being filled, by a single request */
+    static final int SLICES_IN_FLIGHT;
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        int threads =
+                Integer.getInteger(
+                        ENCODING_THREADS_KEY, Runtime.getRuntime().availableProcessors());
+        if (threads > 1) {
+            ThreadPoolExecutor executor =
+                    new ThreadPoolExecutor(
+                            threads,
+                            threads,
+                            60,
+                            TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<>(),
+                            new ThreadFactory() {
+                                AtomicInteger counter = new AtomicInteger();
+
+                                @Override
+                                public Thread newThread(Runnable r) {
+                                    Thread thread =
+                                            new Thread(
+                                                    r,
+                                                    "NetCDFEncoder-" + counter.incrementAndGet());
+                                    thread.setDaemon(true);
+                                    return thread;
+                                }
+                            });
+            executor.allowCoreThreadTimeOut(true);
+            EXECUTOR = executor;
+            SLICES_IN_FLIGHT = threads;
+        } else {
+            EXECUTOR = null;
+            SLICES_IN_FLIGHT = 1;
+        }
+    }
+
     /** The user supplied variableName */
     private String variableName;
 
@@ -312,7 +368,11 @@ public class DefaultNetCDFEncoder extends AbstractNetCDFEncoder {
         }
     }
 
-    /** Set the variables values */
+    /**
+     * Set the variables values. The granules are written one 2D slice at a time, in order, while
+     * the next slices are filled by the encoding threads, so that the memory used is proportional
+     * to the number of slices in flight, rather than to the whole output
+     */
     protected void writeDataValues() throws IOException, InvalidRangeException {
         // Initialize dimensions sizes
         final int numDimensions = dimensionsManager.getNumDimensions();
@@ -332,121 +392,202 @@ public class DefaultNetCDFEncoder extends AbstractNetCDFEncoder {
 
         List<ExtraVariableRecord> nonscalarExtraVariables = writeNonScalarExtraVariables(dimName);
 
-        // Get the data type for a sample image (All granules of the same coverage will use
-        // the same sample model
-        final int imageDataType = sampleGranule.getRenderedImage().getSampleModel().getDataType();
-        final DataType netCDFDataType = var.getDataType();
-        final Array matrix = NetCDFUtilities.getArray(dimSize, netCDFDataType);
-
-        // Loop over all granules
-        for (GridCoverage2D gridCoverage : granuleStack.getGranules()) {
-            final RenderedImage ri = gridCoverage.getRenderedImage();
-
-            //
-            // Preparing tile properties for future scan
-            //
-            int width = ri.getWidth();
-            int height = ri.getHeight();
-            int minX = ri.getMinX();
-            int minY = ri.getMinY();
-            int maxX = minX + width - 1;
-            int maxY = minY + height - 1;
-            int tileWidth = Math.min(ri.getTileWidth(), width);
-            int tileHeight = Math.min(ri.getTileHeight(), height);
-
-            int minTileX = minX / tileWidth - (minX < 0 ? (-minX % tileWidth > 0 ? 1 : 0) : 0);
-            int minTileY = minY / tileHeight - (minY < 0 ? (-minY % tileHeight > 0 ? 1 : 0) : 0);
-            int maxTileX = maxX / tileWidth - (maxX < 0 ? (-maxX % tileWidth > 0 ? 1 : 0) : 0);
-            int maxTileY = maxY / tileHeight - (maxY < 0 ? (-maxY % tileHeight > 0 ? 1 : 0) : 0);
-
-            final Index matrixIndex = matrix.getIndex();
-            final int indexing[] = new int[numDimensions];
-
-            // Update the NetCDF array indexing to set values for a specific 2D slice
-            updateIndexing(indexing, gridCoverage);
-
-            // copy non-scalar extra variable data
-            if (!nonscalarExtraVariables.isEmpty()) {
-                // Before opening the source NetCDF/GRIB, see if any record requires data from it;
-                // we might be iterating over many time/elevation/custom dimensions but have
-                // granules with sources in common and want to avoid unnecessary opening of
-                // source NetCDF/GRIB. Only the first matching data value is used.
-                // This loop also ensures that the source for each granule is only opened once.
-                boolean needSource = false;
-                for (ExtraVariableRecord record : nonscalarExtraVariables) {
-                    if (!record.writtenIndices.contains(indexing[record.dimensionIndex])) {
-                        needSource = true;
-                        break;
-                    }
+        // the shape of a single 2D slice, all the extra dimensions are set to 1
+        final int[] sliceShape = new int[numDimensions];
+        Arrays.fill(sliceShape, 1);
+        sliceShape[numDimensions - 2] = dimSize[numDimensions - 2];
+        sliceShape[numDimensions - 1] = dimSize[numDimensions - 1];
+
+        // Loop over all granules, keeping at most SLICES_IN_FLIGHT slices being filled
+        Iterator<GridCoverage2D> granules = granuleStack.getGranules().iterator();
+        LinkedList<EncodedSlice> pending = new LinkedList<>();
+        try {
+            while (granules.hasNext() || !pending.isEmpty()) {
+                while (granules.hasNext() && pending.size() < SLICES_IN_FLIGHT) {
+                    GridCoverage2D gridCoverage = granules.next();
+                    // Update the NetCDF array indexing to set values for a specific 2D slice
+                    final int[] origin = new int[numDimensions];
+                    updateIndexing(origin, gridCoverage);
+
+                    // copy non-scalar extra variable data
+                    writeExtraVariables(gridCoverage, origin, nonscalarExtraVariables);
+
+                    pending.add(
+                            new EncodedSlice(
+                                    origin,
+                                    submit(
+                                            () ->
+                                                    fillSlice(
+                                                            gridCoverage,
+                                                            sliceShape,
+                                                            var.getDataType()))));
                 }
-                if (needSource) {
-                    try (NetcdfDataset source = getSourceNetcdfDataset(gridCoverage)) {
-                        if (source != null) {
-                            for (ExtraVariableRecord record : nonscalarExtraVariables) {
-                                if (!record.writtenIndices.contains(
-                                        indexing[record.dimensionIndex])) {
-                                    writer.write(
-                                            writer.findVariable(record.extraVariable.getOutput()),
-                                            new int[] {indexing[record.dimensionIndex]},
-                                            source.findVariable(record.extraVariable.getSource())
-                                                    .read()
-                                                    .reshape(new int[] {1}));
-                                    record.writtenIndices.add(indexing[record.dimensionIndex]);
-                                }
-                            }
+
+                // ------------------------------
+                // Write the slice to the variable
+                // ------------------------------
+                EncodedSlice slice = pending.removeFirst();
+                writer.write(var, slice.origin, slice.getData());
+            }
+        } finally {
+            for (EncodedSlice slice : pending) {
+                slice.data.cancel(true);
+            }
+        }
+        writer.flush();
+    }
+
+    /** Copies the non-scalar extra variables data from the granule source, if needed */
+    private void writeExtraVariables(
+            GridCoverage2D gridCoverage,
+            int[] indexing,
+            List<ExtraVariableRecord> nonscalarExtraVariables)
+            throws IOException, InvalidRangeException {
+        if (nonscalarExtraVariables.isEmpty()) {
+            return;
+        }
+        // Before opening the source NetCDF/GRIB, see if any record requires data from it;
+        // we might be iterating over many time/elevation/custom dimensions but have
+        // granules with sources in common and want to avoid unnecessary opening of
+        // source NetCDF/GRIB. Only the first matching data value is used.
+        // This loop also ensures that the source for each granule is only opened once.
+        boolean needSource = false;
+        for (ExtraVariableRecord record : nonscalarExtraVariables) {
+            if (!record.writtenIndices.contains(indexing[record.dimensionIndex])) {
+                needSource = true;
+                break;
+            }
+        }
+        if (needSource) {
+            try (NetcdfDataset source = getSourceNetcdfDataset(gridCoverage)) {
+                if (source != null) {
+                    for (ExtraVariableRecord record : nonscalarExtraVariables) {
+                        if (!record.writtenIndices.contains(indexing[record.dimensionIndex])) {
+                            writer.write(
+                                    writer.findVariable(record.extraVariable.getOutput()),
+                                    new int[] {indexing[record.dimensionIndex]},
+                                    source.findVariable(record.extraVariable.getSource())
+                                            .read()
+                                            .reshape(new int[] {1}));
+                            record.writtenIndices.add(indexing[record.dimensionIndex]);
                         }
                     }
                 }
             }
+        }
+    }
 
-            // ----------------
-            // Fill data matrix
-            // ----------------
-
-            // Loop over bands using a RandomIter
-            final RandomIter data = RandomIterFactory.create(ri, null);
-            for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
-                for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
-                    for (int trow = 0; trow < tileHeight; trow++) {
-                        int j = (tileY * tileHeight) + trow;
-                        if ((j >= minY) && (j <= maxY)) {
-                            for (int tcol = 0; tcol < tileWidth; tcol++) {
-                                int col = (tileX * tileWidth) + tcol;
-                                if ((col >= minX) && (col <= maxX)) {
-                                    int k = col;
-                                    final int yPos = height - j + minY - 1;
-
-                                    // Simply setting lat and lon
-                                    indexing[numDimensions - 1] = k - minX;
-                                    indexing[numDimensions - 2] = yPos;
-                                    matrixIndex.set(indexing);
-                                    setPixel(
-                                            k,
-                                            j,
-                                            NetCDFUtilities.transcodeImageDataType(imageDataType),
-                                            netCDFDataType,
-                                            data,
-                                            matrix,
-                                            matrixIndex,
-                                            dataPacker,
-                                            noDataValue,
-                                            unitConverter,
-                                            0);
-                                }
+    /** Fills a 2D slice with the granule data, applying nodata, unit conversion and packing */
+    private Array fillSlice(
+            GridCoverage2D gridCoverage, int[] sliceShape, DataType netCDFDataType) {
+        final RenderedImage ri = gridCoverage.getRenderedImage();
+        final int numDimensions = sliceShape.length;
+        // Get the data type for a sample image (All granules of the same coverage will use
+        // the same sample model
+        final int imageDataType = sampleGranule.getRenderedImage().getSampleModel().getDataType();
+        final Array matrix = NetCDFUtilities.getArray(sliceShape, netCDFDataType);
+
+        //
+        // Preparing tile properties for future scan
+        //
+        int width = ri.getWidth();
+        int height = ri.getHeight();
+        int minX = ri.getMinX();
+        int minY = ri.getMinY();
+        int maxX = minX + width - 1;
+        int maxY = minY + height - 1;
+        int tileWidth = Math.min(ri.getTileWidth(), width);
+        int tileHeight = Math.min(ri.getTileHeight(), height);
+
+        int minTileX = minX / tileWidth - (minX < 0 ? (-minX % tileWidth > 0 ? 1 : 0) : 0);
+        int minTileY = minY / tileHeight - (minY < 0 ? (-minY % tileHeight > 0 ? 1 : 0) : 0);
+        int maxTileX = maxX / tileWidth - (maxX < 0 ? (-maxX % tileWidth > 0 ? 1 : 0) : 0);
+        int maxTileY = maxY / tileHeight - (maxY < 0 ? (-maxY % tileHeight > 0 ? 1 : 0) : 0);
+
+        final Index matrixIndex = matrix.getIndex();
+        // the local slice indexing, all the extra dimensions are set to 0, the spatial ones are
+        // set in the loop
+        final int indexing[] = new int[numDimensions];
+
+        // ----------------
+        // Fill data matrix
+        // ----------------
+
+        // Loop over bands using a RandomIter
+        final RandomIter data = RandomIterFactory.create(ri, null);
+        for (int tileY = minTileY; tileY <= maxTileY; tileY++) {
+            for (int tileX = minTileX; tileX <= maxTileX; tileX++) {
+                for (int trow = 0; trow < tileHeight; trow++) {
+                    int j = (tileY * tileHeight) + trow;
+                    if ((j >= minY) && (j <= maxY)) {
+                        for (int tcol = 0; tcol < tileWidth; tcol++) {
+                            int col = (tileX * tileWidth) + tcol;
+                            if ((col >= minX) && (col <= maxX)) {
+                                int k = col;
+                                final int yPos = height - j + minY - 1;
+
+                                // Simply setting lat and lon
+                                indexing[numDimensions - 1] = k - minX;
+                                indexing[numDimensions - 2] = yPos;
+                                matrixIndex.set(indexing);
+                                setPixel(
+                                        k,
+                                        j,
+                                        NetCDFUtilities.transcodeImageDataType(imageDataType),
+                                        netCDFDataType,
+                                        data,
+                                        matrix,
+                                        matrixIndex,
+                                        dataPacker,
+                                        noDataValue,
+                                        unitConverter,
+                                        0);
                             }
                         }
                     }
                 }
             }
-            // Finalize the iterator
-            data.done();
         }
+        // Finalize the iterator
+        data.done();
+        return matrix;
+    }
 
-        // ------------------------------
-        // Write the data to the variable
-        // ------------------------------
-        writer.write(var, matrix);
-        writer.flush();
+    /** Fills the slice on the encoding threads, or right away if they are disabled */
+    private static Future<Array> submit(Callable<Array> filler) {
+        if (EXECUTOR != null) {
+            return EXECUTOR.submit(filler);
+        }
+        FutureTask<Array> task = new FutureTask<>(filler);
+        task.run();
+        return task;
+    }
+
+    /** A 2D slice being filled, and its position in the output variable */
+    private static class EncodedSlice {
+
+        final int[] origin;
+
+        final Future<Array> data;
+
+        EncodedSlice(int[] origin, Future<Array> data) {
+            this.origin = origin;
+            this.data = data;
+        }
+
+        Array getData() throws IOException {
+            try {
+                return data.get();
+            } catch (InterruptedException e) {
+                throw new IOException("Interrupted while encoding a NetCDF slice", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException("Failed to encode a NetCDF slice", cause);
+            }
+        }
     }
 
     @Override
@@ -18,8 +18,10 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.geoserver.gwc.config.GWCConfig;
 import org.geoserver.gwc.layer.GeoServerTileLayer;
+import org.geoserver.gwc.layer.UniformTiles;
 import org.geoserver.platform.GeoServerExtensions;
 import org.geotools.util.logging.Logging;
+import org.geowebcache.io.Resource;
 import org.geowebcache.layer.TileLayer;
 import org.geowebcache.storage.BlobStore;
 import org.geowebcache.storage.BlobStoreListener;
@@ -202,7 +204,19 @@ public class ConfigurableBlobStore implements BlobStore {
             actualOperations.incrementAndGet();
             try {
                 // Get a TileObject
-                return delegate.get(obj);
+                boolean found = delegate.get(obj);
+                if (found && UniformTiles.isMarker(obj.getBlob())) {
+                    Resource blob = UniformTiles.resolve(obj.getBlob());
+                    if (blob == null) {
+                        // the shared image is gone, treat as a cache miss
+                        return false;
+                    }
+                    obj.setBlob(blob);
+                    obj.setBlobSize((int) blob.getSize());
+                }
+                return found;
+            } catch (IOException e) {
+                throw new StorageException(e.getMessage(), e);
             } finally {
                 // Decrement the number of current operations.
                 actualOperations.decrementAndGet();
@@ -221,8 +235,23 @@ public class ConfigurableBlobStore implements BlobStore {
             // the configured parameter to false
             actualOperations.incrementAndGet();
             try {
-                // Put the TileObject
-                delegate.put(obj);
+                Resource marker =
+                        UniformTiles.isEnabled() ? UniformTiles.toMarker(obj.getBlob()) : null;
+                if (marker != null) {
+                    // store a reference to the shared copy of the uniform tile
+                    Resource blob = obj.getBlob();
+                    obj.setBlob(marker);
+                    try {
+                        delegate.put(obj);
+                    } finally {
+                        obj.setBlob(blob);
+                    }
+                } else {
+                    // Put the TileObject
+                    delegate.put(obj);
+                }
+            } catch (IOException e) {
+                throw new StorageException(e.getMessage(), e);
             } finally {
                 // Decrement the number of current operations.
                 actualOperations.decrementAndGet();
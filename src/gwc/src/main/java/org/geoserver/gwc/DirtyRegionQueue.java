@@ -0,0 +1,356 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * Accumulates the areas modified by transactions, per tile layer, and truncates them in batches.
+ *
+ * <p>The first region queued for truncation starts a coalescing window, the regions added during
+ * the window are merged with the overlapping ones, and the number of separate regions per layer is
+ * capped by merging the ones whose union grows the least. Once the window expires the regions are
+ * truncated by a background thread, at most {@link #MAX_RATE_KEY} truncations per second, so that a
+ * frequently edited layer does not flood the tile breeder with truncate tasks.
+ *
+ * <p>The total number of regions queued is capped by {@link #MAX_PENDING_KEY}, past it the layers
+ * with the most regions are collapsed into a single region, and if that is not enough the queue is
+ * truncated right away. The regions still queued on {@link #dispose()} are truncated before
+ * returning.
+ *
+ * <p>Disabled by default, set the {@link #WINDOW_KEY} system property to the window length in
+ * milliseconds to enable it.
+ */
+public class DirtyRegionQueue {
+
+    static final Logger LOGGER = Logging.getLogger(DirtyRegionQueue.class);
+
+    /** System property setting the coalescing window, in milliseconds, 0 disables batching */
+    public static final String WINDOW_KEY = "org.geoserver.gwc.truncate.window";
+
+    /** System property setting the max number of region truncations per second */
+    public static final String MAX_RATE_KEY = "org.geoserver.gwc.truncate.maxPerSecond";
+
+    /** System property setting the max number of regions queued, over all the layers */
+    public static final String MAX_PENDING_KEY = "org.geoserver.gwc.truncate.maxPending";
+
+    static final long WINDOW = Long.getLong(WINDOW_KEY, 0);
+
+    static final int MAX_RATE = Integer.getInteger(MAX_RATE_KEY, 10);
+
+    static final int MAX_PENDING = Integer.getInteger(MAX_PENDING_KEY, 1024);
+
+    /** Max number of separate regions kept per layer */
+    static final int MAX_REGIONS = 16;
+
+    private final GWC gwc;
+
+    private final long window;
+
+    private final long minInterval;
+
+    private final int maxPending;
+
+    private final ScheduledExecutorService executor;
+
+    /** Regions waiting to be truncated, by tile layer, guarded by this */
+    private final Map<String, List<ReferencedEnvelope>> pending = new LinkedHashMap<>();
+
+    private boolean scheduled;
+
+    private long lastTruncation;
+
+    private final AtomicLong regionsReceived = new AtomicLong();
+
+    private final AtomicLong truncations = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    /** Returns true if the batching has been enabled */
+    public static boolean isEnabled() {
+        return WINDOW > 0;
+    }
+
+    /** Creates a queue with the configured window and rate */
+    public DirtyRegionQueue(GWC gwc) {
+        this(gwc, WINDOW, MAX_RATE, MAX_PENDING);
+    }
+
+    /**
+     * @param gwc the mediator used to truncate the regions
+     * @param window the coalescing window, in milliseconds
+     * @param maxRate the max number of truncations per second, 0 or less for no limit
+     */
+    public DirtyRegionQueue(GWC gwc, long window, int maxRate) {
+        this(gwc, window, maxRate, MAX_PENDING);
+    }
+
+    /**
+     * @param gwc the mediator used to truncate the regions
+     * @param window the coalescing window, in milliseconds
+     * @param maxRate the max number of truncations per second, 0 or less for no limit
+     * @param maxPending the max number of regions queued, over all the layers
+     */
+    public DirtyRegionQueue(GWC gwc, long window, int maxRate, int maxPending) {
+        this.gwc = gwc;
+        this.window = window;
+        this.minInterval = maxRate > 0 ? 1000 / maxRate : 0;
+        this.maxPending = Math.max(1, maxPending);
+        this.executor =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "gwc-truncate-batcher");
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    /**
+     * Queues the regions modified on a tile layer, in its declared CRS, for truncation at the end
+     * of the current window. Once disposed, the regions are truncated right away instead.
+     */
+    public void add(String tileLayerName, List<ReferencedEnvelope> regions) {
+        boolean flushNow = false;
+        synchronized (this) {
+            List<ReferencedEnvelope> layerRegions = pending.get(tileLayerName);
+            if (layerRegions == null) {
+                layerRegions = new ArrayList<>();
+                pending.put(tileLayerName, layerRegions);
+            }
+            for (ReferencedEnvelope region : regions) {
+                regionsReceived.incrementAndGet();
+                addRegion(layerRegions, region);
+            }
+            if (executor.isShutdown()) {
+                flushNow = true;
+            } else if (!collapse(pending, maxPending)) {
+                // too many layers to keep them all, truncate without waiting for the window
+                executor.execute(this::flush);
+            } else if (!scheduled) {
+                scheduled = true;
+                executor.schedule(this::flush, window, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (flushNow) {
+            flush();
+        }
+    }
+
+    /**
+     * Collapses the regions of the layers having the most, into their union, until the total number
+     * of regions is within the limit. Returns false if the limit could not be met.
+     */
+    static boolean collapse(Map<String, List<ReferencedEnvelope>> pending, int maxPending) {
+        int count = 0;
+        for (List<ReferencedEnvelope> regions : pending.values()) {
+            count += regions.size();
+        }
+        while (count > maxPending) {
+            List<ReferencedEnvelope> largest = null;
+            for (List<ReferencedEnvelope> regions : pending.values()) {
+                if (largest == null || regions.size() > largest.size()) {
+                    largest = regions;
+                }
+            }
+            if (largest == null || largest.size() <= 1) {
+                return false;
+            }
+            ReferencedEnvelope union = new ReferencedEnvelope(largest.get(0));
+            for (ReferencedEnvelope region : largest) {
+                union.expandToInclude(region);
+            }
+            count -= largest.size() - 1;
+            largest.clear();
+            largest.add(union);
+        }
+        return true;
+    }
+
+    /** Adds the region to the list, merging it with the ones it overlaps */
+    static void addRegion(List<ReferencedEnvelope> regions, ReferencedEnvelope region) {
+        ReferencedEnvelope merged = new ReferencedEnvelope(region);
+        boolean grown = true;
+        // the merged region might overlap regions it did not overlap before growing
+        while (grown) {
+            grown = false;
+            for (Iterator<ReferencedEnvelope> it = regions.iterator(); it.hasNext(); ) {
+                ReferencedEnvelope other = it.next();
+                if (other.intersects((Envelope) merged)) {
+                    merged.expandToInclude(other);
+                    it.remove();
+                    grown = true;
+                }
+            }
+        }
+        regions.add(merged);
+        while (regions.size() > MAX_REGIONS) {
+            mergeClosest(regions);
+        }
+    }
+
+    /** Merges the two regions whose union adds the least area */
+    private static void mergeClosest(List<ReferencedEnvelope> regions) {
+        int bestI = 0, bestJ = 1;
+        double bestGrowth = Double.MAX_VALUE;
+        for (int i = 0; i < regions.size(); i++) {
+            for (int j = i + 1; j < regions.size(); j++) {
+                ReferencedEnvelope a = regions.get(i);
+                ReferencedEnvelope b = regions.get(j);
+                Envelope union = new Envelope(a);
+                union.expandToInclude(b);
+                double growth = union.getArea() - a.getArea() - b.getArea();
+                if (growth < bestGrowth) {
+                    bestGrowth = growth;
+                    bestI = i;
+                    bestJ = j;
+                }
+            }
+        }
+        ReferencedEnvelope b = regions.remove(bestJ);
+        ReferencedEnvelope a = regions.remove(bestI);
+        ReferencedEnvelope merged = new ReferencedEnvelope(a);
+        merged.expandToInclude(b);
+        addRegion(regions, merged);
+    }
+
+    /** Truncates all the regions queued so far */
+    void flush() {
+        Map<String, List<ReferencedEnvelope>> batch;
+        synchronized (this) {
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+            scheduled = false;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int count = 0;
+        for (Map.Entry<String, List<ReferencedEnvelope>> entry : batch.entrySet()) {
+            String tileLayerName = entry.getKey();
+            for (Iterator<ReferencedEnvelope> it = entry.getValue().iterator(); it.hasNext(); ) {
+                ReferencedEnvelope region = it.next();
+                try {
+                    throttle();
+                } catch (InterruptedException e) {
+                    // the regions not truncated yet go back in the queue
+                    requeue(batch);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                it.remove();
+                try {
+                    gwc.truncate(tileLayerName, region);
+                    truncations.incrementAndGet();
+                    count++;
+                } catch (Exception e) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Error truncating tile layer "
+                                    + tileLayerName
+                                    + " for transaction affected bounds "
+                                    + region,
+                            e);
+                }
+            }
+        }
+        batches.incrementAndGet();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine(
+                    "Truncated "
+                            + count
+                            + " regions of "
+                            + batch.size()
+                            + " tile layers in "
+                            + (System.currentTimeMillis() - start)
+                            + " ms, "
+                            + regionsReceived.get()
+                            + " regions received and "
+                            + truncations.get()
+                            + " truncated so far");
+        }
+    }
+
+    /** Puts back the regions of an interrupted batch, without scheduling them */
+    private synchronized void requeue(Map<String, List<ReferencedEnvelope>> batch) {
+        for (Map.Entry<String, List<ReferencedEnvelope>> entry : batch.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            List<ReferencedEnvelope> layerRegions = pending.get(entry.getKey());
+            if (layerRegions == null) {
+                layerRegions = new ArrayList<>();
+                pending.put(entry.getKey(), layerRegions);
+            }
+            for (ReferencedEnvelope region : entry.getValue()) {
+                addRegion(layerRegions, region);
+            }
+        }
+    }
+
+    private void throttle() throws InterruptedException {
+        long wait = lastTruncation + minInterval - System.currentTimeMillis();
+        if (wait > 0) {
+            Thread.sleep(wait);
+        }
+        lastTruncation = System.currentTimeMillis();
+    }
+
+    /** The number of regions queued so far */
+    public long getRegionsReceived() {
+        return regionsReceived.get();
+    }
+
+    /** The number of truncations performed so far, after merging the regions */
+    public long getTruncations() {
+        return truncations.get();
+    }
+
+    /** The number of batches truncated so far */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /** The number of regions waiting to be truncated */
+    public synchronized int getPendingRegions() {
+        int count = 0;
+        for (List<ReferencedEnvelope> regions : pending.values()) {
+            count += regions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Stops the background thread, and truncates the regions still queued on the calling thread, so
+     * that no modified area is left with stale tiles
+     */
+    public void dispose() {
+        executor.shutdownNow();
+        boolean interrupted = false;
+        try {
+            // a batch interrupted while throttling puts its regions back in the queue
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        flush();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
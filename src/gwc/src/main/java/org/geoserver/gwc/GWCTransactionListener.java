@@ -29,6 +29,7 @@ import org.geowebcache.GeoWebCacheException;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.TransformException;
+import org.springframework.beans.factory.DisposableBean;
 
 /**
  * Listens to transactions (so far only issued by WFS) and truncates the cache for the affected area
@@ -37,13 +38,17 @@ import org.opengis.referencing.operation.TransformException;
  * <p>A Spring bean singleton of this class needs to be declared in order for GeoServer transactions
  * to pick it up automatically and forward transaction events to it.
  *
+ * <p>When the {@link DirtyRegionQueue#WINDOW_KEY} system property is set, the affected areas are
+ * not truncated right away, but queued in a {@link DirtyRegionQueue} that coalesces the ones
+ * collected over a short window and truncates them in the background.
+ *
  * <p>TODO: upon deletion, only truncate if feature count > 0
  *
  * @author Arne Kepp
  * @author Gabriel Roldan
  * @version $Id$
  */
-public class GWCTransactionListener implements TransactionCallback {
+public class GWCTransactionListener implements TransactionCallback, DisposableBean {
 
     private static Logger log = Logging.getLogger(GWCTransactionListener.class);
 
@@ -51,9 +56,27 @@ public class GWCTransactionListener implements TransactionCallback {
 
     static final String GWC_TRANSACTION_INFO_PLACEHOLDER = "GWC_TRANSACTION_INFO_PLACEHOLDER";
 
+    private final DirtyRegionQueue dirtyRegions;
+
     /** @param gwc */
     public GWCTransactionListener(final GWC gwc) {
+        this(gwc, DirtyRegionQueue.isEnabled() ? new DirtyRegionQueue(gwc) : null);
+    }
+
+    /**
+     * @param gwc
+     * @param dirtyRegions the queue batching the truncations, or null to truncate right away
+     */
+    GWCTransactionListener(final GWC gwc, final DirtyRegionQueue dirtyRegions) {
         this.gwc = gwc;
+        this.dirtyRegions = dirtyRegions;
+    }
+
+    @Override
+    public void destroy() {
+        if (dirtyRegions != null) {
+            dirtyRegions.dispose();
+        }
     }
 
     /**
@@ -103,6 +126,14 @@ public class GWCTransactionListener implements TransactionCallback {
         }
         for (String tileLayerName : byLayerDirtyRegions.keySet()) {
             List<ReferencedEnvelope> dirtyList = byLayerDirtyRegions.get(tileLayerName);
+            if (dirtyRegions != null) {
+                try {
+                    dirtyRegions.add(tileLayerName, transform(tileLayerName, dirtyList));
+                } catch (Exception e) {
+                    log.log(Level.WARNING, e.getMessage(), e);
+                }
+                continue;
+            }
             ReferencedEnvelope dirtyRegion;
             try {
                 dirtyRegion = merge(tileLayerName, dirtyList);
@@ -136,17 +167,34 @@ public class GWCTransactionListener implements TransactionCallback {
                 CRS.getHorizontalCRS(gwc.getDeclaredCrs(tileLayerName));
         ReferencedEnvelope merged = new ReferencedEnvelope(declaredCrs);
         for (ReferencedEnvelope env : dirtyList) {
-            if (env instanceof ReferencedEnvelope3D) {
-                env =
-                        new ReferencedEnvelope(
-                                env, CRS.getHorizontalCRS(env.getCoordinateReferenceSystem()));
-            }
-            ReferencedEnvelope transformedDirtyRegion = env.transform(declaredCrs, true, 1000);
-            merged.expandToInclude(transformedDirtyRegion);
+            merged.expandToInclude(transform(env, declaredCrs));
         }
         return merged;
     }
 
+    /** Transforms the dirty regions to the tile layer declared CRS, keeping them separate */
+    private List<ReferencedEnvelope> transform(
+            final String tileLayerName, final List<ReferencedEnvelope> dirtyList)
+            throws TransformException, FactoryException {
+        final CoordinateReferenceSystem declaredCrs =
+                CRS.getHorizontalCRS(gwc.getDeclaredCrs(tileLayerName));
+        List<ReferencedEnvelope> transformed = new ArrayList<>(dirtyList.size());
+        for (ReferencedEnvelope env : dirtyList) {
+            transformed.add(transform(env, declaredCrs));
+        }
+        return transformed;
+    }
+
+    private ReferencedEnvelope transform(ReferencedEnvelope env, CoordinateReferenceSystem crs)
+            throws TransformException, FactoryException {
+        if (env instanceof ReferencedEnvelope3D) {
+            env =
+                    new ReferencedEnvelope(
+                            env, CRS.getHorizontalCRS(env.getCoordinateReferenceSystem()));
+        }
+        return env.transform(crs, true, 1000);
+    }
+
     /**
      * @return {@code 0}, we don't need any special treatment
      * @see org.geoserver.wfs.TransactionPlugin#getPriority()
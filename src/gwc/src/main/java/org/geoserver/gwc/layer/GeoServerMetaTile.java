@@ -13,11 +13,15 @@ import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.awt.image.WritableRaster;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import javax.media.jai.PlanarImage;
+import org.apache.commons.io.IOUtils;
 import org.geoserver.gwc.GWC;
 import org.geoserver.ows.Response;
+import org.geoserver.wms.WMS;
 import org.geoserver.wms.WMSMapContent;
 import org.geoserver.wms.WebMap;
 import org.geoserver.wms.map.RawMap;
@@ -38,6 +42,9 @@ public class GeoServerMetaTile extends MetaTile {
 
     private WebMap metaTileMap;
 
+    /** The encoded tiles, by tile index, if capturing them has been requested */
+    private byte[][] encodedTiles;
+
     public GeoServerMetaTile(
             GridSubset gridSubset,
             MimeType responseFormat,
@@ -67,6 +74,33 @@ public class GeoServerMetaTile extends MetaTile {
      */
     @Override
     public boolean writeTileToStream(final int tileIdx, Resource target) throws IOException {
+        boolean written = encodeTile(tileIdx, target);
+        if (written && encodedTiles != null) {
+            try (InputStream is = target.getInputStream()) {
+                encodedTiles[tileIdx] = IOUtils.toByteArray(is);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Keeps a copy of the tiles encoded from now on, so that they can be handed over to the
+     * requests waiting for this meta tile
+     */
+    public void captureEncodedTiles() {
+        encodedTiles = new byte[getTilesGridPositions().length][];
+    }
+
+    /**
+     * Returns the encoded tiles captured since {@link #captureEncodedTiles()} was called, by tile
+     * index, with null entries for the tiles that were not encoded. Returns null if capturing was
+     * not requested.
+     */
+    public byte[][] getEncodedTiles() {
+        return encodedTiles;
+    }
+
+    private boolean encodeTile(final int tileIdx, Resource target) throws IOException {
 
         checkNotNull(metaTileMap, "webMap is not set");
 
@@ -126,6 +160,31 @@ public class GeoServerMetaTile extends MetaTile {
             }
         }
 
+        if (UniformTiles.isEnabled() && tileContext.getPalette() == null) {
+            String key = UniformTiles.getUniformKey(tile);
+            if (key != null) {
+                // uniform tiles are encoded once, the output only depends on the encoding
+                key =
+                        UniformTiles.getEncodingKey(
+                                        responseFormat.getFormat(),
+                                        metaTileMap.getMapContext().getRequest().getFormatOptions(),
+                                        WMS.get())
+                                + ":"
+                                + key;
+                byte[] encoded = UniformTiles.getEncoded(key);
+                if (encoded == null) {
+                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                    mapEncoder.formatImageOutputStream(tile, bos, tileContext);
+                    encoded = bos.toByteArray();
+                    UniformTiles.register(key, encoded);
+                }
+                try (OutputStream outStream = target.getOutputStream()) {
+                    outStream.write(encoded);
+                }
+                return true;
+            }
+        }
+
         OutputStream outStream = target.getOutputStream();
         try {
             // call formatImageOuputStream instead of write to avoid disposition of rendered images
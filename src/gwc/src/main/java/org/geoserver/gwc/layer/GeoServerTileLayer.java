@@ -626,6 +626,23 @@ public class GeoServerTileLayer extends TileLayer implements ProxyLayer {
         }
 
         final GeoServerMetaTile metaTile = createMetaTile(tile, metaX, metaY);
+        MetaTileFlights.Flight flight = null;
+        if (MetaTileFlights.isEnabled()) {
+            flight = MetaTileFlights.join(buildLockKey(tile, metaTile));
+            if (flight.isLeader()) {
+                metaTile.captureEncodedTiles();
+            } else {
+                // reseeding requests have to render the tiles themselves
+                Resource blob = tryCache ? flight.await(tile.getTileIndex()) : null;
+                flight = null;
+                if (blob != null) {
+                    metaTile.dispose();
+                    tile.setBlob(blob);
+                    return finalizeTile(tile);
+                }
+                // the leader did not make it, or did not encode this tile, go the usual way
+            }
+        }
         Lock lock = null;
         try {
             /* ****************** Acquire lock ******************* */
@@ -662,6 +679,9 @@ public class GeoServerTileLayer extends TileLayer implements ProxyLayer {
             if (lock != null) {
                 lock.release();
             }
+            if (flight != null) {
+                flight.complete(metaTile.getTilesGridPositions(), metaTile.getEncodedTiles());
+            }
             metaTile.dispose();
         }
 
@@ -0,0 +1,132 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.layer;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geotools.util.logging.Logging;
+import org.geowebcache.io.ByteArrayResource;
+import org.geowebcache.io.Resource;
+
+/**
+ * Coalesces the concurrent cache misses on the same meta tile.
+ *
+ * <p>The first request missing the cache becomes the leader of a flight, and renders the meta tile
+ * as usual. The requests arriving for the same meta tile while it's being rendered do not queue on
+ * the meta tile lock, they join the flight and receive the encoded tiles straight from memory once
+ * the leader is done, without reading them back from the blob store. Should the leader fail, or not
+ * encode the tile a follower is interested in, the follower falls back on the usual lock and cache
+ * lookup.
+ *
+ * <p>Disabled by default, set the {@link #ENABLED_KEY} system property to true to enable it.
+ */
+public class MetaTileFlights {
+
+    static final Logger LOGGER = Logging.getLogger(MetaTileFlights.class);
+
+    /** System property enabling the coalescing of concurrent meta tile requests */
+    public static final String ENABLED_KEY = "org.geoserver.gwc.metaTileCoalescing";
+
+    static boolean ENABLED = Boolean.getBoolean(ENABLED_KEY);
+
+    /** Max time a follower waits for the leader, before falling back on the usual path */
+    static final long WAIT_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+
+    /** The meta tiles being rendered, by meta tile lock key */
+    static final ConcurrentHashMap<String, Flight> FLIGHTS = new ConcurrentHashMap<>();
+
+    static final AtomicLong COALESCED = new AtomicLong();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Joins the flight for the given meta tile, starting a new one led by the current thread if
+     * none is running
+     */
+    public static Flight join(String key) {
+        Flight flight = new Flight(key);
+        Flight running = FLIGHTS.putIfAbsent(key, flight);
+        return running != null ? running : flight;
+    }
+
+    /** The number of tiles handed over to followers so far */
+    public static long getCoalescedRequests() {
+        return COALESCED.get();
+    }
+
+    /** A meta tile being rendered, and the requests waiting for it */
+    public static class Flight {
+
+        private final String key;
+
+        private final Thread leader = Thread.currentThread();
+
+        private final CompletableFuture<byte[][]> tiles = new CompletableFuture<>();
+
+        private volatile long[][] positions;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        /** Returns true if the current thread leads this flight */
+        public boolean isLeader() {
+            return leader == Thread.currentThread();
+        }
+
+        /**
+         * Completes the flight, handing over the encoded tiles to the followers. Called by the
+         * leader once done, whether it succeeded or not.
+         *
+         * @param positions the grid positions of the meta tile tiles
+         * @param encodedTiles the encoded tiles, in the same order as the positions, or null if
+         *     none is available
+         */
+        public void complete(long[][] positions, byte[][] encodedTiles) {
+            FLIGHTS.remove(key, this);
+            this.positions = positions;
+            tiles.complete(encodedTiles);
+        }
+
+        /**
+         * Waits for the leader, and returns the encoded tile at the given grid position, or null if
+         * not available
+         */
+        public Resource await(long[] tileIndex) {
+            byte[][] encoded;
+            try {
+                encoded = tiles.get(WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                LOGGER.log(Level.FINE, "Gave up waiting for meta tile " + key, e);
+                return null;
+            }
+            if (encoded == null) {
+                return null;
+            }
+            for (int i = 0; i < positions.length; i++) {
+                if (Arrays.equals(positions[i], tileIndex)) {
+                    if (encoded[i] == null) {
+                        return null;
+                    }
+                    COALESCED.incrementAndGet();
+                    return new ByteArrayResource(encoded[i]);
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.layer;
+
+import java.awt.image.ColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import org.apache.commons.io.IOUtils;
+import org.geoserver.platform.GeoServerExtensions;
+import org.geoserver.platform.GeoServerResourceLoader;
+import org.geoserver.wms.WMS;
+import org.geotools.util.logging.Logging;
+import org.geowebcache.io.ByteArrayResource;
+import org.geowebcache.io.Resource;
+
+/**
+ * Support for tiles whose pixels all have the same color, like the fully transparent tiles over
+ * areas with no data, or the solid color ones over oceans.
+ *
+ * <p>When enabled, {@link GeoServerMetaTile} encodes a uniform tile only once per format, size and
+ * color, reusing the encoded bytes for all the following ones. The blob store then replaces the
+ * tiles matching one of these encoded images with a small marker, pointing to a single copy stored
+ * in the data directory, and resolves the markers back into the image when reading.
+ *
+ * <p>Disabled by default, set the {@link #ENABLED_KEY} system property to true to enable it.
+ * Markers are resolved regardless, so that the tiles stored while enabled keep on working.
+ */
+public class UniformTiles {
+
+    static final Logger LOGGER = Logging.getLogger(UniformTiles.class);
+
+    /** System property enabling the uniform tiles detection */
+    public static final String ENABLED_KEY = "org.geoserver.gwc.uniformTiles";
+
+    static boolean ENABLED = Boolean.getBoolean(ENABLED_KEY);
+
+    /** Data directory folder holding the shared copies of the uniform tiles */
+    static final String DIRECTORY = "gwc/uniform-tiles";
+
+    static final byte[] MAGIC = "GSUNIFORM:".getBytes(StandardCharsets.US_ASCII);
+
+    /** Magic bytes plus the hex SHA-1 of the image */
+    static final int MARKER_LENGTH = MAGIC.length + 40;
+
+    /** The hex SHA-1 held by a valid marker */
+    static final Pattern HASH = Pattern.compile("[0-9a-f]{40}");
+
+    /** Max number of encoded images kept in memory, by key and by hash */
+    static final int MAX_ENTRIES = 1024;
+
+    /** Encoded uniform tiles, by format, size and color */
+    static final Map<String, byte[]> ENCODED =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                            return size() > MAX_ENTRIES;
+                        }
+                    });
+
+    /**
+     * Sizes of the encoded uniform tiles, along with how many tiles have each size, to quickly rule
+     * out the other tiles
+     */
+    static final Map<Integer, Integer> SIZES = new ConcurrentHashMap<>();
+
+    /**
+     * Encoded uniform tiles, by SHA-1. Evicted tiles are no longer replaced by markers, but the
+     * existing markers are still resolved, reloading the tile from the data directory
+     */
+    static final Map<String, byte[]> BY_HASH =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                            if (size() > MAX_ENTRIES) {
+                                SIZES.computeIfPresent(
+                                        eldest.getValue().length,
+                                        (size, count) -> count > 1 ? count - 1 : null);
+                                return true;
+                            }
+                            return false;
+                        }
+                    });
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Returns a key describing the image size and color if all its pixels have the same color, null
+     * otherwise
+     */
+    public static String getUniformKey(RenderedImage image) {
+        Raster raster =
+                image.getNumXTiles() == 1 && image.getNumYTiles() == 1
+                        ? image.getTile(image.getMinTileX(), image.getMinTileY())
+                        : image.getData();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int minX = image.getMinX();
+        int minY = image.getMinY();
+        int bands = raster.getNumBands();
+        int[] first = raster.getPixel(minX, minY, (int[]) null);
+        int[] row = new int[width * bands];
+        for (int y = minY; y < minY + height; y++) {
+            raster.getPixels(minX, y, width, 1, row);
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] != first[i % bands]) {
+                    return null;
+                }
+            }
+        }
+        ColorModel cm = image.getColorModel();
+        Object pixel = raster.getDataElements(minX, minY, null);
+        String color = cm != null ? Integer.toHexString(cm.getRGB(pixel)) : "";
+        return width + "x" + height + ":" + bands + ":" + Arrays.toString(first) + ":" + color;
+    }
+
+    /**
+     * Returns a key describing how the tiles are encoded: the format and format options, along with
+     * the WMS encoder settings, as a change in any of them changes the encoded bytes
+     */
+    public static String getEncodingKey(String format, Map<?, ?> formatOptions, WMS wms) {
+        StringBuilder sb = new StringBuilder(format).append(":").append(formatOptions);
+        if (wms != null) {
+            sb.append(":png=")
+                    .append(wms.getPngCompression())
+                    .append(",")
+                    .append(wms.getPNGEncoderType())
+                    .append(":jpeg=")
+                    .append(wms.getJpegCompression())
+                    .append(",")
+                    .append(wms.getJPEGNativeAcceleration());
+        }
+        return sb.toString();
+    }
+
+    /** Returns the encoded image registered with the given key, if any */
+    public static byte[] getEncoded(String key) {
+        return ENCODED.get(key);
+    }
+
+    /** Registers the encoded image of a uniform tile */
+    public static void register(String key, byte[] encoded) {
+        ENCODED.put(key, encoded);
+        cache(sha1(encoded), encoded);
+    }
+
+    /** Keeps the encoded image in memory, by hash, unless already there */
+    private static void cache(String hash, byte[] encoded) {
+        synchronized (BY_HASH) {
+            if (!BY_HASH.containsKey(hash)) {
+                BY_HASH.put(hash, encoded);
+                SIZES.merge(encoded.length, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Returns a marker for the blob if it's one of the registered uniform tiles, null otherwise.
+     * The shared copy of the tile is saved in the data directory, if not there already.
+     */
+    public static Resource toMarker(Resource blob) throws IOException {
+        if (blob == null || !SIZES.containsKey((int) blob.getSize())) {
+            return null;
+        }
+        byte[] contents = read(blob);
+        String hash = sha1(contents);
+        byte[] encoded = BY_HASH.get(hash);
+        if (encoded == null || !Arrays.equals(encoded, contents)) {
+            return null;
+        }
+        GeoServerResourceLoader loader = GeoServerExtensions.bean(GeoServerResourceLoader.class);
+        if (loader == null) {
+            return null;
+        }
+        org.geoserver.platform.resource.Resource shared = loader.get(DIRECTORY + "/" + hash);
+        if (shared.getType() != org.geoserver.platform.resource.Resource.Type.RESOURCE) {
+            try (OutputStream os = shared.out()) {
+                os.write(encoded);
+            }
+        }
+        byte[] marker = Arrays.copyOf(MAGIC, MARKER_LENGTH);
+        byte[] hashBytes = hash.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(hashBytes, 0, marker, MAGIC.length, hashBytes.length);
+        return new ByteArrayResource(marker);
+    }
+
+    /** Returns true if the blob is a marker, without reading it unless the size matches */
+    public static boolean isMarker(Resource blob) throws IOException {
+        if (blob == null || blob.getSize() != MARKER_LENGTH) {
+            return false;
+        }
+        byte[] contents = read(blob);
+        return Arrays.equals(Arrays.copyOf(contents, MAGIC.length), MAGIC);
+    }
+
+    /**
+     * Resolves a marker into the shared image it points to. Returns null if the marker does not
+     * hold a valid hash, or the image cannot be found.
+     */
+    public static Resource resolve(Resource marker) throws IOException {
+        byte[] contents = read(marker);
+        String hash =
+                new String(
+                        contents,
+                        MAGIC.length,
+                        contents.length - MAGIC.length,
+                        StandardCharsets.US_ASCII);
+        if (!HASH.matcher(hash).matches()) {
+            // the hash is used as a file name, anything else is not to be trusted
+            LOGGER.warning("Invalid uniform tile marker, ignoring it");
+            return null;
+        }
+        byte[] encoded = BY_HASH.get(hash);
+        if (encoded == null) {
+            GeoServerResourceLoader loader =
+                    GeoServerExtensions.bean(GeoServerResourceLoader.class);
+            if (loader == null) {
+                return null;
+            }
+            org.geoserver.platform.resource.Resource shared = loader.get(DIRECTORY + "/" + hash);
+            if (shared.getType() != org.geoserver.platform.resource.Resource.Type.RESOURCE) {
+                LOGGER.warning("Uniform tile " + hash + " is missing from " + DIRECTORY);
+                return null;
+            }
+            encoded = shared.getContents();
+            cache(hash, encoded);
+        }
+        return new ByteArrayResource(encoded);
+    }
+
+    private static byte[] read(Resource blob) throws IOException {
+        try (InputStream is = blob.getInputStream()) {
+            return IOUtils.toByteArray(is);
+        }
+    }
+
+    static String sha1(byte[] contents) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(contents);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1 is always available
+            LOGGER.log(Level.SEVERE, "SHA-1 not available", e);
+            throw new IllegalStateException(e);
+        }
+    }
+}
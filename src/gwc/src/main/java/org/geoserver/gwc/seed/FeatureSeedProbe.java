@@ -0,0 +1,104 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.seed;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.PublishedInfo;
+import org.geoserver.gwc.layer.GeoServerTileLayer;
+import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.FeatureIterator;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.CRS;
+import org.geotools.util.logging.Logging;
+import org.geowebcache.grid.BoundingBox;
+import org.geowebcache.grid.GridSubset;
+import org.geowebcache.grid.SRS;
+import org.geowebcache.layer.TileLayer;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Checks whether a vector layer has any feature in an area, using a single feature query. Any
+ * failure is reported as a non empty area, so that the area gets seeded anyways.
+ */
+public class FeatureSeedProbe implements ParallelSeedTask.SeedProbe {
+
+    static final Logger LOGGER = Logging.getLogger(FeatureSeedProbe.class);
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    private final FeatureTypeInfo featureType;
+
+    private final CoordinateReferenceSystem gridSetCrs;
+
+    /**
+     * @param featureType the feature type to query
+     * @param gridSetCrs the CRS of the bounds that will be checked
+     */
+    public FeatureSeedProbe(FeatureTypeInfo featureType, CoordinateReferenceSystem gridSetCrs) {
+        this.featureType = featureType;
+        this.gridSetCrs = gridSetCrs;
+    }
+
+    /** Returns a probe for the empty areas of a vector layer, null for other layers */
+    public static FeatureSeedProbe create(TileLayer layer, GridSubset gridSubset) {
+        if (!(layer instanceof GeoServerTileLayer) || gridSubset == null) {
+            return null;
+        }
+        PublishedInfo published = ((GeoServerTileLayer) layer).getPublishedInfo();
+        if (!(published instanceof LayerInfo)
+                || !(((LayerInfo) published).getResource() instanceof FeatureTypeInfo)) {
+            return null;
+        }
+        final SRS srs = gridSubset.getSRS();
+        try {
+            CoordinateReferenceSystem gridSetCrs = CRS.decode("EPSG:" + srs.getNumber(), true);
+            return new FeatureSeedProbe(
+                    (FeatureTypeInfo) ((LayerInfo) published).getResource(), gridSetCrs);
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Can't decode SRS EPSG:" + srs.getNumber() + ", not probing", e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean isEmpty(BoundingBox bounds) {
+        try {
+            FeatureSource<?, ?> source = featureType.getFeatureSource(null, null);
+            GeometryDescriptor geometry = source.getSchema().getGeometryDescriptor();
+            if (geometry == null) {
+                return false;
+            }
+            ReferencedEnvelope envelope =
+                    new ReferencedEnvelope(
+                            bounds.getMinX(),
+                            bounds.getMaxX(),
+                            bounds.getMinY(),
+                            bounds.getMaxY(),
+                            gridSetCrs);
+            CoordinateReferenceSystem nativeCrs = geometry.getCoordinateReferenceSystem();
+            if (nativeCrs != null) {
+                envelope = envelope.transform(nativeCrs, true);
+            }
+            Filter filter = FF.bbox(FF.property(geometry.getLocalName()), envelope);
+            Query query = new Query(source.getSchema().getName().getLocalPart(), filter);
+            query.setMaxFeatures(1);
+            query.setPropertyNames(Query.NO_NAMES);
+            try (FeatureIterator<?> features = source.getFeatures(query).features()) {
+                return !features.hasNext();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Data probe failed on " + featureType.prefixedName(), e);
+            return false;
+        }
+    }
+}
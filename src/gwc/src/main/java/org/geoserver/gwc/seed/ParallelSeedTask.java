@@ -0,0 +1,439 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.seed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geoserver.threadlocals.ThreadLocalsTransfer;
+import org.geotools.util.logging.Logging;
+import org.geowebcache.GeoWebCacheException;
+import org.geowebcache.conveyor.ConveyorTile;
+import org.geowebcache.grid.BoundingBox;
+import org.geowebcache.grid.GridSubset;
+import org.geowebcache.layer.TileLayer;
+import org.geowebcache.mime.MimeType;
+import org.geowebcache.seed.GWCTask;
+import org.geowebcache.storage.TileRange;
+
+/**
+ * A seeding task splitting its tile range into meta tile aligned work units, shared by a pool of
+ * seeding threads. The ranges of all zoom levels are queued at once, each thread takes a range and
+ * splits it in halves, queuing one half for the other threads and moving on with the other, until a
+ * single meta tile is left. Idle threads pick the pending halves from the busy ones, keeping all
+ * threads busy regardless of how the tiles are distributed among the zoom levels.
+ *
+ * <p>Before splitting a large range, an optional {@link SeedProbe} is asked whether the area has
+ * any data, skipping it altogether if it has none. Tiles are written by a {@link
+ * PipelinedStorageBroker}, so that rendering and storage overlap.
+ *
+ * <p>The task is dispatched by the {@link ParallelTileBreeder} as a single {@link GWCTask}, so it's
+ * listed and can be terminated like the other seeding tasks. The seeding threads run on a pool
+ * owned by the task, as rendering and storing tiles block on I/O.
+ */
+public class ParallelSeedTask extends GWCTask {
+
+    static final Logger LOGGER = Logging.getLogger(ParallelSeedTask.class);
+
+    /** Ranges with less meta tiles than this are seeded without probing for data first */
+    static final int PROBE_MIN_METATILES = 16;
+
+    /** Interval between progress log messages */
+    static final long REPORT_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+
+    /** How long an idle seeding thread waits for a range before checking if seeding is over */
+    static final long POLL_INTERVAL = 100;
+
+    /** Checks whether an area has anything to render */
+    public interface SeedProbe {
+
+        /**
+         * Returns true if the layer has nothing to render in the given bounds, expressed in the
+         * grid set CRS. Should return false if unsure.
+         */
+        boolean isEmpty(BoundingBox bounds);
+    }
+
+    private final TileLayer layer;
+
+    private final GridSubset gridSubset;
+
+    private final TileRange range;
+
+    private final Map<String, String> parameters;
+
+    private final PipelinedStorageBroker storageBroker;
+
+    private final SeedProbe probe;
+
+    private final boolean reseed;
+
+    private final int metaX;
+
+    private final int metaY;
+
+    private final int threadCount;
+
+    private final ThreadLocalsTransfer threadLocalsTransfer = new ThreadLocalsTransfer();
+
+    /** The ranges waiting for a seeding thread */
+    private final LinkedBlockingDeque<SeedRange> queue = new LinkedBlockingDeque<>();
+
+    /** The ranges queued or being processed, seeding is over when it gets to zero */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicLong tilesProcessed = new AtomicLong();
+
+    private final AtomicLong tilesSkipped = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private final AtomicLong lastReport = new AtomicLong();
+
+    private volatile long startTime;
+
+    private volatile boolean cancelled;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * @param layer the layer to seed
+     * @param range the tiles to seed
+     * @param storageBroker the broker tiles are written to
+     * @param probe the empty area detector, or null to seed the whole range
+     * @param reseed if true, the tiles are rendered even if already cached
+     * @param threadCount the number of seeding threads
+     */
+    public ParallelSeedTask(
+            TileLayer layer,
+            TileRange range,
+            PipelinedStorageBroker storageBroker,
+            SeedProbe probe,
+            boolean reseed,
+            int threadCount) {
+        this.layer = layer;
+        this.range = range;
+        this.gridSubset = layer.getGridSubset(range.getGridSetId());
+        this.parameters =
+                range.getParameters() == null ? Collections.emptyMap() : range.getParameters();
+        this.storageBroker = storageBroker;
+        this.probe = probe;
+        this.reseed = reseed;
+        this.threadCount = Math.max(1, threadCount);
+        int[] metaTiling = layer.getMetaTilingFactors();
+        if (range.getMimeType().supportsTiling()) {
+            this.metaX = metaTiling[0];
+            this.metaY = metaTiling[1];
+        } else {
+            this.metaX = this.metaY = 1;
+        }
+
+        long total = 0;
+        for (int z = range.getZoomStart(); z <= range.getZoomStop(); z++) {
+            long[] bounds = range.rangeBounds(z);
+            if (bounds != null) {
+                total += (bounds[2] - bounds[0] + 1) * (bounds[3] - bounds[1] + 1);
+            }
+        }
+        super.parsedType = reseed ? TYPE.RESEED : TYPE.SEED;
+        super.layerName = layer.getName();
+        super.tilesTotal = total;
+        super.tilesDone = 0;
+        super.state = STATE.READY;
+    }
+
+    @Override
+    protected void doActionInternal() throws GeoWebCacheException, InterruptedException {
+        super.state = STATE.RUNNING;
+        startTime = System.currentTimeMillis();
+        lastReport.set(startTime);
+        for (int z = range.getZoomStart(); z <= range.getZoomStop(); z++) {
+            long[] bounds = range.rangeBounds(z);
+            if (bounds != null) {
+                enqueue(new SeedRange(z, bounds[0], bounds[1], bounds[2], bounds[3]));
+            }
+        }
+        LOGGER.info(
+                "Started seeding of "
+                        + tilesTotal
+                        + " tiles of layer "
+                        + layer.getName()
+                        + " on "
+                        + threadCount
+                        + " threads");
+
+        AtomicInteger count = new AtomicInteger();
+        executor =
+                new ThreadPoolExecutor(
+                        threadCount,
+                        threadCount,
+                        0,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(threadCount),
+                        r -> {
+                            Thread t =
+                                    new Thread(
+                                            r,
+                                            "gwc-parallel-seed-"
+                                                    + layer.getName()
+                                                    + "-"
+                                                    + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int i = 0; i < threadCount; i++) {
+            workers.add(this::seed);
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(workers)) {
+                future.get();
+            }
+            storageBroker.flush();
+        } catch (InterruptedException e) {
+            // killed, stop the seeding threads and discard the pending writes
+            cancelled = true;
+            executor.shutdownNow();
+            storageBroker.abort();
+            super.state = STATE.DEAD;
+            throw e;
+        } catch (ExecutionException e) {
+            storageBroker.abort();
+            super.state = STATE.DEAD;
+            throw new GeoWebCacheException(e.getCause());
+        } finally {
+            executor.shutdown();
+            updateProgress();
+        }
+        super.state = cancelled ? STATE.DEAD : STATE.DONE;
+        LOGGER.info(
+                (cancelled ? "Cancelled" : "Completed")
+                        + " "
+                        + progressMessage()
+                        + ", "
+                        + getFailures()
+                        + " failures");
+    }
+
+    @Override
+    protected void dispose() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Stops the seeding, the meta tiles being rendered are completed */
+    @Override
+    public void terminateNicely() {
+        super.terminateNicely();
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** The number of tiles skipped as their area has no data */
+    public long getTilesSkipped() {
+        return tilesSkipped.get();
+    }
+
+    /** The number of meta tiles, or tiles, that could not be seeded or stored */
+    public long getFailures() {
+        return failures.get() + storageBroker.getFailures();
+    }
+
+    /** The average number of tiles processed per second since the start */
+    public double getTilesPerSecond() {
+        long elapsed = System.currentTimeMillis() - startTime;
+        if (startTime == 0 || elapsed <= 0) {
+            return 0;
+        }
+        return tilesProcessed.get() * 1000d / elapsed;
+    }
+
+    /** Estimated time to completion, in seconds, or -1 if not known yet */
+    public long getEstimatedTimeRemaining() {
+        double rate = getTilesPerSecond();
+        if (rate <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil((tilesTotal - tilesProcessed.get()) / rate);
+    }
+
+    /** The loop of a seeding thread, processing the queued ranges until none is left */
+    private Void seed() throws InterruptedException {
+        while (!cancelled) {
+            SeedRange range = queue.pollFirst(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            if (range != null) {
+                try {
+                    range.process();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            } else if (pending.get() == 0) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private void enqueue(SeedRange range) {
+        pending.incrementAndGet();
+        queue.addFirst(range);
+    }
+
+    private void tilesProcessed(long tiles) {
+        tilesProcessed.addAndGet(tiles);
+        updateProgress();
+        long now = System.currentTimeMillis();
+        long last = lastReport.get();
+        if (now - last >= REPORT_INTERVAL && lastReport.compareAndSet(last, now)) {
+            LOGGER.info(progressMessage());
+        }
+    }
+
+    /** Updates the progress reported by the tile breeder */
+    private synchronized void updateProgress() {
+        super.tilesDone = tilesProcessed.get();
+        super.timeSpent = (System.currentTimeMillis() - startTime) / 1000;
+        super.timeRemaining = getEstimatedTimeRemaining();
+    }
+
+    private String progressMessage() {
+        return "Seeding of layer "
+                + layer.getName()
+                + ": "
+                + tilesProcessed.get()
+                + " of "
+                + tilesTotal
+                + " tiles ("
+                + tilesSkipped.get()
+                + " skipped), "
+                + String.format("%.1f", getTilesPerSecond())
+                + " tiles/s, "
+                + (getEstimatedTimeRemaining() < 0 ? "unknown" : getEstimatedTimeRemaining() + " s")
+                + " remaining";
+    }
+
+    /** A range of tiles in a zoom level, bounds included */
+    private class SeedRange {
+
+        final int z;
+
+        final long minX;
+
+        final long minY;
+
+        final long maxX;
+
+        final long maxY;
+
+        SeedRange(int z, long minX, long minY, long maxX, long maxY) {
+            this.z = z;
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        long getTileCount() {
+            return (maxX - minX + 1) * (maxY - minY + 1);
+        }
+
+        /** Splits the range until a single meta tile is left, queuing the other halves */
+        void process() {
+            SeedRange current = this;
+            while (!cancelled) {
+                // meta tiles are aligned on multiples of the meta tiling factors
+                long metaMinX = Math.floorDiv(current.minX, metaX);
+                long metaMinY = Math.floorDiv(current.minY, metaY);
+                long metasX = Math.floorDiv(current.maxX, metaX) - metaMinX + 1;
+                long metasY = Math.floorDiv(current.maxY, metaY) - metaMinY + 1;
+                if (metasX * metasY == 1) {
+                    current.seedMetaTile();
+                    return;
+                }
+
+                if (probe != null && metasX * metasY >= PROBE_MIN_METATILES && current.isEmpty()) {
+                    tilesSkipped.addAndGet(current.getTileCount());
+                    tilesProcessed(current.getTileCount());
+                    return;
+                }
+
+                if (metasX >= metasY) {
+                    long split = (metaMinX + metasX / 2) * metaX;
+                    enqueue(new SeedRange(z, split, current.minY, current.maxX, current.maxY));
+                    current = new SeedRange(z, current.minX, current.minY, split - 1, current.maxY);
+                } else {
+                    long split = (metaMinY + metasY / 2) * metaY;
+                    enqueue(new SeedRange(z, current.minX, split, current.maxX, current.maxY));
+                    current = new SeedRange(z, current.minX, current.minY, current.maxX, split - 1);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            // grow by a tile on each side, symbols of nearby features may spill in
+            BoundingBox bounds =
+                    gridSubset.boundsFromRectangle(
+                            new long[] {minX - 1, minY - 1, maxX + 1, maxY + 1, z});
+            threadLocalsTransfer.apply();
+            try {
+                return probe.isEmpty(bounds);
+            } finally {
+                threadLocalsTransfer.cleanup();
+            }
+        }
+
+        private void seedMetaTile() {
+            long[] index = {minX, minY, z};
+            MimeType mimeType = range.getMimeType();
+            ConveyorTile tile =
+                    new ConveyorTile(
+                            storageBroker,
+                            layer.getName(),
+                            gridSubset.getName(),
+                            index,
+                            mimeType,
+                            parameters,
+                            null,
+                            null);
+            tile.setTileLayer(layer);
+            threadLocalsTransfer.apply();
+            try {
+                layer.seedTile(tile, !reseed);
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                LOGGER.log(
+                        Level.WARNING,
+                        "Failed to seed meta tile at "
+                                + minX
+                                + ","
+                                + minY
+                                + ","
+                                + z
+                                + " of layer "
+                                + layer.getName(),
+                        e);
+            } finally {
+                threadLocalsTransfer.cleanup();
+            }
+            tilesProcessed(getTileCount());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.seed;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geoserver.gwc.ConfigurableBlobStore;
+import org.geowebcache.GeoWebCacheException;
+import org.geowebcache.GeoWebCacheExtensions;
+import org.geowebcache.layer.TileLayer;
+import org.geowebcache.seed.GWCTask;
+import org.geowebcache.seed.GWCTask.TYPE;
+import org.geowebcache.seed.TileBreeder;
+import org.geowebcache.storage.TileRange;
+
+/**
+ * Tile breeder running the seed and reseed requests as a single {@link ParallelSeedTask}, when
+ * enabled, instead of one task per thread. The task goes through the usual dispatching, so it's
+ * listed, and can be killed, from the seeding page and the REST API like any other task.
+ *
+ * <p>Disabled by default, set the {@link #PARALLEL_KEY} system property to true to enable it.
+ * Truncate requests, and the ones updating the parameter filters, are always handled by the default
+ * tasks.
+ */
+public class ParallelTileBreeder extends TileBreeder {
+
+    /** System property enabling the parallel seeding */
+    public static final String PARALLEL_KEY = "org.geoserver.gwc.seed.parallel";
+
+    static boolean PARALLEL = Boolean.getBoolean(PARALLEL_KEY);
+
+    @Override
+    public GWCTask[] createTasks(
+            TileRange tr, TileLayer tl, TYPE type, int threadCount, boolean filterUpdate)
+            throws GeoWebCacheException {
+        if (!PARALLEL || type == TYPE.TRUNCATE || filterUpdate) {
+            return super.createTasks(tr, tl, type, threadCount, filterUpdate);
+        }
+        ConfigurableBlobStore blobStore = GeoWebCacheExtensions.bean(ConfigurableBlobStore.class);
+        checkNotNull(blobStore);
+        ParallelSeedTask task =
+                new ParallelSeedTask(
+                        tl,
+                        tr,
+                        new PipelinedStorageBroker(blobStore),
+                        FeatureSeedProbe.create(tl, tl.getGridSubset(tr.getGridSetId())),
+                        type == TYPE.RESEED,
+                        threadCount);
+        task.setThreadInfo(new AtomicInteger(), 0);
+        return new GWCTask[] {task};
+    }
+}
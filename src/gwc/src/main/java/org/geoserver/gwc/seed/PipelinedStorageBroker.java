@@ -0,0 +1,113 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.seed;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.io.IOUtils;
+import org.geotools.util.logging.Logging;
+import org.geowebcache.io.ByteArrayResource;
+import org.geowebcache.io.Resource;
+import org.geowebcache.storage.BlobStore;
+import org.geowebcache.storage.DefaultStorageBroker;
+import org.geowebcache.storage.StorageException;
+import org.geowebcache.storage.TileObject;
+import org.geowebcache.storage.TransientCache;
+
+/**
+ * Storage broker handing the tile writes over to a small pool of writer threads, so that the
+ * seeding threads can move on to the next meta tile while the tiles of the previous one are still
+ * being stored. The queue of pending writes is bounded, once full the seeding thread performs the
+ * write itself.
+ *
+ * <p>Only meant to be used by a single {@link ParallelSeedTask}, which calls {@link #flush()} once
+ * done.
+ */
+public class PipelinedStorageBroker extends DefaultStorageBroker {
+
+    static final Logger LOGGER = Logging.getLogger(PipelinedStorageBroker.class);
+
+    /** System property setting the number of writer threads of each seeding task */
+    public static final String WRITER_THREADS_KEY = "org.geoserver.gwc.seed.writerThreads";
+
+    static final int WRITER_THREADS = Integer.getInteger(WRITER_THREADS_KEY, 2);
+
+    /** Max number of tiles waiting to be written */
+    static final int QUEUE_SIZE = 256;
+
+    private final ThreadPoolExecutor writer;
+
+    private final AtomicLong failures = new AtomicLong();
+
+    /** Creates a broker with the configured number of writer threads */
+    public PipelinedStorageBroker(BlobStore blobStore) {
+        this(blobStore, WRITER_THREADS, QUEUE_SIZE);
+    }
+
+    public PipelinedStorageBroker(BlobStore blobStore, int writerThreads, int queueSize) {
+        super(blobStore, new TransientCache(100, 1024, 2000));
+        AtomicInteger count = new AtomicInteger();
+        this.writer =
+                new ThreadPoolExecutor(
+                        Math.max(1, writerThreads),
+                        Math.max(1, writerThreads),
+                        0,
+                        TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(queueSize),
+                        r -> {
+                            Thread t = new Thread(r, "gwc-seed-writer-" + count.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        },
+                        new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public boolean put(TileObject tile) throws StorageException {
+        // the blob is a buffer the seeding thread reuses for the next tile
+        tile.setBlob(copy(tile.getBlob()));
+        writer.execute(
+                () -> {
+                    try {
+                        super.put(tile);
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        LOGGER.log(Level.WARNING, "Failed to store tile " + tile, e);
+                    }
+                });
+        return true;
+    }
+
+    private Resource copy(Resource blob) throws StorageException {
+        try (InputStream is = blob.getInputStream()) {
+            return new ByteArrayResource(IOUtils.toByteArray(is));
+        } catch (IOException e) {
+            throw new StorageException(e.getMessage());
+        }
+    }
+
+    /** Waits for the pending writes to complete, and stops the writer threads */
+    public void flush() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /** Discards the pending writes */
+    public void abort() {
+        writer.shutdownNow();
+    }
+
+    /** The number of tiles that could not be stored */
+    public long getFailures() {
+        return failures.get();
+    }
+}
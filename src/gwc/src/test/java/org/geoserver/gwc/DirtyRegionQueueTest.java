@@ -0,0 +1,132 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc;
+
+import static org.geotools.referencing.crs.DefaultGeographicCRS.WGS84;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.junit.Test;
+
+public class DirtyRegionQueueTest {
+
+    @Test
+    public void testMergeOverlapping() {
+        List<ReferencedEnvelope> regions = new ArrayList<>();
+        DirtyRegionQueue.addRegion(regions, new ReferencedEnvelope(0, 10, 0, 10, WGS84));
+        DirtyRegionQueue.addRegion(regions, new ReferencedEnvelope(20, 30, 0, 10, WGS84));
+        assertEquals(2, regions.size());
+
+        // contained, nothing changes
+        DirtyRegionQueue.addRegion(regions, new ReferencedEnvelope(2, 3, 2, 3, WGS84));
+        assertEquals(2, regions.size());
+        assertTrue(regions.contains(new ReferencedEnvelope(0, 10, 0, 10, WGS84)));
+
+        // bridges the two regions, all merged in one
+        DirtyRegionQueue.addRegion(regions, new ReferencedEnvelope(5, 25, 5, 6, WGS84));
+        assertEquals(1, regions.size());
+        assertEquals(new ReferencedEnvelope(0, 30, 0, 10, WGS84), regions.get(0));
+    }
+
+    @Test
+    public void testMaxRegions() {
+        List<ReferencedEnvelope> regions = new ArrayList<>();
+        for (int i = 0; i <= DirtyRegionQueue.MAX_REGIONS; i++) {
+            DirtyRegionQueue.addRegion(
+                    regions, new ReferencedEnvelope(i * 10, i * 10 + 1, 0, 1, WGS84));
+        }
+        // far away from all the others, stays on its own
+        DirtyRegionQueue.addRegion(regions, new ReferencedEnvelope(0, 1, 100, 101, WGS84));
+
+        assertEquals(DirtyRegionQueue.MAX_REGIONS, regions.size());
+        assertTrue(regions.contains(new ReferencedEnvelope(0, 1, 100, 101, WGS84)));
+    }
+
+    @Test
+    public void testCollapse() {
+        Map<String, List<ReferencedEnvelope>> pending = new LinkedHashMap<>();
+        pending.put(
+                "a",
+                new ArrayList<>(
+                        Arrays.asList(
+                                new ReferencedEnvelope(0, 1, 0, 1, WGS84),
+                                new ReferencedEnvelope(10, 11, 0, 1, WGS84),
+                                new ReferencedEnvelope(20, 21, 0, 1, WGS84))));
+        pending.put(
+                "b",
+                new ArrayList<>(
+                        Arrays.asList(
+                                new ReferencedEnvelope(0, 1, 0, 1, WGS84),
+                                new ReferencedEnvelope(10, 11, 0, 1, WGS84))));
+        assertTrue(DirtyRegionQueue.collapse(pending, 5));
+        assertEquals(3, pending.get("a").size());
+
+        // the layer with the most regions is collapsed into their union first
+        assertTrue(DirtyRegionQueue.collapse(pending, 4));
+        assertEquals(
+                Collections.singletonList(new ReferencedEnvelope(0, 21, 0, 1, WGS84)),
+                pending.get("a"));
+        assertEquals(2, pending.get("b").size());
+
+        // one region per layer is the coarsest it gets
+        assertFalse(DirtyRegionQueue.collapse(pending, 1));
+        assertEquals(1, pending.get("a").size());
+        assertEquals(1, pending.get("b").size());
+    }
+
+    @Test
+    public void testMaxPending() throws Exception {
+        GWC gwc = mock(GWC.class);
+        DirtyRegionQueue queue = new DirtyRegionQueue(gwc, 60000, 0, 2);
+        try {
+            ReferencedEnvelope region = new ReferencedEnvelope(0, 1, 0, 1, WGS84);
+            queue.add("a", Collections.singletonList(region));
+            queue.add("b", Collections.singletonList(region));
+            verify(gwc, never()).truncate(anyString(), any(ReferencedEnvelope.class));
+
+            // a third layer cannot be collapsed, the queue is truncated without waiting
+            queue.add("c", Collections.singletonList(region));
+            for (String layer : new String[] {"a", "b", "c"}) {
+                verify(gwc, timeout(10000)).truncate(eq(layer), eq(region));
+            }
+        } finally {
+            queue.dispose();
+        }
+    }
+
+    @Test
+    public void testDisposeFlushes() throws Exception {
+        GWC gwc = mock(GWC.class);
+        DirtyRegionQueue queue = new DirtyRegionQueue(gwc, 60000, 0);
+        ReferencedEnvelope region = new ReferencedEnvelope(0, 1, 0, 1, WGS84);
+        queue.add("a", Collections.singletonList(region));
+        verify(gwc, never()).truncate(anyString(), any(ReferencedEnvelope.class));
+
+        // the queued regions are truncated before returning
+        queue.dispose();
+        verify(gwc, times(1)).truncate(eq("a"), eq(region));
+        assertEquals(0, queue.getPendingRegions());
+
+        // and the ones added later right away
+        queue.add("b", Collections.singletonList(region));
+        verify(gwc, times(1)).truncate(eq("b"), eq(region));
+    }
+}
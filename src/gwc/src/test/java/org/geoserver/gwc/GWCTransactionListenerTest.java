@@ -7,9 +7,11 @@ package org.geoserver.gwc;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.geotools.referencing.crs.DefaultGeographicCRS.WGS84;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -207,6 +209,43 @@ public class GWCTransactionListenerTest {
         verify(mediator, times(1)).truncate(eq("theGroup"), eq(expectedEnv));
     }
 
+    @Test
+    public void testAfterTransactionBatched() throws Exception {
+        DirtyRegionQueue queue = new DirtyRegionQueue(mediator, 60000, 0);
+        listener = new GWCTransactionListener(mediator, queue);
+        try {
+            Map<Object, Object> extendedProperties = new HashMap<Object, Object>();
+            ReferencedEnvelope affectedBounds1 =
+                    new ReferencedEnvelope(-180, -170, -90, -80, WGS84);
+            ReferencedEnvelope affectedBounds2 = new ReferencedEnvelope(170, 180, 80, 90, WGS84);
+
+            issueInsert(extendedProperties, affectedBounds1);
+            issueInsert(extendedProperties, affectedBounds2);
+
+            TransactionRequest request = mock(TransactionRequest.class);
+            TransactionResponse result = mock(TransactionResponse.class);
+            when(request.getExtendedProperties()).thenReturn(extendedProperties);
+
+            when(mediator.getDeclaredCrs(anyString())).thenReturn(WGS84);
+            listener.afterTransaction(request, result, true);
+
+            // queued, not truncated yet
+            verify(mediator, never()).truncate(anyString(), any(ReferencedEnvelope.class));
+            assertEquals(4, queue.getPendingRegions());
+
+            // the disjoint areas are truncated separately, rather than as their union
+            queue.flush();
+            for (String layer : new String[] {"theLayer", "theGroup"}) {
+                verify(mediator, times(1)).truncate(eq(layer), eq(affectedBounds1));
+                verify(mediator, times(1)).truncate(eq(layer), eq(affectedBounds2));
+            }
+            assertEquals(4, queue.getTruncations());
+            assertEquals(0, queue.getPendingRegions());
+        } finally {
+            listener.destroy();
+        }
+    }
+
     /**
      * Issues a fake dataStoreChange insert event that affects two tile layers: "theLayer" and
      * "theGroup"
@@ -0,0 +1,65 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.layer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.IOUtils;
+import org.geowebcache.io.Resource;
+import org.junit.After;
+import org.junit.Test;
+
+public class MetaTileFlightsTest {
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testFollowersGetLeaderTiles() throws Exception {
+        MetaTileFlights.Flight flight = MetaTileFlights.join("gsmeta_test_0_0_1.png");
+        assertTrue(flight.isLeader());
+        assertSame(flight, MetaTileFlights.join("gsmeta_test_0_0_1.png"));
+
+        Future<Resource> first =
+                executor.submit(() -> follow("gsmeta_test_0_0_1.png", new long[] {0, 0, 1}));
+        Future<Resource> second =
+                executor.submit(() -> follow("gsmeta_test_0_0_1.png", new long[] {1, 0, 1}));
+        assertFalse(first.isDone());
+
+        long[][] positions = {{0, 0, 1}, {1, 0, 1}};
+        byte[] encoded = {1, 2, 3};
+        flight.complete(positions, new byte[][] {encoded, null});
+
+        try (InputStream is = first.get().getInputStream()) {
+            assertArrayEquals(encoded, IOUtils.toByteArray(is));
+        }
+        // not encoded by the leader, has to go the usual way
+        assertNull(second.get());
+        assertTrue(MetaTileFlights.FLIGHTS.isEmpty());
+
+        // a new flight starts once the previous one is complete
+        MetaTileFlights.Flight next = MetaTileFlights.join("gsmeta_test_0_0_1.png");
+        assertTrue(next.isLeader());
+        next.complete(positions, null);
+    }
+
+    private Resource follow(String key, long[] tileIndex) {
+        MetaTileFlights.Flight flight = MetaTileFlights.join(key);
+        assertFalse(flight.isLeader());
+        return flight.await(tileIndex);
+    }
+}
@@ -0,0 +1,171 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.layer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.commons.io.IOUtils;
+import org.geoserver.config.JAIInfo;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.geoserver.platform.GeoServerResourceLoader;
+import org.geoserver.wms.WMS;
+import org.geowebcache.io.ByteArrayResource;
+import org.geowebcache.io.Resource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class UniformTilesTest {
+
+    @Rule
+    public GeoServerExtensionsHelper.ExtensionsHelperRule extensions =
+            new GeoServerExtensionsHelper.ExtensionsHelperRule();
+
+    @Rule public TemporaryFolder temp = new TemporaryFolder(new File("target"));
+
+    GeoServerResourceLoader loader;
+
+    @Before
+    public void setupLoader() throws Exception {
+        loader = new GeoServerResourceLoader(temp.getRoot());
+        extensions.singleton("resourceLoader", loader, GeoServerResourceLoader.class);
+    }
+
+    private BufferedImage buildImage(Color color) {
+        BufferedImage image = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, 256, 256);
+        graphics.dispose();
+        return image;
+    }
+
+    @Test
+    public void testUniformKey() {
+        BufferedImage transparent = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage blue = buildImage(Color.BLUE);
+        String transparentKey = UniformTiles.getUniformKey(transparent);
+        String blueKey = UniformTiles.getUniformKey(blue);
+        assertNotNull(transparentKey);
+        assertNotNull(blueKey);
+        assertNotEquals(transparentKey, blueKey);
+        assertEquals(blueKey, UniformTiles.getUniformKey(buildImage(Color.BLUE)));
+
+        // a single pixel is enough to make it non uniform
+        blue.setRGB(255, 255, Color.RED.getRGB());
+        assertNull(UniformTiles.getUniformKey(blue));
+    }
+
+    @Test
+    public void testMarkerRoundTrip() throws Exception {
+        byte[] encoded = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+        UniformTiles.register("test:12x1", encoded);
+        assertArrayEquals(encoded, UniformTiles.getEncoded("test:12x1"));
+
+        // same size, different contents
+        assertNull(UniformTiles.toMarker(new ByteArrayResource(new byte[12])));
+
+        Resource marker = UniformTiles.toMarker(new ByteArrayResource(encoded.clone()));
+        assertNotNull(marker);
+        assertEquals(UniformTiles.MARKER_LENGTH, marker.getSize());
+        assertTrue(UniformTiles.isMarker(marker));
+        assertFalse(UniformTiles.isMarker(new ByteArrayResource(encoded)));
+        String hash = UniformTiles.sha1(encoded);
+        assertTrue(new File(temp.getRoot(), UniformTiles.DIRECTORY + "/" + hash).exists());
+
+        // resolved from the data directory once out of memory
+        UniformTiles.BY_HASH.remove(hash);
+        Resource resolved = UniformTiles.resolve(marker);
+        assertNotNull(resolved);
+        try (InputStream is = resolved.getInputStream()) {
+            assertArrayEquals(encoded, IOUtils.toByteArray(is));
+        }
+    }
+
+    @Test
+    public void testBoundedByHash() throws Exception {
+        byte[] first = encodedTile(0);
+        UniformTiles.register("bounded:0", first);
+        Resource marker = UniformTiles.toMarker(new ByteArrayResource(first.clone()));
+        assertNotNull(marker);
+
+        // fill the memory with other uniform tiles, the first one gets evicted
+        for (int i = 1; i <= UniformTiles.MAX_ENTRIES; i++) {
+            UniformTiles.register("bounded:" + i, encodedTile(i));
+        }
+        assertTrue(UniformTiles.BY_HASH.size() <= UniformTiles.MAX_ENTRIES);
+        assertTrue(UniformTiles.SIZES.get(first.length) <= UniformTiles.MAX_ENTRIES);
+        assertNull(UniformTiles.BY_HASH.get(UniformTiles.sha1(first)));
+        assertNull(UniformTiles.toMarker(new ByteArrayResource(first.clone())));
+
+        // the existing markers are still resolved, from the data directory
+        Resource resolved = UniformTiles.resolve(marker);
+        assertNotNull(resolved);
+        try (InputStream is = resolved.getInputStream()) {
+            assertArrayEquals(first, IOUtils.toByteArray(is));
+        }
+    }
+
+    private byte[] encodedTile(int i) {
+        return ByteBuffer.allocate(7).put((byte) 42).putInt(i).array();
+    }
+
+    @Test
+    public void testInvalidMarker() throws Exception {
+        // right magic and length, but not a hash
+        String path = "../../../../../../../../../../etc/passwd";
+        byte[] marker = Arrays.copyOf(UniformTiles.MAGIC, UniformTiles.MARKER_LENGTH);
+        byte[] pathBytes = path.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(pathBytes, 0, marker, UniformTiles.MAGIC.length, pathBytes.length);
+        Resource resource = new ByteArrayResource(marker);
+        assertTrue(UniformTiles.isMarker(resource));
+        assertNull(UniformTiles.resolve(resource));
+    }
+
+    @Test
+    public void testEncodingKey() {
+        WMS wms = mock(WMS.class);
+        when(wms.getPngCompression()).thenReturn(25);
+        when(wms.getPNGEncoderType()).thenReturn(JAIInfo.PngEncoderType.PNGJ);
+        when(wms.getJpegCompression()).thenReturn(25);
+        when(wms.getJPEGNativeAcceleration()).thenReturn(false);
+        String key = UniformTiles.getEncodingKey("image/png", Collections.emptyMap(), wms);
+        assertEquals(key, UniformTiles.getEncodingKey("image/png", Collections.emptyMap(), wms));
+
+        // the encoder settings change the key
+        when(wms.getPngCompression()).thenReturn(90);
+        assertNotEquals(key, UniformTiles.getEncodingKey("image/png", Collections.emptyMap(), wms));
+        when(wms.getPngCompression()).thenReturn(25);
+        when(wms.getPNGEncoderType()).thenReturn(JAIInfo.PngEncoderType.JDK);
+        assertNotEquals(key, UniformTiles.getEncodingKey("image/png", Collections.emptyMap(), wms));
+
+        // and so do the format and format options
+        when(wms.getPNGEncoderType()).thenReturn(JAIInfo.PngEncoderType.PNGJ);
+        assertNotEquals(
+                key, UniformTiles.getEncodingKey("image/jpeg", Collections.emptyMap(), wms));
+        assertNotEquals(
+                key,
+                UniformTiles.getEncodingKey(
+                        "image/png", Collections.singletonMap("antialias", "none"), wms));
+    }
+}
@@ -0,0 +1,141 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.gwc.seed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.geowebcache.conveyor.ConveyorTile;
+import org.geowebcache.grid.BoundingBox;
+import org.geowebcache.grid.GridSubset;
+import org.geowebcache.layer.TileLayer;
+import org.geowebcache.mime.MimeType;
+import org.geowebcache.seed.GWCTask;
+import org.geowebcache.storage.BlobStore;
+import org.geowebcache.storage.TileRange;
+import org.junit.Test;
+
+public class ParallelSeedTaskTest {
+
+    private List<String> seeded = new CopyOnWriteArrayList<>();
+
+    private TileLayer mockLayer() throws Exception {
+        GridSubset gridSubset = mock(GridSubset.class);
+        when(gridSubset.getName()).thenReturn("EPSG:4326");
+        when(gridSubset.boundsFromRectangle(any())).thenReturn(new BoundingBox(0, 0, 1, 1));
+
+        TileLayer layer = mock(TileLayer.class);
+        when(layer.getName()).thenReturn("test");
+        when(layer.getGridSubset(anyString())).thenReturn(gridSubset);
+        when(layer.getMetaTilingFactors()).thenReturn(new int[] {4, 4});
+        doAnswer(
+                        invocation -> {
+                            ConveyorTile tile = invocation.getArgument(0);
+                            seeded.add(Arrays.toString(tile.getTileIndex()));
+                            return null;
+                        })
+                .when(layer)
+                .seedTile(any(), anyBoolean());
+        return layer;
+    }
+
+    private TileRange mockRange(long[]... bounds) throws Exception {
+        TileRange range = mock(TileRange.class);
+        when(range.getGridSetId()).thenReturn("EPSG:4326");
+        when(range.getMimeType()).thenReturn(MimeType.createFromFormat("image/png"));
+        when(range.getParameters()).thenReturn(Collections.emptyMap());
+        when(range.getZoomStart()).thenReturn(0);
+        when(range.getZoomStop()).thenReturn(bounds.length - 1);
+        for (int z = 0; z < bounds.length; z++) {
+            when(range.rangeBounds(z)).thenReturn(bounds[z]);
+        }
+        return range;
+    }
+
+    @Test
+    public void testSeedEachMetaTileOnce() throws Exception {
+        TileLayer layer = mockLayer();
+        // not aligned on the meta tiling factors
+        TileRange range = mockRange(new long[] {0, 0, 1, 1, 0}, new long[] {3, 2, 12, 9, 1});
+        PipelinedStorageBroker broker = new PipelinedStorageBroker(mock(BlobStore.class));
+
+        ParallelSeedTask task = new ParallelSeedTask(layer, range, broker, null, false, 4);
+        task.setThreadInfo(new AtomicInteger(), 0);
+        task.doAction();
+
+        // zoom 0 is a single meta tile, zoom 1 covers 4x3 meta tiles
+        assertEquals(13, seeded.size());
+        assertEquals(13, seeded.stream().distinct().count());
+        assertTrue(seeded.contains("[0, 0, 0]"));
+        assertTrue(seeded.contains("[3, 2, 1]"));
+        assertTrue(seeded.contains("[4, 2, 1]"));
+        assertTrue(seeded.contains("[12, 8, 1]"));
+        assertEquals(4 + 10 * 8, task.getTilesTotal());
+        assertEquals(task.getTilesTotal(), task.getTilesDone());
+        assertEquals(0, task.getTilesSkipped());
+        assertEquals(0, task.getFailures());
+        assertEquals(GWCTask.STATE.DONE, task.getState());
+        assertEquals(GWCTask.TYPE.SEED, task.getType());
+    }
+
+    @Test
+    public void testSkipEmptyAreas() throws Exception {
+        TileLayer layer = mockLayer();
+        TileRange range = mockRange(new long[] {0, 0, 31, 31, 0});
+        PipelinedStorageBroker broker = new PipelinedStorageBroker(mock(BlobStore.class));
+
+        // the whole range is empty
+        ParallelSeedTask task = new ParallelSeedTask(layer, range, broker, b -> true, false, 2);
+        task.setThreadInfo(new AtomicInteger(), 0);
+        task.doAction();
+
+        assertEquals(0, seeded.size());
+        assertEquals(32 * 32, task.getTilesSkipped());
+        assertEquals(32 * 32, task.getTilesDone());
+    }
+
+    @Test
+    public void testTerminate() throws Exception {
+        TileLayer layer = mockLayer();
+        TileRange range = mockRange(new long[] {0, 0, 31, 31, 0});
+        PipelinedStorageBroker broker = new PipelinedStorageBroker(mock(BlobStore.class));
+
+        // stops seeding as soon as a meta tile has been seeded, as killing from the UI would
+        AtomicReference<ParallelSeedTask> reference = new AtomicReference<>();
+        ParallelSeedTask task =
+                new ParallelSeedTask(
+                        layer,
+                        range,
+                        broker,
+                        b -> {
+                            if (!seeded.isEmpty()) {
+                                reference.get().terminateNicely();
+                            }
+                            return false;
+                        },
+                        false,
+                        1);
+        reference.set(task);
+        task.setThreadInfo(new AtomicInteger(), 0);
+        task.doAction();
+
+        assertTrue(task.isCancelled());
+        assertEquals(GWCTask.STATE.DEAD, task.getState());
+        assertTrue(seeded.size() < 64);
+        assertTrue(task.getTilesDone() < task.getTilesTotal());
+    }
+}
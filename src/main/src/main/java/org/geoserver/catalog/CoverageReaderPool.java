@@ -0,0 +1,611 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.catalog;
+
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geoserver.security.decorators.DecoratingGridCoverage2DReader;
+import org.geoserver.security.decorators.DecoratingStructuredGridCoverage2DReader;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.io.GridCoverage2DReader;
+import org.geotools.coverage.grid.io.GridCoverageReader;
+import org.geotools.coverage.grid.io.HarvestedSource;
+import org.geotools.coverage.grid.io.StructuredGridCoverage2DReader;
+import org.geotools.util.factory.Hints;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.parameter.GeneralParameterValue;
+
+/**
+ * A pool of readers opened against the same coverage store, used by {@link ResourcePool} to avoid
+ * concurrent reads contending inside a single reader instance. The pool hands out a reader for the
+ * duration of each {@code read} call, creating new instances up to the configured maximum, and
+ * disposing of the ones that have been idle for too long. All the other calls are served by the
+ * first reader, which is never evicted.
+ *
+ * <p>The coverages returned by a read may be backed by lazy images, still pulling data from the
+ * reader that created them. A reader is hence leased to the images of the coverages it read, and an
+ * evicted reader is only disposed of once they have all been garbage collected. The lease is tied
+ * to the image rather than to the coverage, as other coverages and images built on top of it (e.g.,
+ * by {@link org.geotools.coverage.grid.GridCoverageFactory} or by JAI operations) keep pulling data
+ * from it after the original coverage has been dropped.
+ *
+ * <p>Pooling is disabled by default, set the {@link #MAX_READERS_KEY} system property to a value
+ * greater than one to enable it. Each instance holds its own resources, e.g., an image mosaic one
+ * has its own granule index and connections, so the image mosaic stores are limited to {@link
+ * #DEFAULT_MOSAIC_MAX_READERS} instances, unless configured otherwise. The limit can be set for
+ * each store type appending the type to the system property name, e.g. {@code
+ * org.geoserver.coverage.readerPool.maxReaders.ImageMosaic}.
+ */
+public class CoverageReaderPool {
+
+    static final Logger LOGGER = Logging.getLogger(CoverageReaderPool.class);
+
+    /** System property setting the max number of reader instances per coverage store */
+    public static final String MAX_READERS_KEY = "org.geoserver.coverage.readerPool.maxReaders";
+
+    /** System property setting after how many seconds an idle reader instance gets disposed */
+    public static final String IDLE_TIMEOUT_KEY = "org.geoserver.coverage.readerPool.idleTimeout";
+
+    static final int MAX_READERS = Integer.getInteger(MAX_READERS_KEY, 1);
+
+    /** Default max number of reader instances for the image mosaic stores */
+    static final int DEFAULT_MOSAIC_MAX_READERS = 2;
+
+    static final String MOSAIC_TYPE = "ImageMosaic";
+
+    /** The images read by all the pools, tracked to return the reader leases */
+    static final ReferenceQueue<RenderedImage> LEASES = new ReferenceQueue<>();
+
+    static Thread leaseCleaner;
+
+    static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toMillis(Long.getLong(IDLE_TIMEOUT_KEY, 300));
+
+    /** Creates the additional reader instances */
+    public interface ReaderFactory {
+        GridCoverage2DReader create() throws IOException;
+    }
+
+    /** An image read by a pooled reader, the reader is leased until the image is collected */
+    static class Lease extends WeakReference<RenderedImage> {
+        final CoverageReaderPool pool;
+
+        final GridCoverage2DReader reader;
+
+        Lease(RenderedImage image, CoverageReaderPool pool, GridCoverage2DReader reader) {
+            super(image, LEASES);
+            this.pool = pool;
+            this.reader = reader;
+        }
+    }
+
+    /** An idle reader, along with the time it was released */
+    static class IdleReader {
+        final GridCoverage2DReader reader;
+
+        final long lastUsed;
+
+        IdleReader(GridCoverage2DReader reader, long lastUsed) {
+            this.reader = reader;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final GridCoverage2DReader primary;
+
+    private final ReaderFactory factory;
+
+    private final int maxReaders;
+
+    private final long idleTimeout;
+
+    /** The idle readers, most recently used first */
+    private final Deque<IdleReader> idle = new ArrayDeque<>();
+
+    private final Set<GridCoverage2DReader> borrowed =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Borrowed readers to be disposed of once released */
+    private final Set<GridCoverage2DReader> stale =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** The leases on each reader, for the coverages that are still reachable */
+    private final Map<GridCoverage2DReader, Set<Lease>> leases = new IdentityHashMap<>();
+
+    /** Readers evicted from the pool, disposed of once their leases are returned */
+    private final Set<GridCoverage2DReader> retired =
+            Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private int created = 1;
+
+    private boolean disposed;
+
+    private long borrows;
+
+    private long waits;
+
+    private long totalWaitNanos;
+
+    private long maxWaitNanos;
+
+    CoverageReaderPool(
+            GridCoverage2DReader primary, ReaderFactory factory, int maxReaders, long idleTimeout) {
+        this.primary = primary;
+        this.factory = factory;
+        this.maxReaders = Math.max(1, maxReaders);
+        this.idleTimeout = idleTimeout;
+        this.idle.add(new IdleReader(primary, System.currentTimeMillis()));
+    }
+
+    /** Returns true if pooling has been enabled for the given store type */
+    static boolean isEnabled(String storeType) {
+        return getMaxReaders(storeType) > 1;
+    }
+
+    /**
+     * Returns the max number of reader instances for the given store type, as configured for the
+     * type, or the global maximum otherwise. Image mosaics are limited to {@link
+     * #DEFAULT_MOSAIC_MAX_READERS} unless configured explicitly.
+     */
+    static int getMaxReaders(String storeType) {
+        Integer max =
+                storeType != null ? Integer.getInteger(MAX_READERS_KEY + "." + storeType) : null;
+        if (max != null) {
+            return max;
+        } else if (MOSAIC_TYPE.equals(storeType)) {
+            return Math.min(MAX_READERS, DEFAULT_MOSAIC_MAX_READERS);
+        }
+        return MAX_READERS;
+    }
+
+    /**
+     * Wraps the reader so that reads are performed against a pool of up to max readers, created by
+     * the factory on demand. Structured readers are wrapped into a structured reader.
+     */
+    static GridCoverage2DReader wrap(
+            GridCoverage2DReader reader, ReaderFactory factory, int maxReaders) {
+        CoverageReaderPool pool = new CoverageReaderPool(reader, factory, maxReaders, IDLE_TIMEOUT);
+        if (reader instanceof StructuredGridCoverage2DReader) {
+            return new PooledStructuredGridCoverage2DReader(
+                    (StructuredGridCoverage2DReader) reader, pool);
+        }
+        return new PooledGridCoverage2DReader(reader, pool);
+    }
+
+    /** Returns the pool behind the reader, or null if the reader is not pooled */
+    static CoverageReaderPool getPool(GridCoverageReader reader) {
+        if (reader instanceof PooledGridCoverage2DReader) {
+            return ((PooledGridCoverage2DReader) reader).pool;
+        } else if (reader instanceof PooledStructuredGridCoverage2DReader) {
+            return ((PooledStructuredGridCoverage2DReader) reader).pool;
+        }
+        return null;
+    }
+
+    /**
+     * Returns a reader for exclusive use, waiting for one to be released if the pool is exhausted.
+     * The reader must be given back calling {@link #release(GridCoverage2DReader)}
+     */
+    GridCoverage2DReader borrow() throws IOException {
+        long start = System.nanoTime();
+        boolean waited = false;
+        List<GridCoverage2DReader> evicted = new ArrayList<>();
+        try {
+            synchronized (this) {
+                while (true) {
+                    if (disposed) {
+                        throw new IOException("The coverage reader pool has been disposed");
+                    }
+                    evictIdle(evicted);
+                    if (!idle.isEmpty()) {
+                        GridCoverage2DReader reader = idle.removeFirst().reader;
+                        borrowed.add(reader);
+                        recordWait(start, waited);
+                        return reader;
+                    }
+                    if (created < maxReaders) {
+                        // reserve the slot, the reader is created outside of the lock
+                        created++;
+                        break;
+                    }
+                    waited = true;
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for a coverage reader", e);
+                    }
+                }
+            }
+        } finally {
+            disposeAll(evicted);
+        }
+
+        GridCoverage2DReader reader = null;
+        try {
+            reader = factory.create();
+            if (reader == null) {
+                throw new IOException("Failed to create a new coverage reader for the pool");
+            }
+            return reader;
+        } finally {
+            synchronized (this) {
+                if (reader == null) {
+                    created--;
+                    notifyAll();
+                } else {
+                    borrowed.add(reader);
+                    recordWait(start, waited);
+                }
+            }
+        }
+    }
+
+    /** Gives back a reader obtained from {@link #borrow()} */
+    void release(GridCoverage2DReader reader) {
+        release(reader, null);
+    }
+
+    /**
+     * Gives back a reader obtained from {@link #borrow()}, leasing it to the image of the coverage
+     * it read, if any, so that it's not disposed of while the image is in use
+     */
+    void release(GridCoverage2DReader reader, GridCoverage2D coverage) {
+        RenderedImage image = coverage != null ? coverage.getRenderedImage() : null;
+        List<GridCoverage2DReader> evicted = new ArrayList<>();
+        synchronized (this) {
+            borrowed.remove(reader);
+            if (image != null) {
+                leases.computeIfAbsent(reader, r -> new HashSet<>())
+                        .add(new Lease(image, this, reader));
+                startLeaseCleaner();
+            }
+            if (disposed || stale.remove(reader)) {
+                created--;
+                retire(reader, evicted);
+            } else {
+                idle.addFirst(new IdleReader(reader, System.currentTimeMillis()));
+            }
+            notifyAll();
+        }
+        disposeAll(evicted);
+    }
+
+    /** Returns the lease, disposing of the reader if retired and no longer leased */
+    void returned(Lease lease) {
+        boolean dispose = false;
+        synchronized (this) {
+            Set<Lease> readerLeases = leases.get(lease.reader);
+            if (readerLeases != null && readerLeases.remove(lease) && readerLeases.isEmpty()) {
+                leases.remove(lease.reader);
+                dispose = retired.remove(lease.reader);
+            }
+        }
+        if (dispose) {
+            disposeReader(lease.reader);
+        }
+    }
+
+    /** The leases currently held on the reader */
+    synchronized List<Lease> getLeases(GridCoverage2DReader reader) {
+        Set<Lease> readerLeases = leases.get(reader);
+        return readerLeases == null ? Collections.emptyList() : new ArrayList<>(readerLeases);
+    }
+
+    /**
+     * Schedules a reader out of the pool for disposal, right away if not leased, or once the leases
+     * are returned otherwise
+     */
+    private void retire(GridCoverage2DReader reader, List<GridCoverage2DReader> evicted) {
+        if (leases.containsKey(reader)) {
+            retired.add(reader);
+        } else {
+            evicted.add(reader);
+        }
+    }
+
+    /** Starts the daemon thread returning the leases of the collected images */
+    static synchronized void startLeaseCleaner() {
+        if (leaseCleaner != null) {
+            return;
+        }
+        leaseCleaner =
+                new Thread(
+                        () -> {
+                            while (true) {
+                                try {
+                                    Lease lease = (Lease) LEASES.remove();
+                                    lease.pool.returned(lease);
+                                } catch (InterruptedException e) {
+                                    return;
+                                } catch (Exception e) {
+                                    LOGGER.log(Level.WARNING, "Failed to return reader lease", e);
+                                }
+                            }
+                        },
+                        "coverage-reader-pool-leases");
+        leaseCleaner.setDaemon(true);
+        leaseCleaner.start();
+    }
+
+    /**
+     * Disposes of all the readers but the primary one, to be called when the primary reader
+     * modified the store contents. The readers in use get disposed of when released
+     */
+    void reset() {
+        List<GridCoverage2DReader> evicted = new ArrayList<>();
+        synchronized (this) {
+            for (Iterator<IdleReader> it = idle.iterator(); it.hasNext(); ) {
+                GridCoverage2DReader reader = it.next().reader;
+                if (reader != primary) {
+                    it.remove();
+                    retire(reader, evicted);
+                    created--;
+                }
+            }
+            for (GridCoverage2DReader reader : borrowed) {
+                if (reader != primary) {
+                    stale.add(reader);
+                }
+            }
+        }
+        disposeAll(evicted);
+    }
+
+    /**
+     * Disposes of all the idle readers, the ones in use are disposed of when released, and the
+     * leased ones when the leases are returned
+     */
+    void dispose() {
+        List<GridCoverage2DReader> evicted = new ArrayList<>();
+        synchronized (this) {
+            disposed = true;
+            for (IdleReader idleReader : idle) {
+                retire(idleReader.reader, evicted);
+                created--;
+            }
+            idle.clear();
+            notifyAll();
+        }
+        disposeAll(evicted);
+    }
+
+    /** Removes the non primary readers idle for longer than the timeout, oldest first */
+    private void evictIdle(List<GridCoverage2DReader> evicted) {
+        long limit = System.currentTimeMillis() - idleTimeout;
+        for (Iterator<IdleReader> it = idle.descendingIterator(); it.hasNext(); ) {
+            IdleReader idleReader = it.next();
+            if (idleReader.lastUsed >= limit) {
+                break;
+            }
+            if (idleReader.reader != primary) {
+                it.remove();
+                retire(idleReader.reader, evicted);
+                created--;
+            }
+        }
+    }
+
+    private void recordWait(long start, boolean waited) {
+        long wait = System.nanoTime() - start;
+        borrows++;
+        totalWaitNanos += wait;
+        maxWaitNanos = Math.max(maxWaitNanos, wait);
+        if (waited) {
+            waits++;
+        }
+        if (LOGGER.isLoggable(Level.FINER)) {
+            LOGGER.finer(
+                    "Borrowed coverage reader after "
+                            + TimeUnit.NANOSECONDS.toMillis(wait)
+                            + "ms, "
+                            + borrowed.size()
+                            + "/"
+                            + maxReaders
+                            + " readers in use");
+        }
+    }
+
+    private void disposeAll(List<GridCoverage2DReader> readers) {
+        for (GridCoverage2DReader reader : readers) {
+            disposeReader(reader);
+        }
+    }
+
+    private void disposeReader(GridCoverage2DReader reader) {
+        try {
+            reader.dispose();
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Error occurred disposing pooled coverage reader", e);
+        }
+    }
+
+    /** The number of reader instances currently open, in use or idle */
+    public synchronized int getReaderCount() {
+        return created;
+    }
+
+    /** The number of reader instances out of the pool, waiting for their leases to be returned */
+    public synchronized int getRetiredCount() {
+        return retired.size();
+    }
+
+    /** The number of reader instances currently in use */
+    public synchronized int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /** The total number of reads served by the pool */
+    public synchronized long getBorrowCount() {
+        return borrows;
+    }
+
+    /** The number of reads that found all the readers in use */
+    public synchronized long getSaturatedCount() {
+        return waits;
+    }
+
+    /** The average time, in milliseconds, a read waited to get a reader */
+    public synchronized double getAverageWaitTime() {
+        return borrows == 0 ? 0 : totalWaitNanos / (borrows * 1e6);
+    }
+
+    /** The maximum time, in milliseconds, a read waited to get a reader */
+    public synchronized double getMaxWaitTime() {
+        return maxWaitNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "CoverageReaderPool [readers="
+                + created
+                + ", active="
+                + borrowed.size()
+                + ", max="
+                + maxReaders
+                + ", borrows="
+                + borrows
+                + ", averageWait="
+                + getAverageWaitTime()
+                + "ms, maxWait="
+                + getMaxWaitTime()
+                + "ms]";
+    }
+
+    /** Reads through a pooled reader, everything else is delegated to the primary reader */
+    static class PooledGridCoverage2DReader extends DecoratingGridCoverage2DReader {
+
+        final CoverageReaderPool pool;
+
+        PooledGridCoverage2DReader(GridCoverage2DReader delegate, CoverageReaderPool pool) {
+            super(delegate);
+            this.pool = pool;
+        }
+
+        @Override
+        public GridCoverage2D read(GeneralParameterValue[] parameters)
+                throws IllegalArgumentException, IOException {
+            GridCoverage2DReader reader = pool.borrow();
+            GridCoverage2D coverage = null;
+            try {
+                coverage = reader.read(parameters);
+                return coverage;
+            } finally {
+                pool.release(reader, coverage);
+            }
+        }
+
+        @Override
+        public GridCoverage2D read(String coverageName, GeneralParameterValue[] parameters)
+                throws IllegalArgumentException, IOException {
+            GridCoverage2DReader reader = pool.borrow();
+            GridCoverage2D coverage = null;
+            try {
+                coverage = reader.read(coverageName, parameters);
+                return coverage;
+            } finally {
+                pool.release(reader, coverage);
+            }
+        }
+
+        @Override
+        public void dispose() throws IOException {
+            pool.dispose();
+        }
+    }
+
+    /**
+     * Structured version of {@link PooledGridCoverage2DReader}, changes to the store contents are
+     * performed by the primary reader, and cause the other readers to be discarded
+     */
+    static class PooledStructuredGridCoverage2DReader
+            extends DecoratingStructuredGridCoverage2DReader {
+
+        final CoverageReaderPool pool;
+
+        PooledStructuredGridCoverage2DReader(
+                StructuredGridCoverage2DReader delegate, CoverageReaderPool pool) {
+            super(delegate);
+            this.pool = pool;
+        }
+
+        @Override
+        public GridCoverage2D read(GeneralParameterValue[] parameters)
+                throws IllegalArgumentException, IOException {
+            GridCoverage2DReader reader = pool.borrow();
+            GridCoverage2D coverage = null;
+            try {
+                coverage = reader.read(parameters);
+                return coverage;
+            } finally {
+                pool.release(reader, coverage);
+            }
+        }
+
+        @Override
+        public GridCoverage2D read(String coverageName, GeneralParameterValue[] parameters)
+                throws IllegalArgumentException, IOException {
+            GridCoverage2DReader reader = pool.borrow();
+            GridCoverage2D coverage = null;
+            try {
+                coverage = reader.read(coverageName, parameters);
+                return coverage;
+            } finally {
+                pool.release(reader, coverage);
+            }
+        }
+
+        @Override
+        public void createCoverage(String coverageName, SimpleFeatureType schema)
+                throws IOException, UnsupportedOperationException {
+            try {
+                super.createCoverage(coverageName, schema);
+            } finally {
+                pool.reset();
+            }
+        }
+
+        @Override
+        public boolean removeCoverage(String coverageName, boolean delete)
+                throws IOException, UnsupportedOperationException {
+            try {
+                return super.removeCoverage(coverageName, delete);
+            } finally {
+                pool.reset();
+            }
+        }
+
+        @Override
+        public List<HarvestedSource> harvest(
+                String defaultTargetCoverage, Object source, Hints hints)
+                throws IOException, UnsupportedOperationException {
+            try {
+                return super.harvest(defaultTargetCoverage, source, hints);
+            } finally {
+                pool.reset();
+            }
+        }
+
+        @Override
+        public void dispose() throws IOException {
+            pool.dispose();
+        }
+    }
+}
@@ -33,6 +33,9 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -111,6 +114,7 @@ import org.geotools.styling.StyledLayerDescriptor;
 import org.geotools.util.SoftValueHashMap;
 import org.geotools.util.URLs;
 import org.geotools.util.Utilities;
+import org.geotools.util.factory.GeoTools;
 import org.geotools.util.factory.Hints;
 import org.geotools.util.logging.Logging;
 import org.geotools.xml.DocumentFactory;
@@ -1570,6 +1574,17 @@ public class ResourcePool {
                                         + " and hints "
                                         + hints);
                     }
+                    int maxReaders = CoverageReaderPool.getMaxReaders(info.getType());
+                    if (maxReaders > 1 && reader instanceof GridCoverage2DReader) {
+                        final Hints readerHints = hints;
+                        reader =
+                                CoverageReaderPool.wrap(
+                                        (GridCoverage2DReader) reader,
+                                        () ->
+                                                gridFormat.getReader(
+                                                        readObject, new Hints(readerHints)),
+                                        maxReaders);
+                    }
                     if (key != null) {
                         hintCoverageReaderCache.put((CoverageHintReaderKey) key, reader);
                     }
@@ -1660,6 +1675,52 @@ public class ResourcePool {
         }
     }
 
+    /**
+     * Returns the reader pools open against the given coverage store, one per set of hints, in
+     * order to inspect their usage. The list is empty if coverage reader pooling is disabled.
+     */
+    public List<CoverageReaderPool> getCoverageReaderPools(CoverageStoreInfo info) {
+        List<CoverageReaderPool> pools = new ArrayList<>();
+        for (Entry<CoverageHintReaderKey, GridCoverageReader> entry :
+                new ArrayList<>(hintCoverageReaderCache.entrySet())) {
+            CoverageReaderPool pool = CoverageReaderPool.getPool(entry.getValue());
+            if (pool != null && info.getId().equals(entry.getKey().id)) {
+                pools.add(pool);
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * Opens the reader of the coverage store in the background, so that the first request does not
+     * have to wait for it. Used when coverage reader pooling is enabled, as the stores are saved.
+     * The reader is opened with the default hints, as used by the rendering and WCS requests, so
+     * that it's found in the cache by them.
+     */
+    void warmUpCoverageReader(CoverageStoreInfo info) {
+        if (!info.isEnabled() || !CoverageReaderPool.isEnabled(info.getType())) {
+            return;
+        }
+        Runnable warmUp =
+                () -> {
+                    try {
+                        getGridCoverageReader(info, GeoTools.getDefaultHints());
+                    } catch (Exception e) {
+                        LOGGER.log(
+                                Level.FINE,
+                                "Failed to warm up the reader of coverage store " + info.getName(),
+                                e);
+                    }
+                };
+        try {
+            Executor executor =
+                    coverageExecutor != null ? coverageExecutor : ForkJoinPool.commonPool();
+            executor.execute(warmUp);
+        } catch (RejectedExecutionException e) {
+            LOGGER.log(Level.FINE, "Skipping warm up of coverage store " + info.getName(), e);
+        }
+    }
+
     public GridCoverage getGridCoverage(CoverageInfo info, ReferencedEnvelope env, Hints hints)
             throws IOException {
         return getGridCoverage(info, (String) null, env, hints);
@@ -2476,7 +2537,11 @@ public class ResourcePool {
     /** Listens to catalog events clearing cache entires when resources are modified. */
     public class CacheClearingListener extends CatalogVisitorAdapter implements CatalogListener {
 
-        public void handleAddEvent(CatalogAddEvent event) {}
+        public void handleAddEvent(CatalogAddEvent event) {
+            if (event.getSource() instanceof CoverageStoreInfo) {
+                warmUpCoverageReader((CoverageStoreInfo) event.getSource());
+            }
+        }
 
         public void handleModifyEvent(CatalogModifyEvent event) {}
 
@@ -2486,6 +2551,8 @@ public class ResourcePool {
 
             if (source instanceof FeatureTypeInfo) {
                 flushDataStore((FeatureTypeInfo) source);
+            } else if (source instanceof CoverageStoreInfo) {
+                warmUpCoverageReader((CoverageStoreInfo) source);
             }
         }
 
@@ -0,0 +1,992 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.jai;
+
+import com.google.common.collect.MapMaker;
+import com.sun.media.jai.util.CacheDiagnostics;
+import it.geosolutions.imageio.stream.input.FileImageInputStreamExt;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.renderable.ParameterBlock;
+import java.awt.image.renderable.RenderedImageFactory;
+import java.io.File;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.imageio.ImageReadParam;
+import javax.media.jai.OperationRegistry;
+import javax.media.jai.PlanarImage;
+import javax.media.jai.TileCache;
+import javax.media.jai.registry.RIFRegistry;
+import javax.media.jai.registry.RenderedRegistryMode;
+import org.geotools.util.NIOUtilities;
+import org.geotools.util.logging.Logging;
+
+/**
+ * A {@link TileCache} decorator keeping a second, dataset aware, cache of the tiles decoded by the
+ * JAI "ImageRead" operations. The JAI tile cache is keyed by image instance, which is created anew
+ * for every read, so the same tiles get decoded again by each request. This cache instead keys the
+ * decoded tiles by source file, image index (the overview level), read parameters and tile position
+ * in the file, allowing them to be reused by all the readers opened against the same file. The
+ * reader class and the image sample and color models are part of the key too, as different readers
+ * of the same file (e.g., a native one and GDAL) may lay out the decoded samples differently.
+ *
+ * <p>The dataset of each image is recorded as the image is created, by a factory wrapping the
+ * "ImageRead" one and reading the {@code ImageReadDescriptor} parameters, see {@link
+ * #registerImageReadFactory(OperationRegistry)}. The tiles of the other images are not cached.
+ *
+ * <p>The tiles are stored off-heap, with a LRU eviction once the configured amount of bytes is
+ * exceeded, freeing their memory right away. On access, the tiles to the right and below the
+ * requested one are prefetched, if not already cached. Hits and misses are tracked per source file.
+ *
+ * <p>The cache is disabled by default, set the {@link #SIZE_KEY} system property to its size in
+ * megabytes to enable it.
+ */
+public class DatasetTileCache implements TileCache, CacheDiagnostics {
+
+    static final Logger LOGGER = Logging.getLogger(DatasetTileCache.class);
+
+    /** System property setting the cache size in megabytes, 0 or less disables it */
+    public static final String SIZE_KEY = "org.geoserver.jai.datasetTileCache.size";
+
+    /** System property enabling the read ahead of adjacent tiles, true by default */
+    public static final String READ_AHEAD_KEY = "org.geoserver.jai.datasetTileCache.readAhead";
+
+    static final long SIZE = Long.getLong(SIZE_KEY, 0) * 1024 * 1024;
+
+    static final boolean READ_AHEAD =
+            Boolean.parseBoolean(System.getProperty(READ_AHEAD_KEY, "true"));
+
+    /** Max number of pending read aheads tracked */
+    static final int MAX_READ_AHEADS = 1024;
+
+    static final String IMAGE_READ = "ImageRead";
+
+    /** Positions of the ImageReadDescriptor parameters identifying the dataset */
+    static final int INPUT_PARAM = 0;
+
+    static final int IMAGE_CHOICE_PARAM = 1;
+
+    static final int READ_PARAM_PARAM = 7;
+
+    static final int READER_PARAM = 8;
+
+    /** The datasets of the images created by the image read operations */
+    static final ConcurrentMap<RenderedImage, DatasetInfo> DATASETS =
+            new MapMaker().weakKeys().makeMap();
+
+    /** Hit and miss counters for a dataset */
+    public static class Statistics {
+        final AtomicLong hits = new AtomicLong();
+
+        final AtomicLong misses = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        /** The ratio of hits over the total requests, between 0 and 1 */
+        public double getHitRate() {
+            long h = hits.get();
+            long total = h + misses.get();
+            return total == 0 ? 0 : (double) h / total;
+        }
+    }
+
+    /** The dataset identity and read parameters of an image read operation */
+    static class DatasetInfo {
+        final String path;
+
+        final int imageIndex;
+
+        final String bands;
+
+        final String reader;
+
+        final String layout;
+
+        final int originX;
+
+        final int originY;
+
+        final int subsamplingX;
+
+        final int subsamplingY;
+
+        final int minX;
+
+        final int minY;
+
+        DatasetInfo(
+                String path,
+                int imageIndex,
+                String bands,
+                String reader,
+                String layout,
+                int originX,
+                int originY,
+                int subsamplingX,
+                int subsamplingY,
+                int minX,
+                int minY) {
+            this.path = path;
+            this.imageIndex = imageIndex;
+            this.bands = bands;
+            this.reader = reader;
+            this.layout = layout;
+            this.originX = originX;
+            this.originY = originY;
+            this.subsamplingX = subsamplingX;
+            this.subsamplingY = subsamplingY;
+            this.minX = minX;
+            this.minY = minY;
+        }
+
+        /** Builds the key of the tile with the given bounds in the owner image */
+        TileKey getKey(Rectangle bounds) {
+            int fileX = originX + (bounds.x - minX) * subsamplingX;
+            int fileY = originY + (bounds.y - minY) * subsamplingY;
+            return new TileKey(this, fileX, fileY, bounds.width, bounds.height);
+        }
+    }
+
+    /** Identifies a decoded tile in a dataset */
+    static class TileKey {
+        final String path;
+
+        final int imageIndex;
+
+        final String bands;
+
+        final String reader;
+
+        final String layout;
+
+        final int subsamplingX;
+
+        final int subsamplingY;
+
+        final int fileX;
+
+        final int fileY;
+
+        final int width;
+
+        final int height;
+
+        TileKey(DatasetInfo dataset, int fileX, int fileY, int width, int height) {
+            this.path = dataset.path;
+            this.imageIndex = dataset.imageIndex;
+            this.bands = dataset.bands;
+            this.reader = dataset.reader;
+            this.layout = dataset.layout;
+            this.subsamplingX = dataset.subsamplingX;
+            this.subsamplingY = dataset.subsamplingY;
+            this.fileX = fileX;
+            this.fileY = fileY;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            TileKey other = (TileKey) o;
+            return imageIndex == other.imageIndex
+                    && subsamplingX == other.subsamplingX
+                    && subsamplingY == other.subsamplingY
+                    && fileX == other.fileX
+                    && fileY == other.fileY
+                    && width == other.width
+                    && height == other.height
+                    && path.equals(other.path)
+                    && Objects.equals(bands, other.bands)
+                    && Objects.equals(reader, other.reader)
+                    && Objects.equals(layout, other.layout);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    path,
+                    imageIndex,
+                    bands,
+                    reader,
+                    layout,
+                    subsamplingX,
+                    subsamplingY,
+                    fileX,
+                    fileY,
+                    width,
+                    height);
+        }
+    }
+
+    /** A tile copied off-heap, along with what's needed to rebuild the raster */
+    static class CachedTile {
+        final SampleModel sampleModel;
+
+        final int dataType;
+
+        final int size;
+
+        final int[] offsets;
+
+        final int[] bankLengths;
+
+        final ByteBuffer data;
+
+        /** The threads copying the tile back on heap, guarded by the cache lock */
+        int readers;
+
+        /** Set once the tile is out of the cache, guarded by the cache lock */
+        boolean evicted;
+
+        CachedTile(
+                SampleModel sampleModel,
+                int dataType,
+                int size,
+                int[] offsets,
+                int[] bankLengths,
+                ByteBuffer data) {
+            this.sampleModel = sampleModel;
+            this.dataType = dataType;
+            this.size = size;
+            this.offsets = offsets;
+            this.bankLengths = bankLengths;
+            this.data = data;
+        }
+
+        /**
+         * Copies the raster off-heap, returns null if the raster is not supported (child rasters,
+         * or custom data buffers)
+         */
+        static CachedTile store(Raster raster) {
+            if (raster.getParent() != null
+                    || raster.getSampleModelTranslateX() != -raster.getMinX()
+                    || raster.getSampleModelTranslateY() != -raster.getMinY()) {
+                return null;
+            }
+            DataBuffer db = raster.getDataBuffer();
+            int banks = db.getNumBanks();
+            int[] lengths = new int[banks];
+            int elements = 0;
+            for (int b = 0; b < banks; b++) {
+                lengths[b] = getBankLength(db, b);
+                if (lengths[b] < 0) {
+                    return null;
+                }
+                elements += lengths[b];
+            }
+            int elementSize = DataBuffer.getDataTypeSize(db.getDataType()) / 8;
+            ByteBuffer data =
+                    ByteBuffer.allocateDirect(elements * elementSize)
+                            .order(ByteOrder.nativeOrder());
+            for (int b = 0; b < banks; b++) {
+                ByteBuffer bank = data.slice().order(ByteOrder.nativeOrder());
+                if (db instanceof DataBufferByte) {
+                    bank.put(((DataBufferByte) db).getData(b));
+                } else if (db instanceof DataBufferUShort) {
+                    bank.asShortBuffer().put(((DataBufferUShort) db).getData(b));
+                } else if (db instanceof DataBufferShort) {
+                    bank.asShortBuffer().put(((DataBufferShort) db).getData(b));
+                } else if (db instanceof DataBufferInt) {
+                    bank.asIntBuffer().put(((DataBufferInt) db).getData(b));
+                } else if (db instanceof DataBufferFloat) {
+                    bank.asFloatBuffer().put(((DataBufferFloat) db).getData(b));
+                } else {
+                    bank.asDoubleBuffer().put(((DataBufferDouble) db).getData(b));
+                }
+                data.position(data.position() + lengths[b] * elementSize);
+            }
+            data.rewind();
+            return new CachedTile(
+                    raster.getSampleModel(),
+                    db.getDataType(),
+                    db.getSize(),
+                    db.getOffsets(),
+                    lengths,
+                    data);
+        }
+
+        /** Returns the length of a bank, or -1 if the data buffer type is not supported */
+        private static int getBankLength(DataBuffer db, int bank) {
+            if (db instanceof DataBufferByte) {
+                return ((DataBufferByte) db).getData(bank).length;
+            } else if (db instanceof DataBufferUShort) {
+                return ((DataBufferUShort) db).getData(bank).length;
+            } else if (db instanceof DataBufferShort) {
+                return ((DataBufferShort) db).getData(bank).length;
+            } else if (db instanceof DataBufferInt) {
+                return ((DataBufferInt) db).getData(bank).length;
+            } else if (db instanceof DataBufferFloat) {
+                return ((DataBufferFloat) db).getData(bank).length;
+            } else if (db instanceof DataBufferDouble) {
+                return ((DataBufferDouble) db).getData(bank).length;
+            }
+            return -1;
+        }
+
+        /** Rebuilds the tile as a heap raster at the given location */
+        Raster toRaster(Point location) {
+            int banks = bankLengths.length;
+            ByteBuffer source = data.duplicate().order(ByteOrder.nativeOrder());
+            int elementSize = DataBuffer.getDataTypeSize(dataType) / 8;
+            DataBuffer db;
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE:
+                    {
+                        byte[][] arrays = new byte[banks][];
+                        for (int b = 0; b < banks; b++) {
+                            arrays[b] = new byte[bankLengths[b]];
+                            source.get(arrays[b]);
+                        }
+                        db = new DataBufferByte(arrays, size, offsets);
+                        break;
+                    }
+                case DataBuffer.TYPE_USHORT:
+                case DataBuffer.TYPE_SHORT:
+                    {
+                        short[][] arrays = new short[banks][];
+                        for (int b = 0; b < banks; b++) {
+                            arrays[b] = new short[bankLengths[b]];
+                            source.slice()
+                                    .order(ByteOrder.nativeOrder())
+                                    .asShortBuffer()
+                                    .get(arrays[b]);
+                            source.position(source.position() + bankLengths[b] * elementSize);
+                        }
+                        db =
+                                dataType == DataBuffer.TYPE_USHORT
+                                        ? new DataBufferUShort(arrays, size, offsets)
+                                        : new DataBufferShort(arrays, size, offsets);
+                        break;
+                    }
+                case DataBuffer.TYPE_INT:
+                    {
+                        int[][] arrays = new int[banks][];
+                        for (int b = 0; b < banks; b++) {
+                            arrays[b] = new int[bankLengths[b]];
+                            source.slice()
+                                    .order(ByteOrder.nativeOrder())
+                                    .asIntBuffer()
+                                    .get(arrays[b]);
+                            source.position(source.position() + bankLengths[b] * elementSize);
+                        }
+                        db = new DataBufferInt(arrays, size, offsets);
+                        break;
+                    }
+                case DataBuffer.TYPE_FLOAT:
+                    {
+                        float[][] arrays = new float[banks][];
+                        for (int b = 0; b < banks; b++) {
+                            arrays[b] = new float[bankLengths[b]];
+                            source.slice()
+                                    .order(ByteOrder.nativeOrder())
+                                    .asFloatBuffer()
+                                    .get(arrays[b]);
+                            source.position(source.position() + bankLengths[b] * elementSize);
+                        }
+                        db = new DataBufferFloat(arrays, size, offsets);
+                        break;
+                    }
+                default:
+                    {
+                        double[][] arrays = new double[banks][];
+                        for (int b = 0; b < banks; b++) {
+                            arrays[b] = new double[bankLengths[b]];
+                            source.slice()
+                                    .order(ByteOrder.nativeOrder())
+                                    .asDoubleBuffer()
+                                    .get(arrays[b]);
+                            source.position(source.position() + bankLengths[b] * elementSize);
+                        }
+                        db = new DataBufferDouble(arrays, size, offsets);
+                    }
+            }
+            return Raster.createWritableRaster(sampleModel, db, location);
+        }
+
+        long getMemorySize() {
+            return data.capacity();
+        }
+
+        /** Frees the off-heap memory, the tile cannot be used afterwards */
+        void free() {
+            NIOUtilities.clean(data);
+        }
+    }
+
+    /**
+     * Wraps the "ImageRead" factory, recording the dataset of the images it creates, as read from
+     * the operation parameters
+     */
+    static class ImageReadFactory implements RenderedImageFactory {
+        final RenderedImageFactory delegate;
+
+        ImageReadFactory(RenderedImageFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public RenderedImage create(ParameterBlock pb, RenderingHints hints) {
+            RenderedImage image = delegate.create(pb, hints);
+            if (image != null) {
+                DatasetInfo dataset = buildDataset(pb, image);
+                if (dataset != null) {
+                    DATASETS.put(image, dataset);
+                }
+            }
+            return image;
+        }
+    }
+
+    private final TileCache delegate;
+
+    private final long capacity;
+
+    private final boolean readAhead;
+
+    /** The decoded tiles, in access order, guarded by itself */
+    private final LinkedHashMap<TileKey, CachedTile> tiles = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long memoryUsed;
+
+    private final Map<String, Statistics> statistics = new ConcurrentHashMap<>();
+
+    /** The tiles being read ahead, their reads do not trigger further read aheads */
+    private final Set<TileKey> readingAhead = ConcurrentHashMap.newKeySet();
+
+    public DatasetTileCache(TileCache delegate, long capacity, boolean readAhead) {
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.readAhead = readAhead;
+    }
+
+    /** Returns true if the cache has been enabled */
+    public static boolean isEnabled() {
+        return SIZE > 0;
+    }
+
+    /**
+     * Makes the "ImageRead" operations of the registry record the dataset of the images they
+     * create, so that their tiles can be cached
+     */
+    public static void registerImageReadFactory(OperationRegistry registry) {
+        try {
+            RenderedImageFactory factory = RIFRegistry.get(registry, IMAGE_READ);
+            if (factory == null || factory instanceof ImageReadFactory) {
+                return;
+            }
+            // the wrapper is preferred over the original factory, in the same product
+            for (Object product :
+                    registry.getOrderedProductList(RenderedRegistryMode.MODE_NAME, IMAGE_READ)) {
+                List<?> factories =
+                        RIFRegistry.getOrderedList(registry, IMAGE_READ, (String) product);
+                if (factories != null && factories.contains(factory)) {
+                    ImageReadFactory wrapper = new ImageReadFactory(factory);
+                    RIFRegistry.register(registry, IMAGE_READ, (String) product, wrapper);
+                    RIFRegistry.setPreference(
+                            registry, IMAGE_READ, (String) product, wrapper, factory);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Could not set up the dataset tile cache", e);
+        }
+    }
+
+    /** Wraps the JAI tile cache with the configured size and read ahead */
+    public static DatasetTileCache wrap(TileCache delegate) {
+        return new DatasetTileCache(delegate, SIZE, READ_AHEAD);
+    }
+
+    /** Returns the wrapped JAI tile cache */
+    public TileCache getDelegate() {
+        return delegate;
+    }
+
+    /** The hits and misses, by source file path */
+    public Map<String, Statistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /** The off-heap memory used by the decoded tiles */
+    public long getDatasetMemoryUsed() {
+        synchronized (tiles) {
+            return memoryUsed;
+        }
+    }
+
+    /** The configured size, in bytes */
+    public long getDatasetMemoryCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void add(RenderedImage owner, int tileX, int tileY, Raster data) {
+        delegate.add(owner, tileX, tileY, data);
+        store(owner, tileX, tileY, data);
+    }
+
+    @Override
+    public void add(
+            RenderedImage owner, int tileX, int tileY, Raster data, Object tileCacheMetric) {
+        delegate.add(owner, tileX, tileY, data, tileCacheMetric);
+        store(owner, tileX, tileY, data);
+    }
+
+    @Override
+    public void addTiles(
+            RenderedImage owner, Point[] tileIndices, Raster[] data, Object tileCacheMetric) {
+        delegate.addTiles(owner, tileIndices, data, tileCacheMetric);
+        for (int i = 0; i < tileIndices.length; i++) {
+            store(owner, tileIndices[i].x, tileIndices[i].y, data[i]);
+        }
+    }
+
+    @Override
+    public Raster getTile(RenderedImage owner, int tileX, int tileY) {
+        Raster tile = delegate.getTile(owner, tileX, tileY);
+        if (tile != null) {
+            return tile;
+        }
+        DatasetInfo dataset = DATASETS.get(owner);
+        if (dataset == null) {
+            return null;
+        }
+        TileKey key = dataset.getKey(getTileBounds(owner, tileX, tileY));
+        boolean aheadRead = readingAhead.remove(key);
+        CachedTile cached = acquire(key);
+        Statistics stats = statistics.computeIfAbsent(dataset.path, p -> new Statistics());
+        if (!aheadRead) {
+            if (cached != null) {
+                stats.hits.incrementAndGet();
+            } else {
+                stats.misses.incrementAndGet();
+            }
+            readAhead(owner, dataset, tileX, tileY);
+        }
+        if (cached == null) {
+            return null;
+        }
+        Rectangle bounds = getTileBounds(owner, tileX, tileY);
+        try {
+            tile = cached.toRaster(new Point(bounds.x, bounds.y));
+        } finally {
+            release(cached);
+        }
+        // the owner will likely ask for it again
+        delegate.add(owner, tileX, tileY, tile);
+        return tile;
+    }
+
+    @Override
+    public Raster[] getTiles(RenderedImage owner) {
+        return delegate.getTiles(owner);
+    }
+
+    @Override
+    public Raster[] getTiles(RenderedImage owner, Point[] tileIndices) {
+        Raster[] result = new Raster[tileIndices.length];
+        for (int i = 0; i < tileIndices.length; i++) {
+            result[i] = getTile(owner, tileIndices[i].x, tileIndices[i].y);
+        }
+        return result;
+    }
+
+    @Override
+    public void remove(RenderedImage owner, int tileX, int tileY) {
+        // the decoded tiles are not bound to the owner, keep them for other readers
+        delegate.remove(owner, tileX, tileY);
+    }
+
+    @Override
+    public void removeTiles(RenderedImage owner) {
+        delegate.removeTiles(owner);
+        DATASETS.remove(owner);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+        synchronized (tiles) {
+            for (CachedTile cached : tiles.values()) {
+                evict(cached);
+            }
+            tiles.clear();
+            memoryUsed = 0;
+        }
+    }
+
+    @Override
+    public void memoryControl() {
+        delegate.memoryControl();
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void setTileCapacity(int tileCapacity) {
+        delegate.setTileCapacity(tileCapacity);
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public int getTileCapacity() {
+        return delegate.getTileCapacity();
+    }
+
+    @Override
+    public void setMemoryCapacity(long memoryCapacity) {
+        delegate.setMemoryCapacity(memoryCapacity);
+    }
+
+    @Override
+    public long getMemoryCapacity() {
+        return delegate.getMemoryCapacity();
+    }
+
+    @Override
+    public void setMemoryThreshold(float memoryThreshold) {
+        delegate.setMemoryThreshold(memoryThreshold);
+    }
+
+    @Override
+    public float getMemoryThreshold() {
+        return delegate.getMemoryThreshold();
+    }
+
+    @Override
+    public void setTileComparator(Comparator comparator) {
+        delegate.setTileComparator(comparator);
+    }
+
+    @Override
+    public Comparator getTileComparator() {
+        return delegate.getTileComparator();
+    }
+
+    @Override
+    public void enableDiagnostics() {
+        if (delegate instanceof CacheDiagnostics) {
+            ((CacheDiagnostics) delegate).enableDiagnostics();
+        }
+    }
+
+    @Override
+    public void disableDiagnostics() {
+        if (delegate instanceof CacheDiagnostics) {
+            ((CacheDiagnostics) delegate).disableDiagnostics();
+        }
+    }
+
+    @Override
+    public long getCacheTileCount() {
+        return delegate instanceof CacheDiagnostics
+                ? ((CacheDiagnostics) delegate).getCacheTileCount()
+                : 0;
+    }
+
+    @Override
+    public long getCacheMemoryUsed() {
+        return delegate instanceof CacheDiagnostics
+                ? ((CacheDiagnostics) delegate).getCacheMemoryUsed()
+                : 0;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        return delegate instanceof CacheDiagnostics
+                ? ((CacheDiagnostics) delegate).getCacheHitCount()
+                : 0;
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        return delegate instanceof CacheDiagnostics
+                ? ((CacheDiagnostics) delegate).getCacheMissCount()
+                : 0;
+    }
+
+    @Override
+    public void resetCounts() {
+        if (delegate instanceof CacheDiagnostics) {
+            ((CacheDiagnostics) delegate).resetCounts();
+        }
+        statistics.clear();
+    }
+
+    /** Copies the tile in the dataset cache, if the owner is an image read */
+    private void store(RenderedImage owner, int tileX, int tileY, Raster data) {
+        if (data == null) {
+            return;
+        }
+        DatasetInfo dataset = DATASETS.get(owner);
+        if (dataset == null) {
+            return;
+        }
+        TileKey key = dataset.getKey(getTileBounds(owner, tileX, tileY));
+        synchronized (tiles) {
+            if (tiles.containsKey(key)) {
+                return;
+            }
+        }
+        CachedTile cached = CachedTile.store(data);
+        if (cached == null || cached.getMemorySize() > capacity) {
+            return;
+        }
+        put(key, cached);
+    }
+
+    void put(TileKey key, CachedTile cached) {
+        synchronized (tiles) {
+            CachedTile previous = tiles.put(key, cached);
+            if (previous != null) {
+                memoryUsed -= previous.getMemorySize();
+                evict(previous);
+            }
+            memoryUsed += cached.getMemorySize();
+            // least recently used first
+            for (Iterator<CachedTile> it = tiles.values().iterator();
+                    it.hasNext() && memoryUsed > capacity; ) {
+                CachedTile evicted = it.next();
+                memoryUsed -= evicted.getMemorySize();
+                it.remove();
+                evict(evicted);
+            }
+        }
+    }
+
+    /** Frees the tile memory, or marks it to be freed once the current readers are done */
+    private void evict(CachedTile cached) {
+        cached.evicted = true;
+        if (cached.readers == 0) {
+            cached.free();
+        }
+    }
+
+    /** Returns the cached tile, if any, preventing its memory from being freed until released */
+    private CachedTile acquire(TileKey key) {
+        synchronized (tiles) {
+            CachedTile cached = tiles.get(key);
+            if (cached != null) {
+                cached.readers++;
+            }
+            return cached;
+        }
+    }
+
+    private void release(CachedTile cached) {
+        synchronized (tiles) {
+            if (--cached.readers == 0 && cached.evicted) {
+                cached.free();
+            }
+        }
+    }
+
+    CachedTile get(TileKey key) {
+        synchronized (tiles) {
+            return tiles.get(key);
+        }
+    }
+
+    /** Prefetches the tiles to the right and below the given one, if not cached yet */
+    private void readAhead(RenderedImage owner, DatasetInfo dataset, int tileX, int tileY) {
+        if (!readAhead || !(owner instanceof PlanarImage)) {
+            return;
+        }
+        int maxTileX = owner.getMinTileX() + owner.getNumXTiles() - 1;
+        int maxTileY = owner.getMinTileY() + owner.getNumYTiles() - 1;
+        List<Point> points = new ArrayList<>(2);
+        if (tileX < maxTileX) {
+            addReadAhead(owner, dataset, tileX + 1, tileY, points);
+        }
+        if (tileY < maxTileY) {
+            addReadAhead(owner, dataset, tileX, tileY + 1, points);
+        }
+        if (!points.isEmpty()) {
+            // read aheads that never got computed, e.g. owner disposed, should not pile up
+            if (readingAhead.size() > MAX_READ_AHEADS) {
+                readingAhead.clear();
+            }
+            try {
+                ((PlanarImage) owner).prefetchTiles(points.toArray(new Point[points.size()]));
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Tile read ahead failed", e);
+            }
+        }
+    }
+
+    private void addReadAhead(
+            RenderedImage owner, DatasetInfo dataset, int tileX, int tileY, List<Point> points) {
+        TileKey key = dataset.getKey(getTileBounds(owner, tileX, tileY));
+        boolean cached;
+        synchronized (tiles) {
+            cached = tiles.containsKey(key);
+        }
+        if (!cached && delegate.getTile(owner, tileX, tileY) == null && readingAhead.add(key)) {
+            points.add(new Point(tileX, tileY));
+        }
+    }
+
+    private static Rectangle getTileBounds(RenderedImage owner, int tileX, int tileY) {
+        Rectangle tile =
+                new Rectangle(
+                        owner.getTileGridXOffset() + tileX * owner.getTileWidth(),
+                        owner.getTileGridYOffset() + tileY * owner.getTileHeight(),
+                        owner.getTileWidth(),
+                        owner.getTileHeight());
+        return tile.intersection(
+                new Rectangle(
+                        owner.getMinX(), owner.getMinY(), owner.getWidth(), owner.getHeight()));
+    }
+
+    /**
+     * Extracts the source file and read parameters of an image read operation from its parameters,
+     * as defined by the {@code ImageReadDescriptor}. Returns null if the tiles of the image cannot
+     * be cached.
+     */
+    static DatasetInfo buildDataset(ParameterBlock pb, RenderedImage image) {
+        if (pb.getNumParameters() <= READ_PARAM_PARAM) {
+            return null;
+        }
+        try {
+            String path = getPath(pb.getObjectParameter(INPUT_PARAM));
+            Object imageChoice = pb.getObjectParameter(IMAGE_CHOICE_PARAM);
+            if (path == null || !(imageChoice instanceof Integer)) {
+                return null;
+            }
+            int originX = 0, originY = 0, subsamplingX = 1, subsamplingY = 1;
+            String bands = null;
+            ImageReadParam param = (ImageReadParam) pb.getObjectParameter(READ_PARAM_PARAM);
+            if (param != null) {
+                Point destinationOffset = param.getDestinationOffset();
+                if (param.getDestinationType() != null
+                        || param.getDestinationBands() != null
+                        || (destinationOffset != null
+                                && (destinationOffset.x != 0 || destinationOffset.y != 0))) {
+                    return null;
+                }
+                Rectangle region = param.getSourceRegion();
+                if (region != null) {
+                    originX = region.x;
+                    originY = region.y;
+                }
+                subsamplingX = param.getSourceXSubsampling();
+                subsamplingY = param.getSourceYSubsampling();
+                originX += param.getSubsamplingXOffset();
+                originY += param.getSubsamplingYOffset();
+                if (param.getSourceBands() != null) {
+                    bands = Arrays.toString(param.getSourceBands());
+                }
+            }
+            Object reader =
+                    pb.getNumParameters() > READER_PARAM
+                            ? pb.getObjectParameter(READER_PARAM)
+                            : null;
+            return new DatasetInfo(
+                    path,
+                    (Integer) imageChoice,
+                    bands,
+                    reader != null ? reader.getClass().getName() : null,
+                    getLayout(image),
+                    originX,
+                    originY,
+                    subsamplingX,
+                    subsamplingY,
+                    image.getMinX(),
+                    image.getMinY());
+        } catch (Exception e) {
+            LOGGER.log(Level.FINE, "Cannot identify the dataset of " + image, e);
+            return null;
+        }
+    }
+
+    /**
+     * Describes the sample and color models of the image, the cached rasters can only be shared
+     * among images laying out the samples in the same way
+     */
+    static String getLayout(RenderedImage image) {
+        SampleModel sm = image.getSampleModel();
+        StringBuilder sb = new StringBuilder(sm.getClass().getName());
+        sb.append(':').append(sm.getDataType()).append(':').append(sm.getNumBands());
+        if (sm instanceof ComponentSampleModel) {
+            ComponentSampleModel csm = (ComponentSampleModel) sm;
+            sb.append(':').append(csm.getPixelStride());
+            sb.append(Arrays.toString(csm.getBandOffsets()));
+            sb.append(Arrays.toString(csm.getBankIndices()));
+        } else if (sm instanceof SinglePixelPackedSampleModel) {
+            sb.append(Arrays.toString(((SinglePixelPackedSampleModel) sm).getBitMasks()));
+        } else if (sm instanceof MultiPixelPackedSampleModel) {
+            sb.append(':').append(((MultiPixelPackedSampleModel) sm).getPixelBitStride());
+        }
+        ColorModel cm = image.getColorModel();
+        if (cm != null) {
+            sb.append('/').append(cm.getClass().getName());
+            sb.append(':').append(cm.getTransparency());
+            sb.append(':').append(cm.getColorSpace().getType());
+            if (cm instanceof IndexColorModel) {
+                sb.append(':').append(((IndexColorModel) cm).getMapSize());
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns an identifier for the reader input, including the file modification time, or null if
+     * the input is not a file or a URL
+     */
+    private static String getPath(Object input) {
+        File file = null;
+        if (input instanceof File) {
+            file = (File) input;
+        } else if (input instanceof FileImageInputStreamExt) {
+            file = ((FileImageInputStreamExt) input).getFile();
+        } else if (input instanceof URL) {
+            return input.toString();
+        }
+        if (file == null) {
+            return null;
+        }
+        // files rewritten in place should not return stale tiles
+        return file.getAbsolutePath() + "@" + file.lastModified();
+    }
+}
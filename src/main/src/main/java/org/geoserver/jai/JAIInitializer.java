@@ -110,6 +110,11 @@ public class JAIInitializer implements GeoServerInitializer {
 
         // Setting up Cache Capacity
         TileCache jaiCache = jaiDef.getTileCache();
+        if (DatasetTileCache.isEnabled() && !(jaiCache instanceof DatasetTileCache)) {
+            jaiCache = DatasetTileCache.wrap(jaiCache);
+            jaiDef.setTileCache(jaiCache);
+            DatasetTileCache.registerImageReadFactory(jaiDef.getOperationRegistry());
+        }
         jai.setTileCache(jaiCache);
 
         long jaiMemory = (long) (jai.getMemoryCapacity() * Runtime.getRuntime().maxMemory());
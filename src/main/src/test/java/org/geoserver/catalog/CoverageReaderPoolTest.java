@@ -0,0 +1,193 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.catalog;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.coverage.grid.io.GridCoverage2DReader;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.Test;
+
+public class CoverageReaderPoolTest {
+
+    private GridCoverage2DReader mockReader() {
+        GridCoverage2DReader reader = createNiceMock(GridCoverage2DReader.class);
+        replay(reader);
+        return reader;
+    }
+
+    @Test
+    public void testGrowAndWait() throws Exception {
+        AtomicInteger created = new AtomicInteger();
+        GridCoverage2DReader primary = mockReader();
+        CoverageReaderPool pool =
+                new CoverageReaderPool(
+                        primary,
+                        () -> {
+                            created.incrementAndGet();
+                            return mockReader();
+                        },
+                        2,
+                        TimeUnit.MINUTES.toMillis(1));
+
+        GridCoverage2DReader first = pool.borrow();
+        assertSame(primary, first);
+        GridCoverage2DReader second = pool.borrow();
+        assertNotSame(primary, second);
+        assertEquals(1, created.get());
+        assertEquals(2, pool.getActiveCount());
+
+        // the pool is exhausted, the next borrow waits for a release
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch started = new CountDownLatch(1);
+            Future<GridCoverage2DReader> third =
+                    executor.submit(
+                            () -> {
+                                started.countDown();
+                                return pool.borrow();
+                            });
+            started.await();
+            Thread.sleep(50);
+            assertFalse(third.isDone());
+            pool.release(second);
+            assertSame(second, third.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, created.get());
+        assertEquals(3, pool.getBorrowCount());
+        assertEquals(1, pool.getSaturatedCount());
+        assertTrue(pool.getMaxWaitTime() > 0);
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception {
+        GridCoverage2DReader primary = mockReader();
+        GridCoverage2DReader secondary = createNiceMock(GridCoverage2DReader.class);
+        secondary.dispose();
+        expectLastCall().once();
+        replay(secondary);
+        CoverageReaderPool pool = new CoverageReaderPool(primary, () -> secondary, 2, 0);
+
+        GridCoverage2DReader first = pool.borrow();
+        GridCoverage2DReader second = pool.borrow();
+        pool.release(second);
+        pool.release(first);
+        assertEquals(2, pool.getReaderCount());
+
+        // zero timeout, the secondary reader is evicted, the primary one is kept
+        Thread.sleep(5);
+        assertSame(primary, pool.borrow());
+        assertEquals(1, pool.getReaderCount());
+        verify(secondary);
+    }
+
+    @Test
+    public void testDispose() throws Exception {
+        GridCoverage2DReader primary = createNiceMock(GridCoverage2DReader.class);
+        primary.dispose();
+        expectLastCall().once();
+        replay(primary);
+        CoverageReaderPool pool =
+                new CoverageReaderPool(
+                        primary, () -> mockReader(), 2, TimeUnit.MINUTES.toMillis(1));
+
+        // disposed only once released
+        GridCoverage2DReader reader = pool.borrow();
+        pool.dispose();
+        pool.release(reader);
+        verify(primary);
+
+        try {
+            pool.borrow();
+            fail("The pool has been disposed");
+        } catch (IOException e) {
+            // fine
+        }
+    }
+
+    @Test
+    public void testLeasedReaderDisposal() throws Exception {
+        AtomicInteger disposed = new AtomicInteger();
+        GridCoverage2DReader primary = createNiceMock(GridCoverage2DReader.class);
+        primary.dispose();
+        expectLastCall()
+                .andAnswer(
+                        () -> {
+                            disposed.incrementAndGet();
+                            return null;
+                        })
+                .once();
+        replay(primary);
+        CoverageReaderPool pool =
+                new CoverageReaderPool(
+                        primary, () -> mockReader(), 2, TimeUnit.MINUTES.toMillis(1));
+
+        // the image is still in use when the pool gets disposed, the reader is kept open
+        GridCoverage2D coverage =
+                new GridCoverageFactory()
+                        .create(
+                                "test",
+                                new float[][] {{1}},
+                                new ReferencedEnvelope(0, 1, 0, 1, DefaultGeographicCRS.WGS84));
+        GridCoverage2DReader reader = pool.borrow();
+        pool.release(reader, coverage);
+        pool.dispose();
+        assertEquals(0, disposed.get());
+        assertEquals(1, pool.getRetiredCount());
+
+        // returning the lease disposes of it
+        List<CoverageReaderPool.Lease> leases = pool.getLeases(reader);
+        assertEquals(1, leases.size());
+        // the lease follows the image, which outlives the coverage when other coverages wrap it
+        assertSame(coverage.getRenderedImage(), leases.get(0).get());
+        leases.get(0).enqueue();
+        for (int i = 0; i < 100 && disposed.get() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, disposed.get());
+        assertEquals(0, pool.getRetiredCount());
+        verify(primary);
+    }
+
+    @Test
+    public void testMaxReadersByType() throws Exception {
+        assertEquals(CoverageReaderPool.MAX_READERS, CoverageReaderPool.getMaxReaders("GeoTIFF"));
+        assertEquals(
+                Math.min(
+                        CoverageReaderPool.MAX_READERS,
+                        CoverageReaderPool.DEFAULT_MOSAIC_MAX_READERS),
+                CoverageReaderPool.getMaxReaders("ImageMosaic"));
+        String key = CoverageReaderPool.MAX_READERS_KEY + ".ImageMosaic";
+        System.setProperty(key, "6");
+        try {
+            assertEquals(6, CoverageReaderPool.getMaxReaders("ImageMosaic"));
+            assertTrue(CoverageReaderPool.isEnabled("ImageMosaic"));
+        } finally {
+            System.clearProperty(key);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.jai;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.geosolutions.concurrent.ConcurrentTileCacheMultiMap;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.awt.image.renderable.ParameterBlock;
+import java.io.File;
+import javax.imageio.ImageReadParam;
+import org.geoserver.jai.DatasetTileCache.CachedTile;
+import org.geoserver.jai.DatasetTileCache.DatasetInfo;
+import org.geoserver.jai.DatasetTileCache.TileKey;
+import org.junit.Test;
+
+public class DatasetTileCacheTest {
+
+    private WritableRaster buildRaster(int type) {
+        BufferedImage image = new BufferedImage(16, 8, type);
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 8; y++) {
+                image.setRGB(x, y, x * 1234567 + y * 777);
+            }
+        }
+        return image.getRaster();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        int[] types = {
+            BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_USHORT_GRAY,
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_3BYTE_BGR
+        };
+        for (int type : types) {
+            WritableRaster raster = buildRaster(type);
+            CachedTile cached = CachedTile.store(raster);
+            assertNotNull(cached);
+
+            // restored at a different position, as another image might be reading the same tile
+            Raster restored = cached.toRaster(new Point(32, 16));
+            assertEquals(32, restored.getMinX());
+            assertEquals(16, restored.getMinY());
+            for (int x = 0; x < 16; x++) {
+                for (int y = 0; y < 8; y++) {
+                    for (int b = 0; b < raster.getNumBands(); b++) {
+                        assertEquals(
+                                raster.getSample(x, y, b), restored.getSample(x + 32, y + 16, b));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testChildRasterNotCached() {
+        WritableRaster raster = buildRaster(BufferedImage.TYPE_BYTE_GRAY);
+        assertNull(CachedTile.store(raster.createChild(0, 0, 8, 8, 0, 0, null)));
+    }
+
+    @Test
+    public void testEvictionBySize() {
+        // room for two 16x8 byte tiles
+        DatasetTileCache cache =
+                new DatasetTileCache(new ConcurrentTileCacheMultiMap(), 256, false);
+        DatasetInfo dataset =
+                new DatasetInfo("/data/test.tif@0", 0, null, null, null, 0, 0, 1, 1, 0, 0);
+        TileKey k1 = dataset.getKey(new Rectangle(0, 0, 16, 8));
+        TileKey k2 = dataset.getKey(new Rectangle(16, 0, 16, 8));
+        TileKey k3 = dataset.getKey(new Rectangle(32, 0, 16, 8));
+        CachedTile t1 = CachedTile.store(buildRaster(BufferedImage.TYPE_BYTE_GRAY));
+        CachedTile t2 = CachedTile.store(buildRaster(BufferedImage.TYPE_BYTE_GRAY));
+        CachedTile t3 = CachedTile.store(buildRaster(BufferedImage.TYPE_BYTE_GRAY));
+
+        cache.put(k1, t1);
+        cache.put(k2, t2);
+        assertEquals(256, cache.getDatasetMemoryUsed());
+        // k1 becomes the most recently used one, k2 gets evicted
+        assertSame(t1, cache.get(k1));
+        cache.put(k3, t3);
+        assertEquals(256, cache.getDatasetMemoryUsed());
+        assertSame(t1, cache.get(k1));
+        assertNull(cache.get(k2));
+        assertTrue(t2.evicted);
+        assertSame(t3, cache.get(k3));
+
+        // same file position, same key, regardless of the image reading it
+        DatasetInfo other =
+                new DatasetInfo("/data/test.tif@0", 0, null, null, null, 16, 0, 1, 1, 0, 0);
+        assertEquals(k2, other.getKey(new Rectangle(0, 0, 16, 8)));
+
+        cache.flush();
+        assertEquals(0, cache.getDatasetMemoryUsed());
+        assertNull(cache.get(k1));
+        assertTrue(t1.evicted);
+    }
+
+    @Test
+    public void testBuildDataset() throws Exception {
+        File file = new File("test.tif").getAbsoluteFile();
+        ImageReadParam param = new ImageReadParam();
+        param.setSourceRegion(new Rectangle(10, 20, 100, 100));
+        param.setSourceSubsampling(2, 2, 0, 0);
+        param.setSourceBands(new int[] {0});
+        // same parameters as ImageReadDescriptor
+        ParameterBlock pb = new ParameterBlock();
+        pb.add(file).add(1).add(false).add(false).add(false).add(null).add(null).add(param);
+        pb.add(null);
+        BufferedImage image = new BufferedImage(50, 50, BufferedImage.TYPE_BYTE_GRAY);
+
+        DatasetInfo dataset = DatasetTileCache.buildDataset(pb, image);
+        assertNotNull(dataset);
+        assertEquals(file.getAbsolutePath() + "@" + file.lastModified(), dataset.path);
+        assertEquals(1, dataset.imageIndex);
+        assertEquals("[0]", dataset.bands);
+        assertEquals(10, dataset.originX);
+        assertEquals(20, dataset.originY);
+        assertEquals(2, dataset.subsamplingX);
+        assertEquals(2, dataset.subsamplingY);
+
+        assertNull(dataset.reader);
+        assertEquals(DatasetTileCache.getLayout(image), dataset.layout);
+
+        // inputs other than files and URLs cannot be identified
+        pb.set(new Object(), 0);
+        assertNull(DatasetTileCache.buildDataset(pb, image));
+    }
+
+    @Test
+    public void testKeyIncludesReaderAndLayout() throws Exception {
+        File file = new File("test.tif").getAbsoluteFile();
+        ParameterBlock pb = new ParameterBlock();
+        pb.add(file).add(0).add(false).add(false).add(false).add(null).add(null).add(null);
+        pb.add(null);
+        Rectangle bounds = new Rectangle(0, 0, 16, 16);
+
+        // same file and read parameters, pixel interleaved vs banded samples
+        BufferedImage interleaved = new BufferedImage(16, 16, BufferedImage.TYPE_3BYTE_BGR);
+        SampleModel bandedModel = new BandedSampleModel(DataBuffer.TYPE_BYTE, 16, 16, 3);
+        BufferedImage banded =
+                new BufferedImage(
+                        interleaved.getColorModel(),
+                        Raster.createWritableRaster(bandedModel, null),
+                        false,
+                        null);
+        TileKey interleavedKey = DatasetTileCache.buildDataset(pb, interleaved).getKey(bounds);
+        TileKey bandedKey = DatasetTileCache.buildDataset(pb, banded).getKey(bounds);
+        assertNotEquals(interleavedKey, bandedKey);
+        assertEquals(interleavedKey, DatasetTileCache.buildDataset(pb, interleaved).getKey(bounds));
+
+        // same layout, different reader
+        pb.set(new Object(), DatasetTileCache.READER_PARAM);
+        assertNotEquals(
+                interleavedKey, DatasetTileCache.buildDataset(pb, interleaved).getKey(bounds));
+    }
+}
@@ -45,6 +45,9 @@ public class GeoTIFFCoverageResponseDelegate extends BaseCoverageResponseDelegat
     /** DEFAULT_JPEG_COMPRESSION_QUALITY */
     private static final float DEFAULT_JPEG_COMPRESSION_QUALITY = 0.75f;
 
+    /** Tile size of cloud optimized GeoTIFF output, unless tiling is explicitly requested */
+    public static final int COG_TILE_SIZE = 512;
+
     public static final String GEOTIFF_CONTENT_TYPE = "image/tiff";
 
     @SuppressWarnings("serial")
@@ -103,6 +106,9 @@ public class GeoTIFFCoverageResponseDelegate extends BaseCoverageResponseDelegat
         // interleaving
         handleInterleaving(econdingParameters, sourceCoverage, writerHelper);
 
+        // cloud optimized layout
+        handleCloudOptimized(econdingParameters, writerHelper);
+
         if (geoserver.getService(WCSInfo.class).isLatLon()) {
             final ParameterValueGroup gp = writerHelper.getGeotoolsWriteParams();
             gp.parameter(GeoTiffFormat.RETAIN_AXES_ORDER.getName().toString()).setValue(true);
@@ -151,6 +157,46 @@ public class GeoTIFFCoverageResponseDelegate extends BaseCoverageResponseDelegat
         }
     }
 
+    /**
+     * Handle the cloud optimized GeoTIFF encoding parameter for WCS, a GeoServer specific addition
+     * to the GeoTIFF extension. The output gets internal overviews, and a {@link #COG_TILE_SIZE}
+     * tiling unless tiling has been explicitly requested.
+     *
+     * <p>Notice that only LZW without predictor and Deflate compressions are supported.
+     *
+     * @param encodingParameters a {@link Map} of {@link String} keys with {@link String} values to
+     *     hold the encoding parameters.
+     * @throws WcsException in case there are invalid or unsupported options.
+     */
+    private void handleCloudOptimized(
+            Map<String, String> encodingParameters, GeoTiffWriterHelper helper)
+            throws WcsException {
+        String cogS = encodingParameters.get("cog");
+        if (cogS == null || !Boolean.valueOf(cogS)) {
+            return;
+        }
+
+        GeoTiffWriteParams wp = helper.getImageIoWriteParams();
+        if (wp.getCompressionMode() == GeoTiffWriteParams.MODE_EXPLICIT) {
+            String compression = wp.getCompressionType();
+            if (!("LZW".equals(compression) || "Deflate".equals(compression))
+                    || wp.getTIFFCompressor() != null) {
+                throw new OWS20Exception(
+                        "Cloud optimized GeoTIFF output supports only LZW and Deflate "
+                                + "compressions, without predictor",
+                        ows20Code(WcsExceptionCode.UnsupportedCombination),
+                        encodingParameters.get("compression"));
+            }
+        }
+
+        helper.setCloudOptimized(true);
+        String tilingS = encodingParameters.get("tiling");
+        if (tilingS == null || !Boolean.valueOf(tilingS)) {
+            wp.setTilingMode(GeoToolsWriteParams.MODE_EXPLICIT);
+            wp.setTiling(COG_TILE_SIZE, COG_TILE_SIZE);
+        }
+    }
+
     /** All OWS 2.0 exceptions for the geotiff extension come with a 404 error code */
     private OWS20Exception.OWSExceptionCode ows20Code(WcsExceptionCode code) {
         return new OWS20Exception.OWSExceptionCode(code.toString(), 404);
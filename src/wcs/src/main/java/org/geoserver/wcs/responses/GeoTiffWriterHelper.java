@@ -8,6 +8,7 @@ import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.logging.Logger;
 import javax.media.jai.OpImage;
 import javax.media.jai.RenderedOp;
 import org.apache.commons.io.FileUtils;
@@ -23,6 +24,7 @@ import org.geotools.gce.geotiff.GeoTiffWriteParams;
 import org.geotools.geometry.GeneralEnvelope;
 import org.geotools.image.ImageWorker;
 import org.geotools.image.util.ImageUtilities;
+import org.geotools.util.logging.Logging;
 import org.opengis.coverage.grid.GridEnvelope;
 import org.opengis.geometry.Envelope;
 import org.opengis.parameter.GeneralParameterValue;
@@ -38,6 +40,8 @@ import org.opengis.referencing.crs.EngineeringCRS;
  */
 public class GeoTiffWriterHelper {
 
+    static final Logger LOGGER = Logging.getLogger(GeoTiffWriterHelper.class);
+
     private static final float DEFAULT_QUALITY = 0.75f;
 
     private static final GeoTiffFormat TIFF_FORMAT = new GeoTiffFormat();
@@ -50,6 +54,8 @@ public class GeoTiffWriterHelper {
 
     private ParameterValueGroup geotoolsWriteParams;
 
+    private boolean cloudOptimized;
+
     public GeoTiffWriterHelper(GridCoverage2D coverage) throws IOException {
         this.coverage = coverage;
 
@@ -139,10 +145,42 @@ public class GeoTiffWriterHelper {
         this.sourceFile = null;
     }
 
+    /**
+     * Enables the cloud optimized GeoTIFF output, with internal overviews. Requires explicit
+     * tiling, and either no compression, LZW or Deflate
+     */
+    public void setCloudOptimized(boolean cloudOptimized) {
+        this.cloudOptimized = cloudOptimized;
+        if (cloudOptimized) {
+            disableSourceCopyOptimization();
+        }
+    }
+
+    /** Returns true if the output is going to be a cloud optimized GeoTIFF */
+    public boolean isCloudOptimized() {
+        return cloudOptimized;
+    }
+
     public void write(OutputStream stream) throws IOException {
         if (sourceFile != null) {
             FileUtils.copyFile(sourceFile, stream);
         } else {
+            // tiled output can be compressed in parallel, when enabled and supported, while
+            // cloud optimized output needs the parallel writer for the overviews
+            if (cloudOptimized || ParallelGeoTiffWriter.isEnabled()) {
+                ParallelGeoTiffWriter parallelWriter =
+                        ParallelGeoTiffWriter.create(
+                                coverage, imageIoWriteParams, geotoolsWriteParams, cloudOptimized);
+                if (parallelWriter != null) {
+                    parallelWriter.write(stream);
+                    return;
+                } else if (cloudOptimized) {
+                    LOGGER.warning(
+                            "The coverage cannot be written as a cloud optimized GeoTIFF, "
+                                    + "writing a plain tiled GeoTIFF instead");
+                }
+            }
+
             CoordinateReferenceSystem crs = coverage.getCoordinateReferenceSystem();
             boolean unreferenced = crs == null || crs instanceof EngineeringCRS;
 
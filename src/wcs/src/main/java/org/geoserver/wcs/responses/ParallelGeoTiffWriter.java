@@ -0,0 +1,899 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wcs.responses;
+
+import java.awt.Rectangle;
+import java.awt.color.ColorSpace;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import javax.media.jai.ImageLayout;
+import javax.media.jai.Interpolation;
+import javax.media.jai.JAI;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.coverage.grid.GridEnvelope2D;
+import org.geotools.coverage.grid.GridGeometry2D;
+import org.geotools.coverage.grid.io.AbstractGridCoverageWriter;
+import org.geotools.coverage.grid.io.AbstractGridFormat;
+import org.geotools.coverage.grid.io.imageio.GeoToolsWriteParams;
+import org.geotools.gce.geotiff.GeoTiffFormat;
+import org.geotools.gce.geotiff.GeoTiffWriteParams;
+import org.geotools.image.ImageWorker;
+import org.geotools.referencing.operation.transform.AffineTransform2D;
+import org.geotools.util.logging.Logging;
+import org.opengis.metadata.spatial.PixelOrientation;
+import org.opengis.parameter.GeneralParameterValue;
+import org.opengis.parameter.ParameterValueGroup;
+import org.opengis.referencing.datum.PixelInCell;
+import org.opengis.referencing.operation.MathTransform;
+
+/**
+ * Writes a tiled GeoTIFF compressing the tiles in parallel on a shared thread pool. The header and
+ * the IFDs are written first, with placeholder tile offsets and byte counts, followed by the tiles
+ * in row major order, as soon as they are compressed. Only the offset and byte count arrays are
+ * patched at the end.
+ *
+ * <p>When overviews are requested, they are built by nearest neighbour decimation of the previous
+ * level, and the file follows the cloud optimized GeoTIFF layout: the IFDs of the full resolution
+ * image and of the overviews come first, then the tiles of the overviews, from the smallest one,
+ * and finally the full resolution tiles.
+ *
+ * <p>At most a few tiles per pool thread are read and compressed ahead of the one being written, so
+ * the memory used by a request is bounded regardless of the image size. The GeoTIFF tags are the
+ * ones the GeoTools writer produces for the same coverage, so the georeferencing is the same as the
+ * sequential output.
+ *
+ * <p>Only Deflate, LZW (without predictor) or no compression are supported, on images with a single
+ * sample size of at least 8 bits, see {@link #create(GridCoverage2D, GeoTiffWriteParams,
+ * ParameterValueGroup, boolean)}.
+ */
+public class ParallelGeoTiffWriter {
+
+    static final Logger LOGGER = Logging.getLogger(ParallelGeoTiffWriter.class);
+
+    /** System variable enabling the parallel encoding of tiled GeoTIFF output */
+    public static final String ENABLED_KEY = "org.geoserver.wcs.geotiff.parallelEncoding";
+
+    /** System variable controlling the number of threads shared by all requests */
+    public static final String POOL_SIZE_KEY = "org.geoserver.wcs.geotiff.encodingThreads";
+
+    /** Max number of tiles compressed ahead of the one being written, for each pool thread */
+    static final int TILES_PER_THREAD = 2;
+
+    static final int COMPRESSION_NONE = 1;
+
+    static final int COMPRESSION_LZW = 5;
+
+    static final int COMPRESSION_DEFLATE = 8;
+
+    static final int TYPE_SHORT = 3;
+
+    static final int TYPE_LONG = 4;
+
+    static final int TAG_NEW_SUBFILE_TYPE = 254;
+
+    static final int TAG_IMAGE_WIDTH = 256;
+
+    static final int TAG_IMAGE_LENGTH = 257;
+
+    static final int TAG_BITS_PER_SAMPLE = 258;
+
+    static final int TAG_COMPRESSION = 259;
+
+    static final int TAG_PHOTOMETRIC = 262;
+
+    static final int TAG_SAMPLES_PER_PIXEL = 277;
+
+    static final int TAG_PLANAR_CONFIGURATION = 284;
+
+    static final int TAG_COLOR_MAP = 320;
+
+    static final int TAG_TILE_WIDTH = 322;
+
+    static final int TAG_TILE_LENGTH = 323;
+
+    static final int TAG_TILE_OFFSETS = 324;
+
+    static final int TAG_TILE_BYTE_COUNTS = 325;
+
+    static final int TAG_EXTRA_SAMPLES = 338;
+
+    static final int TAG_SAMPLE_FORMAT = 339;
+
+    /** The GeoTIFF tags, plus the GDAL metadata and nodata ones, copied from the GeoTools writer */
+    static final int[] GEO_TAGS = {33550, 33922, 34264, 34735, 34736, 34737, 42112, 42113};
+
+    static final int TAG_GDAL_NODATA = 42113;
+
+    /** Size of the values of each TIFF type, by type code */
+    static final int[] TYPE_SIZES = {0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8};
+
+    private static final GeoTiffFormat TIFF_FORMAT = new GeoTiffFormat();
+
+    private static final ExecutorService EXECUTOR;
+
+    private static final int POOL_SIZE;
+
+    static {
+        POOL_SIZE =
+                Math.max(
+                        1,
+                        Integer.getInteger(
+                                POOL_SIZE_KEY, Runtime.getRuntime().availableProcessors()));
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        POOL_SIZE,
+                        POOL_SIZE,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        new ThreadFactory() {
+                            AtomicInteger counter = new AtomicInteger();
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread thread =
+                                        new Thread(
+                                                r, "GeoTiffEncoder-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        EXECUTOR = executor;
+    }
+
+    private final int tileWidth;
+
+    private final int tileHeight;
+
+    private final int compression;
+
+    private final int dataType;
+
+    private final int bands;
+
+    private final int bytesPerSample;
+
+    /** The full resolution image first, followed by the overviews, if any */
+    private final List<Directory> directories = new ArrayList<>();
+
+    private ParallelGeoTiffWriter(
+            RenderedImage image,
+            int tileWidth,
+            int tileHeight,
+            int compression,
+            List<Entry> geoEntries,
+            boolean overviews) {
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.compression = compression;
+        SampleModel sm = image.getSampleModel();
+        this.dataType = sm.getDataType();
+        this.bands = sm.getNumBands();
+        this.bytesPerSample = DataBuffer.getDataTypeSize(dataType) / 8;
+        addDirectory(image, geoEntries, false);
+        if (overviews) {
+            // the overviews only need the nodata, the georeferencing is the full resolution one
+            List<Entry> nodata = new ArrayList<>();
+            for (Entry entry : geoEntries) {
+                if (entry.tag == TAG_GDAL_NODATA) {
+                    nodata.add(entry);
+                }
+            }
+            RenderedImage overview = image;
+            while (overview.getWidth() > tileWidth || overview.getHeight() > tileHeight) {
+                overview = decimate(overview);
+                addDirectory(overview, nodata, true);
+            }
+        }
+    }
+
+    private void addDirectory(RenderedImage image, List<Entry> extraEntries, boolean overview) {
+        directories.add(
+                new Directory(
+                        image,
+                        buildEntries(image, extraEntries, overview),
+                        getTilesAcross(image) * getTilesDown(image)));
+    }
+
+    /** Returns true if the parallel encoding has been enabled */
+    static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_KEY);
+    }
+
+    /**
+     * Returns a writer for the coverage, or null if the coverage or the write parameters are not
+     * supported, in which case the GeoTools writer should be used instead. The coverage must have
+     * an affine grid to world transform.
+     *
+     * @param cloudOptimized if true, overviews are added until one fits in a single tile, and the
+     *     tile size is rounded up to a multiple of 16 if needed. If false, single tile outputs are
+     *     not supported, as they would not benefit from parallel encoding
+     */
+    static ParallelGeoTiffWriter create(
+            GridCoverage2D coverage,
+            GeoTiffWriteParams writeParams,
+            ParameterValueGroup geotoolsParams,
+            boolean cloudOptimized)
+            throws IOException {
+        RenderedImage image = coverage.getRenderedImage();
+        SampleModel sm = image.getSampleModel();
+        ColorModel cm = image.getColorModel();
+        if (cm == null) {
+            return null;
+        }
+        int dataType = sm.getDataType();
+        if (dataType == DataBuffer.TYPE_UNDEFINED) {
+            return null;
+        }
+        int bits = DataBuffer.getDataTypeSize(dataType);
+        for (int size : sm.getSampleSize()) {
+            if (size != bits) {
+                return null;
+            }
+        }
+        if (cm instanceof IndexColorModel && bits > 16) {
+            return null;
+        }
+
+        // tiling, TIFF wants tile sizes multiple of 16
+        if (writeParams.getTilingMode() != GeoToolsWriteParams.MODE_EXPLICIT) {
+            return null;
+        }
+        int tileWidth = writeParams.getTileWidth();
+        int tileHeight = writeParams.getTileHeight();
+        if (cloudOptimized) {
+            tileWidth = (tileWidth + 15) / 16 * 16;
+            tileHeight = (tileHeight + 15) / 16 * 16;
+        } else if (tileWidth % 16 != 0
+                || tileHeight % 16 != 0
+                || (tileWidth >= image.getWidth() && tileHeight >= image.getHeight())) {
+            return null;
+        }
+        if (tileWidth <= 0 || tileHeight <= 0) {
+            return null;
+        }
+
+        // compression
+        int compression = COMPRESSION_NONE;
+        if (writeParams.getCompressionMode() == GeoToolsWriteParams.MODE_EXPLICIT) {
+            if (writeParams.getTIFFCompressor() != null) {
+                return null;
+            }
+            String type = writeParams.getCompressionType();
+            if ("Deflate".equals(type)) {
+                compression = COMPRESSION_DEFLATE;
+            } else if ("LZW".equals(type)) {
+                compression = COMPRESSION_LZW;
+            } else {
+                return null;
+            }
+        }
+
+        // the offsets are 32 bits in classic TIFF, stay well clear of the limit
+        long size = (long) image.getWidth() * image.getHeight() * sm.getNumBands() * (bits / 8);
+        if (cloudOptimized) {
+            // the overviews add up to a third of the full resolution size
+            size = size * 4 / 3;
+        }
+        if (size > 0xFFFFFFFFL / 2) {
+            return null;
+        }
+
+        List<Entry> geoEntries = getGeoEntries(coverage, geotoolsParams);
+        if (geoEntries == null) {
+            return null;
+        }
+        return new ParallelGeoTiffWriter(
+                image, tileWidth, tileHeight, compression, geoEntries, cloudOptimized);
+    }
+
+    /** Halves the resolution by nearest neighbour decimation, tiled as the output */
+    private RenderedImage decimate(RenderedImage image) {
+        ImageLayout layout = new ImageLayout();
+        layout.setTileWidth(tileWidth);
+        layout.setTileHeight(tileHeight);
+        ImageWorker worker = new ImageWorker(image);
+        worker.setRenderingHint(JAI.KEY_IMAGE_LAYOUT, layout);
+        worker.affine(
+                AffineTransform.getScaleInstance(0.5, 0.5),
+                Interpolation.getInstance(Interpolation.INTERP_NEAREST),
+                null);
+        return worker.getRenderedImage();
+    }
+
+    /**
+     * Writes a 1x1 coverage with the same referencing as the coverage to be written, and grabs the
+     * GeoTIFF tags from it
+     */
+    private static List<Entry> getGeoEntries(
+            GridCoverage2D coverage, ParameterValueGroup geotoolsParams) throws IOException {
+        MathTransform gridToCRS =
+                coverage.getGridGeometry().getGridToCRS2D(PixelOrientation.UPPER_LEFT);
+        if (!(gridToCRS instanceof AffineTransform)) {
+            return null;
+        }
+        RenderedImage image = coverage.getRenderedImage();
+        AffineTransform at = new AffineTransform((AffineTransform) gridToCRS);
+        at.translate(image.getMinX(), image.getMinY());
+        GridGeometry2D gridGeometry =
+                new GridGeometry2D(
+                        new GridEnvelope2D(0, 0, 1, 1),
+                        PixelInCell.CELL_CORNER,
+                        new AffineTransform2D(at),
+                        coverage.getCoordinateReferenceSystem(),
+                        null);
+        ColorModel cm = image.getColorModel();
+        SampleModel sm = image.getSampleModel().createCompatibleSampleModel(1, 1);
+        BufferedImage pixel =
+                new BufferedImage(
+                        cm, Raster.createWritableRaster(sm, null), cm.isAlphaPremultiplied(), null);
+        GridCoverage2D reference =
+                new GridCoverageFactory()
+                        .create(
+                                coverage.getName().toString(),
+                                pixel,
+                                gridGeometry,
+                                coverage.getSampleDimensions(),
+                                null,
+                                coverage.getProperties());
+
+        // same parameters as the actual output, minus the image i/o ones
+        List<GeneralParameterValue> params = new ArrayList<>();
+        String imageIoParams = AbstractGridFormat.GEOTOOLS_WRITE_PARAMS.getName().toString();
+        for (GeneralParameterValue value : geotoolsParams.values()) {
+            if (!imageIoParams.equals(value.getDescriptor().getName().toString())) {
+                params.add(value);
+            }
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        AbstractGridCoverageWriter writer = (AbstractGridCoverageWriter) TIFF_FORMAT.getWriter(bos);
+        if (writer == null) {
+            return null;
+        }
+        try {
+            writer.write(reference, params.toArray(new GeneralParameterValue[params.size()]));
+        } finally {
+            try {
+                writer.dispose();
+            } catch (Exception e) {
+                // swallow, silent close
+            }
+        }
+        return readEntries(bos.toByteArray(), GEO_TAGS);
+    }
+
+    /**
+     * Reads the entries of the first IFD with the given tags, returning their values in big endian
+     * order, or null if the file is not a classic TIFF
+     */
+    static List<Entry> readEntries(byte[] tiff, int[] tags) {
+        ByteBuffer bb = ByteBuffer.wrap(tiff);
+        if (tiff.length < 8) {
+            return null;
+        } else if (tiff[0] == 'I' && tiff[1] == 'I') {
+            bb.order(ByteOrder.LITTLE_ENDIAN);
+        } else if (tiff[0] != 'M' || tiff[1] != 'M') {
+            return null;
+        }
+        if (bb.getShort(2) != 42) {
+            return null;
+        }
+        int ifd = bb.getInt(4);
+        int count = bb.getShort(ifd) & 0xFFFF;
+        List<Entry> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int position = ifd + 2 + i * 12;
+            int tag = bb.getShort(position) & 0xFFFF;
+            if (Arrays.stream(tags).noneMatch(t -> t == tag)) {
+                continue;
+            }
+            int type = bb.getShort(position + 2) & 0xFFFF;
+            int valueCount = bb.getInt(position + 4);
+            if (type >= TYPE_SIZES.length || TYPE_SIZES[type] == 0) {
+                return null;
+            }
+            int length = TYPE_SIZES[type] * valueCount;
+            int offset = length <= 4 ? position + 8 : bb.getInt(position + 8);
+            byte[] data = new byte[length];
+            System.arraycopy(tiff, offset, data, 0, length);
+            if (bb.order() == ByteOrder.LITTLE_ENDIAN) {
+                // rationals are pairs of longs
+                int unit = type == 5 || type == 10 ? 4 : TYPE_SIZES[type];
+                swap(data, unit);
+            }
+            result.add(new Entry(tag, type, valueCount, data));
+        }
+        return result;
+    }
+
+    private static void swap(byte[] data, int unit) {
+        for (int i = 0; i + unit <= data.length; i += unit) {
+            for (int j = 0; j < unit / 2; j++) {
+                byte b = data[i + j];
+                data[i + j] = data[i + unit - 1 - j];
+                data[i + unit - 1 - j] = b;
+            }
+        }
+    }
+
+    private List<Entry> buildEntries(
+            RenderedImage image, List<Entry> extraEntries, boolean overview) {
+        ColorModel cm = image.getColorModel();
+        int base = bands >= 3 && cm.getColorSpace().getType() == ColorSpace.TYPE_RGB ? 3 : 1;
+        int photometric = base == 3 ? 2 : 1;
+        int sampleFormat;
+        if (dataType == DataBuffer.TYPE_FLOAT || dataType == DataBuffer.TYPE_DOUBLE) {
+            sampleFormat = 3;
+        } else if (dataType == DataBuffer.TYPE_SHORT || dataType == DataBuffer.TYPE_INT) {
+            sampleFormat = 2;
+        } else {
+            sampleFormat = 1;
+        }
+        int[] bitsPerSample = new int[bands];
+        int[] sampleFormats = new int[bands];
+        Arrays.fill(bitsPerSample, bytesPerSample * 8);
+        Arrays.fill(sampleFormats, sampleFormat);
+        int tileCount = getTilesAcross(image) * getTilesDown(image);
+
+        List<Entry> result = new ArrayList<>();
+        if (overview) {
+            // reduced resolution version of the full resolution image
+            result.add(Entry.longs(TAG_NEW_SUBFILE_TYPE, 1));
+        }
+        result.add(Entry.longs(TAG_IMAGE_WIDTH, image.getWidth()));
+        result.add(Entry.longs(TAG_IMAGE_LENGTH, image.getHeight()));
+        result.add(Entry.shorts(TAG_BITS_PER_SAMPLE, bitsPerSample));
+        result.add(Entry.shorts(TAG_COMPRESSION, compression));
+        if (cm instanceof IndexColorModel) {
+            // palette, with 16 bits per channel, reds first, then greens and blues
+            IndexColorModel icm = (IndexColorModel) cm;
+            int size = 1 << (bytesPerSample * 8);
+            int[] colorMap = new int[size * 3];
+            for (int i = 0; i < icm.getMapSize() && i < size; i++) {
+                colorMap[i] = icm.getRed(i) * 257;
+                colorMap[size + i] = icm.getGreen(i) * 257;
+                colorMap[size * 2 + i] = icm.getBlue(i) * 257;
+            }
+            result.add(Entry.shorts(TAG_PHOTOMETRIC, 3));
+            result.add(Entry.shorts(TAG_COLOR_MAP, colorMap));
+            base = bands;
+        } else {
+            result.add(Entry.shorts(TAG_PHOTOMETRIC, photometric));
+        }
+        result.add(Entry.shorts(TAG_SAMPLES_PER_PIXEL, bands));
+        result.add(Entry.shorts(TAG_PLANAR_CONFIGURATION, 1));
+        result.add(Entry.longs(TAG_TILE_WIDTH, tileWidth));
+        result.add(Entry.longs(TAG_TILE_LENGTH, tileHeight));
+        result.add(Entry.longs(TAG_TILE_OFFSETS, new int[tileCount]));
+        result.add(Entry.longs(TAG_TILE_BYTE_COUNTS, new int[tileCount]));
+        if (bands > base) {
+            int[] extra = new int[bands - base];
+            if (cm.hasAlpha()) {
+                // associated or unassociated alpha
+                extra[extra.length - 1] = cm.isAlphaPremultiplied() ? 1 : 2;
+            }
+            result.add(Entry.shorts(TAG_EXTRA_SAMPLES, extra));
+        }
+        result.add(Entry.shorts(TAG_SAMPLE_FORMAT, sampleFormats));
+        result.addAll(extraEntries);
+        result.sort(Comparator.comparingInt(e -> e.tag));
+        return result;
+    }
+
+    private int getTilesAcross(RenderedImage image) {
+        return (image.getWidth() + tileWidth - 1) / tileWidth;
+    }
+
+    private int getTilesDown(RenderedImage image) {
+        return (image.getHeight() + tileHeight - 1) / tileHeight;
+    }
+
+    /** Writes the GeoTIFF to the output stream, going through a temporary file */
+    void write(OutputStream output) throws IOException {
+        File file = File.createTempFile("wcs", ".tiff");
+        try {
+            try (FileChannel channel =
+                    FileChannel.open(
+                            file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+                write(channel);
+            }
+            Files.copy(file.toPath(), output);
+        } finally {
+            if (!file.delete()) {
+                LOGGER.log(Level.FINE, "Could not delete temporary file " + file);
+            }
+        }
+    }
+
+    private void write(FileChannel channel) throws IOException {
+        ByteBuffer header = encodeHeader();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        // smallest overview first, full resolution image last, as in cloud optimized GeoTIFFs
+        List<int[]> tiles = new ArrayList<>();
+        for (int d = directories.size() - 1; d >= 0; d--) {
+            for (int t = 0; t < directories.get(d).offsets.length; t++) {
+                tiles.add(new int[] {d, t});
+            }
+        }
+
+        long position = channel.position();
+        int maxInFlight = POOL_SIZE * TILES_PER_THREAD;
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int[] current : tiles) {
+                while (next < tiles.size() && inFlight.size() < maxInFlight) {
+                    final int[] index = tiles.get(next++);
+                    inFlight.add(
+                            EXECUTOR.submit(
+                                    () -> encodeTile(directories.get(index[0]).image, index[1])));
+                }
+                byte[] tile = get(inFlight.removeFirst());
+                if (position + tile.length > 0xFFFFFFFFL) {
+                    throw new IOException("The GeoTIFF output exceeds the 4GB classic TIFF limit");
+                }
+                Directory directory = directories.get(current[0]);
+                directory.offsets[current[1]] = (int) position;
+                directory.byteCounts[current[1]] = tile.length;
+                ByteBuffer bb = ByteBuffer.wrap(tile);
+                while (bb.hasRemaining()) {
+                    channel.write(bb);
+                }
+                // keep the tiles on word boundaries
+                if (tile.length % 2 != 0) {
+                    channel.write(ByteBuffer.wrap(new byte[1]));
+                }
+                position = channel.position();
+            }
+        } finally {
+            for (Future<byte[]> future : inFlight) {
+                future.cancel(true);
+            }
+        }
+
+        for (Directory directory : directories) {
+            patch(channel, directory, TAG_TILE_OFFSETS, directory.offsets);
+            patch(channel, directory, TAG_TILE_BYTE_COUNTS, directory.byteCounts);
+        }
+    }
+
+    private byte[] get(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while encoding the GeoTIFF tiles");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Failed to encode a GeoTIFF tile", cause);
+        }
+    }
+
+    private void patch(FileChannel channel, Directory directory, int tag, int[] values)
+            throws IOException {
+        for (Entry entry : directory.entries) {
+            if (entry.tag == tag) {
+                ByteBuffer bb = ByteBuffer.allocate(values.length * 4);
+                bb.asIntBuffer().put(values);
+                long position = entry.position;
+                while (bb.hasRemaining()) {
+                    position += channel.write(bb, position);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Encodes the header and the IFDs, each followed by its values not fitting in the IFD entries,
+     * recording in the entries the position of their values
+     */
+    private ByteBuffer encodeHeader() {
+        int size = 8;
+        for (Directory directory : directories) {
+            size += 2 + directory.entries.size() * 12 + 4;
+            for (Entry entry : directory.entries) {
+                if (entry.data.length > 4) {
+                    size += entry.data.length + entry.data.length % 2;
+                }
+            }
+        }
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        bb.put((byte) 'M').put((byte) 'M').putShort((short) 42).putInt(8);
+        for (int d = 0; d < directories.size(); d++) {
+            List<Entry> entries = directories.get(d).entries;
+            int dataPosition = bb.position() + 2 + entries.size() * 12 + 4;
+            bb.putShort((short) entries.size());
+            for (Entry entry : entries) {
+                bb.putShort((short) entry.tag);
+                bb.putShort((short) entry.type);
+                bb.putInt(entry.count);
+                if (entry.data.length <= 4) {
+                    entry.position = bb.position();
+                    bb.put(entry.data);
+                    bb.position(bb.position() + 4 - entry.data.length);
+                } else {
+                    entry.position = dataPosition;
+                    bb.putInt(dataPosition);
+                    dataPosition += entry.data.length + entry.data.length % 2;
+                }
+            }
+            // the next IFD follows the values of this one
+            bb.putInt(d < directories.size() - 1 ? dataPosition : 0);
+            for (Entry entry : entries) {
+                if (entry.data.length > 4) {
+                    bb.position((int) entry.position);
+                    bb.put(entry.data);
+                }
+            }
+            bb.position(dataPosition);
+        }
+        bb.rewind();
+        return bb;
+    }
+
+    /** Reads, pads and compresses a tile, called from the pool threads */
+    byte[] encodeTile(RenderedImage image, int tile) throws IOException {
+        int tilesAcross = getTilesAcross(image);
+        int x = image.getMinX() + (tile % tilesAcross) * tileWidth;
+        int y = image.getMinY() + (tile / tilesAcross) * tileHeight;
+        int w = Math.min(tileWidth, image.getMinX() + image.getWidth() - x);
+        int h = Math.min(tileHeight, image.getMinY() + image.getHeight() - y);
+        Raster raster = image.getData(new Rectangle(x, y, w, h));
+
+        // edge tiles are padded with zeros up to the full tile size
+        int rowLength = tileWidth * bands * bytesPerSample;
+        ByteBuffer bb = ByteBuffer.allocate(rowLength * tileHeight);
+        int[] ints = null;
+        float[] floats = null;
+        double[] doubles = null;
+        for (int row = 0; row < h; row++) {
+            bb.position(row * rowLength);
+            switch (dataType) {
+                case DataBuffer.TYPE_BYTE:
+                    ints = raster.getPixels(x, y + row, w, 1, ints);
+                    for (int sample : ints) {
+                        bb.put((byte) sample);
+                    }
+                    break;
+                case DataBuffer.TYPE_USHORT:
+                case DataBuffer.TYPE_SHORT:
+                    ints = raster.getPixels(x, y + row, w, 1, ints);
+                    for (int sample : ints) {
+                        bb.putShort((short) sample);
+                    }
+                    break;
+                case DataBuffer.TYPE_INT:
+                    ints = raster.getPixels(x, y + row, w, 1, ints);
+                    for (int sample : ints) {
+                        bb.putInt(sample);
+                    }
+                    break;
+                case DataBuffer.TYPE_FLOAT:
+                    floats = raster.getPixels(x, y + row, w, 1, floats);
+                    for (float sample : floats) {
+                        bb.putFloat(sample);
+                    }
+                    break;
+                default:
+                    doubles = raster.getPixels(x, y + row, w, 1, doubles);
+                    for (double sample : doubles) {
+                        bb.putDouble(sample);
+                    }
+            }
+        }
+        return compress(bb.array());
+    }
+
+    private byte[] compress(byte[] data) throws IOException {
+        switch (compression) {
+            case COMPRESSION_DEFLATE:
+                ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2);
+                Deflater deflater = new Deflater();
+                try (DeflaterOutputStream dos = new DeflaterOutputStream(bos, deflater)) {
+                    dos.write(data);
+                } finally {
+                    deflater.end();
+                }
+                return bos.toByteArray();
+            case COMPRESSION_LZW:
+                return new LZWEncoder().encode(data);
+            default:
+                return data;
+        }
+    }
+
+    /** An image of the output, with its IFD entries and the tile offsets found while writing */
+    static class Directory {
+        final RenderedImage image;
+
+        final List<Entry> entries;
+
+        final int[] offsets;
+
+        final int[] byteCounts;
+
+        Directory(RenderedImage image, List<Entry> entries, int tileCount) {
+            this.image = image;
+            this.entries = entries;
+            this.offsets = new int[tileCount];
+            this.byteCounts = new int[tileCount];
+        }
+    }
+
+    /** A TIFF IFD entry, with its values in big endian order */
+    static class Entry {
+        final int tag;
+
+        final int type;
+
+        final int count;
+
+        final byte[] data;
+
+        /** Position of the values in the output file */
+        long position;
+
+        Entry(int tag, int type, int count, byte[] data) {
+            this.tag = tag;
+            this.type = type;
+            this.count = count;
+            this.data = data;
+        }
+
+        static Entry shorts(int tag, int... values) {
+            ByteBuffer bb = ByteBuffer.allocate(values.length * 2);
+            for (int value : values) {
+                bb.putShort((short) value);
+            }
+            return new Entry(tag, TYPE_SHORT, values.length, bb.array());
+        }
+
+        static Entry longs(int tag, int... values) {
+            ByteBuffer bb = ByteBuffer.allocate(values.length * 4);
+            bb.asIntBuffer().put(values);
+            return new Entry(tag, TYPE_LONG, values.length, bb.array());
+        }
+    }
+
+    /**
+     * The TIFF flavour of LZW: codes are written most significant bit first, and their width grows
+     * one code earlier than in the plain algorithm
+     */
+    static class LZWEncoder {
+        static final int CLEAR = 256;
+
+        static final int EOI = 257;
+
+        static final int FIRST = 258;
+
+        static final int MAX_CODE = 4095;
+
+        static final int HASH_SIZE = 9001;
+
+        private final int[] keys = new int[HASH_SIZE];
+
+        private final int[] codes = new int[HASH_SIZE];
+
+        private ByteArrayOutputStream out;
+
+        private int bits;
+
+        private int bitCount;
+
+        private int codeWidth;
+
+        private int nextCode;
+
+        byte[] encode(byte[] data) {
+            out = new ByteArrayOutputStream(data.length / 2 + 16);
+            reset();
+            write(CLEAR);
+            if (data.length > 0) {
+                int prefix = data[0] & 0xFF;
+                for (int i = 1; i < data.length; i++) {
+                    int b = data[i] & 0xFF;
+                    int key = (prefix << 8) | b;
+                    int slot = find(key);
+                    if (keys[slot] == key) {
+                        prefix = codes[slot];
+                        continue;
+                    }
+                    write(prefix);
+                    keys[slot] = key;
+                    codes[slot] = nextCode++;
+                    advance();
+                    prefix = b;
+                }
+                write(prefix);
+                nextCode++;
+                advance();
+            }
+            write(EOI);
+            if (bitCount > 0) {
+                out.write((bits << (8 - bitCount)) & 0xFF);
+            }
+            return out.toByteArray();
+        }
+
+        private void reset() {
+            Arrays.fill(keys, -1);
+            codeWidth = 9;
+            nextCode = FIRST;
+        }
+
+        /** Grows the code width, or clears the table when it's full */
+        private void advance() {
+            if (nextCode == MAX_CODE - 1) {
+                write(CLEAR);
+                reset();
+            } else if (nextCode > (1 << codeWidth) - 1) {
+                codeWidth++;
+            }
+        }
+
+        private int find(int key) {
+            int slot = ((key * 0x9E3779B1) >>> 1) % HASH_SIZE;
+            while (keys[slot] != -1 && keys[slot] != key) {
+                slot = slot == HASH_SIZE - 1 ? 0 : slot + 1;
+            }
+            return slot;
+        }
+
+        private void write(int code) {
+            bits = (bits << codeWidth) | code;
+            bitCount += codeWidth;
+            while (bitCount >= 8) {
+                out.write((bits >>> (bitCount - 8)) & 0xFF);
+                bitCount -= 8;
+            }
+        }
+    }
+}
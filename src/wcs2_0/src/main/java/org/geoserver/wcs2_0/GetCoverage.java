@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -53,6 +54,7 @@ import org.geoserver.wcs.CoverageCleanerCallback;
 import org.geoserver.wcs.WCSInfo;
 import org.geoserver.wcs2_0.exception.WCS20Exception;
 import org.geoserver.wcs2_0.exception.WCS20Exception.WCS20ExceptionCode;
+import org.geoserver.wcs2_0.response.ConcurrentGranules;
 import org.geoserver.wcs2_0.response.DimensionBean;
 import org.geoserver.wcs2_0.response.GranuleStackImpl;
 import org.geoserver.wcs2_0.response.MIMETypeMapper;
@@ -157,6 +159,14 @@ public class GetCoverage {
 
     public static final String SRS_STARTER = "http://www.opengis.net/def/crs/EPSG/0/";
 
+    /**
+     * System property setting how many slices of a multidimensional request can be read
+     * concurrently, 1 or less (the default) reads them sequentially
+     */
+    public static final String GRANULE_READS_KEY = "org.geoserver.wcs.granuleStack.maxConcurrent";
+
+    static final int GRANULE_READS = Integer.getInteger(GRANULE_READS_KEY, 1);
+
     /** Hints to indicate that a scale has been pre-applied, reporting the scaling factors */
     public static Hints.Key PRE_APPLIED_SCALE = new Hints.Key(Double[].class);
 
@@ -319,24 +329,52 @@ public class GetCoverage {
                 }
                 // If the estimated size does not exceed the limit, the first coverage is added to
                 // the GranuleStack
-                stack.addCoverage(firstCoverage);
-
-                // Get a coverage for each subrequest
-                while (requestsIterator.hasNext()) {
-                    GridCoverageRequest subRequest = requestsIterator.next();
-                    GridCoverage2D singleCoverage =
-                            setupCoverage(
-                                    helper,
-                                    subRequest,
-                                    request,
-                                    reader,
-                                    hints,
-                                    extensions,
-                                    dimensions,
-                                    incrementalOutputSize,
-                                    incrementalInputSize,
-                                    coverageFactory);
-                    stack.addCoverage(singleCoverage);
+                if (GRANULE_READS > 1 && numRequests > 1) {
+                    // read the other slices in the background, the encoder can start writing
+                    // the first ones while the next are still being read
+                    List<Callable<GridCoverage2D>> readers = new ArrayList<>();
+                    readers.add(() -> firstCoverage);
+                    while (requestsIterator.hasNext()) {
+                        GridCoverageRequest subRequest = requestsIterator.next();
+                        // the hints get modified during the read, each slice needs its own copy
+                        Hints subHints = new Hints(hints);
+                        readers.add(
+                                () ->
+                                        setupCoverage(
+                                                helper,
+                                                subRequest,
+                                                request,
+                                                reader,
+                                                subHints,
+                                                extensions,
+                                                dimensions,
+                                                incrementalOutputSize,
+                                                incrementalInputSize,
+                                                coverageFactory));
+                    }
+                    stack.setCoverages(
+                            new ConcurrentGranules(
+                                    ConcurrentGranules.getExecutor(), GRANULE_READS, readers));
+                } else {
+                    stack.addCoverage(firstCoverage);
+
+                    // Get a coverage for each subrequest
+                    while (requestsIterator.hasNext()) {
+                        GridCoverageRequest subRequest = requestsIterator.next();
+                        GridCoverage2D singleCoverage =
+                                setupCoverage(
+                                        helper,
+                                        subRequest,
+                                        request,
+                                        reader,
+                                        hints,
+                                        extensions,
+                                        dimensions,
+                                        incrementalOutputSize,
+                                        incrementalInputSize,
+                                        coverageFactory);
+                        stack.addCoverage(singleCoverage);
+                    }
                 }
                 coverage = stack;
             } else {
@@ -1984,7 +2022,7 @@ public class GetCoverage {
         }
 
         /** Increment the total size value if not disabled */
-        public void addSize(GridCoverage2D coverage) {
+        public synchronized void addSize(GridCoverage2D coverage) {
             incrementalSize +=
                     getCoverageSize(
                             coverage.getGridGeometry().getGridRange2D(),
@@ -1993,7 +2031,7 @@ public class GetCoverage {
         }
 
         /** Return the total size accumulated */
-        public long finalSize() {
+        public synchronized long finalSize() {
             return incrementalSize;
         }
 
@@ -2012,7 +2050,7 @@ public class GetCoverage {
         }
 
         /** Reset the total size stored to 0 */
-        public void reset() {
+        public synchronized void reset() {
             incrementalSize = 0;
         }
 
@@ -83,7 +83,8 @@ public class WCS20GetCoverageRequestReader extends EMFKvpRequestReader {
                         "interleave",
                         "tiling",
                         "tileheight",
-                        "tilewidth");
+                        "tilewidth",
+                        "cog");
         parseSimpleContentList(gc, kvp, geoTiffParams, GEOTIFF_NS, null);
         // the current has the qualified as "geotiff:xyz"
         parseSimpleContentList(gc, kvp, geoTiffParams, GEOTIFF_NS, "geotiff");
@@ -0,0 +1,209 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wcs2_0.response;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.threadlocals.ThreadLocalsTransfer;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.util.logging.Logging;
+
+/**
+ * List of the granules of a {@link GranuleStackImpl}, read concurrently on a shared executor. At
+ * most {@code parallelism} granules are read ahead of the one being consumed, and granules are
+ * returned in order, blocking until they are ready, so that the encoder can write the first slices
+ * while the next ones are still being read.
+ *
+ * <p>The request thread locals are transferred to the executor threads. A granule whose read has
+ * not started yet when it's requested, because the executor is busy or rejected it, is read by the
+ * consuming thread, so the reads never wait on a saturated executor.
+ *
+ * <p>The slices are read on a dedicated, bounded executor (see {@link #getExecutor()}), and never
+ * on the coverage executor of the resource pool: mosaics load their granules on the latter, and
+ * slice reads waiting on granule loads queued behind them would deadlock it.
+ */
+public class ConcurrentGranules extends AbstractList<GridCoverage2D> {
+
+    static final Logger LOGGER = Logging.getLogger(ConcurrentGranules.class);
+
+    /** System property setting the number of threads reading slices, shared by all requests */
+    public static final String THREADS_KEY = "org.geoserver.wcs.granuleStack.threads";
+
+    static final int THREADS =
+            Integer.getInteger(THREADS_KEY, Runtime.getRuntime().availableProcessors());
+
+    private static volatile ThreadPoolExecutor EXECUTOR;
+
+    private final Executor executor;
+
+    private final int parallelism;
+
+    private final List<FutureTask<GridCoverage2D>> tasks = new ArrayList<>();
+
+    private int submitted;
+
+    private volatile boolean cancelled;
+
+    /**
+     * @param executor the executor reading the granules
+     * @param parallelism the max number of granules read ahead of the one being consumed
+     * @param readers the granule readers, in stack order
+     */
+    public ConcurrentGranules(
+            Executor executor, int parallelism, List<Callable<GridCoverage2D>> readers) {
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        ThreadLocalsTransfer threadLocalTransfer = new ThreadLocalsTransfer();
+        Thread requestThread = Thread.currentThread();
+        for (Callable<GridCoverage2D> reader : readers) {
+            tasks.add(
+                    new FutureTask<>(
+                            () -> {
+                                // the request thread already has its thread locals
+                                if (Thread.currentThread() == requestThread) {
+                                    return read(reader);
+                                }
+                                threadLocalTransfer.apply();
+                                try {
+                                    return read(reader);
+                                } finally {
+                                    threadLocalTransfer.cleanup();
+                                }
+                            }));
+        }
+        fillWindow(0);
+    }
+
+    /**
+     * Returns the executor shared by all the slice reads. Its threads time out when idle, and its
+     * queue is bounded, the reads it rejects are performed by the consuming thread.
+     */
+    public static ThreadPoolExecutor getExecutor() {
+        if (EXECUTOR == null) {
+            synchronized (ConcurrentGranules.class) {
+                if (EXECUTOR == null) {
+                    int threads = Math.max(1, THREADS);
+                    AtomicInteger counter = new AtomicInteger();
+                    ThreadPoolExecutor executor =
+                            new ThreadPoolExecutor(
+                                    threads,
+                                    threads,
+                                    60,
+                                    TimeUnit.SECONDS,
+                                    new LinkedBlockingQueue<>(threads * 4),
+                                    r -> {
+                                        Thread t =
+                                                new Thread(
+                                                        r,
+                                                        "wcs-granule-reader-"
+                                                                + counter.incrementAndGet());
+                                        t.setDaemon(true);
+                                        return t;
+                                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    EXECUTOR = executor;
+                }
+            }
+        }
+        return EXECUTOR;
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    /**
+     * Returns the granule at the given position, waiting for it to be read. Once a read failed, or
+     * the list has been cancelled, granules not yet read are returned as null, so that the ones
+     * already read can still be disposed of
+     */
+    @Override
+    public synchronized GridCoverage2D get(int index) {
+        FutureTask<GridCoverage2D> task = tasks.get(index);
+        if (cancelled) {
+            return getIfRead(task);
+        }
+
+        fillWindow(index + 1);
+        // no-op if the executor already started the read
+        task.run();
+        try {
+            return task.get();
+        } catch (InterruptedException | CancellationException e) {
+            cancel();
+            throw new ServiceException("Reading of granule " + index + " stopped", e);
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+            throw new ServiceException("Failed to read granule " + index, cause);
+        }
+    }
+
+    private GridCoverage2D read(Callable<GridCoverage2D> reader) throws Exception {
+        GridCoverage2D coverage = reader.call();
+        // nobody is going to pick up a granule read after a cancel
+        if (cancelled && coverage != null) {
+            coverage.dispose(true);
+            return null;
+        }
+        return coverage;
+    }
+
+    private GridCoverage2D getIfRead(FutureTask<GridCoverage2D> task) {
+        if (task.isDone() && !task.isCancelled()) {
+            try {
+                return task.get();
+            } catch (Exception e) {
+                // failed read, nothing to return
+            }
+        }
+        return null;
+    }
+
+    /** Submits the reads up to {@code parallelism} positions past the given one */
+    private void fillWindow(int index) {
+        int limit = Math.min(tasks.size(), index + parallelism);
+        while (submitted < limit) {
+            FutureTask<GridCoverage2D> task = tasks.get(submitted++);
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // will be read by the consuming thread
+                LOGGER.log(Level.FINE, "Granule read rejected by the executor", e);
+            }
+        }
+    }
+
+    /**
+     * Stops the reads not started yet. The granules already read can still be retrieved, in order
+     * to dispose of them
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        for (FutureTask<GridCoverage2D> task : tasks) {
+            if (!task.isDone()) {
+                task.cancel(false);
+            }
+        }
+    }
+}
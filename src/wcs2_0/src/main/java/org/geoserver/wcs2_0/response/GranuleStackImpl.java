@@ -135,10 +135,25 @@ public class GranuleStackImpl extends GridCoverage2D /*AbstractGridCoverage*/
         coverages.add(coverage);
     }
 
+    /**
+     * Replaces the granules of this stack, e.g., with a {@link ConcurrentGranules} list reading
+     * them in the background
+     */
+    public void setCoverages(List<GridCoverage2D> coverages) {
+        this.coverages = coverages;
+    }
+
     @Override
     public boolean dispose(boolean force) {
+        // stop the reads still pending, the granules not read will be returned as null
+        if (coverages instanceof ConcurrentGranules) {
+            ((ConcurrentGranules) coverages).cancel();
+        }
         boolean disposed = true;
         for (GridCoverage2D coverage : coverages) {
+            if (coverage == null) {
+                continue;
+            }
             RenderedImage ri = coverage.getRenderedImage();
             disposed &= coverage.dispose(force);
             if (ri instanceof PlanarImage) {
@@ -5,6 +5,7 @@
 package org.geoserver.wcs2_0.kvp;
 
 import static org.custommonkey.xmlunit.XMLAssert.assertXpathEvaluatesTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -28,6 +29,7 @@ import net.opengis.wcs20.GetCoverageType;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.geoserver.wcs.WCSInfo;
+import org.geoserver.wcs.responses.ParallelGeoTiffWriter;
 import org.geotools.coverage.grid.GridCoverage2D;
 import org.geotools.coverage.util.CoverageUtilities;
 import org.geotools.gce.geotiff.GeoTiffReader;
@@ -615,6 +617,141 @@ public class GeoTiffKvpTest extends WCSKVPTestSupport {
         checkOws20Exception(response, 404, WcsExceptionCode.CompressionInvalid.toString(), "aaaG");
     }
 
+    @Test
+    public void parallelEncoding() throws Exception {
+        String request =
+                "wcs?request=GetCoverage&service=WCS&version=2.0.1"
+                        + "&coverageId=wcs__BlueMarble&compression=LZW"
+                        + "&tiling=true&tileheight=64&tilewidth=64";
+        File expectedFile = new File("./target/bm_sequential.tiff");
+        FileUtils.writeByteArrayToFile(expectedFile, getBinary(getAsServletResponse(request)));
+
+        File file = new File("./target/bm_parallel.tiff");
+        System.setProperty(ParallelGeoTiffWriter.ENABLED_KEY, "true");
+        try {
+            MockHttpServletResponse response = getAsServletResponse(request);
+            assertEquals("image/tiff", response.getContentType());
+            FileUtils.writeByteArrayToFile(file, getBinary(response));
+        } finally {
+            System.clearProperty(ParallelGeoTiffWriter.ENABLED_KEY);
+        }
+
+        // tiled and compressed as requested
+        final TIFFImageReader reader =
+                (TIFFImageReader) new TIFFImageReaderSpi().createReaderInstance();
+        reader.setInput(new FileImageInputStream(file));
+        try {
+            assertTrue(reader.isImageTiled(0));
+            assertEquals(64, reader.getTileHeight(0));
+            assertEquals(64, reader.getTileWidth(0));
+            IIOMetadataNode root =
+                    (IIOMetadataNode)
+                            reader.getImageMetadata(0)
+                                    .getAsTree(TIFFImageMetadata.nativeMetadataFormatName);
+            IIOMetadataNode field = getTiffField(root, BaselineTIFFTagSet.TAG_COMPRESSION);
+            assertNotNull(field);
+            assertEquals(
+                    "5",
+                    field.getFirstChild().getFirstChild().getAttributes().item(0).getNodeValue());
+        } finally {
+            reader.dispose();
+        }
+
+        // same georeferencing and pixels as the sequential output
+        GeoTiffReader expectedReader = new GeoTiffReader(expectedFile);
+        GeoTiffReader actualReader = new GeoTiffReader(file);
+        GridCoverage2D expected = null, actual = null;
+        try {
+            expected = expectedReader.read(null);
+            actual = actualReader.read(null);
+            assertEquals(
+                    expected.getGridGeometry().getGridRange(),
+                    actual.getGridGeometry().getGridRange());
+            assertEquals(
+                    expected.getCoordinateReferenceSystem(), actual.getCoordinateReferenceSystem());
+            assertEquals(expected.getEnvelope(), actual.getEnvelope());
+            Raster expectedRaster = expected.getRenderedImage().getData();
+            Raster actualRaster = actual.getRenderedImage().getData();
+            assertArrayEquals(
+                    expectedRaster.getPixels(
+                            0,
+                            0,
+                            expectedRaster.getWidth(),
+                            expectedRaster.getHeight(),
+                            (int[]) null),
+                    actualRaster.getPixels(
+                            0, 0, actualRaster.getWidth(), actualRaster.getHeight(), (int[]) null));
+        } finally {
+            expectedReader.dispose();
+            actualReader.dispose();
+            scheduleForCleaning(expected);
+            scheduleForCleaning(actual);
+        }
+    }
+
+    @Test
+    public void cloudOptimized() throws Exception {
+        MockHttpServletResponse response =
+                getAsServletResponse(
+                        "wcs?request=GetCoverage&service=WCS&version=2.0.1"
+                                + "&coverageId=wcs__BlueMarble&geotiff:compression=Deflate"
+                                + "&geotiff:tiling=true&geotiff:tileheight=64&geotiff:tilewidth=64"
+                                + "&geotiff:cog=true");
+        assertEquals("image/tiff", response.getContentType());
+        File file = new File("./target/bm_cog.tiff");
+        FileUtils.writeByteArrayToFile(file, getBinary(response));
+
+        // full resolution image followed by the overviews, all tiled
+        final TIFFImageReader reader =
+                (TIFFImageReader) new TIFFImageReaderSpi().createReaderInstance();
+        reader.setInput(new FileImageInputStream(file));
+        try {
+            int images = reader.getNumImages(true);
+            assertTrue(images > 1);
+            for (int i = 0; i < images; i++) {
+                assertTrue(reader.isImageTiled(i));
+                assertEquals(64, reader.getTileWidth(i));
+                assertEquals(64, reader.getTileHeight(i));
+            }
+            assertEquals(reader.getWidth(0) / 2, reader.getWidth(1));
+            int last = images - 1;
+            assertTrue(reader.getWidth(last) <= 64 && reader.getHeight(last) <= 64);
+        } finally {
+            reader.dispose();
+        }
+
+        // the GeoTIFF reader finds the overviews and the original georeferencing
+        GeoTiffReader geotiffReader = new GeoTiffReader(file);
+        GridCoverage2D coverage = null, sourceCoverage = null;
+        try {
+            assertTrue(geotiffReader.getDatasetLayout().getNumInternalOverviews() > 0);
+            coverage = geotiffReader.read(null);
+            sourceCoverage =
+                    (GridCoverage2D)
+                            getCatalog()
+                                    .getCoverageByName("BlueMarble")
+                                    .getGridCoverageReader(null, null)
+                                    .read(null);
+            assertEquals(
+                    sourceCoverage.getCoordinateReferenceSystem(),
+                    coverage.getCoordinateReferenceSystem());
+            assertEquals(sourceCoverage.getEnvelope(), coverage.getEnvelope());
+        } finally {
+            geotiffReader.dispose();
+            scheduleForCleaning(coverage);
+            scheduleForCleaning(sourceCoverage);
+        }
+
+        // JPEG tiles are not supported
+        response =
+                getAsServletResponse(
+                        "wcs?request=GetCoverage&service=WCS&version=2.0.1"
+                                + "&coverageId=wcs__BlueMarble&compression=JPEG&geotiff:cog=true");
+        assertEquals("application/xml", response.getContentType());
+        checkOws20Exception(
+                response, 404, WcsExceptionCode.UnsupportedCombination.toString(), "JPEG");
+    }
+
     @Test
     public void getFullCoverageKVP() throws Exception {
         MockHttpServletResponse response =
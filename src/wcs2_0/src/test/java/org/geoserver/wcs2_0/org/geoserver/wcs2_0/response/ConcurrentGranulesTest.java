@@ -0,0 +1,140 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wcs2_0.org.geoserver.wcs2_0.response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.wcs2_0.response.ConcurrentGranules;
+import org.geoserver.wcs2_0.response.GranuleStackImpl;
+import org.geotools.coverage.CoverageFactoryFinder;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.coverage.grid.GridCoverageFactory;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentGranulesTest {
+
+    ExecutorService executor;
+
+    @Before
+    public void setupExecutor() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private GridCoverage2D buildCoverage(String name) {
+        GridCoverageFactory coverageFactory = CoverageFactoryFinder.getGridCoverageFactory(null);
+        return coverageFactory.create(
+                name,
+                new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY),
+                new ReferencedEnvelope(0, 1, 0, 1, DefaultGeographicCRS.WGS84));
+    }
+
+    @Test
+    public void testOrder() throws Exception {
+        List<GridCoverage2D> expected = new ArrayList<>();
+        List<Callable<GridCoverage2D>> readers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            GridCoverage2D coverage = buildCoverage("c" + i);
+            expected.add(coverage);
+            // make the first slices the slowest ones
+            long delay = 10 - i;
+            readers.add(
+                    () -> {
+                        Thread.sleep(delay);
+                        return coverage;
+                    });
+        }
+
+        ConcurrentGranules granules = new ConcurrentGranules(executor, 3, readers);
+        assertEquals(10, granules.size());
+        for (int i = 0; i < 10; i++) {
+            assertSame(expected.get(i), granules.get(i));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testSharedExecutor() throws Exception {
+        ThreadPoolExecutor shared = ConcurrentGranules.getExecutor();
+        assertSame(shared, ConcurrentGranules.getExecutor());
+        assertTrue(shared.allowsCoreThreadTimeOut());
+        assertTrue(shared.getQueue().remainingCapacity() < Integer.MAX_VALUE);
+
+        // each slice read waits on a granule load queued on a single threaded pool, as a mosaic
+        // would do on the coverage executor, and the reads still complete
+        ExecutorService granuleLoader = Executors.newSingleThreadExecutor();
+        try {
+            List<Callable<GridCoverage2D>> readers = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                GridCoverage2D coverage = buildCoverage("c" + i);
+                readers.add(() -> granuleLoader.submit(() -> coverage).get());
+            }
+            ConcurrentGranules granules = new ConcurrentGranules(shared, 4, readers);
+            for (int i = 0; i < 10; i++) {
+                assertEquals("c" + i, granules.get(i).getName().toString());
+            }
+        } finally {
+            granuleLoader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        List<Callable<GridCoverage2D>> readers = new ArrayList<>();
+        GridCoverage2D first = buildCoverage("first");
+        readers.add(() -> first);
+        readers.add(
+                () -> {
+                    throw new ServiceException("Too much data");
+                });
+        for (int i = 0; i < 10; i++) {
+            readers.add(
+                    () -> {
+                        reads.incrementAndGet();
+                        return buildCoverage("other");
+                    });
+        }
+
+        // a single slice read ahead, the ones after the failure are never read
+        ConcurrentGranules granules = new ConcurrentGranules(executor, 1, readers);
+        GranuleStackImpl stack = new GranuleStackImpl("stack", DefaultGeographicCRS.WGS84, null);
+        stack.setCoverages(granules);
+        assertSame(first, granules.get(0));
+        try {
+            granules.get(1);
+            fail("Should have failed reading the second slice");
+        } catch (ServiceException e) {
+            assertEquals("Too much data", e.getMessage());
+        }
+        assertSame(first, granules.get(0));
+        assertNull(granules.get(11));
+        // at most the slice right after the failed one has been submitted
+        assertTrue(reads.get() <= 1);
+
+        // the stack can still be disposed of
+        stack.dispose(true);
+    }
+}
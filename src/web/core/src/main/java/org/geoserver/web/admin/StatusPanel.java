@@ -7,9 +7,11 @@ package org.geoserver.web.admin;
 import com.sun.media.imageioimpl.common.PackageUtil;
 import com.sun.media.jai.util.CacheDiagnostics;
 import java.awt.*;
+import java.io.File;
 import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.media.jai.JAI;
@@ -21,6 +23,7 @@ import org.apache.wicket.markup.html.link.BookmarkablePageLink;
 import org.apache.wicket.markup.html.link.Link;
 import org.apache.wicket.markup.html.panel.Panel;
 import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.CoverageStoreInfo;
 import org.geoserver.catalog.DataStoreInfo;
 import org.geoserver.catalog.Predicates;
 import org.geoserver.catalog.util.CloseableIterator;
@@ -28,6 +31,10 @@ import org.geoserver.config.CoverageAccessInfo;
 import org.geoserver.config.GeoServerDataDirectory;
 import org.geoserver.config.GeoServerInfo;
 import org.geoserver.config.JAIInfo;
+import org.geoserver.jai.DatasetTileCache;
+import org.geoserver.platform.resource.Files;
+import org.geoserver.platform.resource.Resource;
+import org.geoserver.platform.resource.Resources;
 import org.geoserver.web.util.MapModel;
 import org.geoserver.web.wicket.ParamResourceModel;
 import org.geotools.util.logging.Logging;
@@ -63,6 +70,10 @@ public class StatusPanel extends Panel {
 
     private static final String KEY_JAI_TILE_THREAD_PRIORITY = "jai_tile_thread_priority";
 
+    private static final String KEY_DATASET_CACHE_MEM = "dataset_cache_mem";
+
+    private static final String KEY_DATASET_CACHE_HITS = "dataset_cache_hits";
+
     private static final String KEY_COVERAGEACCESS_CORE_POOL_SIZE = "coverage_thread_corepoolsize";
 
     private static final String KEY_COVERAGEACCESS_MAX_POOL_SIZE = "coverage_thread_maxpoolsize";
@@ -78,6 +89,9 @@ public class StatusPanel extends Panel {
 
     private AbstractStatusPage parent;
 
+    /** The coverage store names by path, used to sum up the dataset cache statistics */
+    private Map<String, String> coverageStorePaths;
+
     public StatusPanel(String id, AbstractStatusPage parent) {
         super(id);
         this.parent = parent;
@@ -102,6 +116,8 @@ public class StatusPanel extends Panel {
         add(new Label("jai.memory.threshold", new MapModel(values, KEY_JAI_MEM_THRESHOLD)));
         add(new Label("jai.tile.threads", new MapModel(values, KEY_JAI_TILE_THREADS)));
         add(new Label("jai.tile.priority", new MapModel(values, KEY_JAI_TILE_THREAD_PRIORITY)));
+        add(new Label("jai.datasetCache.memory", new MapModel(values, KEY_DATASET_CACHE_MEM)));
+        add(new Label("jai.datasetCache.hits", new MapModel(values, KEY_DATASET_CACHE_HITS)));
         add(
                 new Label(
                         "coverage.corepoolsize",
@@ -243,6 +259,18 @@ public class StatusPanel extends Panel {
         values.put(
                 KEY_JAI_TILE_THREAD_PRIORITY,
                 Integer.toString(jai.getTileScheduler().getPriority()));
+        if (jaiCache instanceof DatasetTileCache) {
+            DatasetTileCache datasetCache = (DatasetTileCache) jaiCache;
+            values.put(
+                    KEY_DATASET_CACHE_MEM,
+                    formatMemory(datasetCache.getDatasetMemoryUsed())
+                            + " / "
+                            + formatMemory(datasetCache.getDatasetMemoryCapacity()));
+            values.put(KEY_DATASET_CACHE_HITS, formatDatasetHitRates(datasetCache));
+        } else {
+            values.put(KEY_DATASET_CACHE_MEM, "-");
+            values.put(KEY_DATASET_CACHE_HITS, "-");
+        }
 
         values.put(
                 KEY_COVERAGEACCESS_CORE_POOL_SIZE,
@@ -384,6 +412,89 @@ public class StatusPanel extends Panel {
         return count;
     }
 
+    /**
+     * Sums up the dataset cache statistics of the files of each coverage store, in a single pass
+     * over the files, each one looked up along with its parent directories
+     */
+    private String formatDatasetHitRates(DatasetTileCache cache) {
+        Map<String, DatasetTileCache.Statistics> statistics = cache.getStatistics();
+        if (statistics.isEmpty()) {
+            return "-";
+        }
+        Map<String, String> stores = getCoverageStorePaths();
+        Map<String, long[]> counts = new TreeMap<>();
+        for (Map.Entry<String, DatasetTileCache.Statistics> entry : statistics.entrySet()) {
+            // the keys are the file paths followed by their modification time
+            String key = entry.getKey();
+            int idx = key.lastIndexOf('@');
+            File file = new File(idx > 0 ? key.substring(0, idx) : key);
+            String store = null;
+            for (File f = file; f != null && store == null; f = f.getParentFile()) {
+                store = stores.get(f.getAbsolutePath());
+            }
+            if (store != null) {
+                long[] storeCounts = counts.computeIfAbsent(store, k -> new long[2]);
+                DatasetTileCache.Statistics stats = entry.getValue();
+                storeCounts[0] += stats.getHits();
+                storeCounts[1] += stats.getHits() + stats.getMisses();
+            }
+        }
+        NumberFormat percent = NumberFormat.getPercentInstance();
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+            long hits = entry.getValue()[0];
+            long total = entry.getValue()[1];
+            if (total > 0) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(entry.getKey())
+                        .append(": ")
+                        .append(percent.format((double) hits / total))
+                        .append(" (")
+                        .append(hits)
+                        .append(" / ")
+                        .append(total)
+                        .append(")");
+            }
+        }
+        return sb.length() > 0 ? sb.toString() : "-";
+    }
+
+    /**
+     * The names of the coverage stores, by absolute path of the file or directory they point to.
+     * Resolved once, when first needed
+     */
+    private Map<String, String> getCoverageStorePaths() {
+        if (coverageStorePaths != null) {
+            return coverageStorePaths;
+        }
+        Map<String, String> paths = new HashMap<>();
+        Catalog catalog = parent.getGeoServer().getCatalog();
+        Resource baseDirectory = Files.asResource(catalog.getResourceLoader().getBaseDirectory());
+        try (CloseableIterator<CoverageStoreInfo> i =
+                catalog.list(CoverageStoreInfo.class, Predicates.acceptAll())) {
+            while (i.hasNext()) {
+                CoverageStoreInfo store = i.next();
+                if (store.getURL() == null) {
+                    continue;
+                }
+                try {
+                    File file = Resources.find(Resources.fromURL(baseDirectory, store.getURL()));
+                    if (file != null) {
+                        paths.put(
+                                file.getAbsolutePath(),
+                                store.getWorkspace().getName() + ":" + store.getName());
+                    }
+                } catch (Exception e) {
+                    LOGGER.log(Level.FINE, "Cannot resolve the files of " + store.getName(), e);
+                }
+            }
+        }
+        coverageStorePaths = paths;
+        return paths;
+    }
+
     private CloseableIterator<DataStoreInfo> getDataStores() {
         Catalog catalog = parent.getGeoServer().getCatalog();
         Filter filter = Predicates.acceptAll();
@@ -14,8 +14,17 @@ import org.geoserver.config.GeoServer;
  */
 public abstract class AbstractTransactionElementHandler implements TransactionElementHandler {
 
+    /**
+     * System variable controlling the max number of features written to the store, and reported to
+     * the transaction listeners, in a single batch. Zero or negative (default) handles all the
+     * features of an element in a single batch.
+     */
+    public static final String BATCH_SIZE_KEY = "org.geoserver.wfs.transaction.batchSize";
+
     protected GeoServer geoServer;
 
+    private int batchSize = Integer.getInteger(BATCH_SIZE_KEY, 0);
+
     protected AbstractTransactionElementHandler(GeoServer geoServer) {
         this.geoServer = geoServer;
     }
@@ -23,4 +32,14 @@ public abstract class AbstractTransactionElementHandler implements TransactionEl
     protected WFSInfo getInfo() {
         return geoServer.getService(WFSInfo.class);
     }
+
+    /** The max number of features handled in a single batch, or zero if unlimited */
+    public int getBatchSize() {
+        return batchSize > 0 ? batchSize : 0;
+    }
+
+    /** Sets the max number of features handled in a single batch, zero or negative if unlimited */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
 }
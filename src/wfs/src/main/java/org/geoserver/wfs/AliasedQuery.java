@@ -346,6 +346,11 @@ class AliasedQuery extends Query {
         return delegate.getSortBy();
     }
 
+    @Override
+    public void setSortBy(List<SortBy> sortBy) {
+        delegate.setSortBy(sortBy);
+    }
+
     @Override
     public List<XlinkPropertyNameType> getXlinkPropertyNames() {
         return delegate.getXlinkPropertyNames();
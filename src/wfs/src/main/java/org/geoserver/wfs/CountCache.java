@@ -0,0 +1,406 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.namespace.QName;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.DataStoreInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.event.CatalogAddEvent;
+import org.geoserver.catalog.event.CatalogListener;
+import org.geoserver.catalog.event.CatalogModifyEvent;
+import org.geoserver.catalog.event.CatalogPostModifyEvent;
+import org.geoserver.catalog.event.CatalogRemoveEvent;
+import org.geoserver.config.GeoServer;
+import org.geoserver.threadlocals.ThreadLocalsTransfer;
+import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
+import org.geotools.filter.visitor.SimplifyingFilterVisitor;
+import org.geotools.util.factory.Hints;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.type.Name;
+import org.opengis.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Caches the feature counts used to fill in the WFS 2.0 numberMatched attribute, so that paging
+ * through a large result set does not run the same count against the store for every page.
+ *
+ * <p>Counts are keyed by feature type, simplified filter, view parameters and user (security limits
+ * can change the count). Counts for a feature type are dropped when a WFS transaction modifies it,
+ * the whole cache is dropped when a feature type or store is modified or removed in the catalog.
+ * Changes made to the data outside of GeoServer are not tracked, the {@link #TIME_TO_LIVE_KEY}
+ * controls how long they can go unnoticed.
+ *
+ * <p>Optionally, counts can be given a time budget: when an exact count takes longer than {@link
+ * #TIME_BUDGET_KEY} milliseconds, the count is reported as unknown (-1), while it keeps on running
+ * in the background and gets cached for the next requests. Background counts run on a pool of at
+ * most {@link #MAX_THREADS_KEY} threads, when the pool is saturated the count is reported as
+ * unknown right away. Concurrent requests for the same count share a single run against the store.
+ *
+ * <p>The cache is disabled by default, it's enabled by setting the {@link #MAX_ENTRIES_KEY} system
+ * variable to the maximum number of counts to be kept in memory.
+ */
+public class CountCache implements TransactionListener, CatalogListener, DisposableBean {
+
+    static final Logger LOGGER = Logging.getLogger(CountCache.class);
+
+    /** System variable controlling the maximum number of cached counts, 0 disables the cache */
+    public static final String MAX_ENTRIES_KEY = "org.geoserver.wfs.countCache.maxEntries";
+
+    /**
+     * System variable controlling how long counts are cached, in seconds (10 minutes by default)
+     */
+    public static final String TIME_TO_LIVE_KEY = "org.geoserver.wfs.countCache.timeToLive";
+
+    /**
+     * System variable controlling the time budget of a count, in milliseconds, 0 (the default)
+     * waits for the exact count
+     */
+    public static final String TIME_BUDGET_KEY = "org.geoserver.wfs.countCache.timeBudget";
+
+    /**
+     * System variable controlling how many counts can run in background at the same time, when a
+     * time budget is set (the number of processors by default)
+     */
+    public static final String MAX_THREADS_KEY = "org.geoserver.wfs.countCache.maxThreads";
+
+    /** The count returned when the exact count is not available within the time budget */
+    public static final int COUNT_UNKNOWN = -1;
+
+    /** How many background counts can wait for a free thread */
+    static final int QUEUE_SIZE = 100;
+
+    private final int maxEntries;
+
+    private final long timeBudget;
+
+    private final Cache<CountKey, Integer> counts;
+
+    private final ThreadPoolExecutor executor;
+
+    /** The counts running, so that the same count is not started twice */
+    final ConcurrentHashMap<CountKey, Future<Integer>> running = new ConcurrentHashMap<>();
+
+    /** Bumped at each invalidation, counts started before it are not cached */
+    private final AtomicLong generation = new AtomicLong();
+
+    public CountCache(GeoServer geoServer) {
+        this(
+                geoServer,
+                Integer.getInteger(MAX_ENTRIES_KEY, 0),
+                Long.getLong(TIME_TO_LIVE_KEY, 600),
+                Long.getLong(TIME_BUDGET_KEY, 0),
+                Integer.getInteger(MAX_THREADS_KEY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    CountCache(
+            GeoServer geoServer, int maxEntries, long timeToLive, long timeBudget, int maxThreads) {
+        this.maxEntries = maxEntries;
+        this.timeBudget = timeBudget;
+        this.counts =
+                CacheBuilder.newBuilder()
+                        .maximumSize(Math.max(maxEntries, 0))
+                        .expireAfterWrite(timeToLive, TimeUnit.SECONDS)
+                        .build();
+        int threads = Math.max(maxThreads, 1);
+        this.executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        60,
+                        TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(QUEUE_SIZE),
+                        new ThreadFactory() {
+                            AtomicInteger counter = new AtomicInteger();
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread thread =
+                                        new Thread(r, "WFSCount-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        this.executor.allowCoreThreadTimeOut(true);
+        if (geoServer != null) {
+            geoServer.getCatalog().addListener(this);
+        }
+    }
+
+    /** Returns true if the cache is enabled */
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Returns the number of features matched by the query, from the cache if available, or {@link
+     * #COUNT_UNKNOWN} if the count could not be computed within the time budget
+     */
+    public int getCount(FeatureSource source, Query query) throws IOException {
+        CountKey key = getKey(source, query);
+        if (key != null) {
+            Integer count = counts.getIfPresent(key);
+            if (count != null) {
+                return count;
+            }
+        }
+
+        CountTask task = new CountTask(key, source, query);
+        Future<Integer> future = key != null ? running.putIfAbsent(key, task) : null;
+        if (future == null) {
+            future = task;
+            if (timeBudget <= 0) {
+                task.run();
+            } else {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.cancel(false);
+                    LOGGER.fine("Too many counts running in background, reporting as unknown");
+                    return COUNT_UNKNOWN;
+                }
+            }
+        }
+
+        try {
+            if (timeBudget <= 0) {
+                return future.get();
+            }
+            return future.get(timeBudget, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(
+                        "Count on "
+                                + source.getSchema().getName()
+                                + " exceeded the time budget, will be reported as unknown");
+            }
+            return COUNT_UNKNOWN;
+        } catch (CancellationException e) {
+            // shared with a request whose count could not be scheduled
+            return COUNT_UNKNOWN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the feature count", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException("Failed to count features", cause);
+        }
+    }
+
+    private int count(FeatureSource source, Query query) throws IOException {
+        // make sure we get a count by getting a feature collection
+        // FeatureSource.getCount(...) can return -1
+        return source.getFeatures(query).size();
+    }
+
+    private void cache(CountKey key, int count, long startGeneration) {
+        // skip counts that might have been computed against data modified in the meantime
+        if (key != null && count >= 0 && generation.get() == startGeneration) {
+            counts.put(key, count);
+        }
+    }
+
+    /** Builds the cache key for the given query, or returns null if its count cannot be cached */
+    CountKey getKey(FeatureSource source, Query query) {
+        if (!isEnabled() || (query.getJoins() != null && !query.getJoins().isEmpty())) {
+            return null;
+        }
+        Filter filter = query.getFilter() != null ? query.getFilter() : Filter.INCLUDE;
+        filter = (Filter) filter.accept(new SimplifyingFilterVisitor(), null);
+        Object viewParams =
+                query.getHints() != null
+                        ? query.getHints().get(Hints.VIRTUAL_TABLE_PARAMETERS)
+                        : null;
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String user = auth != null ? auth.getName() : null;
+        return new CountKey(source.getSchema().getName(), filter, viewParams, user);
+    }
+
+    /** Stops the background counts */
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        running.clear();
+    }
+
+    /** The number of cached counts */
+    public long size() {
+        return counts.size();
+    }
+
+    /** Drops all the cached counts */
+    public void clear() {
+        generation.incrementAndGet();
+        counts.invalidateAll();
+        running.clear();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Feature count cache cleared");
+        }
+    }
+
+    /** Drops the cached counts of the given feature type */
+    public void clear(QName typeName) {
+        generation.incrementAndGet();
+        counts.asMap().keySet().removeIf(k -> k.matches(typeName));
+        running.keySet().removeIf(k -> k.matches(typeName));
+    }
+
+    @Override
+    public void dataStoreChange(TransactionEvent event) throws WFSException {
+        if (event.getLayerName() != null) {
+            clear(event.getLayerName());
+        } else {
+            clear();
+        }
+    }
+
+    private void clearIfAffected(CatalogInfo source) {
+        if (source instanceof FeatureTypeInfo || source instanceof DataStoreInfo) {
+            clear();
+        }
+    }
+
+    @Override
+    public void handleAddEvent(CatalogAddEvent event) {
+        // nothing to do
+    }
+
+    @Override
+    public void handleRemoveEvent(CatalogRemoveEvent event) {
+        clearIfAffected(event.getSource());
+    }
+
+    @Override
+    public void handleModifyEvent(CatalogModifyEvent event) {
+        // wait for the post modify event
+    }
+
+    @Override
+    public void handlePostModifyEvent(CatalogPostModifyEvent event) {
+        clearIfAffected(event.getSource());
+    }
+
+    @Override
+    public void reloaded() {
+        clear();
+    }
+
+    /**
+     * A count shared by the concurrent requests for it, running either on the requesting thread (no
+     * time budget) or in background
+     */
+    class CountTask extends FutureTask<Integer> {
+
+        final CountKey key;
+
+        CountTask(CountKey key, FeatureSource source, Query query) {
+            super(countAndCache(key, source, query));
+            this.key = key;
+        }
+
+        @Override
+        protected void done() {
+            if (key != null) {
+                running.remove(key, this);
+            }
+        }
+    }
+
+    private Callable<Integer> countAndCache(CountKey key, FeatureSource source, Query query) {
+        long startGeneration = generation.get();
+        if (timeBudget <= 0) {
+            return () -> {
+                int count = count(source, query);
+                cache(key, count, startGeneration);
+                return count;
+            };
+        }
+        ThreadLocalsTransfer threadLocalTransfer = new ThreadLocalsTransfer();
+        return () -> {
+            threadLocalTransfer.apply();
+            try {
+                int count = count(source, query);
+                cache(key, count, startGeneration);
+                return count;
+            } finally {
+                threadLocalTransfer.cleanup();
+            }
+        };
+    }
+
+    static class CountKey {
+        final Name typeName;
+
+        final Filter filter;
+
+        final Object viewParams;
+
+        final String user;
+
+        CountKey(Name typeName, Filter filter, Object viewParams, String user) {
+            this.typeName = typeName;
+            this.filter = filter;
+            this.viewParams = viewParams;
+            this.user = user;
+        }
+
+        boolean matches(QName name) {
+            if (!typeName.getLocalPart().equals(name.getLocalPart())) {
+                return false;
+            }
+            String namespace = name.getNamespaceURI();
+            return namespace == null
+                    || namespace.isEmpty()
+                    || typeName.getNamespaceURI() == null
+                    || namespace.equals(typeName.getNamespaceURI());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CountKey that = (CountKey) o;
+            return Objects.equals(typeName, that.typeName)
+                    && Objects.equals(filter, that.filter)
+                    && Objects.equals(viewParams, that.viewParams)
+                    && Objects.equals(user, that.user);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(typeName, filter, viewParams, user);
+        }
+    }
+}
@@ -26,11 +26,23 @@ class CountExecutor {
 
     int providedCount = COUNT_UNSET;
 
+    CountCache countCache;
+
     public CountExecutor(FeatureSource source, Query query) {
         this.source = source;
         this.query = query;
     }
 
+    /**
+     * Builds a count executor looking up the count in the given cache first
+     *
+     * @param countCache the count cache, can be null
+     */
+    public CountExecutor(FeatureSource source, Query query, CountCache countCache) {
+        this(source, query);
+        this.countCache = countCache;
+    }
+
     public CountExecutor(int providedCount) {
         this.providedCount = providedCount;
     }
@@ -38,6 +50,8 @@ class CountExecutor {
     public int getCount() throws IOException {
         if (isCountSet()) {
             return providedCount;
+        } else if (countCache != null) {
+            return countCache.getCount(source, query);
         } else {
             // make sure we get a count by getting a feature colleciton
             // FeatureSource.getCount(...) can return -1
@@ -0,0 +1,474 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geoserver.threadlocals.ThreadLocalsTransfer;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.FeatureCollection;
+import org.geotools.feature.FeatureIterator;
+import org.geotools.feature.collection.DecoratingFeatureCollection;
+import org.geotools.feature.collection.DecoratingSimpleFeatureCollection;
+import org.geotools.util.logging.Logging;
+import org.opengis.feature.Feature;
+import org.opengis.feature.simple.SimpleFeature;
+
+/**
+ * Runs the queries of a multi-query GetFeature request concurrently. Feature collections are lazy,
+ * the actual store query happens when the output format starts iterating over them, one after the
+ * other. The prefetcher opens the iterators of the collections in background, on a shared bounded
+ * pool, and buffers their first features, so that the output format finds each collection ready
+ * when it gets to it, and the overall response pays the latency of the slowest query rather than
+ * the sum of all of them.
+ *
+ * <p>Collections are still encoded in request order, the background tasks only open the iterator
+ * and buffer up to {@link #BUFFER_SIZE_KEY} features, the rest of the collection is read by the
+ * request thread while encoding. Each open iterator can hold a store connection, so the number of
+ * collections being prefetched at the same time by a single request is limited by {@link
+ * #MAX_CONCURRENT_KEY}, the next one starts as soon as the output format is done with a previous
+ * one. Collections not consumed by the end of the request are closed by {@link #dispose()}.
+ *
+ * <p>Configured with the following system variables:
+ *
+ * <ul>
+ *   <li>{@link #POOL_SIZE_KEY}: number of threads shared by all requests, twice the number of
+ *       processors by default
+ *   <li>{@link #MAX_CONCURRENT_KEY}: max number of queries a single request runs concurrently, 4 by
+ *       default, 1 or less disables prefetching
+ *   <li>{@link #BUFFER_SIZE_KEY}: max number of features buffered for each query, 1000 by default
+ * </ul>
+ */
+public class FeaturePrefetcher {
+
+    static final Logger LOGGER = Logging.getLogger(FeaturePrefetcher.class);
+
+    /** System variable controlling the number of threads shared by all requests */
+    public static final String POOL_SIZE_KEY = "org.geoserver.wfs.prefetch.poolSize";
+
+    /** System variable controlling the max number of queries run concurrently by a request */
+    public static final String MAX_CONCURRENT_KEY = "org.geoserver.wfs.prefetch.maxConcurrent";
+
+    /** System variable controlling the max number of features buffered for each query */
+    public static final String BUFFER_SIZE_KEY = "org.geoserver.wfs.prefetch.bufferSize";
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        int poolSize =
+                Math.max(
+                        1,
+                        Integer.getInteger(
+                                POOL_SIZE_KEY, Runtime.getRuntime().availableProcessors() * 2));
+        ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        poolSize,
+                        poolSize,
+                        60,
+                        TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(),
+                        new ThreadFactory() {
+                            AtomicInteger counter = new AtomicInteger();
+
+                            @Override
+                            public Thread newThread(Runnable r) {
+                                Thread thread =
+                                        new Thread(r, "WFSPrefetch-" + counter.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        EXECUTOR = executor;
+    }
+
+    private final ExecutorService executor;
+
+    private final int maxConcurrent;
+
+    private final int bufferSize;
+
+    /** All the prefetches created by this request, in request order */
+    private final List<Prefetch> prefetches = new ArrayList<>();
+
+    /** The prefetches waiting for a free slot */
+    private final LinkedList<Prefetch> pending = new LinkedList<>();
+
+    /** Time spent opening and buffering each query, in milliseconds, -1 if not prefetched */
+    private final List<Long> queryTimes = Collections.synchronizedList(new ArrayList<>());
+
+    private int running;
+
+    private boolean disposed;
+
+    public FeaturePrefetcher() {
+        this(
+                EXECUTOR,
+                Integer.getInteger(MAX_CONCURRENT_KEY, 4),
+                Integer.getInteger(BUFFER_SIZE_KEY, 1000));
+    }
+
+    FeaturePrefetcher(ExecutorService executor, int maxConcurrent, int bufferSize) {
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+        this.bufferSize = Math.max(bufferSize, 1);
+    }
+
+    /** Returns true if the queries should be prefetched, false if prefetching is disabled */
+    public boolean isEnabled() {
+        return maxConcurrent > 1;
+    }
+
+    /**
+     * Wraps the collection into one whose iterator is opened in background, as soon as a slot is
+     * available. The returned collection has the same simple/complex nature of the original one
+     */
+    @SuppressWarnings("unchecked")
+    public FeatureCollection prefetch(FeatureCollection features) {
+        Prefetch prefetch;
+        synchronized (this) {
+            prefetch = new Prefetch(features, prefetches.size());
+            prefetches.add(prefetch);
+            pending.add(prefetch);
+            queryTimes.add(-1L);
+        }
+        schedule();
+        if (features instanceof SimpleFeatureCollection) {
+            return new Simple((SimpleFeatureCollection) features, prefetch);
+        } else {
+            return new Complex(features, prefetch);
+        }
+    }
+
+    /**
+     * The time spent by each query to open its iterator and buffer the first features, in
+     * milliseconds and request order, or -1 for queries that have not been prefetched. The list is
+     * live, it gets filled in as the queries run.
+     */
+    public List<Long> getQueryTimes() {
+        return queryTimes;
+    }
+
+    /** Starts the pending prefetches, as long as there are free slots */
+    private void schedule() {
+        List<Prefetch> starting = new ArrayList<>();
+        synchronized (this) {
+            while (!disposed && running < maxConcurrent && !pending.isEmpty()) {
+                Prefetch prefetch = pending.removeFirst();
+                if (prefetch.start()) {
+                    running++;
+                    starting.add(prefetch);
+                }
+            }
+        }
+        for (Prefetch prefetch : starting) {
+            executor.execute(prefetch::run);
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            running--;
+        }
+        schedule();
+    }
+
+    /** Closes the iterators of the collections that have not been consumed */
+    public void dispose() {
+        List<Prefetch> toDispose;
+        synchronized (this) {
+            disposed = true;
+            pending.clear();
+            toDispose = new ArrayList<>(prefetches);
+        }
+        for (Prefetch prefetch : toDispose) {
+            prefetch.dispose();
+        }
+    }
+
+    private static void closeQuietly(FeatureIterator<?> iterator) {
+        if (iterator != null) {
+            try {
+                iterator.close();
+            } catch (Exception e) {
+                LOGGER.log(Level.FINE, "Failed to close prefetched iterator", e);
+            }
+        }
+    }
+
+    enum State {
+        PENDING,
+        STARTED,
+        CLAIMED,
+        DISPOSED
+    }
+
+    /** The background read of a single collection */
+    class Prefetch {
+
+        final FeatureCollection<?, ? extends Feature> delegate;
+
+        final int index;
+
+        final ThreadLocalsTransfer threadLocalsTransfer = new ThreadLocalsTransfer();
+
+        final CountDownLatch ready = new CountDownLatch(1);
+
+        final AtomicBoolean released = new AtomicBoolean();
+
+        State state = State.PENDING;
+
+        List<Feature> buffer;
+
+        FeatureIterator<? extends Feature> iterator;
+
+        RuntimeException error;
+
+        Prefetch(FeatureCollection<?, ? extends Feature> delegate, int index) {
+            this.delegate = delegate;
+            this.index = index;
+        }
+
+        synchronized boolean start() {
+            if (state != State.PENDING) {
+                return false;
+            }
+            state = State.STARTED;
+            return true;
+        }
+
+        void run() {
+            long start = System.currentTimeMillis();
+            List<Feature> features = new ArrayList<>();
+            FeatureIterator<? extends Feature> it = null;
+            RuntimeException failure = null;
+            threadLocalsTransfer.apply();
+            try {
+                it = delegate.features();
+                while (features.size() < bufferSize && it.hasNext()) {
+                    features.add(it.next());
+                }
+                if (!it.hasNext()) {
+                    // all read, no need to keep the iterator (and its connection) around
+                    closeQuietly(it);
+                    it = null;
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+                closeQuietly(it);
+                it = null;
+            } finally {
+                threadLocalsTransfer.cleanup();
+            }
+            long elapsed = System.currentTimeMillis() - start;
+            queryTimes.set(index, elapsed);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine(
+                        "Prefetched "
+                                + features.size()
+                                + " features of query "
+                                + index
+                                + " in "
+                                + elapsed
+                                + "ms");
+            }
+
+            boolean discard;
+            synchronized (this) {
+                this.buffer = features;
+                this.iterator = it;
+                this.error = failure;
+                discard = state == State.DISPOSED;
+                if (discard) {
+                    this.iterator = null;
+                }
+                ready.countDown();
+            }
+            if (discard) {
+                closeQuietly(it);
+                release();
+            } else if (it == null) {
+                // nothing left open, let the next query start
+                release();
+            }
+        }
+
+        /** Returns the iterator for the consumer, using the prefetched features if possible */
+        @SuppressWarnings("unchecked")
+        <F extends Feature> FeatureIterator<F> features(boolean simple) {
+            boolean started;
+            boolean wasPending;
+            synchronized (this) {
+                started = state == State.STARTED;
+                wasPending = state == State.PENDING;
+                if (started || wasPending) {
+                    state = State.CLAIMED;
+                }
+            }
+            if (!started) {
+                if (wasPending) {
+                    // never got a slot, read it directly
+                    synchronized (FeaturePrefetcher.this) {
+                        pending.remove(this);
+                    }
+                }
+                return (FeatureIterator<F>) delegate.features();
+            }
+
+            try {
+                ready.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the query results", e);
+            }
+            if (error != null) {
+                // run it again in the request thread, the error will be reported from there
+                LOGGER.log(Level.FINE, "Prefetch failed, running the query again", error);
+                return (FeatureIterator<F>) delegate.features();
+            }
+            if (simple) {
+                return (FeatureIterator<F>) new SimplePrefetchedIterator(this);
+            }
+            return new PrefetchedIterator<>(this);
+        }
+
+        void dispose() {
+            FeatureIterator<? extends Feature> it = null;
+            boolean completed;
+            synchronized (this) {
+                completed = state == State.STARTED && ready.getCount() == 0;
+                if (state == State.PENDING || state == State.STARTED) {
+                    state = State.DISPOSED;
+                }
+                if (completed) {
+                    it = iterator;
+                    iterator = null;
+                }
+            }
+            // if still running, the background task closes the iterator once done
+            if (completed && it != null) {
+                closeQuietly(it);
+                release();
+            }
+        }
+
+        /** Called once the consumer is done with the live iterator */
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                FeaturePrefetcher.this.release();
+            }
+        }
+    }
+
+    /** Returns the buffered features first, then the ones left in the live iterator */
+    static class PrefetchedIterator<F extends Feature> implements FeatureIterator<F> {
+
+        final Prefetch prefetch;
+
+        final List<Feature> buffer;
+
+        final FeatureIterator<? extends Feature> iterator;
+
+        int position;
+
+        boolean closed;
+
+        PrefetchedIterator(Prefetch prefetch) {
+            this.prefetch = prefetch;
+            synchronized (prefetch) {
+                this.buffer = prefetch.buffer;
+                this.iterator = prefetch.iterator;
+                prefetch.buffer = null;
+                prefetch.iterator = null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            return position < buffer.size() || (iterator != null && iterator.hasNext());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public F next() throws NoSuchElementException {
+            if (closed) {
+                throw new NoSuchElementException("Iterator has been closed");
+            }
+            if (position < buffer.size()) {
+                // let the buffered features be garbage collected as we go
+                return (F) buffer.set(position++, null);
+            }
+            if (iterator == null) {
+                throw new NoSuchElementException();
+            }
+            return (F) iterator.next();
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                closeQuietly(iterator);
+                prefetch.release();
+            }
+        }
+    }
+
+    static class SimplePrefetchedIterator extends PrefetchedIterator<SimpleFeature>
+            implements SimpleFeatureIterator {
+
+        SimplePrefetchedIterator(Prefetch prefetch) {
+            super(prefetch);
+        }
+    }
+
+    static class Complex extends DecoratingFeatureCollection {
+
+        final Prefetch prefetch;
+
+        @SuppressWarnings("unchecked")
+        Complex(FeatureCollection delegate, Prefetch prefetch) {
+            super(delegate);
+            this.prefetch = prefetch;
+        }
+
+        @Override
+        public FeatureIterator features() {
+            return prefetch.features(false);
+        }
+    }
+
+    static class Simple extends DecoratingSimpleFeatureCollection {
+
+        final Prefetch prefetch;
+
+        Simple(SimpleFeatureCollection delegate, Prefetch prefetch) {
+            super(delegate);
+            this.prefetch = prefetch;
+        }
+
+        @Override
+        public SimpleFeatureIterator features() {
+            return (SimpleFeatureIterator) prefetch.<SimpleFeature>features(true);
+        }
+    }
+}
@@ -119,6 +119,8 @@ import org.opengis.referencing.NoSuchAuthorityCodeException;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.springframework.cglib.proxy.Enhancer;
 import org.springframework.cglib.proxy.LazyLoader;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.xml.sax.helpers.NamespaceSupport;
 
 /**
@@ -140,6 +142,12 @@ public class GetFeature {
     private static final Logger LOGGER =
             org.geotools.util.logging.Logging.getLogger("org.vfny.geoserver.requests");
 
+    /**
+     * Request attribute holding the time, in milliseconds, each query of a multi-query request took
+     * to return its first features, for the monitoring to pick up
+     */
+    public static final String QUERY_TIMES = "wfsQueryTimes";
+
     /** Describes the allowed filters we support for join queries. */
     private static final FilterCapabilities joinFilterCapabilities;
 
@@ -199,6 +207,9 @@ public class GetFeature {
     /** stored query provider */
     StoredQueryProvider storedQueryProvider;
 
+    /** numberMatched count cache */
+    CountCache countCache;
+
     /** Creates the WFS 1.0/1.1 GetFeature operation. */
     public GetFeature(WFSInfo wfs, Catalog catalog) {
         this.wfs = wfs;
@@ -230,6 +241,11 @@ public class GetFeature {
         this.storedQueryProvider = storedQueryProvider;
     }
 
+    /** Sets the cache used to compute numberMatched, can be null */
+    public void setCountCache(CountCache countCache) {
+        this.countCache = countCache;
+    }
+
     public FeatureCollectionResponse run(GetFeatureRequest request) throws WFSException {
         List<Query> queries = request.getQueries();
 
@@ -366,6 +382,17 @@ public class GetFeature {
         }
         int offset = totalOffset;
 
+        // keyset paging cursor, if any
+        final PagingCursor cursor = getCursor(request);
+        if (cursor != null && queries.size() > 1) {
+            throw new WFSException(
+                            request,
+                            "Paging cursors can only be used with a single query",
+                            ServiceException.INVALID_PARAMETER_VALUE)
+                    .locator(PagingCursor.CURSOR);
+        }
+        PagingCursor nextCursor = null;
+
         // feature collection size, we may need to calculate it
         // optimization: WFS 1.0 does not require count unless we have multiple query elements
         // and we are asked to perform a global limit on the results returned
@@ -373,6 +400,9 @@ public class GetFeature {
                 !(("1.0".equals(request.getVersion()) || "1.0.0".equals(request.getVersion()))
                         && (queries.size() == 1 || maxFeatures == Integer.MAX_VALUE));
 
+        // multiple queries are read concurrently, see FeaturePrefetcher
+        FeaturePrefetcher prefetcher = getPrefetcher(request, queries);
+
         List results = new ArrayList();
         final List<CountExecutor> totalCountExecutors = new ArrayList<CountExecutor>();
         try {
@@ -618,11 +648,27 @@ public class GetFeature {
                         queryMaxFeatures = metaMaxFeatures;
                     }
                     Map<String, String> viewParam = viewParams != null ? viewParams.get(i) : null;
+
+                    // with a cursor, seek the page start with a filter rather than an offset
+                    Filter pageFilter = filter;
+                    int pageOffset = offset;
+                    if (cursor != null) {
+                        pageOffset = cursor.getOffset();
+                        try {
+                            pageFilter = cursor.seek(filter, query.getSortBy(), source.getSchema());
+                        } catch (IllegalArgumentException e) {
+                            throw new WFSException(
+                                            request,
+                                            e.getMessage(),
+                                            ServiceException.INVALID_PARAMETER_VALUE)
+                                    .locator(PagingCursor.CURSOR);
+                        }
+                    }
                     org.geotools.data.Query gtQuery =
                             toDataQuery(
                                     query,
-                                    filter,
-                                    offset,
+                                    pageFilter,
+                                    pageOffset,
                                     queryMaxFeatures,
                                     source,
                                     request,
@@ -677,14 +723,37 @@ public class GetFeature {
                         calculateSize = offset > 0 && i < queries.size() - 1;
                     }
 
+                    // keyset paging, a single scan of the page sort keys provides both the page
+                    // size and the start of the next page
+                    boolean keyset =
+                            calculateSize
+                                    && queries.size() == 1
+                                    && !request.isResultTypeHits()
+                                    && (cursor != null || isKeysetPaging());
+                    PagingCursor.PageKeys pageKeys = null;
                     int size = 0;
-                    if (calculateSize) {
+                    if (keyset && PagingCursor.isSupported(query.getSortBy(), source.getSchema())) {
+                        pageKeys = PagingCursor.scan(source, gtQuery, query.getSortBy());
+                        size = pageKeys.getCount();
+                    } else if (calculateSize) {
                         size = features.size();
                     }
 
                     // update the count
                     count += size;
 
+                    if (keyset && size > 0 && size >= queryMaxFeatures) {
+                        int position =
+                                (cursor != null ? cursor.getPosition() : Math.max(offset, 0))
+                                        + size;
+                        if (pageKeys != null) {
+                            nextCursor = pageKeys.next(cursor, position);
+                        } else if (cursor != null) {
+                            // keep paging with the cursor, as a plain offset
+                            nextCursor = PagingCursor.position(position);
+                        }
+                    }
+
                     // collect queries required to return numberMatched/totalSize
                     // check maxFeatures and offset, if they are unset we can use the size we
                     // calculated above
@@ -694,7 +763,8 @@ public class GetFeature {
                         if (calculateSize
                                 && (queryMaxFeatures == Integer.MAX_VALUE
                                         || size < queryMaxFeatures)
-                                && offset <= 0) {
+                                && offset <= 0
+                                && cursor == null) {
                             totalCountExecutors.add(new CountExecutor(size));
                         } else {
                             org.geotools.data.Query qTotal =
@@ -710,7 +780,7 @@ public class GetFeature {
                                             joins,
                                             primaryTypeName,
                                             primaryAlias);
-                            totalCountExecutors.add(new CountExecutor(source, qTotal));
+                            totalCountExecutors.add(new CountExecutor(source, qTotal, countCache));
                         }
                     }
 
@@ -770,6 +840,12 @@ public class GetFeature {
                                         (SimpleFeatureCollection) features, targetType);
                     }
 
+                    // start reading the features in background, unless we already know
+                    // there are none
+                    if (prefetcher != null && !(calculateSize && size == 0)) {
+                        features = prefetcher.prefetch(features);
+                    }
+
                     // allow encoders to grab information about this layer if needs be
                     if (primaryMeta != null) {
                         features = TypeInfoCollectionWrapper.wrap(features, primaryMeta);
@@ -793,7 +869,7 @@ public class GetFeature {
             // where the client has limited the result set size, so we compute it lazily
             if (isNumberMatchedSkipped) {
                 totalCount = BigInteger.valueOf(-1);
-            } else if (count < maxFeatures && calculateSize && totalOffset == 0) {
+            } else if (count < maxFeatures && calculateSize && totalOffset == 0 && cursor == null) {
                 // optimization: if count < max features then total count == count
                 // can't use this optimization for v2
                 totalCount = BigInteger.valueOf(count);
@@ -829,15 +905,79 @@ public class GetFeature {
                     request, "Error occurred getting features", e, request.getHandle());
         }
 
-        return buildResults(
-                request,
-                totalOffset,
-                maxFeatures,
-                count,
-                totalCount,
-                results,
-                lockId,
-                getFeatureById);
+        FeatureCollectionResponse result =
+                buildResults(
+                        request,
+                        totalOffset,
+                        maxFeatures,
+                        count,
+                        totalCount,
+                        results,
+                        lockId,
+                        getFeatureById);
+        if (nextCursor != null) {
+            buildCursorLinks(request, maxFeatures, result, getRequestKvp(request), nextCursor);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the prefetcher used to read the queries concurrently, or null if the request has a
+     * single query, or prefetching is disabled
+     */
+    private FeaturePrefetcher getPrefetcher(GetFeatureRequest request, List<Query> queries) {
+        // the prefetcher is disposed of at the end of the dispatched request, no dispatcher,
+        // no prefetching
+        if (queries.size() < 2 || request.isResultTypeHits() || Dispatcher.REQUEST.get() == null) {
+            return null;
+        }
+        FeaturePrefetcher prefetcher = new FeaturePrefetcher();
+        if (!prefetcher.isEnabled()) {
+            return null;
+        }
+        PrefetchCleanerCallback.addPrefetcher(prefetcher);
+
+        // per query timings, for the monitoring to pick up
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(
+                    QUERY_TIMES, prefetcher.getQueryTimes(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return prefetcher;
+    }
+
+    /** Returns true if the next links should use keyset paging cursors, when possible */
+    protected boolean isKeysetPaging() {
+        Boolean keysetPaging = wfs.getMetadata().get(PagingCursor.KEYSET_PAGING, Boolean.class);
+        return Boolean.TRUE.equals(keysetPaging);
+    }
+
+    /**
+     * Returns the keyset paging cursor provided with the request, if any
+     *
+     * @throws WFSException if the cursor is not valid
+     */
+    protected PagingCursor getCursor(GetFeatureRequest request) {
+        Request dispatcherRequest = Dispatcher.REQUEST.get();
+        if (dispatcherRequest == null || dispatcherRequest.getRawKvp() == null) {
+            return null;
+        }
+        Object cursor = dispatcherRequest.getRawKvp().get(PagingCursor.CURSOR);
+        return parseCursor(request, cursor != null ? cursor.toString() : null);
+    }
+
+    /** Parses the cursor, throwing a {@link WFSException} if it's not valid */
+    protected PagingCursor parseCursor(GetFeatureRequest request, String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return PagingCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new WFSException(
+                            request, e.getMessage(), e, ServiceException.INVALID_PARAMETER_VALUE)
+                    .locator(PagingCursor.CURSOR);
+        }
     }
 
     /** Returns true if all count executors are given a static count value */
@@ -980,27 +1120,49 @@ public class GetFeature {
 
             // get the Request thread local since we need to know about the request, whether it is
             // GET or POST some kvp information if the former
-            Request req = Dispatcher.REQUEST.get();
-
-            // grab the original kvp params if this is a GET request
-            // for POST, do nothing, make the client post the same content
-            // TODO: try to encode the request as best we can in a GET request, only issue should
-            // be the filter and encoding it property... especially for joins that might be
-            // tricky, and it also may cause the request to be too large for a get request
-            // TODO: figure out what the spec says about this...
-            Map<String, String> kvp = null;
-            if (req.isGet()) {
-                kvp = new KvpMap(req.getRawKvp());
-            } else {
-                // generate kvp map from request object
-                kvp = buildKvpFromRequest(request);
-            }
+            Map<String, String> kvp = getRequestKvp(request);
             buildPrevNextLinks(request, offset, maxFeatures, count, result, kvp);
         }
 
         return result;
     }
 
+    /** Returns the request parameters used to build the prev/next links */
+    protected Map<String, String> getRequestKvp(GetFeatureRequest request) {
+        Request req = Dispatcher.REQUEST.get();
+
+        // grab the original kvp params if this is a GET request
+        // for POST, do nothing, make the client post the same content
+        // TODO: try to encode the request as best we can in a GET request, only issue should
+        // be the filter and encoding it property... especially for joins that might be
+        // tricky, and it also may cause the request to be too large for a get request
+        // TODO: figure out what the spec says about this...
+        if (req.isGet()) {
+            return new KvpMap(req.getRawKvp());
+        } else {
+            // generate kvp map from request object
+            return buildKvpFromRequest(request);
+        }
+    }
+
+    /**
+     * Sets the next link to the page following the current one, using a keyset paging cursor in
+     * place of the start index
+     */
+    protected void buildCursorLinks(
+            GetFeatureRequest request,
+            int maxFeatures,
+            FeatureCollectionResponse result,
+            Map<String, String> kvp,
+            PagingCursor cursor) {
+        kvp = new KvpMap(kvp);
+        // KvpMap stores keys in upper case
+        kvp.remove("STARTINDEX");
+        kvp.put(PagingCursor.CURSOR, cursor.encode());
+        kvp.put("count", String.valueOf(maxFeatures));
+        result.setNext(buildURL(request.getBaseUrl(), "wfs", kvp, URLType.SERVICE));
+    }
+
     protected void buildPrevNextLinks(
             GetFeatureRequest request,
             int offset,
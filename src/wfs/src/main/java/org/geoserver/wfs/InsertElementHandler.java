@@ -5,6 +5,7 @@
  */
 package org.geoserver.wfs;
 
+import java.io.File;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -13,6 +14,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.namespace.QName;
 import org.geoserver.catalog.FeatureTypeInfo;
@@ -23,6 +25,8 @@ import org.geoserver.wfs.request.Insert;
 import org.geoserver.wfs.request.TransactionElement;
 import org.geoserver.wfs.request.TransactionRequest;
 import org.geoserver.wfs.request.TransactionResponse;
+import org.geoserver.wfs.xml.StreamedInserts;
+import org.geoserver.wfs.xml.StreamedInserts.StreamedInsert;
 import org.geotools.data.DataUtilities;
 import org.geotools.data.FeatureStore;
 import org.geotools.data.collection.ListFeatureCollection;
@@ -83,162 +87,238 @@ public class InsertElementHandler extends AbstractTransactionElementHandler {
         long inserted = response.getTotalInserted().longValue();
 
         try {
-            // group features by their schema
-            HashMap /* <SimpleFeatureType,FeatureCollection> */ schema2features = new HashMap();
-
-            List featureList = insert.getFeatures();
-            for (Iterator f = featureList.iterator(); f.hasNext(); ) {
-                SimpleFeature feature = (SimpleFeature) f.next();
-                SimpleFeatureType schema = feature.getFeatureType();
-                ListFeatureCollection collection =
-                        (ListFeatureCollection) schema2features.get(schema);
-
-                if (collection == null) {
-                    collection = new ListFeatureCollection(schema);
-                    schema2features.put(schema, collection);
+            long start = System.currentTimeMillis();
+            int batches = 0;
+            long count = 0;
+
+            StreamedInserts streamed = StreamedInserts.get(request);
+            StreamedInsert chunks = streamed != null ? streamed.get(insert) : null;
+            if (chunks == null) {
+                List featureList = insert.getFeatures();
+                batches =
+                        insertFeatures(
+                                insert, request, featureStores, response, listener, featureList);
+                count = featureList.size();
+            } else {
+                // large request, the features are parsed and written one chunk at a time
+                for (File chunk : chunks.getChunks()) {
+                    List featureList = chunks.parseChunk(chunk);
+                    for (Object feature : featureList) {
+                        checkFeature(request, feature);
+                    }
+                    batches +=
+                            insertFeatures(
+                                    insert,
+                                    request,
+                                    featureStores,
+                                    response,
+                                    listener,
+                                    featureList);
+                    count += featureList.size();
                 }
+            }
+
+            // update the insert counter
+            inserted += count;
+
+            if (batches > 1 && LOGGER.isLoggable(Level.INFO)) {
+                long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+                LOGGER.info(
+                        String.format(
+                                "Inserted %d features in %d batches, %d ms, %.1f features/s",
+                                count, batches, elapsed, count * 1000d / elapsed));
+            }
+        } catch (Exception e) {
+            String msg = "Error performing insert: " + e.getMessage();
+            throw new WFSTransactionException(msg, e, insert.getHandle());
+        }
+
+        // update transaction summary
+        response.setTotalInserted(BigInteger.valueOf(inserted));
+    }
 
-                // do a check for idegen = useExisting, if set try to tell the datastore to use
-                // the provided fid
-                if (insert.isIdGenUseExisting()) {
+    /**
+     * Inserts the features in batches, grouped by schema, and reports back their fids
+     *
+     * @return the number of batches written
+     */
+    @SuppressWarnings("unchecked")
+    int insertFeatures(
+            Insert insert,
+            TransactionRequest request,
+            Map featureStores,
+            TransactionResponse response,
+            TransactionListener listener,
+            List featureList)
+            throws Exception {
+        final int batchSize = getBatchSize();
+        int batches = 0;
+
+        // JD: change from set fo list because if inserting
+        // features into different feature stores, they could very well
+        // get given the same id
+        // JD: change from list to map so that the map can later be
+        // processed and we can report the fids back in the same order
+        // as they were supplied
+        Map<String, List<FeatureId>> schema2fids = new HashMap<String, List<FeatureId>>();
+
+        // group features by their schema, and write them out as soon as a batch is full
+        HashMap /* <SimpleFeatureType,FeatureCollection> */ schema2features = new HashMap();
+
+        for (Iterator f = featureList.iterator(); f.hasNext(); ) {
+            SimpleFeature feature = (SimpleFeature) f.next();
+            SimpleFeatureType schema = feature.getFeatureType();
+            ListFeatureCollection collection = (ListFeatureCollection) schema2features.get(schema);
+
+            if (collection == null) {
+                collection = new ListFeatureCollection(schema);
+                schema2features.put(schema, collection);
+            }
+
+            // do a check for idegen = useExisting, if set try to tell the datastore to use
+            // the provided fid
+            if (insert.isIdGenUseExisting()) {
+                feature.getUserData().put(Hints.USE_PROVIDED_FID, true);
+            } else {
+                Object identifier = feature.getAttribute(new NameImpl(GML.NAMESPACE, "identifier"));
+                if (WFSInfo.Version.V_20.compareTo(insert.getVersion()) >= 0
+                        && identifier instanceof String) {
+                    SimpleFeatureBuilder fb = new SimpleFeatureBuilder(feature.getFeatureType());
+                    fb.init(feature);
+                    feature = fb.buildFeature((String) identifier);
                     feature.getUserData().put(Hints.USE_PROVIDED_FID, true);
-                } else {
-                    Object identifier =
-                            feature.getAttribute(new NameImpl(GML.NAMESPACE, "identifier"));
-                    if (WFSInfo.Version.V_20.compareTo(insert.getVersion()) >= 0
-                            && identifier instanceof String) {
-                        SimpleFeatureBuilder fb =
-                                new SimpleFeatureBuilder(feature.getFeatureType());
-                        fb.init(feature);
-                        feature = fb.buildFeature((String) identifier);
-                        feature.getUserData().put(Hints.USE_PROVIDED_FID, true);
-                    }
                 }
+            }
+
+            collection.add(feature);
 
-                collection.add(feature);
+            if (batchSize > 0 && collection.size() >= batchSize) {
+                insertBatch(insert, request, featureStores, listener, collection, schema2fids);
+                schema2features.remove(schema);
+                batches++;
             }
+        }
 
-            // JD: change from set fo list because if inserting
-            // features into different feature stores, they could very well
-            // get given the same id
-            // JD: change from list to map so that the map can later be
-            // processed and we can report the fids back in the same order
-            // as they were supplied
-            Map<String, List<FeatureId>> schema2fids = new HashMap<String, List<FeatureId>>();
-
-            for (Iterator c = schema2features.values().iterator(); c.hasNext(); ) {
-                SimpleFeatureCollection collection = (SimpleFeatureCollection) c.next();
-                SimpleFeatureType schema = collection.getSchema();
-
-                final QName elementName =
-                        new QName(schema.getName().getNamespaceURI(), schema.getTypeName());
-                SimpleFeatureStore store;
-                store = DataUtilities.simple((FeatureStore) featureStores.get(elementName));
-
-                if (store == null) {
-                    throw new WFSException(
-                            request, "Could not locate FeatureStore for '" + elementName + "'");
-                }
+        for (Iterator c = schema2features.values().iterator(); c.hasNext(); ) {
+            SimpleFeatureCollection collection = (SimpleFeatureCollection) c.next();
+            insertBatch(insert, request, featureStores, listener, collection, schema2fids);
+            batches++;
+        }
 
-                if (collection != null) {
-                    // if we really need to, make sure we are inserting coordinates that do
-                    // match the CRS area of validity
-                    if (getInfo().isCiteCompliant()) {
-                        checkFeatureCoordinatesRange(collection);
-                    }
+        // report back fids, we need to keep the same order the
+        // fids were reported in the original feature collection
+        for (Iterator f = featureList.iterator(); f.hasNext(); ) {
+            SimpleFeature feature = (SimpleFeature) f.next();
+            SimpleFeatureType schema = feature.getFeatureType();
 
-                    // reprojection
-                    final GeometryDescriptor defaultGeometry =
-                            store.getSchema().getGeometryDescriptor();
-                    if (defaultGeometry != null) {
-                        CoordinateReferenceSystem target =
-                                defaultGeometry.getCoordinateReferenceSystem();
-                        if (target
-                                != null /* && !CRS.equalsIgnoreMetadata(collection.getSchema().getCoordinateReferenceSystem(), target) */) {
-                            collection = new ReprojectingFeatureCollection(collection, target);
-                        }
-                    }
+            // get the next fid
+            LinkedList<FeatureId> fids =
+                    (LinkedList<FeatureId>) schema2fids.get(schema.getTypeName());
+            FeatureId fid = fids.removeFirst();
 
-                    // Need to use the namespace here for the
-                    // lookup, due to our weird
-                    // prefixed internal typenames. see
-                    // https://osgeo-org.atlassian.net/browse/GEOS-143
-
-                    // Once we get our datastores making features
-                    // with the correct namespaces
-                    // we can do something like this:
-                    // FeatureTypeInfo typeInfo =
-                    // catalog.getFeatureTypeInfo(schema.getTypeName(),
-                    // schema.getNamespace());
-                    // until then (when geos-144 is resolved) we're
-                    // stuck with:
-                    // QName qName = (QName) typeNames.get( i );
-                    // FeatureTypeInfo typeInfo =
-                    // catalog.featureType( qName.getPrefix(),
-                    // qName.getLocalPart() );
-
-                    // this is possible with the insert hack above.
-                    LOGGER.finer("Use featureValidation to check contents of insert");
-
-                    // featureValidation(
-                    // typeInfo.getDataStore().getId(), schema,
-                    // collection );
-                    List<FeatureId> fids = schema2fids.get(schema.getTypeName());
-
-                    if (fids == null) {
-                        fids = new LinkedList<FeatureId>();
-                        schema2fids.put(schema.getTypeName(), fids);
-                    }
+            response.addInsertedFeature(insert.getHandle(), fid);
+        }
 
-                    // fire pre insert event
-                    TransactionEvent event =
-                            new TransactionEvent(
-                                    TransactionEventType.PRE_INSERT,
-                                    request,
-                                    elementName,
-                                    collection);
-                    event.setSource(Insert.WFS11.unadapt(insert));
-
-                    listener.dataStoreChange(event);
-                    fids.addAll(store.addFeatures(collection));
-
-                    // fire post insert event
-                    SimpleFeatureCollection features =
-                            store.getFeatures(filterFactory.id(new HashSet<FeatureId>(fids)));
-                    event =
-                            new TransactionEvent(
-                                    TransactionEventType.POST_INSERT,
-                                    request,
-                                    elementName,
-                                    features,
-                                    Insert.WFS11.unadapt(insert));
-                    listener.dataStoreChange(event);
-                }
-            }
+        return batches;
+    }
 
-            // report back fids, we need to keep the same order the
-            // fids were reported in the original feature collection
-            for (Iterator f = featureList.iterator(); f.hasNext(); ) {
-                SimpleFeature feature = (SimpleFeature) f.next();
-                SimpleFeatureType schema = feature.getFeatureType();
+    /**
+     * Writes a batch of features sharing the same schema in the store, notifying the listeners
+     * before and after the insert
+     */
+    void insertBatch(
+            Insert insert,
+            TransactionRequest request,
+            Map featureStores,
+            TransactionListener listener,
+            SimpleFeatureCollection collection,
+            Map<String, List<FeatureId>> schema2fids)
+            throws Exception {
+        SimpleFeatureType schema = collection.getSchema();
+
+        final QName elementName =
+                new QName(schema.getName().getNamespaceURI(), schema.getTypeName());
+        SimpleFeatureStore store;
+        store = DataUtilities.simple((FeatureStore) featureStores.get(elementName));
+
+        if (store == null) {
+            throw new WFSException(
+                    request, "Could not locate FeatureStore for '" + elementName + "'");
+        }
 
-                // get the next fid
-                LinkedList<FeatureId> fids =
-                        (LinkedList<FeatureId>) schema2fids.get(schema.getTypeName());
-                FeatureId fid = fids.removeFirst();
+        // if we really need to, make sure we are inserting coordinates that do
+        // match the CRS area of validity
+        if (getInfo().isCiteCompliant()) {
+            checkFeatureCoordinatesRange(collection);
+        }
 
-                response.addInsertedFeature(insert.getHandle(), fid);
+        // reprojection
+        final GeometryDescriptor defaultGeometry = store.getSchema().getGeometryDescriptor();
+        if (defaultGeometry != null) {
+            CoordinateReferenceSystem target = defaultGeometry.getCoordinateReferenceSystem();
+            if (target
+                    != null /* && !CRS.equalsIgnoreMetadata(collection.getSchema().getCoordinateReferenceSystem(), target) */) {
+                collection = new ReprojectingFeatureCollection(collection, target);
             }
+        }
 
-            // update the insert counter
-            inserted += featureList.size();
-        } catch (Exception e) {
-            String msg = "Error performing insert: " + e.getMessage();
-            throw new WFSTransactionException(msg, e, insert.getHandle());
+        // Need to use the namespace here for the
+        // lookup, due to our weird
+        // prefixed internal typenames. see
+        // https://osgeo-org.atlassian.net/browse/GEOS-143
+
+        // Once we get our datastores making features
+        // with the correct namespaces
+        // we can do something like this:
+        // FeatureTypeInfo typeInfo =
+        // catalog.getFeatureTypeInfo(schema.getTypeName(),
+        // schema.getNamespace());
+        // until then (when geos-144 is resolved) we're
+        // stuck with:
+        // QName qName = (QName) typeNames.get( i );
+        // FeatureTypeInfo typeInfo =
+        // catalog.featureType( qName.getPrefix(),
+        // qName.getLocalPart() );
+
+        // this is possible with the insert hack above.
+        LOGGER.finer("Use featureValidation to check contents of insert");
+
+        // featureValidation(
+        // typeInfo.getDataStore().getId(), schema,
+        // collection );
+        List<FeatureId> fids = schema2fids.get(schema.getTypeName());
+
+        if (fids == null) {
+            fids = new LinkedList<FeatureId>();
+            schema2fids.put(schema.getTypeName(), fids);
         }
 
-        // update transaction summary
-        response.setTotalInserted(BigInteger.valueOf(inserted));
+        // fire pre insert event
+        TransactionEvent event =
+                new TransactionEvent(
+                        TransactionEventType.PRE_INSERT, request, elementName, collection);
+        event.setSource(Insert.WFS11.unadapt(insert));
+
+        listener.dataStoreChange(event);
+        // the whole batch is handed to the store, which can use its bulk write path, if any
+        List<FeatureId> batchFids = store.addFeatures(collection);
+        fids.addAll(batchFids);
+
+        // fire post insert event, for this batch only
+        SimpleFeatureCollection features =
+                store.getFeatures(filterFactory.id(new HashSet<FeatureId>(batchFids)));
+        event =
+                new TransactionEvent(
+                        TransactionEventType.POST_INSERT,
+                        request,
+                        elementName,
+                        features,
+                        Insert.WFS11.unadapt(insert));
+        listener.dataStoreChange(event);
+
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Inserted a batch of " + batchFids.size() + " features in " + elementName);
+        }
     }
 
     /** Checks that all features coordinates are within the expected coordinate range */
@@ -273,25 +353,20 @@ public class InsertElementHandler extends AbstractTransactionElementHandler {
             throws WFSTransactionException {
         Insert insert = (Insert) element;
 
+        StreamedInserts streamed = StreamedInserts.get(request);
+        StreamedInsert chunks = streamed != null ? streamed.get(insert) : null;
+        if (chunks != null) {
+            // features not parsed yet, use the element names found in the request
+            return chunks.getTypeNames().toArray(new QName[0]);
+        }
+
         List typeNames = new ArrayList();
 
         List features = insert.getFeatures();
         if (!features.isEmpty()) {
             for (Iterator f = features.iterator(); f.hasNext(); ) {
                 Object next = f.next();
-                // if parsing fails the parser just returns a Map, do throw an error in this case
-                if (!(next instanceof SimpleFeature)) {
-                    String version = request.getVersion();
-                    String code;
-                    if (version == null
-                            || new Version(version).compareTo(WFSInfo.Version.V_20.getVersion())
-                                    >= 0) {
-                        code = WFSException.INVALID_VALUE;
-                    } else {
-                        code = ServiceException.INVALID_PARAMETER_VALUE;
-                    }
-                    throw new WFSException(request, "Could not parse input features", code);
-                }
+                checkFeature(request, next);
                 SimpleFeature feature = (SimpleFeature) next;
 
                 String name = feature.getFeatureType().getTypeName();
@@ -305,4 +380,19 @@ public class InsertElementHandler extends AbstractTransactionElementHandler {
 
         return (QName[]) typeNames.toArray(new QName[typeNames.size()]);
     }
+
+    /** If parsing fails the parser just returns a Map, do throw an error in this case */
+    private void checkFeature(TransactionRequest request, Object feature) {
+        if (!(feature instanceof SimpleFeature)) {
+            String version = request.getVersion();
+            String code;
+            if (version == null
+                    || new Version(version).compareTo(WFSInfo.Version.V_20.getVersion()) >= 0) {
+                code = WFSException.INVALID_VALUE;
+            } else {
+                code = ServiceException.INVALID_PARAMETER_VALUE;
+            }
+            throw new WFSException(request, "Could not parse input features", code);
+        }
+    }
 }
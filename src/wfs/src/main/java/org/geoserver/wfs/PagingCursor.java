@@ -0,0 +1,363 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.FeatureCollection;
+import org.geotools.feature.FeatureIterator;
+import org.geotools.util.Converters;
+import org.opengis.feature.Feature;
+import org.opengis.feature.type.FeatureType;
+import org.opengis.feature.type.PropertyDescriptor;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.filter.expression.Literal;
+import org.opengis.filter.expression.PropertyName;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+/**
+ * Opaque cursor used for keyset (seek) paging. Instead of asking the store to skip {@code
+ * startIndex} features, which gets linearly slower deeper into the result set, the next page is
+ * located with a filter selecting the features whose sort key comes after the one of the last
+ * feature returned (e.g., {@code a > 10 OR (a = 10 AND b >= 'x')}).
+ *
+ * <p>Feature identifiers cannot be compared with filters in a portable way, so features sharing the
+ * last sort key are handled by counting how many of them have already been returned, and skipping
+ * them in the next page, with a small offset. The cursor also records the absolute position of the
+ * next page, used as a plain offset when the sort key cannot be used.
+ *
+ * <p>Comparisons against null never match, and stores disagree on where nulls are sorted, so a seek
+ * filter would silently skip the features having a null sort value. Keyset paging is thus used only
+ * when all the sort attributes are declared as not nillable, the other sorts fall back on offsets.
+ */
+public class PagingCursor {
+
+    /** WFS service metadata key enabling keyset paging in the next links */
+    public static final String KEYSET_PAGING = "keysetPaging";
+
+    /** Name of the request parameter carrying the cursor */
+    public static final String CURSOR = "cursor";
+
+    static final String VERSION = "1";
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    /** Absolute position of the next page */
+    final int position;
+
+    /** Number of features sharing the last sort key that have already been returned */
+    final int ties;
+
+    /** The last sort key, or null if the cursor is position based only */
+    final List<String> values;
+
+    PagingCursor(int position, int ties, List<String> values) {
+        this.position = position;
+        this.ties = ties;
+        this.values = values;
+    }
+
+    /** Returns a cursor locating the next page by its absolute position only */
+    public static PagingCursor position(int position) {
+        return new PagingCursor(position, 0, null);
+    }
+
+    /** Returns the absolute position of the next page */
+    public int getPosition() {
+        return position;
+    }
+
+    /** Returns true if the cursor can be turned into a seek filter */
+    public boolean isKeyset() {
+        return values != null;
+    }
+
+    /**
+     * Returns the offset to be used along with the seek filter, or the absolute position if the
+     * cursor is not keyset based
+     */
+    public int getOffset() {
+        return values != null ? ties : position;
+    }
+
+    /** Returns true if keyset paging can be used with the given sort */
+    public static boolean isSupported(List<SortBy> sortBy) {
+        if (sortBy == null || sortBy.isEmpty()) {
+            return false;
+        }
+        for (SortBy sb : sortBy) {
+            if (sb.getPropertyName() == null) {
+                // natural order, cannot be expressed as a filter
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if keyset paging can be used with the given sort on the given schema, that is,
+     * the sort attributes are all known and cannot contain null values
+     */
+    public static boolean isSupported(List<SortBy> sortBy, FeatureType schema) {
+        if (!isSupported(sortBy)) {
+            return false;
+        }
+        for (SortBy sb : sortBy) {
+            Object descriptor = sb.getPropertyName().evaluate(schema);
+            if (!(descriptor instanceof PropertyDescriptor)
+                    || isNullable((PropertyDescriptor) descriptor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNullable(PropertyDescriptor descriptor) {
+        return descriptor.isNillable() || descriptor.getMinOccurs() == 0;
+    }
+
+    /**
+     * Combines the filter with the one selecting the features starting at the cursor sort key
+     *
+     * @param filter the query filter, can be null
+     */
+    public Filter seek(Filter filter, List<SortBy> sortBy, FeatureType schema) {
+        Filter seek = toFilter(sortBy, schema);
+        if (filter == null || filter == Filter.INCLUDE) {
+            return seek;
+        } else if (seek == Filter.INCLUDE) {
+            return filter;
+        }
+        return FF.and(filter, seek);
+    }
+
+    /**
+     * Builds the filter selecting the features starting at the cursor sort key, in the given sort
+     * order. The features equal to the key are included, and skipped via {@link #getOffset()}.
+     */
+    public Filter toFilter(List<SortBy> sortBy, FeatureType schema) {
+        if (values == null) {
+            return Filter.INCLUDE;
+        }
+        if (sortBy == null || sortBy.size() != values.size() || !isSupported(sortBy)) {
+            throw new IllegalArgumentException(
+                    "The paging cursor does not match the requested sort order");
+        }
+        if (schema != null && !isSupported(sortBy, schema)) {
+            throw new IllegalArgumentException(
+                    "The paging cursor cannot be used on nillable sort attributes");
+        }
+        List<Filter> alternatives = new ArrayList<>();
+        List<Filter> equalities = new ArrayList<>();
+        for (int i = 0; i < sortBy.size(); i++) {
+            SortBy sb = sortBy.get(i);
+            PropertyName property = FF.property(sb.getPropertyName().getPropertyName());
+            Literal value = FF.literal(toValue(values.get(i), property, schema));
+            Filter after =
+                    sb.getSortOrder() == SortOrder.DESCENDING
+                            ? FF.less(property, value)
+                            : FF.greater(property, value);
+            alternatives.add(and(equalities, after));
+            equalities.add(FF.equals(property, value));
+        }
+        alternatives.add(FF.and(equalities));
+        return alternatives.size() == 1 ? alternatives.get(0) : FF.or(alternatives);
+    }
+
+    private Filter and(List<Filter> equalities, Filter filter) {
+        if (equalities.isEmpty()) {
+            return filter;
+        }
+        List<Filter> filters = new ArrayList<>(equalities);
+        filters.add(filter);
+        return FF.and(filters);
+    }
+
+    private Object toValue(String value, PropertyName property, FeatureType schema) {
+        Object descriptor = schema != null ? property.evaluate(schema) : null;
+        if (descriptor instanceof PropertyDescriptor) {
+            Class<?> binding = ((PropertyDescriptor) descriptor).getType().getBinding();
+            if (Date.class.isAssignableFrom(binding)) {
+                // dates are encoded as milliseconds, their string representation is lossy
+                return Converters.convert(new Timestamp(Long.parseLong(value)), binding);
+            }
+            Object converted = Converters.convert(value, binding);
+            if (converted != null) {
+                return converted;
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reads the sort keys of a page, with a query returning only the sort attributes. The scan also
+     * counts the page features, so that callers needing both the page size and the next cursor can
+     * avoid a separate count.
+     *
+     * @param source the source the page is read from
+     * @param pageQuery the query used to read the page
+     * @param sortBy the sort order, must be {@link #isSupported(List) supported}
+     */
+    public static PageKeys scan(
+            FeatureSource<? extends FeatureType, ? extends Feature> source,
+            Query pageQuery,
+            List<SortBy> sortBy)
+            throws IOException {
+        Query keysQuery = new Query(pageQuery);
+        List<String> names = new ArrayList<>();
+        for (SortBy sb : sortBy) {
+            names.add(sb.getPropertyName().getPropertyName());
+        }
+        keysQuery.setPropertyNames(names);
+
+        PageKeys keys = new PageKeys();
+        FeatureCollection<? extends FeatureType, ? extends Feature> features =
+                source.getFeatures(keysQuery);
+        try (FeatureIterator<? extends Feature> it = features.features()) {
+            while (it.hasNext()) {
+                Feature f = it.next();
+                List<String> key = new ArrayList<>(names.size());
+                for (SortBy sb : sortBy) {
+                    Object value = sb.getPropertyName().evaluate(f);
+                    key.add(toString(value));
+                }
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /** The sort keys of a page, as collected by {@link PagingCursor#scan} */
+    public static class PageKeys {
+
+        private List<String> last;
+
+        private int ties;
+
+        private int count;
+
+        void add(List<String> key) {
+            ties = key.equals(last) ? ties + 1 : 1;
+            last = key;
+            count++;
+        }
+
+        /** Returns the number of features in the page */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Builds the cursor pointing to the page following this one
+         *
+         * @param previous the cursor used to read the page, if any
+         * @param position the absolute position of the next page
+         */
+        public PagingCursor next(PagingCursor previous, int position) {
+            if (last == null || last.contains(null)) {
+                return position(position);
+            }
+            int skip = ties;
+            // the whole page shares the same key as the previous one, skip those as well
+            if (ties == count
+                    && previous != null
+                    && previous.values != null
+                    && previous.values.equals(last)) {
+                skip += previous.ties;
+            }
+            return new PagingCursor(position, skip, Collections.unmodifiableList(last));
+        }
+    }
+
+    private static String toString(Object value) {
+        if (value instanceof Date) {
+            return String.valueOf(((Date) value).getTime());
+        }
+        return value != null ? Converters.convert(value, String.class) : null;
+    }
+
+    /** Encodes the cursor in an opaque, URL safe string */
+    public String encode() {
+        StringBuilder sb = new StringBuilder(VERSION);
+        sb.append('.').append(position).append('.').append(ties);
+        if (values != null) {
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            for (String value : values) {
+                sb.append('.')
+                        .append(encoder.encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode()}
+     *
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static PagingCursor decode(String cursor) {
+        try {
+            String decoded =
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\.", -1);
+            if (parts.length < 3 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid paging cursor: " + cursor);
+            }
+            int position = Integer.parseInt(parts[1]);
+            int ties = Integer.parseInt(parts[2]);
+            if (position < 0 || ties < 0) {
+                throw new IllegalArgumentException("Invalid paging cursor: " + cursor);
+            }
+            List<String> values = null;
+            if (parts.length > 3) {
+                values = new ArrayList<>();
+                for (int i = 3; i < parts.length; i++) {
+                    values.add(
+                            new String(
+                                    Base64.getUrlDecoder().decode(parts[i]),
+                                    StandardCharsets.UTF_8));
+                }
+            }
+            return new PagingCursor(position, ties, values);
+        } catch (IllegalArgumentException e) {
+            // also covers NumberFormatException and invalid base64
+            throw new IllegalArgumentException("Invalid paging cursor: " + cursor, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PagingCursor that = (PagingCursor) o;
+        return position == that.position
+                && ties == that.ties
+                && Objects.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(position, ties, values);
+    }
+
+    @Override
+    public String toString() {
+        return "PagingCursor{position=" + position + ", ties=" + ties + ", values=" + values + "}";
+    }
+}
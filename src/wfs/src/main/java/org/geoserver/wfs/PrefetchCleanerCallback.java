@@ -0,0 +1,37 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.geoserver.ows.AbstractDispatcherCallback;
+import org.geoserver.ows.Request;
+
+/** Disposes the {@link FeaturePrefetcher} instances created by a request, when the request ends */
+public class PrefetchCleanerCallback extends AbstractDispatcherCallback {
+
+    static final ThreadLocal<List<FeaturePrefetcher>> PREFETCHERS = new ThreadLocal<>();
+
+    /** Schedules a prefetcher for disposal at the end of the request */
+    public static void addPrefetcher(FeaturePrefetcher prefetcher) {
+        List<FeaturePrefetcher> list = PREFETCHERS.get();
+        if (list == null) {
+            list = new ArrayList<>();
+            PREFETCHERS.set(list);
+        }
+        list.add(prefetcher);
+    }
+
+    @Override
+    public void finished(Request request) {
+        List<FeaturePrefetcher> list = PREFETCHERS.get();
+        if (list != null) {
+            PREFETCHERS.remove();
+            for (FeaturePrefetcher prefetcher : list) {
+                prefetcher.dispose();
+            }
+        }
+    }
+}
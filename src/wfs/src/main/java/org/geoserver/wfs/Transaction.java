@@ -27,6 +27,7 @@ import org.geoserver.security.SecurityUtils;
 import org.geoserver.wfs.request.TransactionElement;
 import org.geoserver.wfs.request.TransactionRequest;
 import org.geoserver.wfs.request.TransactionResponse;
+import org.geoserver.wfs.xml.StreamedInserts;
 import org.geotools.data.DefaultTransaction;
 import org.geotools.data.FeatureLockException;
 import org.geotools.data.FeatureSource;
@@ -83,19 +84,28 @@ public class Transaction {
     }
 
     public TransactionResponse transaction(TransactionRequest request) throws WFSException {
-        // make sure server is supporting transactions
-        if (!wfs.getServiceLevel().contains(WFSInfo.ServiceLevel.TRANSACTIONAL)) {
-            throw new WFSException(request, "Transaction support is not enabled");
-        }
-
+        // large inserts are kept on disk until executed, remove them as soon as possible, the
+        // StreamedInsertsCleanerCallback takes care of the requests failing before getting here
+        StreamedInserts streamed = StreamedInserts.get(request);
         try {
-            return execute(request);
-        } catch (WFSException e) {
-            abort(request); // release any locks
-            throw e;
-        } catch (Throwable t) {
-            abort(request); // release any locks
-            throw new WFSException(request, t);
+            // make sure server is supporting transactions
+            if (!wfs.getServiceLevel().contains(WFSInfo.ServiceLevel.TRANSACTIONAL)) {
+                throw new WFSException(request, "Transaction support is not enabled");
+            }
+
+            try {
+                return execute(request);
+            } catch (WFSException e) {
+                abort(request); // release any locks
+                throw e;
+            } catch (Throwable t) {
+                abort(request); // release any locks
+                throw new WFSException(request, t);
+            }
+        } finally {
+            if (streamed != null) {
+                streamed.dispose();
+            }
         }
     }
 
@@ -13,7 +13,10 @@ import org.geoserver.wfs.request.TransactionResponse;
  * exceptions, alter transaction requests, as well as
  */
 public interface TransactionCallback extends ExtensionPriority, TransactionListener {
-    /** Check/alter the transaction request elements */
+    /**
+     * Check/alter the transaction request elements. The inserts of streamed transactions carry no
+     * features at this stage, see {@link org.geoserver.wfs.xml.StreamingTransactionReader}
+     */
     TransactionRequest beforeTransaction(TransactionRequest request) throws WFSException;
 
     /** Say the last word before we actually commit the transaction */
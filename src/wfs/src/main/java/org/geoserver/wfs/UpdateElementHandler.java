@@ -348,40 +348,29 @@ public class UpdateElementHandler extends AbstractTransactionElementHandler {
             if (!fids.isEmpty()) {
                 LOGGER.finer("Post process update for boundary update and featureValidation");
 
-                Set<FeatureId> featureIds = new HashSet<FeatureId>();
-
                 FilterFactory2 ff =
                         CommonFactoryFinder.getFilterFactory2(GeoTools.getDefaultHints());
+                // gather and report the changed features in batches, to keep the id filters and
+                // the listener notifications bounded on large updates
+                final int batchSize = getBatchSize() > 0 ? getBatchSize() : fids.size();
+                Set<FeatureId> featureIds = new HashSet<FeatureId>();
                 for (Iterator<FeatureId> f = fids.iterator(); f.hasNext(); ) {
                     // create new FeatureIds without any possible version information in order to
                     // query for the latest version
                     featureIds.add(ff.featureId(f.next().getID()));
-                }
-
-                Id modified = ff.id(featureIds);
-
-                SimpleFeatureCollection changed = store.getFeatures(modified);
-
-                // grab final ids. Not using fetureIds as they may contain different version
-                // information after the update
-                Set<FeatureId> changedIds = new HashSet<FeatureId>();
-                SimpleFeatureIterator iterator = changed.features();
-                try {
-                    while (iterator.hasNext()) {
-                        changedIds.add(iterator.next().getIdentifier());
-                    }
-                } finally {
-                    iterator.close();
-                }
-                response.addUpdatedFeatures(handle, changedIds);
-
-                listener.dataStoreChange(
-                        new TransactionEvent(
-                                TransactionEventType.POST_UPDATE,
+                    if (featureIds.size() >= batchSize || !f.hasNext()) {
+                        postUpdate(
                                 request,
+                                response,
+                                listener,
+                                update,
+                                store,
                                 elementName,
-                                changed,
-                                Update.WFS11.unadapt(update)));
+                                handle,
+                                ff.id(featureIds));
+                        featureIds = new HashSet<FeatureId>();
+                    }
+                }
             }
 
             // update the update counter
@@ -398,6 +387,41 @@ public class UpdateElementHandler extends AbstractTransactionElementHandler {
         response.setTotalUpdated(BigInteger.valueOf(updated));
     }
 
+    /** Gathers the updated features, reports their ids and notifies the listeners */
+    private void postUpdate(
+            TransactionRequest request,
+            TransactionResponse response,
+            TransactionListener listener,
+            Update update,
+            SimpleFeatureStore store,
+            QName elementName,
+            String handle,
+            Id modified)
+            throws IOException {
+        SimpleFeatureCollection changed = store.getFeatures(modified);
+
+        // grab final ids. Not using fetureIds as they may contain different version
+        // information after the update
+        Set<FeatureId> changedIds = new HashSet<FeatureId>();
+        SimpleFeatureIterator iterator = changed.features();
+        try {
+            while (iterator.hasNext()) {
+                changedIds.add(iterator.next().getIdentifier());
+            }
+        } finally {
+            iterator.close();
+        }
+        response.addUpdatedFeatures(handle, changedIds);
+
+        listener.dataStoreChange(
+                new TransactionEvent(
+                        TransactionEventType.POST_UPDATE,
+                        request,
+                        elementName,
+                        changed,
+                        Update.WFS11.unadapt(update)));
+    }
+
     private String cleanupXPath(String name) {
         // saying foo or foo[1] is the same
         if (name.endsWith("[1]")) {
@@ -5,12 +5,14 @@
  */
 package org.geoserver.wfs.json;
 
+import java.io.IOException;
 import java.io.Writer;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
 import net.sf.json.JSONException;
 import net.sf.json.util.JSONBuilder;
+import net.sf.json.util.JSONUtils;
 import org.geotools.referencing.CRS;
 import org.geotools.util.Converters;
 import org.locationtech.jts.geom.CoordinateSequence;
@@ -28,17 +30,37 @@ import org.locationtech.jts.geom.Polygon;
  * This class extends the JSONBuilder to be able to write out geometric types. It is coded against
  * the draft 5 version of the spec on http://geojson.org
  *
+ * <p>The JSON structure is tracked and written by this class directly, following the same rules as
+ * the base {@link JSONBuilder}, so that coordinates, numbers and strings can be streamed to the
+ * writer through a reusable buffer, instead of being turned into a string each.
+ *
  * @author Chris Holmes, The Open Planning Project
  * @version $Id$
  */
 public class GeoJSONBuilder extends JSONBuilder {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private CRS.AxisOrder axisOrder = CRS.AxisOrder.EAST_NORTH;
 
     private int numDecimals = 6;
 
     private boolean encodeMeasures = false;
 
+    /** Max nesting level, same system property used by the json-lib builder */
+    private final int maxDepth = Integer.getInteger("json.maxDepth", 100);
+
+    /** The nesting stack, 'k' for objects and 'a' for arrays */
+    private final char[] stack = new char[maxDepth];
+
+    private int top;
+
+    /** Whether the next value or key in the current object/array needs a separating comma */
+    private boolean comma;
+
+    /** Scratch buffer used to format numbers and escape strings */
+    private final char[] buffer = new char[64];
+
     public GeoJSONBuilder(Writer w) {
         super(w);
     }
@@ -205,7 +227,15 @@ public class GeoJSONBuilder extends JSONBuilder {
     }
 
     private void roundedValue(double value) {
-        super.value(RoundingUtil.round(value, numDecimals));
+        int length = RoundingUtil.format(value, numDecimals, buffer, 0);
+        if (length < 0) {
+            // scientific notation, or invalid number, let json-lib handle it
+            append(JSONUtils.numberToString(RoundingUtil.round(value, numDecimals)));
+        } else {
+            beforeValue();
+            write(buffer, length);
+            afterValue();
+        }
     }
 
     /**
@@ -361,12 +391,24 @@ public class GeoJSONBuilder extends JSONBuilder {
      *
      * <p>Overrides the handling of java.util.Map, java.util.List, and Geometry objects as well.
      *
+     * <p>Strings, booleans and integral numbers are written directly, anything else is converted by
+     * json-lib.
+     *
      * @see net.sf.json.util.JSONBuilder#value(java.lang.Object)
      */
     @Override
     public GeoJSONBuilder value(Object value) {
         if (value == null) {
-            super.value(value);
+            append("null");
+        } else if (value instanceof String) {
+            string((String) value);
+        } else if (value instanceof Integer
+                || value instanceof Long
+                || value instanceof Short
+                || value instanceof Byte) {
+            value(((Number) value).longValue());
+        } else if (value instanceof Boolean) {
+            value(((Boolean) value).booleanValue());
         } else if (value instanceof Geometry) {
             this.writeGeom((Geometry) value);
         } else if (value instanceof List) {
@@ -377,11 +419,239 @@ public class GeoJSONBuilder extends JSONBuilder {
             if (value instanceof java.util.Date || value instanceof Calendar) {
                 value = Converters.convert(value, String.class);
             }
-            super.value(value);
+            append(JSONUtils.valueToString(value));
+        }
+        return this;
+    }
+
+    @Override
+    public GeoJSONBuilder value(boolean b) {
+        return append(b ? "true" : "false");
+    }
+
+    @Override
+    public GeoJSONBuilder value(double d) {
+        return value(Double.valueOf(d));
+    }
+
+    @Override
+    public GeoJSONBuilder value(long l) {
+        beforeValue();
+        int pos = buffer.length;
+        long v = l;
+        do {
+            // works for negative values as well, including Long.MIN_VALUE
+            buffer[--pos] = (char) ('0' + Math.abs(v % 10));
+            v /= 10;
+        } while (v != 0);
+        if (l < 0) {
+            buffer[--pos] = '-';
+        }
+        try {
+            writer.write(buffer, pos, buffer.length - pos);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        afterValue();
+        return this;
+    }
+
+    @Override
+    public GeoJSONBuilder array() {
+        if (mode == 'i' || mode == 'o' || mode == 'a') {
+            push('a');
+            append("[");
+            comma = false;
+            return this;
+        }
+        throw new JSONException("Misplaced array.");
+    }
+
+    @Override
+    public GeoJSONBuilder endArray() {
+        return end('a', ']');
+    }
+
+    @Override
+    public GeoJSONBuilder object() {
+        if (mode == 'i') {
+            mode = 'o';
+        }
+        if (mode == 'o' || mode == 'a') {
+            append("{");
+            push('k');
+            comma = false;
+            return this;
+        }
+        throw new JSONException("Misplaced object.");
+    }
+
+    @Override
+    public GeoJSONBuilder endObject() {
+        return end('k', '}');
+    }
+
+    @Override
+    public GeoJSONBuilder key(String key) {
+        if (key == null) {
+            throw new JSONException("Null key.");
+        }
+        if (mode == 'k') {
+            try {
+                if (comma) {
+                    writer.write(',');
+                }
+                quote(key);
+                writer.write(':');
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+            comma = false;
+            mode = 'o';
+            return this;
+        }
+        throw new JSONException("Misplaced key.");
+    }
+
+    /** Writes a string value, escaping it as {@link JSONUtils#quote(String)} would */
+    private void string(String value) {
+        if ("null".equals(value)) {
+            // json-lib considers it the same as JSONNull
+            append("null");
+            return;
+        } else if (value.startsWith("function")) {
+            // json-lib writes javascript functions verbatim, let it decide
+            append(JSONUtils.quote(value));
+            return;
+        }
+        beforeValue();
+        try {
+            quote(value);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        afterValue();
+    }
+
+    private void quote(String value) throws IOException {
+        writer.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= ' ' && c != '"' && c != '\\' && c != '/') {
+                continue;
+            }
+            // flush the run of plain chars, then the escaped one
+            writer.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                case '\\':
+                    writer.write('\\');
+                    writer.write(c);
+                    break;
+                case '/':
+                    if (i > 0 && value.charAt(i - 1) == '<') {
+                        writer.write('\\');
+                    }
+                    writer.write(c);
+                    break;
+                case '\b':
+                    writer.write("\\b");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\f':
+                    writer.write("\\f");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                default:
+                    writer.write("\\u00");
+                    writer.write(HEX_DIGITS[c >> 4]);
+                    writer.write(HEX_DIGITS[c & 0xF]);
+            }
         }
+        writer.write(value, start, length - start);
+        writer.write('"');
+    }
+
+    private GeoJSONBuilder append(String s) {
+        beforeValue();
+        try {
+            writer.write(s);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        afterValue();
         return this;
     }
 
+    private void beforeValue() {
+        if (mode != 'o' && mode != 'a') {
+            throw new JSONException("Value out of sequence.");
+        }
+        if (comma && mode == 'a') {
+            try {
+                writer.write(',');
+            } catch (IOException e) {
+                throw new JSONException(e);
+            }
+        }
+    }
+
+    private void afterValue() {
+        if (mode == 'o') {
+            mode = 'k';
+        }
+        comma = true;
+    }
+
+    private void write(char[] chars, int length) {
+        try {
+            writer.write(chars, 0, length);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+    }
+
+    private GeoJSONBuilder end(char m, char c) {
+        if (mode != m) {
+            throw new JSONException(m == 'a' ? "Misplaced endArray." : "Misplaced endObject.");
+        }
+        pop(m);
+        try {
+            writer.write(c);
+        } catch (IOException e) {
+            throw new JSONException(e);
+        }
+        comma = true;
+        return this;
+    }
+
+    private void push(char c) {
+        if (top >= maxDepth) {
+            throw new JSONException("Nesting too deep.");
+        }
+        stack[top] = c;
+        mode = c;
+        top++;
+    }
+
+    private void pop(char c) {
+        if (top <= 0 || stack[top - 1] != c) {
+            throw new JSONException("Nesting error.");
+        }
+        top--;
+        mode = top == 0 ? 'd' : stack[top - 1];
+    }
+
     /**
      * Set the axis order to assume all input will be provided in. Has no effect on geometries that
      * have already been written.
@@ -44,4 +44,68 @@ public class RoundingUtil {
 
         return Math.floor(value * scale + 0.5) / scale;
     }
+
+    /**
+     * Rounds the value like {@link #round(double, int)} and writes it in the buffer in plain
+     * decimal notation, without trailing zeroes, the same way json-lib would encode the rounded
+     * value, but without any object allocation.
+     *
+     * <p>Only values whose rounded form is zero or falls between 10<sup>-3</sup> (included) and
+     * 10<sup>7</sup> (excluded) are written, with at most 8 decimals, as outside of that range the
+     * Java double representation switches to scientific notation. For any other value nothing is
+     * written and -1 is returned, the caller should then fall back on the standard conversion.
+     *
+     * @param value The value to round and write
+     * @param numDecimals The number of decimal places to round to
+     * @param buffer The target buffer, must have room for at least 17 chars past the offset
+     * @param offset The position of the first char to write
+     * @return The position after the last written char, or -1 if the value was not written
+     */
+    public static int format(double value, int numDecimals, char[] buffer, int offset) {
+        if (numDecimals < 0 || numDecimals >= SCALE.length) return -1;
+        double scale = SCALE[numDecimals];
+        // NaN and infinite values are caught here as well
+        if (!(Math.ulp(value) * scale <= 1d)) return -1;
+        double scaled = Math.floor(value * scale + 0.5);
+        double abs = Math.abs(scaled / scale);
+        if (abs != 0 && (abs < 1e-3 || abs >= 1e7)) return -1;
+
+        long digits = (long) scaled;
+        int pos = offset;
+        if (digits < 0) {
+            buffer[pos++] = '-';
+            digits = -digits;
+        }
+        long divisor = (long) scale;
+        long integer = digits / divisor;
+        long fraction = digits % divisor;
+        pos = writeDigits(integer, buffer, pos);
+        if (fraction != 0) {
+            buffer[pos++] = '.';
+            // skip the trailing zeroes, then write the fraction with its leading zeroes
+            int decimals = numDecimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                decimals--;
+            }
+            for (int i = pos + decimals - 1; i >= pos; i--) {
+                buffer[i] = (char) ('0' + fraction % 10);
+                fraction /= 10;
+            }
+            pos += decimals;
+        }
+        return pos;
+    }
+
+    private static int writeDigits(long value, char[] buffer, int offset) {
+        int length = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            length++;
+        }
+        for (int i = offset + length - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return offset + length;
+    }
 }
@@ -60,6 +60,8 @@ public abstract class Query extends RequestObject {
 
     public abstract List<SortBy> getSortBy();
 
+    public abstract void setSortBy(List<SortBy> sortBy);
+
     public abstract List<XlinkPropertyNameType> getXlinkPropertyNames();
 
     public static class WFS11 extends Query {
@@ -93,6 +95,15 @@ public abstract class Query extends RequestObject {
             return eGet(adaptee, "sortBy", List.class);
         }
 
+        @Override
+        public void setSortBy(List<SortBy> sortBy) {
+            List<SortBy> current = getSortBy();
+            current.clear();
+            if (sortBy != null) {
+                current.addAll(sortBy);
+            }
+        }
+
         @Override
         public List<XlinkPropertyNameType> getXlinkPropertyNames() {
             return eGet(adaptee, "xlinkPropertyName", List.class);
@@ -142,6 +153,11 @@ public abstract class Query extends RequestObject {
             return eGet(adaptee, "abstractSortingClause", List.class);
         }
 
+        @Override
+        public void setSortBy(List<SortBy> sortBy) {
+            eSet(adaptee, "abstractSortingClause", sortBy);
+        }
+
         @Override
         public List<XlinkPropertyNameType> getXlinkPropertyNames() {
             // no equivalent in wfs 2.0
@@ -7,33 +7,35 @@ package org.geoserver.wfs.response;
 
 import freemarker.template.Configuration;
 import freemarker.template.Template;
-import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Properties;
+import java.util.Set;
 import java.util.SimpleTimeZone;
+import java.util.TreeMap;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.xml.namespace.QName;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogBuilder;
 import org.geoserver.catalog.FeatureTypeInfo;
@@ -51,7 +53,6 @@ import org.geoserver.platform.resource.Resource;
 import org.geoserver.platform.resource.Resource.Type;
 import org.geoserver.template.GeoServerTemplateLoader;
 import org.geoserver.template.TemplateUtils;
-import org.geoserver.util.IOUtils;
 import org.geoserver.wfs.WFSException;
 import org.geoserver.wfs.WFSGetFeatureOutputFormat;
 import org.geoserver.wfs.WFSInfo;
@@ -61,13 +62,17 @@ import org.geotools.data.DataUtilities;
 import org.geotools.data.collection.ListFeatureCollection;
 import org.geotools.data.shapefile.ShapefileDumper;
 import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
 import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.feature.collection.DecoratingSimpleFeatureCollection;
+import org.geotools.feature.collection.DecoratingSimpleFeatureIterator;
 import org.geotools.referencing.CRS;
 import org.geotools.util.logging.Logging;
 import org.geotools.wfs.v1_0.WFSConfiguration_1_0;
 import org.geotools.wfs.v1_1.WFS;
 import org.geotools.wfs.v1_1.WFSConfiguration;
 import org.geotools.xsd.Encoder;
+import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.referencing.FactoryException;
 import org.springframework.beans.BeansException;
@@ -95,6 +100,26 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
     private GeoServerResourceLoader resourceLoader;
     private long maxShpSize = Long.getLong("GS_SHP_MAX_SIZE", Integer.MAX_VALUE);
     private long maxDbfSize = Long.getLong("GS_DBF_MAX_SIZE", Integer.MAX_VALUE);
+    private ShapeZipTempArea tempArea = ShapeZipTempArea.getDefault();
+
+    /** Number of features dumped between two checks of the temp area disk quota */
+    static final int QUOTA_CHECK_INTERVAL = 1000;
+
+    /** The shapefile components copied in the zip */
+    static final FilenameFilter SHAPEFILE_FILTER =
+            new FilenameFilter() {
+
+                public boolean accept(File dir, String name) {
+                    name = name.toLowerCase();
+                    return name.endsWith(".shp")
+                            || name.endsWith(".shx")
+                            || name.endsWith(".dbf")
+                            || name.endsWith(".prj")
+                            || name.endsWith(".cst")
+                            || name.endsWith(".cpg")
+                            || name.endsWith(".txt");
+                }
+            };
 
     public ShapeZipOutputFormat(
             GeoServer gs, Catalog catalog, GeoServerResourceLoader resourceLoader) {
@@ -179,7 +204,9 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
         // We might get multiple featurecollections in our response (multiple queries?) so we need
         // to
         // write out multiple shapefile sets, one for each query response.
-        final File tempDir = IOUtils.createTempDirectory("shpziptemp");
+        final File tempDir = tempArea.acquire();
+        // ESRI prj contents, written in the zip in place of the ones produced by the dumper
+        final Map<String, String> esriPrjs = new HashMap<>();
         ShapefileDumper dumper =
                 new ShapefileDumper(tempDir) {
 
@@ -195,8 +222,10 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
                     protected void shapefileDumped(
                             String fileName, SimpleFeatureType remappedSchema) throws IOException {
                         try {
-                            changeWKTFormatIfFileFormatIsESRI(
-                                    tempDir, request, fileName, remappedSchema);
+                            String esriPrj = getESRIPrjIfFileFormatIsESRI(request, remappedSchema);
+                            if (esriPrj != null) {
+                                esriPrjs.put(fileName + ".prj", esriPrj);
+                            }
                         } catch (FactoryException e) {
                             throw new IOException("Failed to write out the ESRI style prj file", e);
                         }
@@ -209,37 +238,28 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
         // target charset
 
         try {
+            ZipOutputStream zipOut = new ZipOutputStream(output);
+            Set<String> entries = new HashSet<>();
+
             // if an empty result out of feature type with unknown geometry is created, the
             // zip file will be empty and the zip output stream will break
             boolean shapefileCreated = false;
             for (SimpleFeatureCollection collection : collections) {
-                shapefileCreated |= dumper.dump(collection);
+                tempArea.checkQuota();
+                shapefileCreated |= dumper.dump(new QuotaCheckingCollection(collection));
+                // move the shapefiles in the zip right away, so that the temp area holds
+                // at most the ones of a single collection
+                zipDumpedFiles(tempDir, zipOut, esriPrjs, entries);
             }
 
             // take care of the case the output is completely empty
             if (!shapefileCreated) {
-                createEmptyZipWarning(tempDir);
+                createEmptyZipWarning(zipOut);
             }
 
             // dump the request
-            createRequestDump(tempDir, request, collections.get(0));
-
-            // zip all the files produced
-            final FilenameFilter filter =
-                    new FilenameFilter() {
-
-                        public boolean accept(File dir, String name) {
-                            name = name.toLowerCase();
-                            return name.endsWith(".shp")
-                                    || name.endsWith(".shx")
-                                    || name.endsWith(".dbf")
-                                    || name.endsWith(".prj")
-                                    || name.endsWith(".cst")
-                                    || name.endsWith(".txt");
-                        }
-                    };
-            ZipOutputStream zipOut = new ZipOutputStream(output);
-            IOUtils.zipDirectory(tempDir, zipOut, filter);
+            createRequestDump(zipOut, request, collections.get(0));
+
             zipOut.finish();
 
             // This is an error, because this closes the output stream too... it's
@@ -247,33 +267,88 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
             // zipOut.close();
         } finally {
             // make sure we remove the temp directory and its contents completely now
-            try {
-                FileUtils.deleteDirectory(tempDir);
-            } catch (IOException e) {
-                LOGGER.warning(
-                        "Could not delete temp directory: "
-                                + tempDir.getAbsolutePath()
-                                + " due to: "
-                                + e.getMessage());
+            tempArea.release(tempDir);
+        }
+    }
+
+    /**
+     * Copies the files produced by the dumper in the zip, removing them from the temp directory as
+     * they get copied. A shapefile whose name is already used in the zip, by a previous collection,
+     * gets all its components renamed with a numeric suffix.
+     */
+    private void zipDumpedFiles(
+            File tempDir, ZipOutputStream zipOut, Map<String, String> esriPrjs, Set<String> entries)
+            throws IOException {
+        File[] files = tempDir.listFiles(SHAPEFILE_FILTER);
+        if (files == null) {
+            return;
+        }
+        // group the components by shapefile name
+        Map<String, List<File>> shapefiles = new TreeMap<>();
+        for (File file : files) {
+            if (file.isFile()) {
+                String name = file.getName();
+                int dot = name.lastIndexOf('.');
+                String baseName = dot > 0 ? name.substring(0, dot) : name;
+                shapefiles.computeIfAbsent(baseName, k -> new ArrayList<>()).add(file);
             }
         }
+        for (Map.Entry<String, List<File>> shapefile : shapefiles.entrySet()) {
+            String baseName = shapefile.getKey();
+            List<File> components = shapefile.getValue();
+            String targetName = baseName;
+            for (int i = 1; isNameUsed(targetName, baseName, components, entries); i++) {
+                targetName = baseName + "_" + i;
+            }
+            if (!targetName.equals(baseName)) {
+                LOGGER.fine("Renaming duplicate shapefile " + baseName + " to " + targetName);
+            }
+            components.sort(null);
+            for (File file : components) {
+                String name = file.getName();
+                String entryName = targetName + name.substring(baseName.length());
+                entries.add(entryName);
+                zipOut.putNextEntry(new ZipEntry(entryName));
+                String esriPrj = esriPrjs.remove(name);
+                if (esriPrj != null) {
+                    zipOut.write(esriPrj.getBytes());
+                } else {
+                    FileUtils.copyFile(file, zipOut);
+                }
+                zipOut.closeEntry();
+                if (!file.delete()) {
+                    LOGGER.warning("Could not delete temp file: " + file.getAbsolutePath());
+                }
+            }
+        }
+    }
+
+    /** Checks if any of the shapefile components, renamed to the target name, is already zipped */
+    private boolean isNameUsed(
+            String targetName, String baseName, List<File> components, Set<String> entries) {
+        for (File file : components) {
+            if (entries.contains(targetName + file.getName().substring(baseName.length()))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /** Dumps the request */
     private void createRequestDump(
-            File tempDir, GetFeatureRequest gft, SimpleFeatureCollection fc) {
+            ZipOutputStream zipOut, GetFeatureRequest gft, SimpleFeatureCollection fc) {
         final Request request = Dispatcher.REQUEST.get();
         if (request == null || gft == null) {
             // we're probably running in a unit test
             return;
         }
 
-        // build the target file
+        // build the target entry
         FeatureTypeInfo ftInfo = getFeatureTypeInfo(fc.getSchema());
         String fileName = new FileNameSource(getClass()).getRequestDumpName(ftInfo) + ".txt";
-        File target = new File(tempDir, fileName);
 
         try {
+            zipOut.putNextEntry(new ZipEntry(fileName));
             if (request.isGet()) {
                 final HttpServletRequest httpRequest = request.getHttpRequest();
                 String baseUrl = ResponseUtils.baseURL(httpRequest);
@@ -283,7 +358,7 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
                 StringBuilder url = new StringBuilder();
                 String parameters = httpRequest.getQueryString();
                 url.append(mangledUrl).append("?").append(parameters);
-                FileUtils.writeStringToFile(target, url.toString(), "UTF-8");
+                zipOut.write(url.toString().getBytes(StandardCharsets.UTF_8));
             } else {
                 org.geotools.xsd.Configuration cfg = null;
                 QName elementName = null;
@@ -294,32 +369,24 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
                     cfg = new WFSConfiguration_1_0();
                     elementName = org.geotools.wfs.v1_0.WFS.GetFeature;
                 }
-                FileOutputStream fos = null;
-                try {
-                    fos = new FileOutputStream(target);
-                    Encoder encoder = new Encoder(cfg);
-                    encoder.setIndenting(true);
-                    encoder.setIndentSize(2);
-                    encoder.encode(gft, elementName, fos);
-                } finally {
-                    if (fos != null) fos.close();
-                }
+                Encoder encoder = new Encoder(cfg);
+                encoder.setIndenting(true);
+                encoder.setIndentSize(2);
+                encoder.encode(gft, elementName, new CloseShieldOutputStream(zipOut));
             }
+            zipOut.closeEntry();
         } catch (IOException e) {
             throw new WFSException(gft, "Failed to dump the WFS request");
         }
     }
 
-    private void createEmptyZipWarning(File tempDir) throws IOException {
-        PrintWriter pw = null;
-        try {
-            pw = new PrintWriter(new File(tempDir, "README.TXT"));
-            pw.print(
-                    "The query result is empty, and the geometric type of the features is unknwon:"
-                            + "an empty point shapefile has been created to fill the zip file");
-        } finally {
-            if (pw != null) pw.close();
-        }
+    private void createEmptyZipWarning(ZipOutputStream zipOut) throws IOException {
+        zipOut.putNextEntry(new ZipEntry("README.TXT"));
+        zipOut.write(
+                ("The query result is empty, and the geometric type of the features is unknwon:"
+                                + "an empty point shapefile has been created to fill the zip file")
+                        .getBytes());
+        zipOut.closeEntry();
     }
 
     /**
@@ -344,22 +411,20 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
      * If the {@code GetFeature} request indicated a desired ESRI WKT format or the
      * SHAPE-ZIP_DEFAULT_PRJ_IS_ESRI property in metadata component of wfs.xml is true and there is
      * an entrance for EPSG code in user_projections/esri.properties file, then the .prj file is
-     * replaced with a new one in ESRI WKT format. The content of the new file is extracted from
-     * user_projections/esri.properties using EPSG code as key. For example: {@code
-     * &format_options=PRJFILEFORMAT:ESRI}. Otherwise, the output prj file format is OGC WKT format.
+     * replaced with a new one in ESRI WKT format, whose content is returned. The content of the new
+     * file is extracted from user_projections/esri.properties using EPSG code as key. For example:
+     * {@code &format_options=PRJFILEFORMAT:ESRI}. Otherwise, the output prj file format is OGC WKT
+     * format, and null is returned.
      */
-    private void changeWKTFormatIfFileFormatIsESRI(
-            File tempDir,
-            GetFeatureRequest request,
-            String fileName,
-            SimpleFeatureType remappedSchema)
-            throws FactoryException, IOException, FileNotFoundException {
+    private String getESRIPrjIfFileFormatIsESRI(
+            GetFeatureRequest request, SimpleFeatureType remappedSchema)
+            throws FactoryException, IOException {
 
         boolean useEsriFormat = false;
 
         // if the request originates from the WPS we won't actually have any GetFeatureType request
         if (request == null) {
-            return;
+            return null;
         }
 
         Map<String, ?> formatOptions = request.getFormatOptions();
@@ -374,20 +439,20 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
         }
 
         if (useEsriFormat) {
-            replaceOGCPrjFileByESRIPrjFile(tempDir, fileName, remappedSchema);
+            return getESRIPrj(remappedSchema);
         }
+        return null;
     }
 
-    private void replaceOGCPrjFileByESRIPrjFile(
-            File tempDir, String fileName, SimpleFeatureType remappedSchema)
-            throws FactoryException, IOException, FileNotFoundException {
+    private String getESRIPrj(SimpleFeatureType remappedSchema)
+            throws FactoryException, IOException {
         final Integer epsgCode =
                 CRS.lookupEpsgCode(
                         remappedSchema.getGeometryDescriptor().getCoordinateReferenceSystem(),
                         true);
         if (epsgCode == null) {
             LOGGER.info("Can't find the EPSG code for the shapefile CRS");
-            return;
+            return null;
         }
         Resource file = resourceLoader.get("user_projections/esri.properties");
 
@@ -399,26 +464,18 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
 
             String data = (String) properties.get(epsgCode.toString());
 
-            if (data != null) {
-                File prjShapeFile = new File(tempDir, fileName + ".prj");
-                prjShapeFile.delete();
-
-                BufferedWriter out = new BufferedWriter(new FileWriter(prjShapeFile));
-                try {
-                    out.write(data);
-                } finally {
-                    out.close();
-                }
-            } else {
+            if (data == null) {
                 LOGGER.info(
                         "Requested shapefile with ESRI WKT .prj format but couldn't find an entry for ESPG code "
                                 + epsgCode
                                 + " in esri.properties");
             }
+            return data;
         } else {
             LOGGER.info(
                     "Requested shapefile with ESRI WKT .prj format but the esri.properties file does not exist in the user_projections directory");
         }
+        return null;
     }
 
     /**
@@ -464,6 +521,44 @@ public class ShapeZipOutputFormat extends WFSGetFeatureOutputFormat
         this.maxDbfSize = maxDbfSize;
     }
 
+    public ShapeZipTempArea getTempArea() {
+        return tempArea;
+    }
+
+    /**
+     * Sets the temporary area used to dump the shapefiles before zipping them, by default the one
+     * shared by all shapefile outputs, see {@link ShapeZipTempArea#getDefault()}
+     */
+    public void setTempArea(ShapeZipTempArea tempArea) {
+        this.tempArea = tempArea;
+    }
+
+    /**
+     * Checks the temp area disk quota while the features are being dumped, to stop large dumps
+     * before they fill up the disk
+     */
+    class QuotaCheckingCollection extends DecoratingSimpleFeatureCollection {
+
+        QuotaCheckingCollection(SimpleFeatureCollection delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public SimpleFeatureIterator features() {
+            return new DecoratingSimpleFeatureIterator(delegate.features()) {
+                int count;
+
+                @Override
+                public SimpleFeature next() throws NoSuchElementException {
+                    if (++count % QUOTA_CHECK_INTERVAL == 0) {
+                        tempArea.checkQuota();
+                    }
+                    return super.next();
+                }
+            };
+        }
+    }
+
     class FileNameSource {
 
         private Class clazz;
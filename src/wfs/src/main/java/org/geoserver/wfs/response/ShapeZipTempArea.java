@@ -0,0 +1,164 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.response;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.apache.commons.io.FileUtils;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.util.IOUtils;
+import org.geotools.util.logging.Logging;
+
+/**
+ * The temporary area where shapefiles are dumped before being zipped. Limits the number of dumps
+ * running concurrently, and the overall disk space they can use, so that concurrent downloads of
+ * large data sets cannot fill up the disk.
+ *
+ * <p>The default area is configured with the following system variables:
+ *
+ * <ul>
+ *   <li>{@code GS_SHAPEZIP_MAX_CONCURRENT}: max number of concurrent dumps, unlimited if zero or
+ *       negative (default)
+ *   <li>{@code GS_SHAPEZIP_WAIT_TIMEOUT}: how long, in milliseconds, a request waits for a dump
+ *       slot before failing (one minute by default)
+ *   <li>{@code GS_SHAPEZIP_TEMP_QUOTA}: max disk space, in bytes, used by all the concurrent dumps,
+ *       unlimited if zero or negative (default)
+ * </ul>
+ */
+public class ShapeZipTempArea {
+
+    private static final Logger LOGGER = Logging.getLogger(ShapeZipTempArea.class);
+
+    private static final ShapeZipTempArea DEFAULT =
+            new ShapeZipTempArea(
+                    Integer.getInteger("GS_SHAPEZIP_MAX_CONCURRENT", 0),
+                    Long.getLong("GS_SHAPEZIP_WAIT_TIMEOUT", 60000),
+                    Long.getLong("GS_SHAPEZIP_TEMP_QUOTA", 0));
+
+    /** Returns the temp area shared by all the shapefile outputs */
+    public static ShapeZipTempArea getDefault() {
+        return DEFAULT;
+    }
+
+    private final Semaphore permits;
+
+    private final long timeout;
+
+    private final long quota;
+
+    private final Set<File> directories = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param maxConcurrent the max number of concurrent dumps, unlimited if zero or negative
+     * @param timeout the max time, in milliseconds, waited for a dump slot
+     * @param quota the max disk space, in bytes, used by the dumps, unlimited if zero or negative
+     */
+    public ShapeZipTempArea(int maxConcurrent, long timeout, long quota) {
+        this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        this.timeout = timeout;
+        this.quota = quota;
+    }
+
+    /**
+     * Creates a new temporary directory, waiting for a dump slot to be available. The directory
+     * must be given back calling {@link #release(File)}
+     */
+    public File acquire() throws IOException {
+        if (permits != null) {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceException("Interrupted while waiting for a shapefile dump slot");
+            }
+            if (!acquired) {
+                throw new ServiceException(
+                        "Too many concurrent shapefile downloads, please try again later");
+            }
+        }
+        try {
+            File directory = IOUtils.createTempDirectory("shpziptemp");
+            directories.add(directory);
+            return directory;
+        } catch (IOException | RuntimeException e) {
+            if (permits != null) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+
+    /** Removes the directory and its contents, and frees its dump slot */
+    public void release(File directory) {
+        try {
+            if (directories.remove(directory)) {
+                try {
+                    FileUtils.deleteDirectory(directory);
+                } catch (IOException e) {
+                    LOGGER.warning(
+                            "Could not delete temp directory: "
+                                    + directory.getAbsolutePath()
+                                    + " due to: "
+                                    + e.getMessage());
+                }
+            }
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Checks the disk space used by all the active dumps is within the quota
+     *
+     * @throws ServiceException if the quota is exceeded
+     */
+    public void checkQuota() throws ServiceException {
+        if (quota <= 0) {
+            return;
+        }
+        long usage = getUsage();
+        if (usage > quota) {
+            throw new ServiceException(
+                    "The temporary disk space available for shapefile output has been exhausted ("
+                            + usage
+                            + " bytes used, "
+                            + quota
+                            + " allowed), try again later or reduce the amount of data requested");
+        }
+    }
+
+    /** Returns the disk space currently used by the active dumps */
+    public long getUsage() {
+        long usage = 0;
+        for (File directory : directories) {
+            if (directory.exists()) {
+                try {
+                    usage += FileUtils.sizeOfDirectory(directory);
+                } catch (IllegalArgumentException e) {
+                    // the directory got removed in the meantime
+                }
+            }
+        }
+        return usage;
+    }
+
+    /** Returns the number of dumps currently running */
+    public int getActiveDumps() {
+        return directories.size();
+    }
+
+    /** Returns the quota, zero or negative if unlimited */
+    public long getQuota() {
+        return quota;
+    }
+}
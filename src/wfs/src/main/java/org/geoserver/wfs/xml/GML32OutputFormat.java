@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -120,14 +121,27 @@ public class GML32OutputFormat extends GML3OutputFormat {
     }
 
     @Override
-    protected void setAdditionalSchemaLocations(
-            Encoder encoder, GetFeatureRequest request, WFSInfo wfs) {
+    protected Map<String, String> getAdditionalSchemaLocations(
+            GetFeatureRequest request, WFSInfo wfs) {
         // since wfs 2.0 schema does not depend on gml 3.2 schema we register it manually
         String loc =
                 wfs.isCanonicalSchemaLocation()
                         ? GML.CANONICAL_SCHEMA_LOCATION
                         : ResponseUtils.buildSchemaURL(request.getBaseUrl(), "gml/3.2.1/gml.xsd");
-        encoder.setSchemaLocation(GML.NAMESPACE, loc);
+        return Collections.singletonMap(GML.NAMESPACE, loc);
+    }
+
+    @Override
+    protected boolean canEncodeDirectly(FeatureCollectionResponse results) {
+        // GetFeatureById and multiple queries results have a different structure
+        return !results.isGetFeatureById()
+                && results.getFeatures().size() == 1
+                && super.canEncodeDirectly(results);
+    }
+
+    @Override
+    protected GMLSimpleFeatureWriter.Version getDirectEncodingVersion() {
+        return GMLSimpleFeatureWriter.Version.GML32;
     }
 
     @Override
@@ -21,15 +21,21 @@ import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
@@ -41,6 +47,7 @@ import net.opengis.wfs.FeatureCollectionType;
 import org.eclipse.xsd.XSDSchema;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.NamespaceInfo;
 import org.geoserver.catalog.ResourceInfo;
 import org.geoserver.config.GeoServer;
 import org.geoserver.ows.Dispatcher;
@@ -59,6 +66,7 @@ import org.geoserver.wfs.xml.v1_1_0.WFSConfiguration;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.NameImpl;
 import org.geotools.feature.simple.SimpleFeatureTypeImpl;
+import org.geotools.gml.producer.CoordinateFormatter;
 import org.geotools.gml3.GMLConfiguration;
 import org.geotools.xsd.Configuration;
 import org.geotools.xsd.Encoder;
@@ -72,10 +80,20 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
     public static final boolean OPTIMIZED_ENCODING =
             Boolean.parseBoolean(System.getProperty("GML_OPTIMIZED_ENCODING", "true"));
 
+    /**
+     * Enables writing simple features directly with {@link GMLSimpleFeatureWriter}, bypassing the
+     * schema driven encoder
+     */
+    public static final boolean DIRECT_ENCODING =
+            Boolean.parseBoolean(System.getProperty("GML_DIRECT_ENCODING", "false"));
+
+    static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
     GeoServer geoServer;
     Catalog catalog;
     WFSConfiguration configuration;
     protected static DOMSource xslt;
+    boolean directEncoding = DIRECT_ENCODING;
 
     static {
         DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
@@ -120,6 +138,16 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
         return "GML3";
     }
 
+    /** Returns true if simple features are written directly, bypassing the XSD encoder */
+    public boolean isDirectEncoding() {
+        return directEncoding;
+    }
+
+    /** Enables or disables the direct encoding of simple features */
+    public void setDirectEncoding(boolean directEncoding) {
+        this.directEncoding = directEncoding;
+    }
+
     protected void write(
             FeatureCollectionResponse results, OutputStream output, Operation getFeature)
             throws ServiceException, IOException, UnsupportedEncodingException {
@@ -192,6 +220,20 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
 
         WFSInfo wfs = getInfo();
 
+        boolean encodeMeasures = encodeMeasures(featureCollections, catalog);
+        if (directEncoding && !encodeMeasures && canEncodeDirectly(results)) {
+            encodeDirectly(
+                    results,
+                    output,
+                    request,
+                    wfs,
+                    ns2metas,
+                    numDecimals,
+                    padWithZeros,
+                    forcedDecimal);
+            return;
+        }
+
         // set feature bounding parameter
         // JD: this is quite bad as its not at all thread-safe, once we remove the configuration
         // as being a singleton on trunk/2.0.x this should not be an issue
@@ -232,7 +274,6 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
         Object gft = getFeature.getParameters()[0];
 
         Configuration configuration = customizeConfiguration(this.configuration, ns2metas, gft);
-        boolean encodeMeasures = encodeMeasures(featureCollections, catalog);
         updateConfiguration(
                 configuration, numDecimals, padWithZeros, forcedDecimal, encodeMeasures);
         Encoder encoder = createEncoder(configuration, ns2metas, gft);
@@ -252,7 +293,30 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
         }
 
         // declare application schema namespaces
+        declareSchemaLocations(
+                request,
+                ns2metas,
+                encoder::setSchemaLocation,
+                (prefix, namespaceURI) ->
+                        encoder.getNamespaces().declarePrefix(prefix, namespaceURI));
 
+        setAdditionalSchemaLocations(encoder, request, wfs);
+        if (isComplexFeature(results)) {
+            complexFeatureStreamIntercept(results, output, encoder);
+        } else {
+            encode(results, output, encoder);
+        }
+    }
+
+    /**
+     * Declares the schema locations of the feature types being encoded, along with the prefixes of
+     * the namespaces of other resources
+     */
+    private void declareSchemaLocations(
+            GetFeatureRequest request,
+            Map<String, Set<ResourceInfo>> ns2metas,
+            BiConsumer<String, String> schemaLocations,
+            BiConsumer<String, String> prefixes) {
         Map<String, String> params =
                 params(
                         "service",
@@ -277,7 +341,7 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
                     if (userSchemaLocation != null && userSchemaLocation instanceof Map) {
                         Map<String, String> schemaURIs = (Map<String, String>) userSchemaLocation;
                         for (String namespace : schemaURIs.keySet()) {
-                            encoder.setSchemaLocation(namespace, schemaURIs.get(namespace));
+                            schemaLocations.accept(namespace, schemaURIs.get(namespace));
                         }
                     } else {
                         typeNames.append(meta.prefixedName());
@@ -286,8 +350,7 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
                         }
                     }
                 } else {
-                    encoder.getNamespaces()
-                            .declarePrefix(ri.getStore().getWorkspace().getName(), namespaceURI);
+                    prefixes.accept(ri.getStore().getWorkspace().getName(), namespaceURI);
                 }
             }
 
@@ -301,15 +364,86 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
                                 + namespaceURI
                                 + ". Using a built schema location by default: "
                                 + schemaLocation);
-                encoder.setSchemaLocation(namespaceURI, schemaLocation);
+                schemaLocations.accept(namespaceURI, schemaLocation);
             }
         }
+    }
 
-        setAdditionalSchemaLocations(encoder, request, wfs);
-        if (isComplexFeature(results)) {
-            complexFeatureStreamIntercept(results, output, encoder);
+    /**
+     * Returns true if the results can be written by {@link GMLSimpleFeatureWriter}, that is, if all
+     * collections contain simple features
+     */
+    protected boolean canEncodeDirectly(FeatureCollectionResponse results) {
+        for (FeatureCollection collection : results.getFeatures()) {
+            if (!GMLSimpleFeatureWriter.canEncode(collection.getSchema())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** The GML version written when encoding simple features directly */
+    protected GMLSimpleFeatureWriter.Version getDirectEncodingVersion() {
+        return GMLSimpleFeatureWriter.Version.GML31;
+    }
+
+    /** Writes simple features with {@link GMLSimpleFeatureWriter} */
+    protected void encodeDirectly(
+            FeatureCollectionResponse results,
+            OutputStream output,
+            GetFeatureRequest request,
+            WFSInfo wfs,
+            Map<String, Set<ResourceInfo>> ns2metas,
+            int numDecimals,
+            boolean padWithZeros,
+            boolean forcedDecimal)
+            throws IOException {
+        Map<String, String> schemaLocations = new LinkedHashMap<>();
+        if (wfs.isCanonicalSchemaLocation()) {
+            schemaLocations.put(getWfsNamespace(), getCanonicalWfsSchemaLocation());
         } else {
-            encode(results, output, encoder);
+            schemaLocations.put(
+                    getWfsNamespace(),
+                    buildSchemaURL(request.getBaseURL(), getRelativeWfsSchemaLocation()));
+        }
+        declareSchemaLocations(request, ns2metas, schemaLocations::put, (prefix, uri) -> {});
+        schemaLocations.putAll(getAdditionalSchemaLocations(request, wfs));
+
+        GMLSimpleFeatureWriter.Version version = getDirectEncodingVersion();
+        CoordinateFormatter formatter = new CoordinateFormatter(numDecimals);
+        formatter.setPadWithZeros(padWithZeros);
+        formatter.setForcedDecimal(forcedDecimal);
+        String charset = geoServer.getSettings().getCharset();
+        Request dispatcherRequest = Dispatcher.REQUEST.get();
+        boolean declaration = dispatcherRequest == null || !dispatcherRequest.isSOAP();
+        try {
+            XMLStreamWriter xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(output, charset);
+            GMLSimpleFeatureWriter writer =
+                    new GMLSimpleFeatureWriter(
+                            xml,
+                            version,
+                            wfs.getGML()
+                                    .get(version.getWfsVersion())
+                                    .getSrsNameStyle()
+                                    .toSrsSyntax(),
+                            formatter,
+                            wfs.isFeatureBounding(),
+                            !wfs.isCiteCompliant(),
+                            uri -> {
+                                NamespaceInfo ns = catalog.getNamespaceByURI(uri);
+                                return ns != null ? ns.getPrefix() : null;
+                            });
+            writer.write(
+                    results,
+                    getWfsNamespace(),
+                    schemaLocations,
+                    wfs.isEncodeFeatureMember(),
+                    declaration,
+                    charset);
+            // does not close the underlying stream
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write the GML output", e);
         }
     }
 
@@ -378,7 +512,15 @@ public class GML3OutputFormat extends WFSGetFeatureOutputFormat {
 
     protected void setAdditionalSchemaLocations(
             Encoder encoder, GetFeatureRequest request, WFSInfo wfs) {
-        // hook for subclasses
+        getAdditionalSchemaLocations(request, wfs).forEach(encoder::setSchemaLocation);
+    }
+
+    /**
+     * Hook for subclasses, returns the schema locations to be declared on top of the default ones
+     */
+    protected Map<String, String> getAdditionalSchemaLocations(
+            GetFeatureRequest request, WFSInfo wfs) {
+        return Collections.emptyMap();
     }
 
     protected void encode(FeatureCollectionResponse results, OutputStream output, Encoder encoder)
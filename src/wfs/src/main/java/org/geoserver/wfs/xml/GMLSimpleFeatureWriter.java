@@ -0,0 +1,626 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.xml;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.util.ISO8601Formatter;
+import org.geoserver.wfs.WFSInfo;
+import org.geoserver.wfs.request.FeatureCollectionResponse;
+import org.geotools.feature.FeatureCollection;
+import org.geotools.feature.FeatureIterator;
+import org.geotools.geometry.jts.CurvedGeometry;
+import org.geotools.gml.producer.CoordinateFormatter;
+import org.geotools.gml2.SrsSyntax;
+import org.geotools.referencing.CRS;
+import org.geotools.util.Converters;
+import org.geotools.xs.bindings.XSDateBinding;
+import org.geotools.xs.bindings.XSDateTimeBinding;
+import org.geotools.xs.bindings.XSDoubleBinding;
+import org.geotools.xs.bindings.XSFloatBinding;
+import org.geotools.xs.bindings.XSTimeBinding;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.MultiLineString;
+import org.locationtech.jts.geom.MultiPoint;
+import org.locationtech.jts.geom.MultiPolygon;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.feature.type.AttributeDescriptor;
+import org.opengis.feature.type.FeatureType;
+import org.opengis.feature.type.GeometryDescriptor;
+import org.opengis.geometry.BoundingBox;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+
+/**
+ * Writes WFS feature collections of simple features as GML 3.1 or GML 3.2 straight to a {@link
+ * XMLStreamWriter}, without going through the schema driven GeoTools {@link
+ * org.geotools.xsd.Encoder}.
+ *
+ * <p>The element layout of each feature type (prefix, element names, srsName of the geometries) is
+ * computed once per collection, features are then written attribute by attribute, and geometry
+ * coordinates are formatted in a reusable buffer and streamed out in chunks.
+ *
+ * <p>Only simple feature types with linear geometries are supported, see {@link
+ * #canEncode(FeatureType)}, anything else has to go through the generic encoder. The collection
+ * level bounds are not written, as that would require a separate pass over the data.
+ */
+public class GMLSimpleFeatureWriter {
+
+    /** The GML version being written, along with the matching WFS collection structure */
+    public enum Version {
+        /** GML 3.1 in a WFS 1.1 feature collection */
+        GML31(org.geotools.gml3.GML.NAMESPACE, WFSInfo.Version.V_11),
+        /** GML 3.2 in a WFS 2.0 feature collection */
+        GML32(org.geotools.gml3.v3_2.GML.NAMESPACE, WFSInfo.Version.V_20);
+
+        final String namespace;
+
+        final WFSInfo.Version wfsVersion;
+
+        Version(String namespace, WFSInfo.Version wfsVersion) {
+            this.namespace = namespace;
+            this.wfsVersion = wfsVersion;
+        }
+
+        /** The WFS version whose GML settings apply to this GML version */
+        public WFSInfo.Version getWfsVersion() {
+            return wfsVersion;
+        }
+    }
+
+    static final String GML = "gml";
+
+    static final String WFS = "wfs";
+
+    static final String XSI = "xsi";
+
+    /** Number of formatted coordinate chars after which they get pushed to the stream */
+    static final int COORDINATES_CHUNK = 8192;
+
+    /** The XS bindings used by the schema driven encoder, stateless */
+    static final XSDateBinding DATE = new XSDateBinding();
+
+    static final XSTimeBinding TIME = new XSTimeBinding();
+
+    static final XSDateTimeBinding DATE_TIME = new XSDateTimeBinding();
+
+    static final XSDoubleBinding DOUBLE = new XSDoubleBinding();
+
+    static final XSFloatBinding FLOAT = new XSFloatBinding();
+
+    /** Layout of an attribute, computed once per feature type */
+    static class AttributeLayout {
+        final String name;
+
+        final boolean geometry;
+
+        final boolean required;
+
+        final String srsName;
+
+        AttributeLayout(String name, boolean geometry, boolean required, String srsName) {
+            this.name = name;
+            this.geometry = geometry;
+            this.required = required;
+            this.srsName = srsName;
+        }
+    }
+
+    /** Layout of a feature type, computed once per feature collection */
+    static class FeatureTypeLayout {
+        final String prefix;
+
+        final String namespaceURI;
+
+        final String name;
+
+        final String srsName;
+
+        final AttributeLayout[] attributes;
+
+        FeatureTypeLayout(
+                String prefix,
+                String namespaceURI,
+                String name,
+                String srsName,
+                AttributeLayout[] attributes) {
+            this.prefix = prefix;
+            this.namespaceURI = namespaceURI;
+            this.name = name;
+            this.srsName = srsName;
+            this.attributes = attributes;
+        }
+    }
+
+    private final XMLStreamWriter xml;
+
+    private final Version version;
+
+    private final String gmlNamespace;
+
+    private final SrsSyntax srsSyntax;
+
+    private final CoordinateFormatter formatter;
+
+    private final boolean featureBounding;
+
+    private final boolean encodeSrsDimension;
+
+    private final Function<String, String> prefixes;
+
+    private final Map<FeatureType, FeatureTypeLayout> layouts = new IdentityHashMap<>();
+
+    private final StringBuffer coordinates = new StringBuffer(COORDINATES_CHUNK + 256);
+
+    private char[] chars = new char[COORDINATES_CHUNK + 256];
+
+    /**
+     * @param xml the target writer
+     * @param version the GML version
+     * @param srsSyntax the syntax of the geometries srsName
+     * @param formatter the geometry coordinates formatter
+     * @param featureBounding whether to write the bounds of each feature
+     * @param encodeSrsDimension whether to write the srsDimension of the geometries
+     * @param prefixes maps the feature types namespace URIs to their prefix
+     */
+    public GMLSimpleFeatureWriter(
+            XMLStreamWriter xml,
+            Version version,
+            SrsSyntax srsSyntax,
+            CoordinateFormatter formatter,
+            boolean featureBounding,
+            boolean encodeSrsDimension,
+            Function<String, String> prefixes) {
+        this.xml = xml;
+        this.version = version;
+        this.gmlNamespace = version.namespace;
+        this.srsSyntax = srsSyntax;
+        this.formatter = formatter;
+        this.featureBounding = featureBounding;
+        this.encodeSrsDimension = encodeSrsDimension;
+        this.prefixes = prefixes;
+    }
+
+    /**
+     * Returns true if the features of the given type can be written by this class, that is, if it's
+     * a simple feature type without curved geometries
+     */
+    public static boolean canEncode(FeatureType featureType) {
+        if (!(featureType instanceof SimpleFeatureType)) {
+            return false;
+        }
+        for (AttributeDescriptor ad : ((SimpleFeatureType) featureType).getAttributeDescriptors()) {
+            Class<?> binding = ad.getType().getBinding();
+            if (ad instanceof GeometryDescriptor
+                    && (!Geometry.class.isAssignableFrom(binding)
+                            || CurvedGeometry.class.isAssignableFrom(binding))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the feature collection document
+     *
+     * @param results the features to be written
+     * @param wfsNamespace the WFS namespace of the collection element
+     * @param schemaLocations the schema locations, by namespace
+     * @param encodeFeatureMember in GML 3.1, whether to wrap each feature in its own
+     *     gml:featureMember element, rather than all of them in gml:featureMembers
+     * @param declaration whether to write the XML declaration
+     * @param charset the output encoding
+     */
+    public void write(
+            FeatureCollectionResponse results,
+            String wfsNamespace,
+            Map<String, String> schemaLocations,
+            boolean encodeFeatureMember,
+            boolean declaration,
+            String charset)
+            throws IOException {
+        try {
+            if (declaration) {
+                xml.writeStartDocument(charset, "1.0");
+            }
+            xml.writeStartElement(WFS, "FeatureCollection", wfsNamespace);
+            declareNamespaces(results, wfsNamespace);
+            writeCollectionAttributes(results);
+            if (!schemaLocations.isEmpty()) {
+                StringBuilder sb = new StringBuilder();
+                for (Map.Entry<String, String> entry : schemaLocations.entrySet()) {
+                    if (sb.length() > 0) {
+                        sb.append(' ');
+                    }
+                    sb.append(entry.getKey()).append(' ').append(entry.getValue());
+                }
+                xml.writeAttribute(
+                        XSI,
+                        XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI,
+                        "schemaLocation",
+                        sb.toString());
+            }
+
+            boolean membersOpen = false;
+            for (FeatureCollection<?, ?> collection : results.getFeatures()) {
+                FeatureTypeLayout layout = getLayout(collection.getSchema());
+                try (FeatureIterator<?> it = collection.features()) {
+                    while (it.hasNext()) {
+                        SimpleFeature feature = (SimpleFeature) it.next();
+                        if (version == Version.GML32) {
+                            xml.writeStartElement(WFS, "member", wfsNamespace);
+                        } else if (encodeFeatureMember) {
+                            xml.writeStartElement(GML, "featureMember", gmlNamespace);
+                        } else if (!membersOpen) {
+                            xml.writeStartElement(GML, "featureMembers", gmlNamespace);
+                            membersOpen = true;
+                        }
+                        writeFeature(feature, layout);
+                        if (version == Version.GML32 || encodeFeatureMember) {
+                            xml.writeEndElement();
+                        }
+                    }
+                }
+            }
+            if (membersOpen) {
+                xml.writeEndElement();
+            }
+
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.flush();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to write the GML feature collection", e);
+        }
+    }
+
+    private void declareNamespaces(FeatureCollectionResponse results, String wfsNamespace)
+            throws XMLStreamException {
+        xml.writeNamespace(WFS, wfsNamespace);
+        xml.writeNamespace(GML, gmlNamespace);
+        xml.writeNamespace(XSI, XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI);
+        Map<String, String> declared = new LinkedHashMap<>();
+        for (FeatureCollection<?, ?> collection : results.getFeatures()) {
+            FeatureTypeLayout layout = getLayout(collection.getSchema());
+            if (declared.put(layout.prefix, layout.namespaceURI) == null) {
+                xml.writeNamespace(layout.prefix, layout.namespaceURI);
+            }
+        }
+    }
+
+    private void writeCollectionAttributes(FeatureCollectionResponse results)
+            throws XMLStreamException {
+        BigInteger returned = results.getNumberOfFeatures();
+        if (version == Version.GML32) {
+            BigInteger matched = results.getTotalNumberOfFeatures();
+            xml.writeAttribute(
+                    "numberMatched",
+                    matched == null || matched.signum() < 0 ? "unknown" : matched.toString());
+            xml.writeAttribute("numberReturned", returned == null ? "0" : returned.toString());
+        } else if (returned != null) {
+            xml.writeAttribute("numberOfFeatures", returned.toString());
+        }
+        Calendar timeStamp = results.getTimeStamp();
+        if (timeStamp != null) {
+            xml.writeAttribute("timeStamp", new ISO8601Formatter().format(timeStamp.getTime()));
+        }
+        if (version == Version.GML32) {
+            if (results.getNext() != null) {
+                xml.writeAttribute("next", results.getNext());
+            }
+            if (results.getPrevious() != null) {
+                xml.writeAttribute("previous", results.getPrevious());
+            }
+        } else if (results.getLockId() != null) {
+            xml.writeAttribute("lockId", results.getLockId());
+        }
+    }
+
+    private FeatureTypeLayout getLayout(FeatureType featureType) {
+        FeatureTypeLayout layout = layouts.get(featureType);
+        if (layout == null) {
+            layout = buildLayout((SimpleFeatureType) featureType);
+            layouts.put(featureType, layout);
+        }
+        return layout;
+    }
+
+    private FeatureTypeLayout buildLayout(SimpleFeatureType featureType) {
+        String namespaceURI = featureType.getName().getNamespaceURI();
+        String prefix = namespaceURI == null ? null : prefixes.apply(namespaceURI);
+        if (prefix == null) {
+            prefix = "ns" + layouts.size();
+        }
+        List<AttributeLayout> attributes = new ArrayList<>();
+        for (AttributeDescriptor ad : featureType.getAttributeDescriptors()) {
+            String srsName = null;
+            boolean geometry = ad instanceof GeometryDescriptor;
+            if (geometry) {
+                srsName = getSrsName(((GeometryDescriptor) ad).getCoordinateReferenceSystem());
+            }
+            attributes.add(
+                    new AttributeLayout(
+                            ad.getLocalName(), geometry, ad.getMinOccurs() > 0, srsName));
+        }
+        GeometryDescriptor defaultGeometry = featureType.getGeometryDescriptor();
+        String srsName =
+                defaultGeometry == null
+                        ? null
+                        : getSrsName(defaultGeometry.getCoordinateReferenceSystem());
+        return new FeatureTypeLayout(
+                prefix,
+                namespaceURI,
+                featureType.getTypeName(),
+                srsName,
+                attributes.toArray(new AttributeLayout[attributes.size()]));
+    }
+
+    private String getSrsName(CoordinateReferenceSystem crs) {
+        if (crs == null) {
+            return null;
+        }
+        try {
+            Integer code = CRS.lookupEpsgCode(crs, false);
+            if (code != null) {
+                return srsSyntax.getPrefix() + code;
+            }
+            return CRS.lookupIdentifier(crs, false);
+        } catch (FactoryException e) {
+            return null;
+        }
+    }
+
+    private void writeFeature(SimpleFeature feature, FeatureTypeLayout layout)
+            throws XMLStreamException {
+        xml.writeStartElement(layout.prefix, layout.name, layout.namespaceURI);
+        String id = feature.getID();
+        if (id != null) {
+            xml.writeAttribute(GML, gmlNamespace, "id", id);
+        }
+        if (featureBounding) {
+            BoundingBox bounds = feature.getBounds();
+            if (bounds != null && !bounds.isEmpty()) {
+                writeBounds(bounds, layout.srsName);
+            }
+        }
+        AttributeLayout[] attributes = layout.attributes;
+        for (int i = 0; i < attributes.length; i++) {
+            AttributeLayout attribute = attributes[i];
+            Object value = feature.getAttribute(i);
+            if (value instanceof Geometry && ((Geometry) value).isEmpty()) {
+                value = null;
+            }
+            if (value == null) {
+                if (attribute.required) {
+                    xml.writeEmptyElement(layout.prefix, attribute.name, layout.namespaceURI);
+                    xml.writeAttribute(
+                            XSI, XMLConstants.W3C_XML_SCHEMA_INSTANCE_NS_URI, "nil", "true");
+                }
+                continue;
+            }
+            xml.writeStartElement(layout.prefix, attribute.name, layout.namespaceURI);
+            if (value instanceof Geometry) {
+                String geometryId = id == null ? null : id + "." + attribute.name;
+                writeGeometry((Geometry) value, attribute.srsName, geometryId, true);
+            } else {
+                xml.writeCharacters(toString(value));
+            }
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    /**
+     * Converts the value to its XSD lexical form, using the same bindings as the schema driven
+     * encoder for the types whose {@link Converters} output differs
+     */
+    private String toString(Object value) {
+        if (value instanceof String) {
+            return (String) value;
+        } else if (value instanceof java.sql.Date) {
+            return DATE.encode(value, null);
+        } else if (value instanceof java.sql.Time) {
+            return TIME.encode(value, null);
+        } else if (value instanceof Date || value instanceof Calendar) {
+            return DATE_TIME.encode(value, null);
+        } else if (value instanceof Double) {
+            return DOUBLE.encode(value, null);
+        } else if (value instanceof Float) {
+            return FLOAT.encode(value, null);
+        }
+        String converted = Converters.convert(value, String.class);
+        return converted != null ? converted : value.toString();
+    }
+
+    private void writeBounds(BoundingBox bounds, String srsName) throws XMLStreamException {
+        xml.writeStartElement(GML, "boundedBy", gmlNamespace);
+        xml.writeStartElement(GML, "Envelope", gmlNamespace);
+        if (srsName != null) {
+            xml.writeAttribute("srsName", srsName);
+        }
+        if (encodeSrsDimension) {
+            xml.writeAttribute("srsDimension", "2");
+        }
+        xml.writeStartElement(GML, "lowerCorner", gmlNamespace);
+        formatter.format(bounds.getMinX(), coordinates).append(' ');
+        formatter.format(bounds.getMinY(), coordinates);
+        flushCoordinates();
+        xml.writeEndElement();
+        xml.writeStartElement(GML, "upperCorner", gmlNamespace);
+        formatter.format(bounds.getMaxX(), coordinates).append(' ');
+        formatter.format(bounds.getMaxY(), coordinates);
+        flushCoordinates();
+        xml.writeEndElement();
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    /**
+     * Writes a geometry, the srsName and srsDimension are written only on the root geometry, in GML
+     * 3.2 the gml:id of nested geometries is derived from the root one
+     */
+    private void writeGeometry(Geometry geometry, String srsName, String id, boolean root)
+            throws XMLStreamException {
+        if (geometry instanceof CurvedGeometry) {
+            throw new ServiceException(
+                    "Curved geometries cannot be written by the direct GML encoder");
+        }
+        int dimension = getDimension(geometry);
+        if (geometry instanceof Point) {
+            startGeometry("Point", srsName, id, dimension, root);
+            xml.writeStartElement(GML, "pos", gmlNamespace);
+            writeCoordinates(((Point) geometry).getCoordinateSequence(), dimension);
+            xml.writeEndElement();
+            xml.writeEndElement();
+        } else if (geometry instanceof LinearRing) {
+            startGeometry("LinearRing", srsName, id, dimension, root);
+            writePosList(((LinearRing) geometry).getCoordinateSequence(), dimension);
+            xml.writeEndElement();
+        } else if (geometry instanceof LineString) {
+            startGeometry("LineString", srsName, id, dimension, root);
+            writePosList(((LineString) geometry).getCoordinateSequence(), dimension);
+            xml.writeEndElement();
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            startGeometry("Polygon", srsName, id, dimension, root);
+            writeRing("exterior", polygon.getExteriorRing(), dimension);
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                writeRing("interior", polygon.getInteriorRingN(i), dimension);
+            }
+            xml.writeEndElement();
+        } else if (geometry instanceof MultiPoint) {
+            writeMulti((GeometryCollection) geometry, "MultiPoint", "pointMember", srsName, id);
+        } else if (geometry instanceof MultiLineString) {
+            writeMulti((GeometryCollection) geometry, "MultiCurve", "curveMember", srsName, id);
+        } else if (geometry instanceof MultiPolygon) {
+            writeMulti((GeometryCollection) geometry, "MultiSurface", "surfaceMember", srsName, id);
+        } else if (geometry instanceof GeometryCollection) {
+            writeMulti(
+                    (GeometryCollection) geometry, "MultiGeometry", "geometryMember", srsName, id);
+        } else {
+            throw new ServiceException("Unsupported geometry type " + geometry.getGeometryType());
+        }
+    }
+
+    private void writeMulti(
+            GeometryCollection collection, String element, String member, String srsName, String id)
+            throws XMLStreamException {
+        startGeometry(element, srsName, id, getDimension(collection), true);
+        for (int i = 0; i < collection.getNumGeometries(); i++) {
+            Geometry child = collection.getGeometryN(i);
+            if (child.isEmpty()) {
+                continue;
+            }
+            xml.writeStartElement(GML, member, gmlNamespace);
+            writeGeometry(child, null, id == null ? null : id + "." + (i + 1), false);
+            xml.writeEndElement();
+        }
+        xml.writeEndElement();
+    }
+
+    private void startGeometry(
+            String element, String srsName, String id, int dimension, boolean root)
+            throws XMLStreamException {
+        xml.writeStartElement(GML, element, gmlNamespace);
+        if (version == Version.GML32 && id != null) {
+            xml.writeAttribute(GML, gmlNamespace, "id", id);
+        }
+        if (root && srsName != null) {
+            xml.writeAttribute("srsName", srsName);
+        }
+        if (root && encodeSrsDimension) {
+            xml.writeAttribute("srsDimension", String.valueOf(dimension));
+        }
+    }
+
+    private void writeRing(String element, LineString ring, int dimension)
+            throws XMLStreamException {
+        xml.writeStartElement(GML, element, gmlNamespace);
+        xml.writeStartElement(GML, "LinearRing", gmlNamespace);
+        writePosList(ring.getCoordinateSequence(), dimension);
+        xml.writeEndElement();
+        xml.writeEndElement();
+    }
+
+    private void writePosList(CoordinateSequence sequence, int dimension)
+            throws XMLStreamException {
+        xml.writeStartElement(GML, "posList", gmlNamespace);
+        writeCoordinates(sequence, dimension);
+        xml.writeEndElement();
+    }
+
+    /** Formats the coordinates in the reusable buffer, pushing them out in chunks */
+    private void writeCoordinates(CoordinateSequence sequence, int dimension)
+            throws XMLStreamException {
+        for (int i = 0, size = sequence.size(); i < size; i++) {
+            if (i > 0) {
+                coordinates.append(' ');
+            }
+            formatter.format(sequence.getOrdinate(i, 0), coordinates).append(' ');
+            formatter.format(sequence.getOrdinate(i, 1), coordinates);
+            if (dimension > 2) {
+                coordinates.append(' ');
+                formatter.format(sequence.getZ(i), coordinates);
+            }
+            if (coordinates.length() > COORDINATES_CHUNK) {
+                flushCoordinates();
+            }
+        }
+        flushCoordinates();
+    }
+
+    private void flushCoordinates() throws XMLStreamException {
+        int length = coordinates.length();
+        if (chars.length < length) {
+            chars = new char[length];
+        }
+        coordinates.getChars(0, length, chars, 0);
+        xml.writeCharacters(chars, 0, length);
+        coordinates.setLength(0);
+    }
+
+    private int getDimension(Geometry geometry) {
+        if (geometry instanceof Point) {
+            CoordinateSequence cs = ((Point) geometry).getCoordinateSequence();
+            return hasZ(cs) ? 3 : 2;
+        } else if (geometry instanceof LineString) {
+            return hasZ(((LineString) geometry).getCoordinateSequence()) ? 3 : 2;
+        } else if (geometry instanceof Polygon) {
+            return getDimension(((Polygon) geometry).getExteriorRing());
+        }
+        for (int i = 0; i < geometry.getNumGeometries(); i++) {
+            Geometry child = geometry.getGeometryN(i);
+            if (!child.isEmpty()) {
+                return getDimension(child);
+            }
+        }
+        return 2;
+    }
+
+    private boolean hasZ(CoordinateSequence cs) {
+        return cs.size() > 0
+                && cs.getDimension() - cs.getMeasures() > 2
+                && !Double.isNaN(cs.getZ(0));
+    }
+}
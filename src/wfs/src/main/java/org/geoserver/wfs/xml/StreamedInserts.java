@@ -0,0 +1,162 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.xml;
+
+import java.io.File;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.namespace.QName;
+import org.geoserver.wfs.request.Insert;
+import org.geoserver.wfs.request.TransactionElement;
+import org.geoserver.wfs.request.TransactionRequest;
+import org.geoserver.wfs.xml.StreamingTransactionReader.DocumentParser;
+
+/**
+ * The features of the inserts of a streamed transaction, kept on disk in chunks until the insert
+ * gets executed. Attached to the transaction request as an extended property, see {@link
+ * #get(TransactionRequest)}.
+ */
+public class StreamedInserts {
+
+    static final String KEY = StreamedInserts.class.getName();
+
+    final File directory;
+
+    final DocumentParser parser;
+
+    final List<StreamedInsert> inserts = new ArrayList<>();
+
+    final Map<Object, StreamedInsert> byElement = new IdentityHashMap<>();
+
+    int chunks;
+
+    StreamedInserts(File directory, DocumentParser parser) {
+        this.directory = directory;
+        this.parser = parser;
+    }
+
+    /** Returns the streamed inserts of the request, or null if the request was not streamed */
+    public static StreamedInserts get(TransactionRequest request) {
+        Map properties = request.getExtendedProperties();
+        if (properties == null) {
+            return null;
+        }
+        Object inserts = properties.get(KEY);
+        return inserts instanceof StreamedInserts ? (StreamedInserts) inserts : null;
+    }
+
+    /** Returns the features of the insert, or null if they are not streamed */
+    public StreamedInsert get(Insert insert) {
+        return byElement.get(insert.getAdaptee());
+    }
+
+    StreamedInsert newInsert() {
+        StreamedInsert insert = new StreamedInsert();
+        inserts.add(insert);
+        return insert;
+    }
+
+    /** Associates the inserts of the parsed transaction, in document order, with their features */
+    @SuppressWarnings("unchecked")
+    void attach(Object parsed) {
+        TransactionRequest request = TransactionRequest.adapt(parsed);
+        if (request == null) {
+            throw new IllegalArgumentException("Not a transaction: " + parsed);
+        }
+        int i = 0;
+        for (TransactionElement element : request.getElements()) {
+            if (element instanceof Insert) {
+                if (i >= inserts.size()) {
+                    throw new IllegalStateException(
+                            "The transaction contains more inserts than the ones streamed");
+                }
+                byElement.put(element.getAdaptee(), inserts.get(i++));
+            }
+        }
+
+        Map properties = request.getExtendedProperties();
+        if (properties == null) {
+            properties = new HashMap<>();
+            if (parsed instanceof net.opengis.wfs.TransactionType) {
+                ((net.opengis.wfs.TransactionType) parsed).setExtendedProperties(properties);
+            } else {
+                ((net.opengis.wfs20.TransactionType) parsed).setExtendedProperties(properties);
+            }
+        }
+        properties.put(KEY, this);
+    }
+
+    /** Removes the chunks left on disk */
+    public void dispose() {
+        StreamingTransactionReader.delete(directory);
+    }
+
+    /** The features of a single insert */
+    public class StreamedInsert {
+
+        final Set<QName> typeNames = new LinkedHashSet<>();
+
+        final List<File> chunkFiles = new ArrayList<>();
+
+        int featureCount;
+
+        File newChunk() {
+            File chunk = new File(directory, "chunk-" + (chunks++) + ".xml");
+            chunkFiles.add(chunk);
+            return chunk;
+        }
+
+        void addTypeName(QName typeName) {
+            typeNames.add(typeName);
+        }
+
+        void setFeatureCount(int featureCount) {
+            this.featureCount = featureCount;
+        }
+
+        /** The names of the features in the insert, as found in the request */
+        public Set<QName> getTypeNames() {
+            return Collections.unmodifiableSet(typeNames);
+        }
+
+        /** The chunk files, in document order */
+        public List<File> getChunks() {
+            return Collections.unmodifiableList(chunkFiles);
+        }
+
+        /** The number of features in the insert */
+        public int getFeatureCount() {
+            return featureCount;
+        }
+
+        /** Parses the features of a chunk, the chunk file is removed afterwards */
+        public List parseChunk(File chunk) throws Exception {
+            try (Reader reader = Files.newBufferedReader(chunk.toPath(), StandardCharsets.UTF_8)) {
+                Object parsed = parser.parse(reader);
+                TransactionRequest request = TransactionRequest.adapt(parsed);
+                if (request == null) {
+                    throw new IllegalStateException("Could not parse " + chunk);
+                }
+                for (TransactionElement element : request.getElements()) {
+                    if (element instanceof Insert) {
+                        return ((Insert) element).getFeatures();
+                    }
+                }
+                return Collections.emptyList();
+            } finally {
+                Files.deleteIfExists(chunk.toPath());
+            }
+        }
+    }
+}
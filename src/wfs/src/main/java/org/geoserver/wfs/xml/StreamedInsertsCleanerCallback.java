@@ -0,0 +1,45 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.xml;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.geoserver.ows.AbstractDispatcherCallback;
+import org.geoserver.ows.Request;
+
+/**
+ * Removes the insert chunks of streamed transactions when the request ends, including the requests
+ * failing before the transaction gets executed
+ */
+public class StreamedInsertsCleanerCallback extends AbstractDispatcherCallback {
+
+    static final ThreadLocal<List<StreamedInserts>> inserts =
+            new ThreadLocal<List<StreamedInserts>>();
+
+    /** Schedules the streamed inserts for removal at the end of the request */
+    public static void addInserts(StreamedInserts streamed) {
+        if (streamed == null) {
+            return;
+        }
+
+        List<StreamedInserts> list = inserts.get();
+        if (list == null) {
+            list = new ArrayList<StreamedInserts>();
+            inserts.set(list);
+        }
+        list.add(streamed);
+    }
+
+    @Override
+    public void finished(Request request) {
+        List<StreamedInserts> list = inserts.get();
+        if (list != null) {
+            inserts.remove();
+            for (StreamedInserts streamed : list) {
+                streamed.dispose();
+            }
+        }
+    }
+}
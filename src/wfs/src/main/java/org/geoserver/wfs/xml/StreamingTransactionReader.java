@@ -0,0 +1,301 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.xml;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.servlet.http.HttpServletRequest;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import org.apache.commons.io.FileUtils;
+import org.geoserver.ows.Dispatcher;
+import org.geoserver.ows.Request;
+import org.geoserver.util.IOUtils;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Reads large transaction requests without building the whole feature tree in memory.
+ *
+ * <p>The request body is spooled to disk and split in a single StAX pass: the transaction, with
+ * empty insert elements, is parsed as usual, while the features of each insert are written out in
+ * chunks of {@link #CHUNK_SIZE_KEY} features, each chunk being a small transaction document on its
+ * own. The chunks are parsed one at a time while the insert gets executed, see {@link
+ * StreamedInserts}, so the memory used is bounded by the chunk size rather than by the request
+ * size. The transaction is still executed as a whole, and rolled back if any chunk fails. The
+ * chunks left on disk are removed at the end of the request, see {@link
+ * StreamedInsertsCleanerCallback}.
+ *
+ * <p>Used for WFS 1.1 and 2.0 transactions whose payload is larger than {@link #THRESHOLD_KEY}
+ * bytes, when configured. {@link org.geoserver.wfs.TransactionCallback} implementations see the
+ * inserts of streamed transactions as empty, as their features are only parsed while the insert
+ * gets executed, which is why streaming is disabled by default. DTDs are not supported in streamed
+ * requests.
+ */
+public class StreamingTransactionReader {
+
+    static final Logger LOGGER = Logging.getLogger(StreamingTransactionReader.class);
+
+    /**
+     * System variable controlling the payload size, in bytes, above which transactions are
+     * streamed. Zero or negative (the default) disables streaming
+     */
+    public static final String THRESHOLD_KEY = "org.geoserver.wfs.transaction.streamingThreshold";
+
+    /** System variable controlling the number of features parsed at once, 1000 by default */
+    public static final String CHUNK_SIZE_KEY = "org.geoserver.wfs.transaction.streamingChunkSize";
+
+    static final String TRANSACTION = "Transaction";
+
+    static final String INSERT = "Insert";
+
+    /** Parses a transaction document */
+    public interface DocumentParser {
+        Object parse(Reader reader) throws Exception;
+    }
+
+    private final long threshold;
+
+    private final int chunkSize;
+
+    public StreamingTransactionReader() {
+        this(Long.getLong(THRESHOLD_KEY, 0), Integer.getInteger(CHUNK_SIZE_KEY, 1000));
+    }
+
+    StreamingTransactionReader(long threshold, int chunkSize) {
+        this.threshold = threshold;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    /**
+     * Returns true if the request being dispatched is a transaction large enough to be streamed
+     *
+     * @param element the element the request reader is parsing
+     */
+    public boolean isStreamingRequired(QName element) {
+        if (threshold <= 0 || !TRANSACTION.equals(element.getLocalPart())) {
+            return false;
+        }
+        Request request = Dispatcher.REQUEST.get();
+        HttpServletRequest httpRequest = request != null ? request.getHttpRequest() : null;
+        if (httpRequest == null) {
+            return false;
+        }
+        // servlet 3.0 getContentLength() is an int, large payloads need the header
+        String contentLength = httpRequest.getHeader("Content-Length");
+        if (contentLength == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(contentLength.trim()) > threshold;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the transaction, leaving the insert features on disk to be parsed while executing
+     *
+     * @param reader the request body
+     * @param parser the parser used for the transaction and the insert chunks
+     */
+    public Object read(Reader reader, DocumentParser parser) throws Exception {
+        File directory = IOUtils.createTempDirectory("wfstx");
+        StreamedInserts inserts = new StreamedInserts(directory, parser);
+        StreamedInsertsCleanerCallback.addInserts(inserts);
+        try {
+            File body = new File(directory, "request.xml");
+            try (Writer writer = Files.newBufferedWriter(body.toPath(), StandardCharsets.UTF_8)) {
+                org.apache.commons.io.IOUtils.copyLarge(reader, writer);
+            }
+
+            String transaction = split(body, inserts);
+            Files.delete(body.toPath());
+
+            Object parsed = parser.parse(new StringReader(transaction));
+            inserts.attach(parsed);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Streaming transaction, inserts split in " + directory);
+            }
+            return parsed;
+        } catch (Exception e) {
+            inserts.dispose();
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the transaction in a string, leaving the inserts empty, and writes out the features of
+     * each insert in chunks
+     */
+    String split(File body, StreamedInserts inserts) throws IOException, XMLStreamException {
+        XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+        StringWriter transaction = new StringWriter();
+        XMLEventWriter out = outputFactory.createXMLEventWriter(transaction);
+        try (BufferedReader input =
+                Files.newBufferedReader(body.toPath(), StandardCharsets.UTF_8)) {
+            XMLEventReader in = inputFactory.createXMLEventReader(input);
+            StartElement root = null;
+            int depth = 0;
+            while (in.hasNext()) {
+                XMLEvent event = in.nextEvent();
+                if (event.isStartDocument() || event.isEndDocument()) {
+                    // the encoding is no longer the declared one
+                    continue;
+                }
+                if (event.isStartElement() && root == null) {
+                    root = event.asStartElement();
+                    out.add(event);
+                    depth++;
+                } else if (event.isStartElement() && depth == 1 && isInsert(event, root)) {
+                    StartElement insert = event.asStartElement();
+                    // keep the insert, without its contents
+                    out.add(insert);
+                    splitInsert(in, root, insert, inserts.newInsert(), outputFactory);
+                    out.add(in.nextEvent());
+                } else {
+                    if (event.isStartElement()) {
+                        depth++;
+                    } else if (event.isEndElement()) {
+                        depth--;
+                    }
+                    out.add(event);
+                }
+            }
+            in.close();
+        } finally {
+            out.close();
+        }
+        return transaction.toString();
+    }
+
+    private boolean isInsert(XMLEvent event, StartElement root) {
+        QName name = event.asStartElement().getName();
+        return INSERT.equals(name.getLocalPart())
+                && root.getName().getNamespaceURI().equals(name.getNamespaceURI());
+    }
+
+    /** Writes the features of an insert in chunks, stops right before the insert end element */
+    private void splitInsert(
+            XMLEventReader in,
+            StartElement root,
+            StartElement insert,
+            StreamedInserts.StreamedInsert streamed,
+            XMLOutputFactory outputFactory)
+            throws IOException, XMLStreamException {
+        Chunk chunk = null;
+        int features = 0;
+        try {
+            while (in.hasNext()) {
+                XMLEvent event = in.peek();
+                if (event.isEndElement()) {
+                    // end of the insert
+                    break;
+                }
+                in.nextEvent();
+                if (!event.isStartElement()) {
+                    // whitespace and comments between features
+                    continue;
+                }
+                if (chunk == null) {
+                    chunk = new Chunk(streamed.newChunk(), root, insert, outputFactory);
+                }
+                StartElement feature = event.asStartElement();
+                streamed.addTypeName(feature.getName());
+                copyElement(feature, in, chunk.writer);
+                features++;
+                if (features % chunkSize == 0) {
+                    chunk.close();
+                    chunk = null;
+                }
+            }
+        } finally {
+            if (chunk != null) {
+                chunk.close();
+            }
+        }
+        streamed.setFeatureCount(features);
+    }
+
+    /** Copies the element, whose start event has already been read, and all its contents */
+    private void copyElement(StartElement start, XMLEventReader in, XMLEventWriter out)
+            throws XMLStreamException {
+        out.add(start);
+        int depth = 1;
+        while (depth > 0) {
+            XMLEvent event = in.nextEvent();
+            if (event.isStartElement()) {
+                depth++;
+            } else if (event.isEndElement()) {
+                depth--;
+            }
+            out.add(event);
+        }
+    }
+
+    /** A chunk of features, wrapped in a transaction with a single insert */
+    static class Chunk {
+
+        static final XMLEventFactory EVENTS = XMLEventFactory.newInstance();
+
+        final Writer fileWriter;
+
+        final XMLEventWriter writer;
+
+        final StartElement root;
+
+        final StartElement insert;
+
+        Chunk(File file, StartElement root, StartElement insert, XMLOutputFactory factory)
+                throws IOException, XMLStreamException {
+            this.root = root;
+            this.insert = insert;
+            this.fileWriter = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+            this.writer = factory.createXMLEventWriter(fileWriter);
+            // the original elements carry the namespace declarations the features might use
+            writer.add(root);
+            writer.add(insert);
+        }
+
+        void close() throws IOException, XMLStreamException {
+            try {
+                writer.add(EVENTS.createEndElement(insert.getName(), null));
+                writer.add(EVENTS.createEndElement(root.getName(), null));
+                writer.flush();
+            } finally {
+                writer.close();
+                fileWriter.close();
+            }
+        }
+    }
+
+    /** Removes the directory, logging failures */
+    static void delete(File directory) {
+        try {
+            FileUtils.deleteDirectory(directory);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete " + directory, e);
+        }
+    }
+}
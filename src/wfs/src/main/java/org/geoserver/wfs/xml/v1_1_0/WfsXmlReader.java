@@ -12,6 +12,7 @@ import org.geoserver.config.GeoServer;
 import org.geoserver.ows.XmlRequestReader;
 import org.geoserver.util.EntityResolverProvider;
 import org.geoserver.wfs.WFSInfo;
+import org.geoserver.wfs.xml.StreamingTransactionReader;
 import org.geoserver.wfs.xml.WFSXmlUtils;
 import org.geotools.util.Version;
 import org.geotools.xsd.Configuration;
@@ -52,6 +53,14 @@ public class WfsXmlReader extends XmlRequestReader {
     }
 
     public Object read(Object request, Reader reader, Map kvp) throws Exception {
+        StreamingTransactionReader streaming = new StreamingTransactionReader();
+        if (streaming.isStreamingRequired(getElement())) {
+            return streaming.read(reader, r -> parse(r, kvp));
+        }
+        return parse(reader, kvp);
+    }
+
+    Object parse(Reader reader, Map kvp) throws Exception {
         Parser parser = new Parser(configuration);
         parser.setStrict(false);
         parser.setEntityResolver(entityResolverProvider.getEntityResolver());
@@ -15,6 +15,7 @@ import org.geoserver.util.EntityResolverProvider;
 import org.geoserver.wfs.WFSException;
 import org.geoserver.wfs.WFSInfo;
 import org.geoserver.wfs.xml.FeatureTypeSchemaBuilder;
+import org.geoserver.wfs.xml.StreamingTransactionReader;
 import org.geoserver.wfs.xml.WFSXmlUtils;
 import org.geotools.util.Version;
 import org.geotools.wfs.v2_0.WFS;
@@ -38,6 +39,14 @@ public class WfsXmlReader extends XmlRequestReader {
 
     @Override
     public Object read(Object request, Reader reader, Map kvp) throws Exception {
+        StreamingTransactionReader streaming = new StreamingTransactionReader();
+        if (streaming.isStreamingRequired(getElement())) {
+            return streaming.read(reader, r -> parse(r, kvp));
+        }
+        return parse(reader, kvp);
+    }
+
+    Object parse(Reader reader, Map kvp) throws Exception {
         WFSConfiguration config = new WFSConfiguration();
         WFSXmlUtils.initWfsConfiguration(config, gs, new FeatureTypeSchemaBuilder.GML32(gs));
 
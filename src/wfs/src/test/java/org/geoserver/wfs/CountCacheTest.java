@@ -0,0 +1,152 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.geoserver.data.test.MockData;
+import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.filter.text.ecql.ECQL;
+import org.junit.After;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class CountCacheTest extends WFSTestSupport {
+
+    CountCache cache;
+
+    @After
+    public void removeCache() {
+        if (cache != null) {
+            getCatalog().removeListener(cache);
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testCachedAndInvalidated() throws Exception {
+        cache = new CountCache(getGeoServer(), 10, 600, 0, 2);
+        FeatureSource source = getFeatureSource(MockData.BUILDINGS);
+        Query query = new Query(null, ECQL.toFilter("ADDRESS LIKE '%Main%'"));
+        int count = source.getFeatures(query).size();
+
+        assertEquals(count, cache.getCount(source, query));
+        assertEquals(1, cache.size());
+        // same filter, parsed again, hits the cache
+        Query same = new Query(null, ECQL.toFilter("ADDRESS LIKE '%Main%'"));
+        assertEquals(count, cache.getCount(source, same));
+        assertEquals(1, cache.size());
+
+        // a transaction on another type leaves the count alone
+        cache.dataStoreChange(
+                new TransactionEvent(
+                        TransactionEventType.POST_INSERT, null, MockData.BRIDGES, null));
+        assertEquals(1, cache.size());
+
+        // a transaction on the type drops it
+        cache.dataStoreChange(
+                new TransactionEvent(
+                        TransactionEventType.POST_INSERT, null, MockData.BUILDINGS, null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        cache = new CountCache(getGeoServer(), 0, 600, 0, 2);
+        FeatureSource source = getFeatureSource(MockData.BUILDINGS);
+        assertEquals(source.getFeatures().size(), cache.getCount(source, Query.ALL));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTimeBudget() throws Exception {
+        cache = new CountCache(getGeoServer(), 10, 600, 50, 2);
+        AtomicInteger counts = new AtomicInteger();
+        FeatureSource source = slowSource(getFeatureSource(MockData.BUILDINGS), 500, counts);
+
+        // too slow, reported as unknown
+        assertEquals(CountCache.COUNT_UNKNOWN, cache.getCount(source, Query.ALL));
+        // the count completes in background and gets cached, without being run again
+        long start = System.currentTimeMillis();
+        while (cache.size() == 0 && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(50);
+        }
+        assertEquals(2, cache.getCount(source, Query.ALL));
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    public void testConcurrentCountsShared() throws Exception {
+        cache = new CountCache(getGeoServer(), 10, 600, 0, 2);
+        AtomicInteger counts = new AtomicInteger();
+        FeatureSource source = slowSource(getFeatureSource(MockData.BUILDINGS), 500, counts);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> first = executor.submit(() -> cache.getCount(source, Query.ALL));
+            Future<Integer> second = executor.submit(() -> cache.getCount(source, Query.ALL));
+            assertEquals(2, first.get().intValue());
+            assertEquals(2, second.get().intValue());
+        } finally {
+            executor.shutdown();
+        }
+        // the second request waited for the count of the first one
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    public void testBackgroundCountsBounded() throws Exception {
+        cache = new CountCache(getGeoServer(), 10, 600, 10, 1);
+        AtomicInteger counts = new AtomicInteger();
+        FeatureSource source = slowSource(getFeatureSource(MockData.BUILDINGS), 30000, counts);
+
+        // fill the only thread and the queue with different counts
+        for (int i = 0; i <= CountCache.QUEUE_SIZE; i++) {
+            Query query = new Query(null, ECQL.toFilter("ADDRESS LIKE '%" + i + "%'"));
+            assertEquals(CountCache.COUNT_UNKNOWN, cache.getCount(source, query));
+        }
+        // the pool is saturated, the count is not even started
+        Query query = new Query(null, ECQL.toFilter("ADDRESS LIKE '%Main%'"));
+        assertEquals(CountCache.COUNT_UNKNOWN, cache.getCount(source, query));
+        assertFalse(cache.running.containsKey(cache.getKey(source, query)));
+        assertEquals(1, counts.get());
+    }
+
+    /** Wraps the source into one whose collections take the given time to count */
+    private FeatureSource slowSource(
+            SimpleFeatureSource delegate, long delay, AtomicInteger counts) {
+        SimpleFeatureType schema = delegate.getSchema();
+        return (FeatureSource)
+                Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class[] {SimpleFeatureSource.class},
+                        (proxy, method, args) -> {
+                            if ("getFeatures".equals(method.getName())) {
+                                return new ListFeatureCollection(schema) {
+                                    @Override
+                                    public int size() {
+                                        counts.incrementAndGet();
+                                        try {
+                                            Thread.sleep(delay);
+                                            return delegate.getFeatures().size();
+                                        } catch (Exception e) {
+                                            throw new RuntimeException(e);
+                                        }
+                                    }
+                                };
+                            }
+                            return method.invoke(delegate, args);
+                        });
+    }
+}
@@ -0,0 +1,149 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.feature.collection.DecoratingSimpleFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class FeaturePrefetcherTest {
+
+    ExecutorService executor;
+
+    SimpleFeatureType schema;
+
+    /** Number of iterators currently open */
+    AtomicInteger open = new AtomicInteger();
+
+    /** Max number of iterators open at the same time */
+    AtomicInteger maxOpen = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("test");
+        tb.add("value", Integer.class);
+        schema = tb.buildFeatureType();
+    }
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOrderAndContents() throws Exception {
+        FeaturePrefetcher prefetcher = new FeaturePrefetcher(executor, 2, 3);
+        List<SimpleFeatureCollection> collections = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            collections.add(
+                    (SimpleFeatureCollection) prefetcher.prefetch(collection(i * 10, i + 1)));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            List<Integer> values = new ArrayList<>();
+            try (SimpleFeatureIterator it = collections.get(i).features()) {
+                while (it.hasNext()) {
+                    values.add((Integer) it.next().getAttribute("value"));
+                }
+            }
+            // buffered and live features, in order
+            List<Integer> expected = new ArrayList<>();
+            for (int j = 0; j < i + 1; j++) {
+                expected.add(i * 10 + j);
+            }
+            assertEquals(expected, values);
+        }
+        prefetcher.dispose();
+
+        assertEquals(0, open.get());
+        assertTrue(maxOpen.get() <= 2);
+        assertEquals(5, prefetcher.getQueryTimes().size());
+    }
+
+    @Test
+    public void testDisposeUnconsumed() throws Exception {
+        FeaturePrefetcher prefetcher = new FeaturePrefetcher(executor, 3, 2);
+        for (int i = 0; i < 3; i++) {
+            prefetcher.prefetch(collection(0, 10));
+        }
+        // let the background reads complete, they keep the iterators open
+        waitFor(() -> open.get() == 3);
+        prefetcher.dispose();
+        waitFor(() -> open.get() == 0);
+        assertEquals(0, open.get());
+    }
+
+    @Test
+    public void testDisabled() {
+        assertFalse(new FeaturePrefetcher(executor, 1, 10).isEnabled());
+        assertTrue(new FeaturePrefetcher(executor, 2, 10).isEnabled());
+    }
+
+    private void waitFor(BooleanSupplier condition) throws Exception {
+        long start = System.currentTimeMillis();
+        while (!condition.getAsBoolean() && System.currentTimeMillis() - start < 10000) {
+            Thread.sleep(10);
+        }
+    }
+
+    /** Builds a collection with the given number of features, tracking its open iterators */
+    private SimpleFeatureCollection collection(int start, int count) {
+        ListFeatureCollection features = new ListFeatureCollection(schema);
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(schema);
+        for (int i = 0; i < count; i++) {
+            fb.add(start + i);
+            features.add(fb.buildFeature(null));
+        }
+        return new DecoratingSimpleFeatureCollection(features) {
+            @Override
+            public SimpleFeatureIterator features() {
+                SimpleFeatureIterator delegate = super.features();
+                maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                return new SimpleFeatureIterator() {
+                    boolean closed;
+
+                    @Override
+                    public boolean hasNext() {
+                        return delegate.hasNext();
+                    }
+
+                    @Override
+                    public SimpleFeature next() {
+                        return delegate.next();
+                    }
+
+                    @Override
+                    public void close() {
+                        if (!closed) {
+                            closed = true;
+                            open.decrementAndGet();
+                            delegate.close();
+                        }
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,139 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.filter.text.ecql.ECQL;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory;
+import org.opengis.filter.sort.SortBy;
+import org.opengis.filter.sort.SortOrder;
+
+public class PagingCursorTest {
+
+    static final FilterFactory FF = CommonFactoryFinder.getFilterFactory(null);
+
+    @Test
+    public void testEncodeDecode() {
+        PagingCursor cursor = new PagingCursor(20, 2, Arrays.asList("10", "a.b c/é"));
+        PagingCursor decoded = PagingCursor.decode(cursor.encode());
+        assertEquals(cursor, decoded);
+        assertTrue(decoded.isKeyset());
+        assertEquals(2, decoded.getOffset());
+
+        PagingCursor position = new PagingCursor(30, 0, null);
+        decoded = PagingCursor.decode(position.encode());
+        assertEquals(position, decoded);
+        assertFalse(decoded.isKeyset());
+        assertEquals(30, decoded.getOffset());
+    }
+
+    @Test
+    public void testDecodeInvalid() {
+        for (String cursor : Arrays.asList("notACursor", "", "MS4tMS4w", "Mi4xLjA")) {
+            try {
+                PagingCursor.decode(cursor);
+                fail("Should have failed on " + cursor);
+            } catch (IllegalArgumentException e) {
+                // fine
+            }
+        }
+    }
+
+    @Test
+    public void testSupported() {
+        assertFalse(PagingCursor.isSupported(null));
+        assertFalse(PagingCursor.isSupported(Collections.emptyList()));
+        assertFalse(PagingCursor.isSupported(Collections.singletonList(SortBy.NATURAL_ORDER)));
+        assertTrue(
+                PagingCursor.isSupported(
+                        Collections.singletonList(FF.sort("a", SortOrder.ASCENDING))));
+    }
+
+    @Test
+    public void testSupportedNillable() {
+        SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
+        tb.setName("test");
+        tb.nillable(false);
+        tb.add("a", Integer.class);
+        tb.add("b", String.class);
+        SimpleFeatureType schema = tb.buildFeatureType();
+
+        List<SortBy> notNull = Collections.singletonList(FF.sort("a", SortOrder.ASCENDING));
+        assertTrue(PagingCursor.isSupported(notNull, schema));
+        // nulls would be skipped by the seek filter
+        List<SortBy> nillable =
+                Arrays.asList(FF.sort("a", SortOrder.ASCENDING), FF.sort("b", SortOrder.ASCENDING));
+        assertFalse(PagingCursor.isSupported(nillable, schema));
+        assertFalse(
+                PagingCursor.isSupported(
+                        Collections.singletonList(FF.sort("c", SortOrder.ASCENDING)), schema));
+        try {
+            new PagingCursor(10, 1, Arrays.asList("10", "x")).toFilter(nillable, schema);
+            fail("Should have refused the nillable sort attribute");
+        } catch (IllegalArgumentException e) {
+            // fine
+        }
+    }
+
+    @Test
+    public void testPageKeys() {
+        PagingCursor.PageKeys keys = new PagingCursor.PageKeys();
+        keys.add(Arrays.asList("1"));
+        keys.add(Arrays.asList("2"));
+        keys.add(Arrays.asList("2"));
+        assertEquals(3, keys.getCount());
+        assertEquals(new PagingCursor(13, 2, Arrays.asList("2")), keys.next(null, 13));
+
+        // a page made only of ties of the previous page key skips those too
+        PagingCursor previous = new PagingCursor(10, 1, Arrays.asList("2"));
+        keys = new PagingCursor.PageKeys();
+        keys.add(Arrays.asList("2"));
+        keys.add(Arrays.asList("2"));
+        assertEquals(new PagingCursor(12, 3, Arrays.asList("2")), keys.next(previous, 12));
+
+        // a null key cannot be turned into a filter
+        keys = new PagingCursor.PageKeys();
+        keys.add(Arrays.asList((String) null));
+        assertEquals(PagingCursor.position(11), keys.next(null, 11));
+    }
+
+    @Test
+    public void testSeekFilter() throws Exception {
+        List<SortBy> sortBy =
+                Arrays.asList(
+                        FF.sort("a", SortOrder.ASCENDING), FF.sort("b", SortOrder.DESCENDING));
+        PagingCursor cursor = new PagingCursor(10, 1, Arrays.asList("10", "x"));
+        Filter a = FF.equals(FF.property("a"), FF.literal("10"));
+        Filter b = FF.equals(FF.property("b"), FF.literal("x"));
+        Filter expected =
+                FF.or(
+                        Arrays.asList(
+                                FF.greater(FF.property("a"), FF.literal("10")),
+                                FF.and(a, FF.less(FF.property("b"), FF.literal("x"))),
+                                FF.and(a, b)));
+        assertEquals(expected, cursor.toFilter(sortBy, null));
+
+        Filter filter = ECQL.toFilter("c = 1");
+        assertEquals(FF.and(filter, expected), cursor.seek(filter, sortBy, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeekFilterMismatch() {
+        PagingCursor cursor = new PagingCursor(10, 1, Arrays.asList("10", "x"));
+        cursor.toFilter(Collections.singletonList(FF.sort("a", SortOrder.ASCENDING)), null);
+    }
+}
@@ -179,4 +179,59 @@ public class TransactionListenerTest extends WFSTestSupport {
 
         assertEquals(2, listener.features.size());
     }
+
+    @Test
+    public void testBatchedInsert() throws Exception {
+        InsertElementHandler handler =
+                applicationContext.getBean("wfsInsertElementHandler", InsertElementHandler.class);
+        handler.setBatchSize(2);
+        try {
+            StringBuilder insert =
+                    new StringBuilder(
+                            "<wfs:Transaction service=\"WFS\" version=\"1.1.0\" "
+                                    + "xmlns:cgf=\"http://www.opengis.net/cite/geometry\" "
+                                    + "xmlns:ogc=\"http://www.opengis.net/ogc\" "
+                                    + "xmlns:wfs=\"http://www.opengis.net/wfs\" "
+                                    + "xmlns:gml=\"http://www.opengis.net/gml\"> "
+                                    + "<wfs:Insert handle=\"batched\">");
+            for (int i = 0; i < 3; i++) {
+                insert.append("<cgf:Lines>")
+                        .append("<cgf:lineStringProperty>")
+                        .append("<gml:LineString>")
+                        .append("<gml:posList>494475 543301 494982 543504</gml:posList>")
+                        .append("</gml:LineString>")
+                        .append("</cgf:lineStringProperty>")
+                        .append("<cgf:id>b000" + i + "</cgf:id>")
+                        .append("</cgf:Lines>");
+            }
+            insert.append("</wfs:Insert></wfs:Transaction>");
+
+            Document dom = postAsDOM("wfs", insert.toString());
+            assertEquals(
+                    "3",
+                    getFirstElementByTagName(dom, "wfs:totalInserted")
+                            .getFirstChild()
+                            .getNodeValue());
+            assertEquals(3, dom.getElementsByTagName("ogc:FeatureId").getLength());
+
+            // two batches, each one with its pre and post insert events
+            assertEquals(4, listener.events.size());
+            assertEquals(
+                    TransactionEventType.PRE_INSERT,
+                    ((TransactionEvent) listener.events.get(0)).getType());
+            assertEquals(
+                    TransactionEventType.POST_INSERT,
+                    ((TransactionEvent) listener.events.get(1)).getType());
+            assertEquals(
+                    TransactionEventType.PRE_INSERT,
+                    ((TransactionEvent) listener.events.get(2)).getType());
+            assertEquals(
+                    TransactionEventType.POST_INSERT,
+                    ((TransactionEvent) listener.events.get(3)).getType());
+            // 2 + 1 features, pre and post insert
+            assertEquals(6, listener.features.size());
+        } finally {
+            handler.setBatchSize(0);
+        }
+    }
 }
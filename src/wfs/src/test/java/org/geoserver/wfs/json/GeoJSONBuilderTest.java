@@ -10,7 +10,9 @@ import static org.junit.Assert.assertEquals;
 import java.io.StringWriter;
 import java.util.*;
 import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
+import net.sf.json.util.JSONBuilder;
 import org.junit.Before;
 import org.junit.Test;
 import org.locationtech.jts.geom.Coordinate;
@@ -488,6 +490,58 @@ public class GeoJSONBuilderTest {
                 writer.toString());
     }
 
+    @Test
+    public void testWriteStringEscapes() throws Exception {
+        builder.object();
+        builder.key("quote\"").value("a\"b\\c</d/e");
+        builder.key("controls").value("\t\n\r\b\f\u0001");
+        builder.key("unicode").value("\u00e8\u4e2d");
+        builder.key("empty").value("");
+        builder.endObject();
+        String expected =
+                "{\"quote\\\"\":\"a\\\"b\\\\c<\\/d/e\","
+                        + "\"controls\":\"\\t\\n\\r\\b\\f\\u0001\","
+                        + "\"unicode\":\"\u00e8\u4e2d\",\"empty\":\"\"}";
+        assertEquals(expected, writer.toString());
+        // same as the json-lib builder
+        StringWriter reference = new StringWriter();
+        new JSONBuilder(reference)
+                .object()
+                .key("quote\"")
+                .value("a\"b\\c</d/e")
+                .key("controls")
+                .value("\t\n\r\b\f\u0001")
+                .key("unicode")
+                .value("\u00e8\u4e2d")
+                .key("empty")
+                .value("")
+                .endObject();
+        assertEquals(reference.toString(), writer.toString());
+    }
+
+    @Test
+    public void testWriteMixedValues() throws Exception {
+        builder.array();
+        builder.value(Long.MIN_VALUE).value(-42).value(0).value(true).value(false);
+        builder.value((Object) null).value(1.5d).value(Short.valueOf((short) 7));
+        builder.object().key("a").value(1).key("b").array().endArray().endObject();
+        builder.endArray();
+        assertEquals(
+                "[" + Long.MIN_VALUE + ",-42,0,true,false,null,1.5,7,{\"a\":1,\"b\":[]}]",
+                writer.toString());
+    }
+
+    @Test(expected = JSONException.class)
+    public void testMisplacedKey() throws Exception {
+        builder.array().key("a");
+    }
+
+    @Test(expected = JSONException.class)
+    public void testNonFiniteCoordinate() throws Exception {
+        builder.writeGeom(
+                new GeometryFactory().createPoint(new Coordinate(Double.POSITIVE_INFINITY, 0)));
+    }
+
     /** Checks max json nested level should allow up to 100 by default. */
     @Test
     public void testMaxNestedLevel() {
@@ -4,6 +4,8 @@
  */
 package org.geoserver.wfs.json;
 
+import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -11,6 +13,7 @@ import static org.junit.Assert.assertThat;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Random;
+import net.sf.json.util.JSONUtils;
 import org.junit.Test;
 
 /**
@@ -94,4 +97,45 @@ public class RoundingUtilTest {
             }
         }
     }
+
+    @Test
+    public void testFormatSpecialCases() {
+        char[] buffer = new char[32];
+        assertThat(RoundingUtil.format(Double.NaN, 2, buffer, 0), is(-1));
+        assertThat(RoundingUtil.format(Double.POSITIVE_INFINITY, 2, buffer, 0), is(-1));
+        // scientific notation ranges
+        assertThat(RoundingUtil.format(1.2345678E7, 2, buffer, 0), is(-1));
+        assertThat(RoundingUtil.format(1E-4, 8, buffer, 0), is(-1));
+        // too many decimals
+        assertThat(RoundingUtil.format(1.5, 9, buffer, 0), is(-1));
+
+        assertThat(format(-0.0001, 3), is(equalTo("0")));
+        assertThat(format(-0.6, 0), is(equalTo("-1")));
+        assertThat(format(10.0501, 3), is(equalTo("10.05")));
+        assertThat(format(0.001, 3), is(equalTo("0.001")));
+        assertThat(format(-9999999.4, 0), is(equalTo("-9999999")));
+    }
+
+    @Test
+    public void testRandomFormatVsJSON() {
+        Random r = new Random();
+        char[] buffer = new char[32];
+        for (int i = 0; i < 10000; i++) {
+            double value = (r.nextDouble() - 0.5) * Math.pow(10, r.nextInt(12) - 4);
+            for (int numDecimals = 0; numDecimals <= 8; numDecimals++) {
+                int length = RoundingUtil.format(value, numDecimals, buffer, 0);
+                String expected = JSONUtils.numberToString(RoundingUtil.round(value, numDecimals));
+                if (length < 0) {
+                    assertThat(expected, anyOf(containsString("E"), containsString("e")));
+                } else {
+                    assertThat(new String(buffer, 0, length), is(equalTo(expected)));
+                }
+            }
+        }
+    }
+
+    private String format(double value, int numDecimals) {
+        char[] buffer = new char[32];
+        return new String(buffer, 0, RoundingUtil.format(value, numDecimals, buffer, 0));
+    }
 }
@@ -42,6 +42,7 @@ import org.geoserver.data.test.SystemTestData;
 import org.geoserver.platform.GeoServerExtensions;
 import org.geoserver.platform.GeoServerResourceLoader;
 import org.geoserver.platform.Operation;
+import org.geoserver.platform.ServiceException;
 import org.geoserver.platform.resource.Resources;
 import org.geoserver.wfs.WFSInfo;
 import org.geoserver.wfs.WFSTestSupport;
@@ -58,6 +59,7 @@ import org.geotools.geometry.jts.JTSFactoryFinder;
 import org.geotools.util.URLs;
 import org.junit.Before;
 import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.CoordinateXYZM;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
@@ -162,6 +164,8 @@ public class ShapeZipTest extends WFSTestSupport {
         checkShapefileIntegrity(
                 new String[] {"BasicPolygons"}, new ByteArrayInputStream(bos.toByteArray()));
         assertEquals("ISO-8859-15", getCharset(new ByteArrayInputStream(bos.toByteArray())));
+        checkFileContent(
+                "BasicPolygons.cpg", new ByteArrayInputStream(bos.toByteArray()), "ISO-8859-15");
     }
 
     @Test
@@ -559,6 +563,103 @@ public class ShapeZipTest extends WFSTestSupport {
                 get4326_ESRI_WKTContent());
     }
 
+    @Test
+    public void testMultipleCollectionsTempAreaReleased() throws Exception {
+        ShapeZipTempArea tempArea = new ShapeZipTempArea(1, 1000, 0);
+        ShapeZipOutputFormat zip =
+                new ShapeZipOutputFormat(getGeoServer(), getCatalog(), getResourceLoader());
+        zip.setTempArea(tempArea);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FeatureCollectionResponse fct =
+                FeatureCollectionResponse.adapt(WfsFactory.eINSTANCE.createFeatureCollectionType());
+        fct.getFeature().add(getFeatureSource(SystemTestData.BASIC_POLYGONS).getFeatures());
+        fct.getFeature().add(getFeatureSource(SystemTestData.BRIDGES).getFeatures());
+        zip.write(fct, bos, op);
+
+        checkShapefileIntegrity(
+                new String[] {"BasicPolygons", "Bridges"},
+                new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(0, tempArea.getActiveDumps());
+        // the slot has been released, a new dump can run
+        bos.reset();
+        zip.write(fct, bos, op);
+        assertEquals(0, tempArea.getActiveDumps());
+    }
+
+    @Test
+    public void testSameTypeCollections() throws Exception {
+        ShapeZipOutputFormat zip =
+                new ShapeZipOutputFormat(getGeoServer(), getCatalog(), getResourceLoader());
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        FeatureCollectionResponse fct =
+                FeatureCollectionResponse.adapt(WfsFactory.eINSTANCE.createFeatureCollectionType());
+        fct.getFeature().add(getFeatureSource(SystemTestData.BASIC_POLYGONS).getFeatures());
+        fct.getFeature().add(getFeatureSource(SystemTestData.BASIC_POLYGONS).getFeatures());
+        zip.write(fct, bos, op);
+
+        // the second shapefile gets renamed instead of being dropped
+        checkShapefileIntegrity(
+                new String[] {"BasicPolygons", "BasicPolygons_1"},
+                new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    @Test
+    public void testConcurrencyLimit() throws Exception {
+        ShapeZipTempArea tempArea = new ShapeZipTempArea(1, 10, 0);
+        ShapeZipOutputFormat zip =
+                new ShapeZipOutputFormat(getGeoServer(), getCatalog(), getResourceLoader());
+        zip.setTempArea(tempArea);
+        FeatureCollectionResponse fct =
+                FeatureCollectionResponse.adapt(WfsFactory.eINSTANCE.createFeatureCollectionType());
+        fct.getFeature().add(getFeatureSource(SystemTestData.BASIC_POLYGONS).getFeatures());
+
+        // another download is holding the only slot
+        File busy = tempArea.acquire();
+        try {
+            zip.write(fct, new ByteArrayOutputStream(), op);
+            fail("Should have failed, no dump slot available");
+        } catch (ServiceException e) {
+            assertTrue(e.getMessage().contains("Too many concurrent"));
+        } finally {
+            tempArea.release(busy);
+        }
+        assertFalse(busy.exists());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        zip.write(fct, bos, op);
+        checkShapefileIntegrity(
+                new String[] {"BasicPolygons"}, new ByteArrayInputStream(bos.toByteArray()));
+    }
+
+    @Test
+    public void testTempQuotaExceeded() throws Exception {
+        GeometryFactory gf = JTSFactoryFinder.getGeometryFactory();
+        SimpleFeatureType featureType =
+                DataUtilities.createType("quota", "name:String,geom:Point:4326");
+        SimpleFeatureBuilder fb = new SimpleFeatureBuilder(featureType);
+        List<SimpleFeature> features = new ArrayList<>();
+        for (int i = 0; i < ShapeZipOutputFormat.QUOTA_CHECK_INTERVAL * 2; i++) {
+            fb.add("point" + i);
+            fb.add(gf.createPoint(new Coordinate(i, i)));
+            features.add(fb.buildFeature(String.valueOf(i)));
+        }
+
+        ShapeZipTempArea tempArea = new ShapeZipTempArea(0, 0, 100);
+        ShapeZipOutputFormat zip =
+                new ShapeZipOutputFormat(getGeoServer(), getCatalog(), getResourceLoader());
+        zip.setTempArea(tempArea);
+        FeatureCollectionResponse fct =
+                FeatureCollectionResponse.adapt(WfsFactory.eINSTANCE.createFeatureCollectionType());
+        fct.getFeature().add(DataUtilities.collection(features));
+        try {
+            zip.write(fct, new ByteArrayOutputStream(), op);
+            fail("Should have failed, the temp area quota is exceeded");
+        } catch (ServiceException e) {
+            assertTrue(e.getMessage().contains("temporary disk space"));
+        }
+        assertEquals(0, tempArea.getActiveDumps());
+    }
+
     /**
      * Saves the feature source contents into a zipped shapefile, returns the output as a byte array
      */
@@ -702,6 +803,10 @@ public class ShapeZipTest extends WFSTestSupport {
                 // not part of the shapefile, it's the request dump
                 continue;
             }
+            if (name.toLowerCase().endsWith(".cpg")) {
+                // the code page, only written along with a charset
+                continue;
+            }
             assertTrue("Unexpected " + name, names.contains(name));
             names.remove(name);
             zis.closeEntry();
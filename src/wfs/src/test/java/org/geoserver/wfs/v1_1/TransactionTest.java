@@ -22,6 +22,7 @@ import org.geoserver.catalog.FeatureTypeInfo;
 import org.geoserver.data.test.CiteTestData;
 import org.geoserver.data.test.SystemTestData;
 import org.geoserver.wfs.WFSTestSupport;
+import org.geoserver.wfs.xml.StreamingTransactionReader;
 import org.geoserver.wfs.xml.WFSXmlUtils;
 import org.geoserver.wfs.xml.v1_1_0.WFS;
 import org.geotools.data.DataStore;
@@ -35,6 +36,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.io.WKTReader;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -507,6 +509,68 @@ public class TransactionTest extends WFSTestSupport {
         assertTrue(dom.getElementsByTagName("ogc:FeatureId").getLength() > 0);
     }
 
+    @Test
+    public void testStreamedInsert() throws Exception {
+        StringBuilder sb =
+                new StringBuilder(
+                        "<wfs:Transaction service=\"WFS\" version=\"1.1.0\" "
+                                + " xmlns:wfs=\"http://www.opengis.net/wfs\" "
+                                + " xmlns:gml=\"http://www.opengis.net/gml\" "
+                                + " xmlns:cite=\"http://www.opengis.net/cite\">"
+                                + "<wfs:Insert handle=\"streamed\">");
+        for (int i = 0; i < 5; i++) {
+            sb.append(
+                    " <cite:RoadSegments>"
+                            + "  <cite:the_geom>"
+                            + "<gml:MultiLineString srsName=\"EPSG:4326\">"
+                            + " <gml:lineStringMember><gml:LineString>"
+                            + "  <gml:posList>4.2582 52.0643 4.2584 52.0648</gml:posList>"
+                            + " </gml:LineString></gml:lineStringMember>"
+                            + "</gml:MultiLineString>"
+                            + "  </cite:the_geom>"
+                            + "  <cite:FID>streamed</cite:FID>"
+                            + "  <cite:NAME>road"
+                            + i
+                            + "</cite:NAME>"
+                            + " </cite:RoadSegments>");
+        }
+        sb.append("</wfs:Insert></wfs:Transaction>");
+        String xml = sb.toString();
+
+        // every request is large enough, and the features are parsed two at a time
+        System.setProperty(StreamingTransactionReader.THRESHOLD_KEY, "1");
+        System.setProperty(StreamingTransactionReader.CHUNK_SIZE_KEY, "2");
+        try {
+            MockHttpServletRequest request = createRequest("wfs");
+            request.setMethod("POST");
+            request.setContentType("application/xml");
+            request.setContent(xml.getBytes("UTF-8"));
+            request.addHeader("Content-Length", xml.getBytes("UTF-8").length);
+            Document dom = dom(new ByteArrayInputStream(dispatch(request).getContentAsByteArray()));
+            assertEquals("wfs:TransactionResponse", dom.getDocumentElement().getNodeName());
+            assertEquals(
+                    "5",
+                    getFirstElementByTagName(dom, "wfs:totalInserted")
+                            .getFirstChild()
+                            .getNodeValue());
+            assertEquals(5, dom.getElementsByTagName("ogc:FeatureId").getLength());
+        } finally {
+            System.clearProperty(StreamingTransactionReader.THRESHOLD_KEY);
+            System.clearProperty(StreamingTransactionReader.CHUNK_SIZE_KEY);
+        }
+
+        // all features made it, in order
+        Document dom =
+                getAsDOM(
+                        "wfs?version=1.1.0&request=getfeature&typename=cite:RoadSegments"
+                                + "&cql_filter=FID%3D'streamed'&sortBy=NAME");
+        NodeList names = dom.getElementsByTagName("cite:NAME");
+        assertEquals(5, names.getLength());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("road" + i, names.item(i).getTextContent());
+        }
+    }
+
     @Test
     public void testInsert2() throws Exception {
         String xml =
@@ -9,9 +9,11 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.net.URLDecoder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.custommonkey.xmlunit.XMLAssert;
@@ -21,6 +23,8 @@ import org.geoserver.catalog.DataStoreInfo;
 import org.geoserver.catalog.FeatureTypeInfo;
 import org.geoserver.data.test.SystemTestData;
 import org.geoserver.ows.util.KvpMap;
+import org.geoserver.wfs.PagingCursor;
+import org.geoserver.wfs.WFSInfo;
 import org.geotools.data.DataStore;
 import org.geotools.data.FeatureSource;
 import org.geotools.data.FeatureStore;
@@ -30,6 +34,7 @@ import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.FeatureIterator;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
 import org.geotools.feature.simple.SimpleFeatureTypeBuilder;
+import org.geotools.filter.text.ecql.ECQL;
 import org.geotools.filter.v2_0.FESConfiguration;
 import org.geotools.xsd.Parser;
 import org.junit.Test;
@@ -39,7 +44,10 @@ import org.opengis.filter.Filter;
 import org.opengis.filter.FilterFactory;
 import org.opengis.filter.Id;
 import org.opengis.filter.identity.Identifier;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 public class GetFeaturePagingTest extends WFS20TestSupport {
 
@@ -64,7 +72,9 @@ public class GetFeaturePagingTest extends WFS20TestSupport {
         DataStore store = (DataStore) ds.getDataStore(null);
         SimpleFeatureTypeBuilder tb = new SimpleFeatureTypeBuilder();
 
+        // not nillable, usable for keyset paging
         tb.init((SimpleFeatureType) fs1.getSchema());
+        tb.nillable(false);
         tb.add("num", Integer.class);
         tb.remove("boundedBy");
         store.createSchema(tb.buildFeatureType());
@@ -88,6 +98,20 @@ public class GetFeaturePagingTest extends WFS20TestSupport {
 
         ft = cb.buildFeatureType(fs);
         cat.add(ft);
+
+        // same as Fifteen, with null values in the sort attribute
+        tb.init((SimpleFeatureType) fs1.getSchema());
+        tb.setName("Nulls");
+        tb.add("num", Integer.class);
+        tb.remove("boundedBy");
+        store.createSchema(tb.buildFeatureType());
+
+        fs = (FeatureStore) store.getFeatureSource("Nulls");
+        addFeatures(fs, fs1.getFeatures());
+        fs.modifyFeatures("num", null, ECQL.toFilter("num IN (0, 4, 7, 14)"));
+
+        ft = cb.buildFeatureType(fs);
+        cat.add(ft);
     }
 
     void addFeatures(FeatureStore fs, FeatureCollection features) throws Exception {
@@ -718,4 +742,102 @@ public class GetFeaturePagingTest extends WFS20TestSupport {
         XMLAssert.assertXpathEvaluatesTo("0", "/wfs:FeatureCollection/@numberMatched", doc);
         XMLAssert.assertXpathEvaluatesTo("0", "/wfs:FeatureCollection/@numberReturned", doc);
     }
+
+    @Test
+    public void testKeysetPaging() throws Exception {
+        setKeysetPaging(true);
+        try {
+            String path =
+                    "wfs?service=WFS&version=2.0.0&request=GetFeature&typeName=gs:Fifteen"
+                            + "&sortBy=num DESC&count=4";
+            List<String> nums = new ArrayList<>();
+            int pages = 0;
+            while (path != null) {
+                Document doc = getAsDOM(path);
+                NodeList values = doc.getElementsByTagName("gs:num");
+                for (int i = 0; i < values.getLength(); i++) {
+                    nums.add(values.item(i).getTextContent());
+                }
+                pages++;
+                String next = doc.getDocumentElement().getAttribute("next");
+                if (next.isEmpty()) {
+                    path = null;
+                } else {
+                    KvpMap kvp = toKvpMap(next);
+                    assertNotNull(kvp.get("CURSOR"));
+                    assertNull(kvp.get("STARTINDEX"));
+                    assertEquals("4", kvp.get("COUNT"));
+                    path = next.substring(next.indexOf("wfs"));
+                }
+            }
+            // all features returned once, in order
+            assertEquals(4, pages);
+            List<String> expected = new ArrayList<>();
+            for (int i = 14; i >= 0; i--) {
+                expected.add(String.valueOf(i));
+            }
+            assertEquals(expected, nums);
+        } finally {
+            setKeysetPaging(false);
+        }
+    }
+
+    @Test
+    public void testKeysetPagingNullableSort() throws Exception {
+        setKeysetPaging(true);
+        try {
+            String path =
+                    "wfs?service=WFS&version=2.0.0&request=GetFeature&typeName=gs:Nulls"
+                            + "&sortBy=num ASC&count=4";
+            Set<String> ids = new HashSet<>();
+            while (path != null) {
+                Document doc = getAsDOM(path);
+                NodeList features = doc.getElementsByTagName("gs:Nulls");
+                for (int i = 0; i < features.getLength(); i++) {
+                    ids.add(((Element) features.item(i)).getAttribute("gml:id"));
+                }
+                String next = doc.getDocumentElement().getAttribute("next");
+                if (next.isEmpty()) {
+                    path = null;
+                } else {
+                    // a seek filter would skip the null values, offsets are used instead
+                    KvpMap kvp = toKvpMap(next);
+                    assertNull(kvp.get("CURSOR"));
+                    assertNotNull(kvp.get("STARTINDEX"));
+                    path = next.substring(next.indexOf("wfs"));
+                }
+            }
+            // all features returned, including the ones with a null sort value
+            assertEquals(15, ids.size());
+        } finally {
+            setKeysetPaging(false);
+        }
+    }
+
+    @Test
+    public void testKeysetPagingDisabled() throws Exception {
+        Document doc =
+                getAsDOM(
+                        "wfs?service=WFS&version=2.0.0&request=GetFeature&typeName=gs:Fifteen"
+                                + "&sortBy=num ASC&count=4");
+        String next = doc.getDocumentElement().getAttribute("next");
+        KvpMap kvp = toKvpMap(next);
+        assertNull(kvp.get("CURSOR"));
+        assertEquals("4", kvp.get("STARTINDEX"));
+    }
+
+    @Test
+    public void testInvalidCursor() throws Exception {
+        MockHttpServletResponse response =
+                getAsServletResponse(
+                        "wfs?service=WFS&version=2.0.0&request=GetFeature&typeName=gs:Fifteen"
+                                + "&sortBy=num ASC&count=4&cursor=notACursor");
+        checkOws20Exception(response, 400, "InvalidParameterValue", "cursor");
+    }
+
+    void setKeysetPaging(boolean enabled) {
+        WFSInfo wfs = getGeoServer().getService(WFSInfo.class);
+        wfs.getMetadata().put(PagingCursor.KEYSET_PAGING, enabled);
+        getGeoServer().save(wfs);
+    }
 }
@@ -0,0 +1,140 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.custommonkey.xmlunit.XMLUnit;
+import org.custommonkey.xmlunit.XpathEngine;
+import org.geoserver.data.test.MockData;
+import org.geoserver.wfs.WFSTestSupport;
+import org.junit.After;
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+public class GMLSimpleFeatureWriterTest extends WFSTestSupport {
+
+    @After
+    public void disableDirectEncoding() {
+        setDirectEncoding(false);
+    }
+
+    @Test
+    public void testGML31SameAsEncoder() throws Exception {
+        String request =
+                "wfs?request=GetFeature&version=1.1.0&service=wfs&typename="
+                        + getLayerId(MockData.BASIC_POLYGONS);
+        Document expected = getAsDOM(request);
+        setDirectEncoding(true);
+        Document actual = getAsDOM(request);
+
+        assertEquals("wfs:FeatureCollection", actual.getDocumentElement().getNodeName());
+        assertEquals(
+                expected.getDocumentElement().getAttribute("numberOfFeatures"),
+                actual.getDocumentElement().getAttribute("numberOfFeatures"));
+        assertSameValues(expected, actual, "//*[local-name()='BasicPolygons']/@gml:id");
+        assertSameValues(expected, actual, "//*[local-name()='posList']");
+        assertSameValues(
+                expected,
+                actual,
+                "//*[local-name()='the_geom']/*[local-name()='MultiSurface']/@srsName");
+    }
+
+    @Test
+    public void testGML32SameAsEncoder() throws Exception {
+        String request =
+                "wfs?request=GetFeature&version=2.0.0&service=wfs&typenames="
+                        + getLayerId(MockData.BUILDINGS);
+        Document expected = getAsDOM(request);
+        setDirectEncoding(true);
+        Document actual = getAsDOM(request);
+
+        assertEquals("FeatureCollection", actual.getDocumentElement().getLocalName());
+        assertEquals(
+                expected.getDocumentElement().getAttribute("numberMatched"),
+                actual.getDocumentElement().getAttribute("numberMatched"));
+        assertEquals(
+                expected.getDocumentElement().getAttribute("numberReturned"),
+                actual.getDocumentElement().getAttribute("numberReturned"));
+        assertSameValues(
+                expected, actual, "//*[local-name()='member']/*[local-name()='Buildings']/@*");
+        assertSameValues(expected, actual, "//*[local-name()='posList']");
+        assertSameValues(expected, actual, "//*[local-name()='ADDRESS']");
+    }
+
+    @Test
+    public void testTemporalSameAsEncoder() throws Exception {
+        String request =
+                "wfs?request=GetFeature&version=1.1.0&service=wfs&typename="
+                        + getLayerId(MockData.PRIMITIVEGEOFEATURE);
+        Document expected = getAsDOM(request);
+        setDirectEncoding(true);
+        Document actual = getAsDOM(request);
+
+        assertSameValues(expected, actual, "//*[local-name()='dateProperty']");
+        assertSameValues(expected, actual, "//*[local-name()='dateTimeProperty']");
+        assertSameValues(expected, actual, "//*[local-name()='decimalProperty']");
+    }
+
+    @Test
+    public void testGML32TemporalSameAsEncoder() throws Exception {
+        String request =
+                "wfs?request=GetFeature&version=2.0.0&service=wfs&typenames="
+                        + getLayerId(MockData.PRIMITIVEGEOFEATURE);
+        Document expected = getAsDOM(request);
+        setDirectEncoding(true);
+        Document actual = getAsDOM(request);
+
+        assertSameValues(expected, actual, "//*[local-name()='dateProperty']");
+        assertSameValues(expected, actual, "//*[local-name()='dateTimeProperty']");
+    }
+
+    @Test
+    public void testPointSrsDimension() throws Exception {
+        setDirectEncoding(true);
+        Document dom =
+                getAsDOM(
+                        "wfs?request=GetFeature&version=1.1.0&service=wfs&typename="
+                                + getLayerId(MockData.POINTS));
+        NodeList positions = dom.getElementsByTagName("gml:pos");
+        assertFalse(positions.getLength() == 0);
+        // the srsDimension is written as the encoder does
+        XpathEngine xpath = XMLUnit.newXpathEngine();
+        assertEquals(
+                "2",
+                xpath.evaluate(
+                        "//*[local-name()='pointProperty']/*[local-name()='Point']/@srsDimension",
+                        dom));
+    }
+
+    private void assertSameValues(Document expected, Document actual, String path)
+            throws Exception {
+        List<String> expectedValues = values(expected, path);
+        assertFalse(expectedValues.isEmpty());
+        assertEquals(expectedValues, values(actual, path));
+    }
+
+    private List<String> values(Document dom, String path) throws Exception {
+        NodeList nodes = XMLUnit.newXpathEngine().getMatchingNodes(path, dom);
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            result.add(nodes.item(i).getTextContent().trim());
+        }
+        return result;
+    }
+
+    private void setDirectEncoding(boolean enabled) {
+        applicationContext
+                .getBean("gml3OutputFormat", GML3OutputFormat.class)
+                .setDirectEncoding(enabled);
+        applicationContext
+                .getBean("gml32OutputFormat", GML3OutputFormat.class)
+                .setDirectEncoding(enabled);
+    }
+}
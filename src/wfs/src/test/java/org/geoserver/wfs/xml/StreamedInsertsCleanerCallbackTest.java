@@ -0,0 +1,37 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wfs.xml;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import net.opengis.wfs.WfsFactory;
+import org.geoserver.wfs.request.TransactionRequest;
+import org.junit.Test;
+
+public class StreamedInsertsCleanerCallbackTest {
+
+    @Test
+    public void testChunksRemovedAtRequestEnd() throws Exception {
+        String xml =
+                "<wfs:Transaction xmlns:wfs=\"http://www.opengis.net/wfs\" "
+                        + "xmlns:cite=\"http://www.opengis.net/cite\">"
+                        + "<wfs:Insert><cite:Points/><cite:Points/><cite:Points/></wfs:Insert>"
+                        + "</wfs:Transaction>";
+        StreamingTransactionReader reader = new StreamingTransactionReader(1, 2);
+        Object parsed =
+                reader.read(
+                        new StringReader(xml), r -> WfsFactory.eINSTANCE.createTransactionType());
+        StreamedInserts inserts = StreamedInserts.get(TransactionRequest.adapt(parsed));
+        assertNotNull(inserts);
+        assertTrue(inserts.directory.exists());
+
+        // the request fails before the transaction is executed, the chunks are removed anyways
+        new StreamedInsertsCleanerCallback().finished(null);
+        assertFalse(inserts.directory.exists());
+    }
+}
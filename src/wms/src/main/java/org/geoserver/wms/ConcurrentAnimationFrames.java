@@ -0,0 +1,268 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms;
+
+import java.awt.image.RenderedImage;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.media.jai.RenderedImageList;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.threadlocals.ThreadLocalsTransfer;
+import org.geotools.coverage.grid.GridCoverage2D;
+import org.geotools.util.logging.Logging;
+
+/**
+ * List of animation frames rendered concurrently on a shared executor. At most {@code parallelism}
+ * frames are rendered ahead of the one being consumed, and frames are returned in order, blocking
+ * until they are ready, so that the animation encoder can write each frame to the client as soon as
+ * it's available, while the next ones are still being rendered.
+ *
+ * <p>Frames are rendered in the executor threads, the request thread locals are transferred to
+ * them, and the images and coverages the rendering scheduled for cleanup are handed back to the
+ * {@link RasterCleaner} of the request thread when the frame is consumed. Once the list is
+ * cancelled or disposed, the frames rendered ahead are handed back as well, and the ones completing
+ * later are cleaned up by the rendering thread.
+ */
+class ConcurrentAnimationFrames extends AbstractList<RenderedImage> {
+
+    static final Logger LOGGER = Logging.getLogger(ConcurrentAnimationFrames.class);
+
+    /** A rendered frame, along with the resources to be cleaned up at the end of the request */
+    static class Frame {
+        final RenderedImage image;
+
+        final String mimeType;
+
+        long renderingTime;
+
+        List<RenderedImage> images;
+
+        List<GridCoverage2D> coverages;
+
+        Frame(RenderedImage image, String mimeType) {
+            this.image = image;
+            this.mimeType = mimeType;
+        }
+    }
+
+    private final ExecutorService executor;
+
+    private final int parallelism;
+
+    private final MaxAnimationTimeHelper timeHelper;
+
+    private final List<Callable<Frame>> renderers;
+
+    private final List<Long> renderingTimes;
+
+    private final Future<Frame>[] futures;
+
+    private final RenderedImage[] images;
+
+    /** Frames rendered and not consumed yet, also used as the lock guarding {@link #failed} */
+    private final Frame[] rendered;
+
+    private String mimeType;
+
+    private int submitted;
+
+    private boolean failed;
+
+    /**
+     * @param executor the executor rendering the frames
+     * @param parallelism the max number of frames rendered ahead of the one being consumed
+     * @param timeHelper the animation time limit
+     * @param renderers the frame renderers, in animation order
+     * @param renderingTimes receives the rendering time of each frame, as they get consumed
+     */
+    @SuppressWarnings("unchecked")
+    ConcurrentAnimationFrames(
+            ExecutorService executor,
+            int parallelism,
+            MaxAnimationTimeHelper timeHelper,
+            List<Callable<Frame>> renderers,
+            List<Long> renderingTimes) {
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.timeHelper = timeHelper;
+        this.renderers = renderers;
+        this.renderingTimes = renderingTimes;
+        this.futures = new Future[renderers.size()];
+        this.images = new RenderedImage[renderers.size()];
+        this.rendered = new Frame[renderers.size()];
+        fillWindow(0);
+    }
+
+    @Override
+    public int size() {
+        return renderers.size();
+    }
+
+    /**
+     * Returns the frame at the given position, waiting for it to be rendered. Once a frame failed
+     * to render the other frames not yet consumed are cancelled and returned as null, so that the
+     * images already rendered can still be cleaned up
+     */
+    @Override
+    public synchronized RenderedImage get(int index) {
+        if (images[index] != null || failed) {
+            return images[index];
+        }
+
+        fillWindow(index);
+        Frame frame;
+        try {
+            frame = futures[index].get(timeHelper.getResidualTime(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancel();
+            timeHelper.checkTimeout();
+            throw new ServiceException("Timed out waiting for animation frame " + index, e);
+        } catch (InterruptedException | CancellationException e) {
+            cancel();
+            throw new ServiceException("Rendering of animation frame " + index + " stopped", e);
+        } catch (ExecutionException e) {
+            cancel();
+            Throwable cause = e.getCause();
+            if (cause instanceof ServiceException) {
+                throw (ServiceException) cause;
+            }
+            throw new ServiceException("Failed to render animation frame " + index, cause);
+        }
+        futures[index] = null;
+        synchronized (rendered) {
+            rendered[index] = null;
+        }
+
+        release(frame);
+        renderingTimes.add(frame.renderingTime);
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Animation frame " + index + " rendered in " + frame.renderingTime + "ms");
+        }
+        if (mimeType == null) {
+            mimeType = frame.mimeType;
+        }
+        images[index] = frame.image;
+        return frame.image;
+    }
+
+    /** Hands back the resources of the frame to the request thread for cleanup */
+    private static void release(Frame frame) {
+        if (frame.images != null) {
+            frame.images.forEach(RasterCleaner::addImage);
+        }
+        if (frame.coverages != null) {
+            frame.coverages.forEach(RasterCleaner::addCoverage);
+        }
+    }
+
+    /** Returns the mime type of the frames, available once the first frame has been consumed */
+    String getMimeType() {
+        get(0);
+        return mimeType;
+    }
+
+    /**
+     * Wraps the frames in a {@link RenderedImageList}. The first frame is waited for, while the
+     * others are retrieved only when the encoder asks for them.
+     */
+    RenderedImageList toImageList() {
+        return new StreamingImageList(this);
+    }
+
+    /** Submits the frames up to {@code parallelism} positions past the given one */
+    private void fillWindow(int index) {
+        int limit = Math.min(renderers.size(), index + parallelism);
+        while (submitted < limit) {
+            futures[submitted] = submit(submitted);
+            submitted++;
+        }
+    }
+
+    private Future<Frame> submit(int index) {
+        Callable<Frame> renderer = renderers.get(index);
+        ThreadLocalsTransfer threadLocalTransfer = new ThreadLocalsTransfer();
+        return executor.submit(
+                () -> {
+                    threadLocalTransfer.apply();
+                    long start = System.currentTimeMillis();
+                    boolean handedOver = false;
+                    try {
+                        Frame frame = renderer.call();
+                        frame.renderingTime = System.currentTimeMillis() - start;
+                        frame.images = RasterCleaner.images.get();
+                        frame.coverages = RasterCleaner.coverages.get();
+                        synchronized (rendered) {
+                            if (!failed) {
+                                rendered[index] = frame;
+                                handedOver = true;
+                                return frame;
+                            }
+                        }
+                        // nobody is going to consume the frame
+                        RasterCleaner.addImage(frame.image);
+                        return null;
+                    } finally {
+                        if (!handedOver) {
+                            // failed or abandoned, clean up on this thread
+                            new RasterCleaner().finished(null);
+                        }
+                        RasterCleaner.images.remove();
+                        RasterCleaner.coverages.remove();
+                        threadLocalTransfer.cleanup();
+                    }
+                });
+    }
+
+    /**
+     * Stops rendering the frames not consumed yet, and hands back the resources of the ones already
+     * rendered to the request thread for cleanup. To be called once the encoding is done, whether
+     * it completed or not.
+     */
+    synchronized void dispose() {
+        cancel();
+    }
+
+    private void cancel() {
+        synchronized (rendered) {
+            failed = true;
+            for (int i = 0; i < rendered.length; i++) {
+                if (rendered[i] != null) {
+                    release(rendered[i]);
+                    RasterCleaner.addImage(rendered[i].image);
+                    rendered[i] = null;
+                }
+            }
+        }
+        for (int i = 0; i < futures.length; i++) {
+            if (futures[i] != null) {
+                futures[i].cancel(true);
+                futures[i] = null;
+            }
+        }
+    }
+
+    /**
+     * A {@link RenderedImageList} delegating to the concurrent frames, the JAI one would otherwise
+     * access all of them on construction
+     */
+    @SuppressWarnings("serial")
+    static class StreamingImageList extends RenderedImageList {
+
+        StreamingImageList(ConcurrentAnimationFrames frames) {
+            super(Collections.singletonList(frames.get(0)));
+            this.imageCollection = frames;
+        }
+    }
+}
@@ -103,6 +103,31 @@ public class FeatureInfoRequestParameters {
         this.propertyNames = request.getPropertyNames();
     }
 
+    /** Copy constructor, used to build independent parameters for each layer */
+    FeatureInfoRequestParameters(FeatureInfoRequestParameters other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.buffer = other.buffer;
+        this.viewParams = other.viewParams;
+        this.getMapReq = other.getMapReq;
+        this.requestedCRS = other.requestedCRS;
+        this.width = other.width;
+        this.height = other.height;
+        this.bbox = other.bbox;
+        this.scaleDenominator = other.scaleDenominator;
+        this.filters = other.filters;
+        this.sorts = other.sorts;
+        this.layers = other.layers;
+        this.styles = other.styles;
+        this.elevations = other.elevations;
+        this.times = other.times;
+        this.ff = other.ff;
+        this.propertyNames = other.propertyNames;
+        this.currentLayer = other.currentLayer;
+        this.maxFeatures = other.maxFeatures;
+        this.excludeNodataResults = other.excludeNodataResults;
+    }
+
     private double getScaleDenominator(GetMapRequest request) {
         final Envelope envelope = request.getBbox();
         final CoordinateReferenceSystem mapcrs = request.getCrs();
@@ -156,6 +181,16 @@ public class FeatureInfoRequestParameters {
         currentLayer++;
     }
 
+    /**
+     * Returns a copy of these parameters positioned on the specified layer, allowing to identify
+     * multiple layers concurrently
+     */
+    FeatureInfoRequestParameters forLayer(int layerIndex) {
+        FeatureInfoRequestParameters result = new FeatureInfoRequestParameters(this);
+        result.currentLayer = layerIndex;
+        return result;
+    }
+
     /** Returns the current layer */
     public MapLayerInfo getLayer() {
         return layers.get(currentLayer);
@@ -9,6 +9,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import net.opengis.wfs.FeatureCollectionType;
 import net.opengis.wfs.WfsFactory;
 import org.geoserver.platform.GeoServerExtensions;
@@ -20,16 +29,42 @@ import org.geotools.data.Query;
 import org.geotools.data.simple.SimpleFeatureCollection;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.NameImpl;
+import org.geotools.util.logging.Logging;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.feature.type.Name;
 import org.opengis.filter.Filter;
+import org.springframework.beans.factory.DisposableBean;
 
 /**
- * WMS GetFeatureInfo operation
+ * WMS GetFeatureInfo operation.
+ *
+ * <p>Layers are identified one after the other by default, the WMS configuration can enable
+ * concurrent identification of multiple layers ({@link WMS#getFeatureInfoParallelLayers()}) and a
+ * per layer timeout ({@link WMS#getFeatureInfoLayerTimeout()}), in which case the layers that could
+ * not be identified in time are skipped and partial results returned. The identification threads
+ * are shared by all requests, and capped by {@link WMS#getFeatureInfoMaxThreads()}.
  *
  * @author Gabriel Roldan
  */
-public class GetFeatureInfo {
+public class GetFeatureInfo implements DisposableBean {
+
+    static final Logger LOGGER = Logging.getLogger(GetFeatureInfo.class);
+
+    /** Max number of layer identifications waiting for a thread, past it the caller runs them */
+    static final int IDENTIFICATION_QUEUE_SIZE = 100;
+
+    /** Shared pool used to identify layers concurrently, lazily created */
+    private static volatile ThreadPoolExecutor IDENTIFICATION_POOL;
+
+    private final WMS wms;
+
+    public GetFeatureInfo() {
+        this(null);
+    }
+
+    public GetFeatureInfo(WMS wms) {
+        this.wms = wms;
+    }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     public FeatureCollectionType run(final GetFeatureInfoRequest request) throws ServiceException {
@@ -65,6 +100,25 @@ public class GetFeatureInfo {
 
         int maxFeatures = request.getFeatureCount();
         List<LayerIdentifier> identifiers = GeoServerExtensions.extensions(LayerIdentifier.class);
+        int parallelism = wms != null ? wms.getFeatureInfoParallelLayers() : 1;
+        long timeout = wms != null ? wms.getFeatureInfoLayerTimeout() : 0;
+        if ((requestedLayers.size() > 1 && parallelism > 1) || timeout > 0) {
+            List<FeatureCollection>[] identified =
+                    identifyConcurrently(requestParams, identifiers, parallelism, timeout);
+            for (int i = 0; i < identified.length && maxFeatures > 0; i++) {
+                if (identified[i] != null) {
+                    FeatureInfoRequestParameters layerParams = requestParams.forLayer(i);
+                    for (FeatureCollection identifierCollection : identified[i]) {
+                        FeatureCollection fc = selectProperties(layerParams, identifierCollection);
+                        maxFeatures =
+                                addToResults(
+                                        fc, results, layerParams.getLayer(), request, maxFeatures);
+                    }
+                }
+            }
+            return results;
+        }
+
         for (int i = 0; i < requestedLayers.size(); i++) {
             final MapLayerInfo layer = requestedLayers.get(i);
             try {
@@ -93,6 +147,169 @@ public class GetFeatureInfo {
         return results;
     }
 
+    /**
+     * Identifies all the query layers on the shared pool, running at most {@code parallelism} of
+     * them at the same time. Returns the identified collections in layer order, with null entries
+     * for the layers that did not return any result, or that did not complete within {@code
+     * timeout} milliseconds (if positive).
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private List<FeatureCollection>[] identifyConcurrently(
+            FeatureInfoRequestParameters requestParams,
+            List<LayerIdentifier> identifiers,
+            int parallelism,
+            long timeout)
+            throws InterruptedException {
+        final List<MapLayerInfo> layers = requestParams.layers;
+        final int maxFeatures = requestParams.maxFeatures;
+        final int count = layers.size();
+        final ExecutorService executor = getIdentificationPool(wms.getFeatureInfoMaxThreads());
+        final List<FeatureCollection>[] results = new List[count];
+        final Future<List<FeatureCollection>>[] futures = new Future[count];
+        final long[] deadlines = new long[count];
+        final BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+
+        int next = 0;
+        int running = 0;
+        try {
+            while (next < count || running > 0) {
+                // keep at most parallelism layers running
+                while (next < count && running < parallelism) {
+                    final int layerIndex = next++;
+                    final MapLayerInfo layer = layers.get(layerIndex);
+                    final LayerIdentifier identifier = getLayerIdentifier(layer, identifiers);
+                    final FeatureInfoRequestParameters layerParams =
+                            requestParams.forLayer(layerIndex);
+                    deadlines[layerIndex] =
+                            timeout > 0 ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+                    futures[layerIndex] =
+                            executor.submit(
+                                    () -> {
+                                        try {
+                                            return load(
+                                                    identifier.identify(layerParams, maxFeatures));
+                                        } finally {
+                                            completed.add(layerIndex);
+                                        }
+                                    });
+                    running++;
+                }
+
+                // wait for the next completion, or for the closest deadline
+                long deadline = Long.MAX_VALUE;
+                for (int i = 0; i < next; i++) {
+                    if (futures[i] != null && deadlines[i] < deadline) {
+                        deadline = deadlines[i];
+                    }
+                }
+                Integer done;
+                if (deadline == Long.MAX_VALUE) {
+                    done = completed.take();
+                } else {
+                    long wait = Math.max(0, deadline - System.currentTimeMillis());
+                    done = completed.poll(wait, TimeUnit.MILLISECONDS);
+                }
+
+                if (done == null) {
+                    // give up on the layers that went past their deadline
+                    long now = System.currentTimeMillis();
+                    for (int i = 0; i < next; i++) {
+                        if (futures[i] != null && deadlines[i] <= now) {
+                            futures[i].cancel(true);
+                            futures[i] = null;
+                            running--;
+                            LOGGER.log(
+                                    Level.WARNING,
+                                    "GetFeatureInfo on layer "
+                                            + layers.get(i).getName()
+                                            + " did not complete within "
+                                            + timeout
+                                            + "ms, skipping it");
+                        }
+                    }
+                } else if (futures[done] != null) {
+                    try {
+                        results[done] = futures[done].get();
+                    } catch (ExecutionException e) {
+                        throw new ServiceException(
+                                "Failed to run GetFeatureInfo on layer "
+                                        + layers.get(done).getName(),
+                                e.getCause());
+                    } finally {
+                        futures[done] = null;
+                        running--;
+                    }
+                }
+            }
+        } finally {
+            // on failure, don't leave identifications running
+            for (Future<List<FeatureCollection>> future : futures) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Loads the identified simple features in memory, so that the data access happens in the
+     * identification task, within the layer timeout, rather than later on the request thread.
+     * Complex features are left as they are, there is no generic in memory collection for them, so
+     * the layer timeout only covers their identification, not their reading while encoding.
+     */
+    @SuppressWarnings("rawtypes")
+    private List<FeatureCollection> load(List<FeatureCollection> collections) {
+        if (collections == null) {
+            return null;
+        }
+        List<FeatureCollection> result = new ArrayList<>(collections.size());
+        for (FeatureCollection collection : collections) {
+            if (collection instanceof SimpleFeatureCollection) {
+                result.add(DataUtilities.collection((SimpleFeatureCollection) collection));
+            } else {
+                result.add(collection);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the pool used to identify layers concurrently, resized to {@code maxThreads} if the
+     * configuration changed since it was created
+     */
+    static ExecutorService getIdentificationPool(int maxThreads) {
+        ThreadPoolExecutor pool = IDENTIFICATION_POOL;
+        if (pool == null || pool.getMaximumPoolSize() != maxThreads) {
+            synchronized (GetFeatureInfo.class) {
+                pool = IDENTIFICATION_POOL;
+                if (pool == null) {
+                    pool = new ThreadLocalTransferExecutor(maxThreads, IDENTIFICATION_QUEUE_SIZE);
+                    IDENTIFICATION_POOL = pool;
+                } else if (maxThreads > pool.getMaximumPoolSize()) {
+                    pool.setMaximumPoolSize(maxThreads);
+                    pool.setCorePoolSize(maxThreads);
+                } else if (maxThreads < pool.getMaximumPoolSize()) {
+                    pool.setCorePoolSize(maxThreads);
+                    pool.setMaximumPoolSize(maxThreads);
+                }
+            }
+        }
+        return pool;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        synchronized (GetFeatureInfo.class) {
+            if (IDENTIFICATION_POOL != null) {
+                IDENTIFICATION_POOL.shutdown();
+                IDENTIFICATION_POOL.awaitTermination(10, TimeUnit.SECONDS);
+                IDENTIFICATION_POOL = null;
+            }
+        }
+    }
+
     private LayerIdentifier getLayerIdentifier(
             MapLayerInfo layer, List<LayerIdentifier> identifiers) {
         for (LayerIdentifier identifier : identifiers) {
@@ -8,6 +8,8 @@ package org.geoserver.wms;
 import org.geoserver.ows.Response;
 import org.geoserver.platform.ServiceException;
 import org.geoserver.wms.legendgraphic.BufferedImageLegendGraphic;
+import org.geoserver.wms.legendgraphic.LegendGraphic;
+import org.geoserver.wms.legendgraphic.LegendGraphicCache;
 
 /**
  * WMS GetLegendGraphic operation default implementation.
@@ -18,8 +20,19 @@ public class GetLegendGraphic {
 
     private final WMS wms;
 
+    private final LegendGraphicCache cache;
+
     public GetLegendGraphic(final WMS wms) {
+        this(wms, null);
+    }
+
+    /**
+     * @param wms the WMS configuration
+     * @param cache the legend cache, or {@code null} to always build the legends from scratch
+     */
+    public GetLegendGraphic(final WMS wms, final LegendGraphicCache cache) {
         this.wms = wms;
+        this.cache = cache;
     }
 
     /**
@@ -43,7 +56,17 @@ public class GetLegendGraphic {
                     "There is no support for creating legends in " + outputFormat + " format",
                     "InvalidFormat");
         }
+        final String cacheKey = cache == null ? null : cache.getKey(request);
+        if (cacheKey != null) {
+            LegendGraphic cached = cache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
         Object legend = format.produceLegendGraphic(request);
+        if (cacheKey != null && legend instanceof LegendGraphic) {
+            cache.put(cacheKey, (LegendGraphic) legend);
+        }
         return legend;
     }
 }
@@ -19,6 +19,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.media.jai.RenderedImageList;
@@ -67,6 +69,8 @@ import org.opengis.filter.FilterFactory;
 import org.opengis.filter.sort.SortBy;
 import org.opengis.parameter.GeneralParameterValue;
 import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * WMS GetMap operation default implementation.
@@ -77,6 +81,12 @@ public class GetMap {
 
     private static final Logger LOGGER = Logging.getLogger(GetMap.class);
 
+    /**
+     * Request attribute holding the list of rendering times, in milliseconds, of each frame of an
+     * animation
+     */
+    public static final String FRAMES_RENDERING_TIME = "framesRenderingTime";
+
     private FilterFactory ff;
 
     private final WMS wms;
@@ -229,8 +239,6 @@ public class GetMap {
         MaxAnimationTimeHelper maxAnimationTimeHelper = new MaxAnimationTimeHelper(wms, request);
         int maxAllowedFrames = wms.getMaxAllowedFrames();
         if ((numTimes > 1 || singleTimeRange) && isMultivaluedSupported) {
-            WebMap map = null;
-            List<RenderedImage> images = new ArrayList<RenderedImage>();
             if (singleTimeRange) {
                 List<Object> expandTimeList =
                         expandTimeList((DateRange) times.get(0), request, maxAllowedFrames);
@@ -241,66 +249,128 @@ public class GetMap {
                     times = expandTimeList;
                 }
             }
+            List<List<Object>> frameTimes = new ArrayList<>();
             for (Object currentTime : times) {
-                maxAnimationTimeHelper.checkTimeout();
-                map =
-                        executeInternal(
-                                mapContent,
-                                request,
-                                delegate,
-                                Arrays.asList(currentTime),
-                                elevations);
-
-                // remove layers to start over again
-                mapContent.layers().clear();
-
-                // collect the layer
-                images.add(((RenderedImageMap) map).getImage());
+                frameTimes.add(Arrays.asList(currentTime));
             }
-            RenderedImageList imageList = new RenderedImageList(images);
-            return new RenderedImageMap(mapContent, imageList, map.getMimeType());
+            return executeAnimation(
+                    mapContent,
+                    request,
+                    delegate,
+                    frameTimes,
+                    Collections.nCopies(frameTimes.size(), elevations),
+                    maxAnimationTimeHelper);
         } else if ((numElevations > 1 || singleElevationRange) && isMultivaluedSupported) {
-            WebMap map = null;
-            List<RenderedImage> images = new ArrayList<RenderedImage>();
             if (singleElevationRange) {
                 List<Object> expandElevationList =
                         expandElevationList(
                                 (NumberRange) elevations.get(0), request, maxAllowedFrames);
-                if (expandElevationList.size() == 0) {
-                    map =
-                            executeInternal(
-                                    mapContent,
-                                    request,
-                                    delegate,
-                                    times,
-                                    Arrays.asList(elevations.get(0)));
-                } else {
+                if (expandElevationList.size() > 0) {
                     elevations = expandElevationList;
                 }
             }
+            List<List<Object>> frameElevations = new ArrayList<>();
             for (Object currentElevation : elevations) {
-                maxAnimationTimeHelper.checkTimeout();
-                map =
-                        executeInternal(
-                                mapContent,
-                                request,
-                                delegate,
-                                times,
-                                Arrays.asList(currentElevation));
-
-                // remove layers to start over again
-                mapContent.layers().clear();
-
-                // collect the layer
-                images.add(((RenderedImageMap) map).getImage());
+                frameElevations.add(Arrays.asList(currentElevation));
             }
-            RenderedImageList imageList = new RenderedImageList(images);
-            return new RenderedImageMap(mapContent, imageList, map.getMimeType());
+            return executeAnimation(
+                    mapContent,
+                    request,
+                    delegate,
+                    Collections.nCopies(frameElevations.size(), times),
+                    frameElevations,
+                    maxAnimationTimeHelper);
         } else {
             return executeInternal(mapContent, request, delegate, times, elevations);
         }
     }
 
+    /**
+     * Renders an animation, one frame for each of the provided time/elevation values. Frames are
+     * rendered concurrently when {@link WMS#getAnimationParallelFrames()} allows it, in which case
+     * the returned image list is filled in while the frames are being encoded.
+     */
+    private WebMap executeAnimation(
+            WMSMapContent mapContent,
+            final GetMapRequest request,
+            GetMapOutputFormat delegate,
+            List<List<Object>> frameTimes,
+            List<List<Object>> frameElevations,
+            MaxAnimationTimeHelper maxAnimationTimeHelper)
+            throws IOException {
+        // per frame timings, for the monitoring to pick up
+        List<Long> renderingTimes = new ArrayList<>();
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(
+                    FRAMES_RENDERING_TIME, renderingTimes, RequestAttributes.SCOPE_REQUEST);
+        }
+
+        final int numFrames = frameTimes.size();
+        final int parallelism = wms.getAnimationParallelFrames();
+        final ExecutorService executor = wms.getAnimatorExecutorService();
+        if (parallelism > 1 && numFrames > 1 && executor != null && !executor.isShutdown()) {
+            List<Callable<ConcurrentAnimationFrames.Frame>> renderers = new ArrayList<>();
+            for (int i = 0; i < numFrames; i++) {
+                final List<Object> times = frameTimes.get(i);
+                final List<Object> elevations = frameElevations.get(i);
+                renderers.add(
+                        () -> {
+                            WMSMapContent frameContent = new WMSMapContent(request);
+                            frameContent.setGetMapCallbacks(callbacks);
+                            try {
+                                WebMap map =
+                                        executeInternal(
+                                                frameContent, request, delegate, times, elevations);
+                                return new ConcurrentAnimationFrames.Frame(
+                                        ((RenderedImageMap) map).getImage(), map.getMimeType());
+                            } finally {
+                                frameContent.dispose();
+                            }
+                        });
+            }
+            ConcurrentAnimationFrames frames =
+                    new ConcurrentAnimationFrames(
+                            executor,
+                            parallelism,
+                            maxAnimationTimeHelper,
+                            renderers,
+                            renderingTimes);
+            RenderedImageList imageList = frames.toImageList();
+            return new RenderedImageMap(mapContent, imageList, frames.getMimeType()) {
+                @Override
+                protected void disposeInternal() {
+                    // the encoder is done, release the frames rendered ahead and not consumed
+                    frames.dispose();
+                    super.disposeInternal();
+                }
+            };
+        }
+
+        WebMap map = null;
+        List<RenderedImage> images = new ArrayList<RenderedImage>();
+        for (int i = 0; i < numFrames; i++) {
+            maxAnimationTimeHelper.checkTimeout();
+            long start = System.currentTimeMillis();
+            map =
+                    executeInternal(
+                            mapContent,
+                            request,
+                            delegate,
+                            frameTimes.get(i),
+                            frameElevations.get(i));
+
+            // remove layers to start over again
+            mapContent.layers().clear();
+
+            // collect the layer
+            images.add(((RenderedImageMap) map).getImage());
+            renderingTimes.add(System.currentTimeMillis() - start);
+        }
+        RenderedImageList imageList = new RenderedImageList(images);
+        return new RenderedImageMap(mapContent, imageList, map.getMimeType());
+    }
+
     private List<Object> expandTimeList(
             DateRange queryRange, GetMapRequest request, int maxAllowedFrames) {
         TreeSet<Date> result = new TreeSet<>();
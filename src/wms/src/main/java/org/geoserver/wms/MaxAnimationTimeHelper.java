@@ -24,6 +24,17 @@ class MaxAnimationTimeHelper {
         }
     }
 
+    /**
+     * Returns the time left, in milliseconds, before the animation times out, or {@link
+     * Long#MAX_VALUE} if there is no time limit
+     */
+    public long getResidualTime() {
+        if (maxRenderingTime <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, maxRenderingTime - (System.currentTimeMillis() - requestStart));
+    }
+
     /** If the timeout has been reached, a {@link ServiceException} will be returned instead */
     public void checkTimeout() throws ServiceException {
         if (maxRenderingTime <= 0) {
@@ -4,6 +4,7 @@
  */
 package org.geoserver.wms;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -15,7 +16,8 @@ import org.geoserver.threadlocals.ThreadLocalsTransfer;
 /**
  * An equivalent to {@link Executors#newCachedThreadPool()} that will also perform thread locals
  * transfer using Spring registered {@link org.geoserver.threadlocals.ThreadLocalTransfer} when
- * starting a new task
+ * starting a new task. The tasks run by the submitting thread, when the executor is saturated, keep
+ * the thread locals they already have.
  */
 class ThreadLocalTransferExecutor extends ThreadPoolExecutor {
 
@@ -23,11 +25,32 @@ class ThreadLocalTransferExecutor extends ThreadPoolExecutor {
         super(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<>());
     }
 
+    /**
+     * Builds a bounded executor, with at most {@code maxThreads} threads and {@code queueSize}
+     * waiting tasks, running the tasks on the submitting thread once both are full
+     */
+    public ThreadLocalTransferExecutor(int maxThreads, int queueSize) {
+        super(
+                maxThreads,
+                maxThreads,
+                60L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        allowCoreThreadTimeOut(true);
+    }
+
     @Override
     public Future<?> submit(Runnable task) {
         ThreadLocalsTransfer threadLocalTransfer = new ThreadLocalsTransfer();
+        Thread caller = Thread.currentThread();
         return super.submit(
                 () -> {
+                    if (Thread.currentThread() == caller) {
+                        // run by the caller, its thread locals are already there
+                        task.run();
+                        return;
+                    }
                     threadLocalTransfer.apply();
                     try {
                         task.run();
@@ -40,8 +63,13 @@ class ThreadLocalTransferExecutor extends ThreadPoolExecutor {
     @Override
     public <T> Future<T> submit(Callable<T> task) {
         ThreadLocalsTransfer threadLocalTransfer = new ThreadLocalsTransfer();
+        Thread caller = Thread.currentThread();
         return super.submit(
                 () -> {
+                    if (Thread.currentThread() == caller) {
+                        // run by the caller, its thread locals are already there
+                        return task.call();
+                    }
                     threadLocalTransfer.apply();
                     try {
                         return task.call();
@@ -54,8 +82,14 @@ class ThreadLocalTransferExecutor extends ThreadPoolExecutor {
     @Override
     public <T> Future<T> submit(Runnable task, T result) {
         ThreadLocalsTransfer threadLocalTransfer = new ThreadLocalsTransfer();
+        Thread caller = Thread.currentThread();
         return super.submit(
                 () -> {
+                    if (Thread.currentThread() == caller) {
+                        // run by the caller, its thread locals are already there
+                        task.run();
+                        return result;
+                    }
                     threadLocalTransfer.apply();
                     try {
                         task.run();
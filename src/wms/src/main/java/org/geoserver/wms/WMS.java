@@ -146,6 +146,27 @@ public class WMS implements ApplicationContextAware {
 
     public static final String FEATURES_REPROJECTION_DISABLED = "featuresReprojectionDisabled";
 
+    /** Max number of layers identified concurrently in a single GetFeatureInfo request */
+    public static final String FEATURE_INFO_PARALLEL_LAYERS = "featureInfoParallelLayers";
+
+    public static final int FEATURE_INFO_PARALLEL_LAYERS_DEFAULT = 1;
+
+    /** Max time, in milliseconds, allowed to identify a single layer in GetFeatureInfo */
+    public static final String FEATURE_INFO_LAYER_TIMEOUT = "featureInfoLayerTimeout";
+
+    public static final long FEATURE_INFO_LAYER_TIMEOUT_DEFAULT = 0;
+
+    /** Max number of threads identifying layers, over all the GetFeatureInfo requests */
+    public static final String FEATURE_INFO_MAX_THREADS = "featureInfoMaxThreads";
+
+    public static final int FEATURE_INFO_MAX_THREADS_DEFAULT =
+            2 * Runtime.getRuntime().availableProcessors();
+
+    /** Max number of frames rendered concurrently in a single animation request */
+    public static final String ANIMATION_PARALLEL_FRAMES = "animationParallelFrames";
+
+    public static final int ANIMATION_PARALLEL_FRAMES_DEFAULT = 1;
+
     static final Logger LOGGER = Logging.getLogger(WMS.class);
 
     public static final String WEB_CONTAINER_KEY = "WMS";
@@ -601,6 +622,54 @@ public class WMS implements ApplicationContextAware {
         return getMetadataValue(MAX_RENDERING_TIME, null, Long.class);
     }
 
+    /**
+     * Returns the max number of frames a single animation request can render concurrently, 1
+     * meaning frames are rendered one after the other
+     */
+    public int getAnimationParallelFrames() {
+        Integer value =
+                getMetadataValue(
+                        ANIMATION_PARALLEL_FRAMES,
+                        ANIMATION_PARALLEL_FRAMES_DEFAULT,
+                        Integer.class);
+        return Math.max(1, value);
+    }
+
+    /**
+     * Returns the max number of layers a single GetFeatureInfo request can identify concurrently, 1
+     * meaning layers are identified one after the other
+     */
+    public int getFeatureInfoParallelLayers() {
+        Integer value =
+                getMetadataValue(
+                        FEATURE_INFO_PARALLEL_LAYERS,
+                        FEATURE_INFO_PARALLEL_LAYERS_DEFAULT,
+                        Integer.class);
+        return Math.max(1, value);
+    }
+
+    /**
+     * Returns the max time, in milliseconds, a GetFeatureInfo request will wait for a single layer
+     * to be identified, layers going past it are skipped and partial results returned. Zero or
+     * negative values mean no timeout.
+     */
+    public long getFeatureInfoLayerTimeout() {
+        return getMetadataValue(
+                FEATURE_INFO_LAYER_TIMEOUT, FEATURE_INFO_LAYER_TIMEOUT_DEFAULT, Long.class);
+    }
+
+    /**
+     * Returns the max number of threads identifying layers, shared by all the GetFeatureInfo
+     * requests. When they are all busy, and their queue is full, the layers are identified by the
+     * request thread itself.
+     */
+    public int getFeatureInfoMaxThreads() {
+        Integer value =
+                getMetadataValue(
+                        FEATURE_INFO_MAX_THREADS, FEATURE_INFO_MAX_THREADS_DEFAULT, Integer.class);
+        return Math.max(1, value);
+    }
+
     public Long getMaxRenderingSize() {
         return getMetadataValue(MAX_RENDERING_SIZE, null, Long.class);
     }
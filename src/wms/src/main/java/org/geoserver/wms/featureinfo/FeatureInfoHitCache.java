@@ -0,0 +1,479 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.featureinfo;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.xml.namespace.QName;
+import org.geoserver.catalog.FeatureTypeInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.config.impl.GeoServerLifecycleHandler;
+import org.geoserver.security.AccessLimits;
+import org.geoserver.security.decorators.SecuredLayerInfo;
+import org.geoserver.wfs.TransactionEvent;
+import org.geoserver.wfs.TransactionListener;
+import org.geoserver.wfs.WFSException;
+import org.geoserver.wms.FeatureInfoRequestParameters;
+import org.geoserver.wms.GetMapRequest;
+import org.geoserver.wms.MapLayerInfo;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.FeatureSource;
+import org.geotools.data.Query;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureIterator;
+import org.geotools.data.simple.SimpleFeatureSource;
+import org.geotools.factory.CommonFactoryFinder;
+import org.geotools.feature.FeatureCollection;
+import org.geotools.filter.visitor.SimplifyingFilterVisitor;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.map.FeatureLayer;
+import org.geotools.referencing.CRS;
+import org.geotools.styling.FeatureTypeStyle;
+import org.geotools.styling.Style;
+import org.geotools.util.logging.Logging;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.strtree.STRtree;
+import org.opengis.feature.simple.SimpleFeature;
+import org.opengis.feature.simple.SimpleFeatureType;
+import org.opengis.filter.Filter;
+import org.opengis.filter.FilterFactory2;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Caches, for layers enabling it, the features found around recent rendering based GetFeatureInfo
+ * requests, so that repeated requests in the same area (e.g., hover style identification) can be
+ * answered without hitting the store.
+ *
+ * <p>The world is split in cells of {@link #CELL_SIZE} pixels at the request resolution, on the
+ * first request in a cell the features intersecting the cell (expanded by twice the search radius,
+ * so that any symbol painted in the cell is included) are loaded in memory and indexed in a {@link
+ * STRtree}. Cells are keyed by layer, style, scale band (the request resolution) and search radius,
+ * as well as by user and data access limits, since the features are read through the secured
+ * catalog and each user only gets to see the features it's allowed to. Hit detection still happens
+ * by painting, the cached features are just used as the data source.
+ *
+ * <p>Only plain requests are cached, that is, requests without filters, sorting, dimensions, view
+ * parameters, environment variables, clipping or paging, against styles without rendering
+ * transformations. Entries are dropped when a WFS-T transaction touches the layer, and in any case
+ * after {@link #TIME_TO_LIVE} milliseconds, to account for changes made outside of GeoServer.
+ */
+public class FeatureInfoHitCache implements TransactionListener, GeoServerLifecycleHandler {
+
+    static final Logger LOGGER = Logging.getLogger(FeatureInfoHitCache.class);
+
+    /** The layer metadata key enabling the cache on a layer */
+    public static final String LAYER_ENABLED_KEY = "featureInfoHitCache";
+
+    /** Max number of cells in the cache */
+    static int MAX_ENTRIES =
+            Integer.getInteger("org.geoserver.wms.featureinfo.hitCache.maxEntries", 256);
+
+    /** Max number of features in a cell, denser cells are not cached */
+    static int MAX_FEATURES =
+            Integer.getInteger("org.geoserver.wms.featureinfo.hitCache.maxFeatures", 2000);
+
+    /** Cell time to live, in milliseconds */
+    static long TIME_TO_LIVE =
+            Long.getLong("org.geoserver.wms.featureinfo.hitCache.timeToLive", 60000);
+
+    /** Cell size, in pixels */
+    static final int CELL_SIZE = 256;
+
+    static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
+
+    private final Map<CellKey, Cell> cells =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<CellKey, Cell>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<CellKey, Cell> eldest) {
+                            return size() > MAX_ENTRIES;
+                        }
+                    });
+
+    /**
+     * Checks if the request and layer are eligible for caching
+     *
+     * @param params The request parameters, positioned on the current layer
+     * @param style The style used for hit detection
+     * @param layer The layer that would be rendered without the cache
+     */
+    public boolean isCacheable(
+            FeatureInfoRequestParameters params, Style style, FeatureLayer layer) {
+        LayerInfo layerInfo = params.getLayer().getLayerInfo();
+        if (layerInfo == null
+                || params.getLayer().getType() != MapLayerInfo.TYPE_VECTOR
+                || !Boolean.TRUE.equals(
+                        layerInfo.getMetadata().get(LAYER_ENABLED_KEY, Boolean.class))) {
+            return false;
+        }
+
+        GetMapRequest getMap = params.getGetMapRequest();
+        if (getMap.getClip() != null
+                || getMap.getStartIndex() != null
+                || getMap.getMaxFeatures() != null
+                || getMap.getFeatureVersion() != null
+                || (getMap.getEnv() != null && !getMap.getEnv().isEmpty())
+                || (params.getViewParams() != null && !params.getViewParams().isEmpty())
+                || params.getSort() != null) {
+            return false;
+        }
+
+        // the layer query includes the CQL/OGC filters as well as the dimension ones, defaults
+        // included, only a full match is cacheable
+        Query query = layer.getQuery();
+        if (query != null && query.getFilter() != null) {
+            Filter simplified = SimplifyingFilterVisitor.simplify(query.getFilter());
+            if (simplified != Filter.INCLUDE) {
+                return false;
+            }
+        }
+
+        for (FeatureTypeStyle fts : style.featureTypeStyles()) {
+            if (fts.getTransformation() != null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a in memory feature source holding the features that can be painted in the search
+     * area, loading the surrounding cell from the store if needed, or null if the cell is too dense
+     * to be cached
+     *
+     * @param params The request parameters, positioned on the current layer
+     * @param style The style used for hit detection
+     * @param radius The search radius, in pixels
+     * @param screenToWorld The transformation from the request raster space to the world
+     */
+    public SimpleFeatureSource getFeatureSource(
+            FeatureInfoRequestParameters params,
+            Style style,
+            int radius,
+            AffineTransform screenToWorld)
+            throws IOException {
+        ReferencedEnvelope bounds = params.getRequestedBounds();
+        double resolution = bounds.getWidth() / params.getWidth();
+        Point2D click =
+                screenToWorld.transform(new Point2D.Double(params.getX(), params.getY()), null);
+        double cellWorldSize = CELL_SIZE * resolution;
+        long cellX = (long) Math.floor(click.getX() / cellWorldSize);
+        long cellY = (long) Math.floor(click.getY() / cellWorldSize);
+        FeatureTypeInfo featureType = params.getLayer().getFeature();
+        CellKey key =
+                new CellKey(
+                        featureType.getId(),
+                        new QName(featureType.getNamespace().getURI(), featureType.getName()),
+                        getUserName(),
+                        getAccessLimits(params.getLayer()),
+                        style,
+                        normalize(resolution),
+                        params.getGetMapRequest().getSRS(),
+                        radius,
+                        cellX,
+                        cellY);
+
+        Cell cell = cells.get(key);
+        if (cell == null || cell.isExpired()) {
+            double margin = 2 * radius * resolution;
+            ReferencedEnvelope cellArea =
+                    new ReferencedEnvelope(
+                            cellX * cellWorldSize - margin,
+                            (cellX + 1) * cellWorldSize + margin,
+                            cellY * cellWorldSize - margin,
+                            (cellY + 1) * cellWorldSize + margin,
+                            bounds.getCoordinateReferenceSystem());
+            cell = loadCell(params, cellArea);
+            cells.put(key, cell);
+        } else if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Feature info hit cache hit on " + key);
+        }
+
+        if (cell.features == null) {
+            // too dense to be cached
+            return null;
+        }
+
+        // grab the features that can be painted in the search area
+        double searchRadius = 2 * radius * resolution;
+        ReferencedEnvelope searchArea =
+                new ReferencedEnvelope(
+                        click.getX() - searchRadius,
+                        click.getX() + searchRadius,
+                        click.getY() - searchRadius,
+                        click.getY() + searchRadius,
+                        bounds.getCoordinateReferenceSystem());
+        List<SimpleFeature> features = cell.query(toNative(searchArea, cell.schema));
+        return DataUtilities.source(new ListFeatureCollection(cell.schema, features));
+    }
+
+    Cell loadCell(FeatureInfoRequestParameters params, ReferencedEnvelope area) throws IOException {
+        @SuppressWarnings("unchecked")
+        FeatureSource<SimpleFeatureType, SimpleFeature> source =
+                (FeatureSource<SimpleFeatureType, SimpleFeature>)
+                        params.getLayer()
+                                .getFeatureSource(true, params.getGetMapRequest().getCrs());
+        SimpleFeatureType schema = source.getSchema();
+        Query query = new Query(schema.getTypeName());
+        query.setFilter(FF.bbox(FF.property(""), toNative(area, schema)));
+        query.setMaxFeatures(MAX_FEATURES + 1);
+
+        List<SimpleFeature> features = new ArrayList<>();
+        FeatureCollection<SimpleFeatureType, SimpleFeature> fc = source.getFeatures(query);
+        try (SimpleFeatureIterator it = DataUtilities.simple(fc).features()) {
+            while (it.hasNext()) {
+                features.add(it.next());
+            }
+        }
+        if (features.size() > MAX_FEATURES) {
+            LOGGER.fine("Feature info hit cache cell too dense, skipping caching it");
+            return new Cell(schema, null);
+        }
+        return new Cell(schema, features);
+    }
+
+    /** The name of the user running the request, if any */
+    static String getUserName() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? null : auth.getName();
+    }
+
+    /** The data access limits the secured catalog applied to the layer, if any */
+    static AccessLimits getAccessLimits(MapLayerInfo layer) {
+        LayerInfo layerInfo = layer.getLayerInfo();
+        if (layerInfo instanceof SecuredLayerInfo) {
+            return ((SecuredLayerInfo) layerInfo).getWrapperPolicy().getLimits();
+        }
+        return null;
+    }
+
+    /** Reprojects the envelope to the native CRS of the features, if needed */
+    static ReferencedEnvelope toNative(ReferencedEnvelope envelope, SimpleFeatureType schema)
+            throws IOException {
+        CoordinateReferenceSystem nativeCRS = schema.getCoordinateReferenceSystem();
+        if (nativeCRS == null
+                || envelope.getCoordinateReferenceSystem() == null
+                || CRS.equalsIgnoreMetadata(nativeCRS, envelope.getCoordinateReferenceSystem())) {
+            return envelope;
+        }
+        try {
+            return envelope.transform(nativeCRS, true);
+        } catch (Exception e) {
+            throw new IOException("Failed to reproject the search area to " + nativeCRS, e);
+        }
+    }
+
+    /** Normalizes the resolution so that it can be compared by equality */
+    static double normalize(double d) {
+        if (Double.isInfinite(d) || Double.isNaN(d)) {
+            return d;
+        }
+        return Math.round(d * 10e6) / 10e6;
+    }
+
+    /** Drops all the cells of the given feature type */
+    void clear(QName typeName) {
+        synchronized (cells) {
+            for (Iterator<CellKey> it = cells.keySet().iterator(); it.hasNext(); ) {
+                CellKey key = it.next();
+                if (key.matches(typeName)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void dataStoreChange(TransactionEvent event) throws WFSException {
+        QName typeName = event.getLayerName();
+        if (typeName == null) {
+            cells.clear();
+        } else {
+            clear(typeName);
+        }
+    }
+
+    @Override
+    public void onReset() {
+        cells.clear();
+    }
+
+    @Override
+    public void onDispose() {
+        cells.clear();
+    }
+
+    @Override
+    public void beforeReload() {
+        // nothing to do
+    }
+
+    @Override
+    public void onReload() {
+        cells.clear();
+    }
+
+    /** Number of cached cells, for testing purposes */
+    int size() {
+        return cells.size();
+    }
+
+    /** Identifies a cell of a layer, at a given resolution and with a given style */
+    static class CellKey {
+        String featureTypeId;
+
+        String user;
+
+        AccessLimits limits;
+
+        Style style;
+
+        double resolution;
+
+        String srs;
+
+        int radius;
+
+        long x;
+
+        long y;
+
+        QName typeName;
+
+        CellKey(
+                String featureTypeId,
+                QName typeName,
+                String user,
+                AccessLimits limits,
+                Style style,
+                double resolution,
+                String srs,
+                int radius,
+                long x,
+                long y) {
+            this.featureTypeId = featureTypeId;
+            this.typeName = typeName;
+            this.user = user;
+            this.limits = limits;
+            this.style = style;
+            this.resolution = resolution;
+            this.srs = srs;
+            this.radius = radius;
+            this.x = x;
+            this.y = y;
+        }
+
+        boolean matches(QName typeName) {
+            return Objects.equals(this.typeName.getLocalPart(), typeName.getLocalPart())
+                    && (typeName.getNamespaceURI() == null
+                            || typeName.getNamespaceURI().isEmpty()
+                            || Objects.equals(
+                                    this.typeName.getNamespaceURI(), typeName.getNamespaceURI()));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CellKey cellKey = (CellKey) o;
+            return Double.compare(cellKey.resolution, resolution) == 0
+                    && radius == cellKey.radius
+                    && x == cellKey.x
+                    && y == cellKey.y
+                    && Objects.equals(featureTypeId, cellKey.featureTypeId)
+                    && Objects.equals(user, cellKey.user)
+                    && Objects.equals(limits, cellKey.limits)
+                    && Objects.equals(srs, cellKey.srs)
+                    && Objects.equals(style, cellKey.style);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(featureTypeId, user, resolution, srs, radius, x, y);
+        }
+
+        @Override
+        public String toString() {
+            return "CellKey{"
+                    + "featureTypeId='"
+                    + featureTypeId
+                    + '\''
+                    + ", user='"
+                    + user
+                    + '\''
+                    + ", resolution="
+                    + resolution
+                    + ", srs='"
+                    + srs
+                    + '\''
+                    + ", radius="
+                    + radius
+                    + ", x="
+                    + x
+                    + ", y="
+                    + y
+                    + '}';
+        }
+    }
+
+    /** The features of a cell, indexed in a STR tree */
+    static class Cell {
+        final SimpleFeatureType schema;
+
+        final List<SimpleFeature> features;
+
+        final STRtree index;
+
+        final long created = System.currentTimeMillis();
+
+        Cell(SimpleFeatureType schema, List<SimpleFeature> features) {
+            this.schema = schema;
+            this.features = features;
+            if (features != null) {
+                this.index = new STRtree();
+                for (int i = 0; i < features.size(); i++) {
+                    Geometry g = (Geometry) features.get(i).getDefaultGeometry();
+                    if (g != null) {
+                        index.insert(g.getEnvelopeInternal(), i);
+                    }
+                }
+                // building makes the tree read only and safe for concurrent queries
+                index.build();
+            } else {
+                this.index = null;
+            }
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() - created > TIME_TO_LIVE;
+        }
+
+        /** Returns the features intersecting the envelope, in their original order */
+        @SuppressWarnings("unchecked")
+        List<SimpleFeature> query(Envelope envelope) {
+            List<Integer> indexes = index.query(envelope);
+            Collections.sort(indexes);
+            List<SimpleFeature> result = new ArrayList<>(indexes.size());
+            for (Integer i : indexes) {
+                result.add(features.get(i));
+            }
+            return result;
+        }
+    }
+}
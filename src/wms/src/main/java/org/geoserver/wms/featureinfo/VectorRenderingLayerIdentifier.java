@@ -47,6 +47,7 @@ import org.geotools.data.FeatureSource;
 import org.geotools.data.Query;
 import org.geotools.data.QueryCapabilities;
 import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureSource;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.feature.FeatureCollection;
 import org.geotools.feature.simple.SimpleFeatureBuilder;
@@ -101,6 +102,7 @@ public class VectorRenderingLayerIdentifier extends AbstractVectorLayerIdentifie
 
     private WMS wms;
     private VectorBasicLayerIdentifier fallback;
+    private FeatureInfoHitCache hitCache;
     private static final FilterFactory2 FF = CommonFactoryFinder.getFilterFactory2();
 
     static {
@@ -116,8 +118,14 @@ public class VectorRenderingLayerIdentifier extends AbstractVectorLayerIdentifie
     }
 
     public VectorRenderingLayerIdentifier(WMS wms, VectorBasicLayerIdentifier fallback) {
+        this(wms, fallback, null);
+    }
+
+    public VectorRenderingLayerIdentifier(
+            WMS wms, VectorBasicLayerIdentifier fallback, FeatureInfoHitCache hitCache) {
         this.wms = wms;
         this.fallback = fallback;
+        this.hitCache = hitCache;
     }
 
     @Override
@@ -163,6 +171,7 @@ public class VectorRenderingLayerIdentifier extends AbstractVectorLayerIdentifie
             mc.setMapWidth(getMap.getWidth());
             mc.setMapHeight(getMap.getHeight());
             FeatureLayer layer = getLayer(params, style);
+            boolean cacheable = hitCache != null && hitCache.isCacheable(params, style, layer);
             mc.addLayer(layer);
             // setup the env variables just like in the original GetMap
             RenderingVariables.setupEnvironmentVariables(mc);
@@ -182,6 +191,21 @@ public class VectorRenderingLayerIdentifier extends AbstractVectorLayerIdentifie
             if (radius < buffer) {
                 radius = buffer;
             }
+
+            // paint against the features cached around the click point, if possible
+            if (cacheable) {
+                SimpleFeatureSource cached =
+                        hitCache.getFeatureSource(params, style, radius, screenToWorld);
+                if (cached != null) {
+                    mc.removeLayer(layer);
+                    layer =
+                            new FeatureLayer(
+                                    new FeatureInfoFeatureSource(cached, params.getPropertyNames()),
+                                    style);
+                    mc.addLayer(layer);
+                }
+            }
+
             Envelope targetRasterSpace =
                     new Envelope(
                             params.getX() - radius,
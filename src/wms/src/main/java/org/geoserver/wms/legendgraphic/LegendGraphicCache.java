@@ -0,0 +1,267 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.legendgraphic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.geoserver.catalog.CatalogInfo;
+import org.geoserver.catalog.LayerGroupInfo;
+import org.geoserver.catalog.LayerInfo;
+import org.geoserver.catalog.PublishedInfo;
+import org.geoserver.catalog.ResourceInfo;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.catalog.WorkspaceInfo;
+import org.geoserver.catalog.event.CatalogAddEvent;
+import org.geoserver.catalog.event.CatalogListener;
+import org.geoserver.catalog.event.CatalogModifyEvent;
+import org.geoserver.catalog.event.CatalogPostModifyEvent;
+import org.geoserver.catalog.event.CatalogRemoveEvent;
+import org.geoserver.config.ConfigurationListenerAdapter;
+import org.geoserver.config.GeoServer;
+import org.geoserver.config.GeoServerInfo;
+import org.geoserver.config.ServiceInfo;
+import org.geoserver.config.impl.GeoServerLifecycleHandler;
+import org.geoserver.ows.LocalPublished;
+import org.geoserver.ows.LocalWorkspace;
+import org.geoserver.wms.CascadedLegendRequest;
+import org.geoserver.wms.GetLegendGraphicRequest;
+import org.geoserver.wms.GetLegendGraphicRequest.LegendRequest;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Caches the legend graphics produced by GetLegendGraphic, so that the same legend is not painted
+ * over and over when clients request it for every map they display.
+ *
+ * <p>Legends are keyed by the request parameters (layer, style, scale, rule, size, format, legend
+ * options, environment variables) plus the request locale, the virtual service workspace and layer,
+ * and the layers the request resolved to. Only legends that depend solely on the style are cached:
+ * requests using SLD or SLD_BODY, cascaded legends and the data dependent legend options are always
+ * built from scratch. The whole cache is dropped when a style, layer, layer group or resource is
+ * modified or removed, as well as on configuration changes and reloads.
+ *
+ * <p>The cache is disabled by default, it's enabled by setting the {@link #MAX_ENTRIES_KEY} system
+ * variable to the maximum number of legends to be kept in memory.
+ */
+public class LegendGraphicCache implements CatalogListener, GeoServerLifecycleHandler {
+
+    static final Logger LOGGER = Logging.getLogger(LegendGraphicCache.class);
+
+    /** System variable controlling the maximum number of cached legends, 0 disables the cache */
+    public static final String MAX_ENTRIES_KEY = "org.geoserver.wms.legendCache.maxEntries";
+
+    /** Parameters that do not affect the legend contents */
+    static final Set<String> IGNORED_PARAMETERS =
+            new HashSet<>(Arrays.asList("SERVICE", "VERSION", "REQUEST", "EXCEPTIONS"));
+
+    /** Parameters pointing to styles that are not part of the catalog */
+    static final Set<String> EXTERNAL_STYLE_PARAMETERS =
+            new HashSet<>(Arrays.asList("SLD", "SLD_BODY"));
+
+    private final int maxEntries;
+
+    private final Map<String, LegendGraphic> legends;
+
+    public LegendGraphicCache(GeoServer geoServer) {
+        this(geoServer, Integer.getInteger(MAX_ENTRIES_KEY, 0));
+    }
+
+    @SuppressWarnings("serial")
+    LegendGraphicCache(GeoServer geoServer, int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.legends =
+                Collections.synchronizedMap(
+                        new LinkedHashMap<String, LegendGraphic>(16, 0.75f, true) {
+                            @Override
+                            protected boolean removeEldestEntry(
+                                    Map.Entry<String, LegendGraphic> eldest) {
+                                return size() > LegendGraphicCache.this.maxEntries;
+                            }
+                        });
+        if (geoServer != null) {
+            geoServer.getCatalog().addListener(this);
+            geoServer.addListener(
+                    new ConfigurationListenerAdapter() {
+                        @Override
+                        public void handleGlobalChange(
+                                GeoServerInfo global,
+                                List<String> propertyNames,
+                                List<Object> oldValues,
+                                List<Object> newValues) {
+                            clear();
+                        }
+
+                        @Override
+                        public void handleServiceChange(
+                                ServiceInfo service,
+                                List<String> propertyNames,
+                                List<Object> oldValues,
+                                List<Object> newValues) {
+                            clear();
+                        }
+
+                        @Override
+                        public void reloaded() {
+                            clear();
+                        }
+                    });
+        }
+    }
+
+    /** Returns true if the cache is enabled */
+    public boolean isEnabled() {
+        return maxEntries > 0;
+    }
+
+    /**
+     * Builds the cache key for the given request, or returns null if the request legend cannot be
+     * cached
+     */
+    public String getKey(GetLegendGraphicRequest request) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Map<String, String> rawKvp = request.getRawKvp();
+        if (rawKvp == null || !"GetLegendGraphic".equalsIgnoreCase(rawKvp.get("REQUEST"))) {
+            // not a real GetLegendGraphic request, e.g., a legend decoration
+            return null;
+        }
+        for (LegendRequest legend : request.getLegends()) {
+            if (legend instanceof CascadedLegendRequest) {
+                return null;
+            }
+        }
+        if (Boolean.TRUE.equals(
+                        request.getLegendOption(
+                                GetLegendGraphicRequest.COUNT_MATCHED_KEY, Boolean.class))
+                || Boolean.TRUE.equals(
+                        request.getLegendOption(
+                                GetLegendGraphicRequest.HIDE_EMPTY_RULES, Boolean.class))) {
+            return null;
+        }
+
+        // sort the parameters so that the same legend gets the same key
+        Map<String, String> parameters = new TreeMap<>();
+        for (Map.Entry<String, String> entry : rawKvp.entrySet()) {
+            String name = entry.getKey().toUpperCase();
+            if (EXTERNAL_STYLE_PARAMETERS.contains(name)) {
+                return null;
+            }
+            if (!IGNORED_PARAMETERS.contains(name)) {
+                parameters.put(name, entry.getValue());
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : parameters.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('&');
+        }
+        sb.append("LOCALE=").append(request.getLocale());
+        // the same parameters resolve to different layers and styles in virtual services
+        WorkspaceInfo localWorkspace = LocalWorkspace.get();
+        if (localWorkspace != null) {
+            sb.append("&LOCAL_WORKSPACE=").append(localWorkspace.getId());
+        }
+        PublishedInfo localPublished = LocalPublished.get();
+        if (localPublished != null) {
+            sb.append("&LOCAL_PUBLISHED=").append(localPublished.getId());
+        }
+        for (LegendRequest legend : request.getLegends()) {
+            sb.append("&LEGEND=").append(getId(legend.getLayerInfo()));
+            sb.append(',').append(getId(legend.getLayerGroupInfo()));
+            sb.append(',').append(legend.getStyleName());
+        }
+        return sb.toString();
+    }
+
+    private String getId(CatalogInfo info) {
+        return info == null ? "" : info.getId();
+    }
+
+    /** Returns the cached legend for the given key, or null if not found */
+    public LegendGraphic get(String key) {
+        return legends.get(key);
+    }
+
+    /** Caches the legend, only legends whose contents cannot be modified are accepted */
+    public void put(String key, LegendGraphic legend) {
+        if (legend instanceof BufferedImageLegendGraphic || legend instanceof LegendSprite) {
+            legends.put(key, legend);
+        }
+    }
+
+    /** The number of cached legends */
+    public int size() {
+        return legends.size();
+    }
+
+    /** Drops all cached legends */
+    public void clear() {
+        legends.clear();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.fine("Legend graphic cache cleared");
+        }
+    }
+
+    private void clearIfAffected(CatalogInfo source) {
+        if (source instanceof StyleInfo
+                || source instanceof LayerInfo
+                || source instanceof LayerGroupInfo
+                || source instanceof ResourceInfo) {
+            clear();
+        }
+    }
+
+    @Override
+    public void handleAddEvent(CatalogAddEvent event) {
+        // new objects do not change existing legends
+    }
+
+    @Override
+    public void handleRemoveEvent(CatalogRemoveEvent event) {
+        clearIfAffected(event.getSource());
+    }
+
+    @Override
+    public void handleModifyEvent(CatalogModifyEvent event) {
+        // wait for the post modify event, the changes are not applied yet
+    }
+
+    @Override
+    public void handlePostModifyEvent(CatalogPostModifyEvent event) {
+        clearIfAffected(event.getSource());
+    }
+
+    @Override
+    public void reloaded() {
+        clear();
+    }
+
+    @Override
+    public void onReset() {
+        clear();
+    }
+
+    @Override
+    public void onDispose() {
+        clear();
+    }
+
+    @Override
+    public void beforeReload() {
+        // nothing to do
+    }
+
+    @Override
+    public void onReload() {
+        clear();
+    }
+}
@@ -0,0 +1,42 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.legendgraphic;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A sprite sheet packing the legends of several layers in a single image, along with the position
+ * of each legend in it
+ */
+public class LegendSprite implements LegendGraphic {
+
+    private final BufferedImage image;
+
+    private final Map<String, Rectangle> index;
+
+    /**
+     * @param image the sprite sheet
+     * @param index the area occupied by each legend, keyed by layer name, in the order the legends
+     *     were requested
+     */
+    public LegendSprite(BufferedImage image, Map<String, Rectangle> index) {
+        this.image = image;
+        this.index = Collections.unmodifiableMap(index);
+    }
+
+    /** Returns the sprite sheet image */
+    @Override
+    public BufferedImage getLegend() {
+        return image;
+    }
+
+    /** Returns the area occupied by each legend in the sprite sheet, keyed by layer name */
+    public Map<String, Rectangle> getIndex() {
+        return index;
+    }
+}
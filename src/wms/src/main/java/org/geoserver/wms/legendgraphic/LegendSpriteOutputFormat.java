@@ -0,0 +1,143 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.legendgraphic;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.wms.GetLegendGraphicOutputFormat;
+import org.geoserver.wms.GetLegendGraphicRequest;
+import org.geoserver.wms.GetLegendGraphicRequest.LegendRequest;
+
+/**
+ * Sprite sheet output format for the WMS GetLegendGraphic operation. Builds the legend of each
+ * requested layer (e.g., all the layers of a layer group) separately and packs them in a single
+ * image, returned along with a JSON index of the legends positions, so that clients can display all
+ * the legends of a map with a single request.
+ */
+public class LegendSpriteOutputFormat implements GetLegendGraphicOutputFormat {
+
+    public static final String MIME_TYPE = "application/vnd.geoserver.legend-sprite+json";
+
+    /** Space left between two legends in the sprite sheet */
+    static final int PADDING = 2;
+
+    /**
+     * Builds the legends and packs them in a {@link LegendSprite}
+     *
+     * @see GetLegendGraphicOutputFormat#produceLegendGraphic(GetLegendGraphicRequest)
+     */
+    public LegendSprite produceLegendGraphic(GetLegendGraphicRequest request)
+            throws ServiceException {
+        List<LegendRequest> legends = request.getLegends();
+        List<String> names = new ArrayList<>(legends.size());
+        List<BufferedImage> images = new ArrayList<>(legends.size());
+        for (int i = 0; i < legends.size(); i++) {
+            LegendRequest legend = legends.get(i);
+            LegendGraphicBuilder builder = new BufferedImageLegendGraphicBuilder();
+            GetLegendGraphicRequest single = singleLegendRequest(request, legend);
+            images.add((BufferedImage) builder.buildLegendGraphic(single));
+            names.add(getLegendName(legend, i, names));
+        }
+
+        return pack(names, images);
+    }
+
+    /** Packs the images in rows, making the sprite sheet roughly square */
+    static LegendSprite pack(List<String> names, List<BufferedImage> images) {
+        long area = 0;
+        int maxWidth = 1;
+        for (BufferedImage image : images) {
+            area += (long) (image.getWidth() + PADDING) * (image.getHeight() + PADDING);
+            maxWidth = Math.max(maxWidth, image.getWidth());
+        }
+        int rowLimit = Math.max(maxWidth, (int) Math.ceil(Math.sqrt(area)));
+
+        Map<String, Rectangle> index = new LinkedHashMap<>();
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        int width = 1;
+        int height = 1;
+        for (int i = 0; i < images.size(); i++) {
+            BufferedImage image = images.get(i);
+            if (x > 0 && x + image.getWidth() > rowLimit) {
+                x = 0;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            index.put(names.get(i), new Rectangle(x, y, image.getWidth(), image.getHeight()));
+            width = Math.max(width, x + image.getWidth());
+            height = Math.max(height, y + image.getHeight());
+            rowHeight = Math.max(rowHeight, image.getHeight());
+            x += image.getWidth() + PADDING;
+        }
+
+        BufferedImage sprite = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = sprite.createGraphics();
+        try {
+            int i = 0;
+            for (Rectangle position : index.values()) {
+                graphics.drawImage(images.get(i++), position.x, position.y, null);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return new LegendSprite(sprite, index);
+    }
+
+    private String getLegendName(LegendRequest legend, int position, List<String> names) {
+        String name;
+        if (legend.getLayerInfo() != null) {
+            name = legend.getLayerInfo().prefixedName();
+        } else if (legend.getLayer() != null) {
+            name = legend.getLayer();
+        } else if (legend.getLayerName() != null) {
+            name = legend.getLayerName().getLocalPart();
+        } else {
+            name = "legend";
+        }
+        // the same layer can be found more than once in a group
+        if (names.contains(name)) {
+            name = name + "_" + position;
+        }
+        return name;
+    }
+
+    /** Clones the request, keeping only the specified legend */
+    private GetLegendGraphicRequest singleLegendRequest(
+            GetLegendGraphicRequest request, LegendRequest legend) {
+        GetLegendGraphicRequest single = new GetLegendGraphicRequest(request.getWms());
+        single.setFormat(PNGLegendOutputFormat.MIME_TYPE);
+        single.setWidth(request.getWidth());
+        single.setHeight(request.getHeight());
+        single.setScale(request.getScale());
+        single.setTransparent(request.isTransparent());
+        single.setStrict(request.isStrict());
+        single.setLegendOptions(request.getLegendOptions());
+        single.setEnv(request.getEnv());
+        single.setLocale(request.getLocale());
+        single.setExceptions(request.getExceptions());
+        single.setKvp(request.getKvp());
+        single.setRawKvp(request.getRawKvp());
+        single.setBaseUrl(request.getBaseUrl());
+        single.setVersion(request.getVersion());
+        single.getLegends().add(legend);
+        return single;
+    }
+
+    /**
+     * @return {@code "application/vnd.geoserver.legend-sprite+json"}
+     * @see org.geoserver.wms.GetLegendGraphicOutputFormat#getContentType()
+     */
+    public String getContentType() throws IllegalStateException {
+        return MIME_TYPE;
+    }
+}
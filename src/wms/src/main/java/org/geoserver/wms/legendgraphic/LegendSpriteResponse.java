@@ -0,0 +1,78 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.legendgraphic;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.geoserver.ows.Response;
+import org.geoserver.platform.Operation;
+import org.geoserver.platform.ServiceException;
+import org.springframework.util.Assert;
+
+/**
+ * OWS {@link Response} that encodes a {@link LegendSprite} as JSON. The sprite sheet is embedded as
+ * a base64 encoded PNG data URI, followed by the position of each legend in it:
+ *
+ * <pre>
+ * {"width": 120, "height": 80, "image": "data:image/png;base64,...",
+ *  "legends": [{"layer": "topp:states", "x": 0, "y": 0, "width": 80, "height": 60}, ...]}
+ * </pre>
+ */
+public class LegendSpriteResponse extends AbstractGetLegendGraphicResponse {
+
+    public LegendSpriteResponse() {
+        super(LegendSprite.class, LegendSpriteOutputFormat.MIME_TYPE);
+    }
+
+    @Override
+    public void write(Object legend, OutputStream output, Operation operation)
+            throws IOException, ServiceException {
+        Assert.isInstanceOf(LegendSprite.class, legend);
+        LegendSprite sprite = (LegendSprite) legend;
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        if (!ImageIO.write(sprite.getLegend(), "png", png)) {
+            throw new ServiceException("No PNG ImageWriter found");
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("width", sprite.getLegend().getWidth());
+        json.put("height", sprite.getLegend().getHeight());
+        json.put(
+                "image",
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(png.toByteArray()));
+        JSONArray legends = new JSONArray();
+        for (Map.Entry<String, Rectangle> entry : sprite.getIndex().entrySet()) {
+            Rectangle area = entry.getValue();
+            JSONObject position = new JSONObject();
+            position.put("layer", entry.getKey());
+            position.put("x", area.x);
+            position.put("y", area.y);
+            position.put("width", area.width);
+            position.put("height", area.height);
+            legends.add(position);
+        }
+        json.put("legends", legends);
+
+        OutputStreamWriter writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+        json.write(writer);
+        writer.flush();
+    }
+
+    @Override
+    public String getMimeType(Object value, Operation operation) throws ServiceException {
+        Assert.isInstanceOf(LegendSprite.class, value);
+        return LegendSpriteOutputFormat.MIME_TYPE;
+    }
+}
@@ -0,0 +1,212 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.map;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+import javax.media.jai.RenderedImageList;
+import org.geoserver.platform.ServiceException;
+import org.geoserver.wms.GetMapRequest;
+import org.geoserver.wms.MapProducerCapabilities;
+import org.geoserver.wms.WMS;
+import org.geoserver.wms.WMSMapContent;
+import org.geotools.util.logging.Logging;
+
+/**
+ * Handles a GetMap request that expects an animated PNG (APNG) as result. Each frame is encoded as
+ * a RGBA PNG and its data repackaged in the APNG frame chunks, frames are written out one at a
+ * time, as soon as they are available.
+ */
+public class APNGMapResponse extends RenderedImageMapResponse {
+
+    private static final Logger LOGGER = Logging.getLogger(APNGMapResponse.class);
+
+    public static final String MIME_TYPE = "image/apng";
+
+    static final String[] OUTPUT_FORMATS = {MIME_TYPE};
+
+    /** Format option controlling the delay between frames, in milliseconds */
+    static final String APNG_FRAMES_DELAY = "apng_frames_delay";
+
+    /** Format option controlling whether the animation loops continuously or plays once */
+    static final String APNG_LOOP_CONTINUOUSLY = "apng_loop_continuously";
+
+    static final byte[] PNG_SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+    /**
+     * Capabilities for APNG: tiled and multiple values supported, no palette, transparency
+     * supported, frames produced as plain PNG
+     */
+    private static MapProducerCapabilities CAPABILITIES =
+            new MapProducerCapabilities(true, true, false, true, "image/png");
+
+    public APNGMapResponse(WMS wms) {
+        super(OUTPUT_FORMATS, wms);
+    }
+
+    @Override
+    public void formatImageOutputStream(
+            RenderedImage image, OutputStream outStream, WMSMapContent mapContent)
+            throws ServiceException, IOException {
+        final List<?> frames =
+                image instanceof RenderedImageList
+                        ? (RenderedImageList) image
+                        : Arrays.asList(image);
+        final GetMapRequest request = mapContent.getRequest();
+        Object delayOption = request.getFormatOptions().get(APNG_FRAMES_DELAY);
+        final int delay =
+                delayOption != null
+                        ? Integer.parseInt(String.valueOf(delayOption))
+                        : wms.getFramesDelay();
+        if (delay <= 0 || delay > 0xFFFF) {
+            throw new ServiceException("Animated PNG delay invalid: " + delay);
+        }
+        Object loopOption = request.getFormatOptions().get(APNG_LOOP_CONTINUOUSLY);
+        final boolean loop =
+                loopOption != null
+                        ? Boolean.parseBoolean(String.valueOf(loopOption))
+                        : wms.getLoopContinuously();
+
+        DataOutputStream out = new DataOutputStream(outStream);
+        out.write(PNG_SIGNATURE);
+        int sequence = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            RenderedImage frame = (RenderedImage) frames.get(i);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.fine("Writing animated png frame " + i);
+            }
+            BufferedImage rgba = toRGBA(frame);
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            if (!ImageIO.write(rgba, "png", png)) {
+                throw new ServiceException("No PNG ImageWriter found");
+            }
+            rgba.flush();
+
+            DataInputStream chunks =
+                    new DataInputStream(new ByteArrayInputStream(png.toByteArray()));
+            chunks.skipBytes(PNG_SIGNATURE.length);
+            boolean controlWritten = false;
+            while (true) {
+                int length = chunks.readInt();
+                byte[] type = new byte[4];
+                chunks.readFully(type);
+                byte[] data = new byte[length];
+                chunks.readFully(data);
+                chunks.readInt(); // crc
+                String chunkType = new String(type, StandardCharsets.US_ASCII);
+                if ("IHDR".equals(chunkType) && i == 0) {
+                    writeChunk(out, "IHDR", data);
+                    writeChunk(out, "acTL", ints(frames.size(), loop ? 0 : 1));
+                } else if ("IDAT".equals(chunkType)) {
+                    if (!controlWritten) {
+                        writeChunk(
+                                out,
+                                "fcTL",
+                                frameControl(sequence++, rgba.getWidth(), rgba.getHeight(), delay));
+                        controlWritten = true;
+                    }
+                    if (i == 0) {
+                        writeChunk(out, "IDAT", data);
+                    } else {
+                        byte[] frameData = new byte[data.length + 4];
+                        System.arraycopy(ints(sequence++), 0, frameData, 0, 4);
+                        System.arraycopy(data, 0, frameData, 4, data.length);
+                        writeChunk(out, "fdAT", frameData);
+                    }
+                } else if ("IEND".equals(chunkType)) {
+                    break;
+                }
+            }
+            // push the frame to the client while the next ones are being rendered
+            out.flush();
+        }
+        writeChunk(out, "IEND", new byte[0]);
+        out.flush();
+    }
+
+    /** Converts the frame to 8 bits RGBA, so that all frames share the same PNG header */
+    private BufferedImage toRGBA(RenderedImage image) {
+        BufferedImage rgba =
+                new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = rgba.createGraphics();
+        try {
+            graphics.drawRenderedImage(
+                    image,
+                    AffineTransform.getTranslateInstance(-image.getMinX(), -image.getMinY()));
+        } finally {
+            graphics.dispose();
+        }
+        return rgba;
+    }
+
+    private byte[] frameControl(int sequence, int width, int height, int delay) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(26);
+        DataOutputStream dos = new DataOutputStream(bos);
+        try {
+            dos.writeInt(sequence);
+            dos.writeInt(width);
+            dos.writeInt(height);
+            dos.writeInt(0); // x offset
+            dos.writeInt(0); // y offset
+            dos.writeShort(delay); // delay numerator
+            dos.writeShort(1000); // delay denominator, milliseconds
+            dos.writeByte(0); // dispose op: none
+            dos.writeByte(0); // blend op: source, frames are full images
+        } catch (IOException e) {
+            // cannot happen writing in memory
+            throw new IllegalStateException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    private static byte[] ints(int... values) {
+        byte[] result = new byte[values.length * 4];
+        for (int i = 0; i < values.length; i++) {
+            int v = values[i];
+            result[i * 4] = (byte) (v >>> 24);
+            result[i * 4 + 1] = (byte) (v >>> 16);
+            result[i * 4 + 2] = (byte) (v >>> 8);
+            result[i * 4 + 3] = (byte) v;
+        }
+        return result;
+    }
+
+    private static void writeChunk(DataOutputStream out, String type, byte[] data)
+            throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    @Override
+    public MapProducerCapabilities getCapabilities(String outputFormat) {
+        return CAPABILITIES;
+    }
+
+    @Override
+    public String getExtension(RenderedImage image, WMSMapContent mapContent) {
+        return "png";
+    }
+}
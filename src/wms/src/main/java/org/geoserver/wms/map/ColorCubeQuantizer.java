@@ -0,0 +1,642 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.map;
+
+import it.geosolutions.jaiext.colorindexer.ColorIndexer;
+import java.awt.Rectangle;
+import java.awt.image.DataBuffer;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+
+/**
+ * A median cut quantizer working against a fixed size RGBA color cube (5 bits per color channel, 3
+ * bits for alpha), built only on primitive arrays.
+ *
+ * <p>The histogram, the list of used cube cells and the sorting scratch space are kept in per
+ * thread buffers that are reused across requests (and held via soft references, so that they can be
+ * reclaimed under memory pressure), the quantization itself does not allocate anything but the
+ * resulting palette and its inverse color map. The inverse color map is split in pages allocated
+ * only when a pixel falls in them, as the indexer outlives the quantization and is used by the JAI
+ * tile computation threads, it cannot live in the per thread buffers.
+ *
+ * <p>Images using at most {@code maxColors} distinct colors are not quantized at all, the palette
+ * is made of the exact colors found.
+ */
+public class ColorCubeQuantizer {
+
+    /** Bits used for the red, green and blue channels in the color cube */
+    static final int RGB_BITS = 5;
+
+    /** Bits used for the alpha channel in the color cube */
+    static final int ALPHA_BITS = 3;
+
+    /** Number of cells in the color cube */
+    static final int CUBE_SIZE = 1 << (3 * RGB_BITS + ALPHA_BITS);
+
+    /** Bits of the cube cell used to select a page of the inverse color map */
+    static final int PAGE_BITS = 12;
+
+    static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    /** Max number of pixels inspected to build the histogram, larger images get subsampled */
+    static final int MAX_SAMPLES = 256 * 256;
+
+    static final int RGB_MASK = (1 << RGB_BITS) - 1;
+
+    static final int ALPHA_LEVELS = 1 << ALPHA_BITS;
+
+    /** Alpha is quantized more coarsely, scale its range up to make it comparable to RGB ones */
+    static final int ALPHA_WEIGHT = 1 << (RGB_BITS - ALPHA_BITS);
+
+    /** The cube cell collecting all fully transparent pixels */
+    static final int TRANSPARENT_CELL = 0;
+
+    private static final ThreadLocal<SoftReference<Buffers>> BUFFERS = new ThreadLocal<>();
+
+    private final int maxColors;
+
+    private boolean subsample = true;
+
+    public ColorCubeQuantizer(int maxColors) {
+        if (maxColors < 2 || maxColors > 256) {
+            throw new IllegalArgumentException(
+                    "The max number of colors must be between 2 and 256, but it was " + maxColors);
+        }
+        this.maxColors = maxColors;
+    }
+
+    /**
+     * Enables/disables subsampling of large images while building the histogram (enabled by
+     * default)
+     */
+    public ColorCubeQuantizer subsample(boolean subsample) {
+        this.subsample = subsample;
+        return this;
+    }
+
+    /**
+     * Builds a color indexer for the specified image. The image is expected to be a byte image with
+     * 1 (gray), 2 (gray alpha), 3 (RGB) or 4 (RGBA) bands, paletted images have to be expanded
+     * first.
+     */
+    public ColorIndexer buildColorIndexer(RenderedImage image) {
+        int bands = image.getSampleModel().getNumBands();
+        if (image.getColorModel() instanceof IndexColorModel
+                || image.getSampleModel().getDataType() != DataBuffer.TYPE_BYTE
+                || bands > 4) {
+            throw new IllegalArgumentException(
+                    "Can only quantize non paletted byte images with up to 4 bands, got " + image);
+        }
+
+        Buffers buffers = getBuffers();
+        try {
+            collectHistogram(image, buffers);
+            if (buffers.exactCount <= maxColors) {
+                return new CubeColorIndexer(buffers.exactPalette(), true);
+            } else {
+                return new CubeColorIndexer(medianCut(buffers), false);
+            }
+        } finally {
+            buffers.reset();
+        }
+    }
+
+    static Buffers getBuffers() {
+        SoftReference<Buffers> reference = BUFFERS.get();
+        Buffers buffers = reference != null ? reference.get() : null;
+        if (buffers == null) {
+            buffers = new Buffers();
+            BUFFERS.set(new SoftReference<>(buffers));
+        }
+        return buffers;
+    }
+
+    /** Fills the histogram, the list of used cells, and the exact color list while it's small */
+    void collectHistogram(RenderedImage image, Buffers buffers) {
+        final int minX = image.getMinX();
+        final int minY = image.getMinY();
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int bands = image.getSampleModel().getNumBands();
+        final int step = getStep(width, height);
+        final Rectangle bounds = new Rectangle(minX, minY, width, height);
+
+        for (int ty = image.getMinTileY(), maxTy = ty + image.getNumYTiles(); ty < maxTy; ty++) {
+            for (int tx = image.getMinTileX(), maxTx = tx + image.getNumXTiles();
+                    tx < maxTx;
+                    tx++) {
+                Raster tile = image.getTile(tx, ty);
+                Rectangle area = tile.getBounds().intersection(bounds);
+                if (area.isEmpty()) {
+                    continue;
+                }
+                final int x0 = area.x + alignment(area.x - minX, step);
+                final int y0 = area.y + alignment(area.y - minY, step);
+                final int[] row = buffers.row(area.width * bands);
+                for (int y = y0; y < area.y + area.height; y += step) {
+                    tile.getPixels(area.x, y, area.width, 1, row);
+                    for (int x = x0; x < area.x + area.width; x += step) {
+                        int i = (x - area.x) * bands;
+                        int r, g, b, a;
+                        if (bands < 3) {
+                            r = g = b = row[i];
+                            a = bands == 2 ? row[i + 1] : 255;
+                        } else {
+                            r = row[i];
+                            g = row[i + 1];
+                            b = row[i + 2];
+                            a = bands == 4 ? row[i + 3] : 255;
+                        }
+                        buffers.add(r, g, b, a);
+                    }
+                }
+            }
+        }
+    }
+
+    /** Subsampling step keeping the number of inspected pixels below {@link #MAX_SAMPLES} */
+    int getStep(int width, int height) {
+        if (!subsample) {
+            return 1;
+        }
+        int step = 1;
+        while ((long) ((width + step - 1) / step) * ((height + step - 1) / step) > MAX_SAMPLES) {
+            step++;
+        }
+        return step;
+    }
+
+    /** Offset from the given position to the next one that is a multiple of step */
+    private static int alignment(int position, int step) {
+        return (step - position % step) % step;
+    }
+
+    /** Runs the median cut over the used cube cells, returns the palette in ARGB form */
+    int[] medianCut(Buffers buffers) {
+        final int[] cells = buffers.cells;
+        final int[] counts = buffers.counts;
+        int start = 0;
+        int end = buffers.cellCount;
+
+        // fully transparent pixels get their own palette entry, never merged with others
+        int colors = maxColors;
+        boolean transparent = false;
+        for (int i = 0; i < end; i++) {
+            if (cells[i] == TRANSPARENT_CELL) {
+                cells[i] = cells[start];
+                cells[start] = TRANSPARENT_CELL;
+                start++;
+                colors--;
+                transparent = true;
+                break;
+            }
+        }
+
+        final int[] boxStart = buffers.boxStart;
+        final int[] boxEnd = buffers.boxEnd;
+        final long[] boxScore = buffers.boxScore;
+        final int[] boxChannel = buffers.boxChannel;
+        int boxes = 0;
+        if (start < end) {
+            boxStart[0] = start;
+            boxEnd[0] = end;
+            scoreBox(buffers, 0);
+            boxes = 1;
+        }
+
+        while (boxes < colors) {
+            // pick the most populated and widest box
+            int target = -1;
+            long best = 0;
+            for (int i = 0; i < boxes; i++) {
+                if (boxScore[i] > best) {
+                    best = boxScore[i];
+                    target = i;
+                }
+            }
+            if (target == -1) {
+                // all boxes are down to a single cell
+                break;
+            }
+
+            int from = boxStart[target];
+            int to = boxEnd[target];
+            sortByChannel(buffers, from, to, boxChannel[target]);
+            int split = weightedMedian(cells, counts, from, to);
+
+            boxEnd[target] = split;
+            scoreBox(buffers, target);
+            boxStart[boxes] = split;
+            boxEnd[boxes] = to;
+            scoreBox(buffers, boxes);
+            boxes++;
+        }
+
+        int[] palette = new int[boxes + (transparent ? 1 : 0)];
+        int idx = 0;
+        if (transparent) {
+            palette[idx++] = 0;
+        }
+        for (int i = 0; i < boxes; i++) {
+            palette[idx++] = averageColor(cells, counts, boxStart[i], boxEnd[i]);
+        }
+        return palette;
+    }
+
+    /** Computes the split score and the widest channel of the box */
+    static void scoreBox(Buffers buffers, int box) {
+        final int[] cells = buffers.cells;
+        final int[] counts = buffers.counts;
+        final int from = buffers.boxStart[box];
+        final int to = buffers.boxEnd[box];
+        if (to - from < 2) {
+            buffers.boxScore[box] = 0;
+            return;
+        }
+        int minR = RGB_MASK, minG = RGB_MASK, minB = RGB_MASK, minA = ALPHA_LEVELS - 1;
+        int maxR = 0, maxG = 0, maxB = 0, maxA = 0;
+        long population = 0;
+        for (int i = from; i < to; i++) {
+            int cell = cells[i];
+            int r = red(cell), g = green(cell), b = blue(cell), a = alpha(cell);
+            if (r < minR) minR = r;
+            if (r > maxR) maxR = r;
+            if (g < minG) minG = g;
+            if (g > maxG) maxG = g;
+            if (b < minB) minB = b;
+            if (b > maxB) maxB = b;
+            if (a < minA) minA = a;
+            if (a > maxA) maxA = a;
+            population += counts[cell];
+        }
+        int channel = 0;
+        int range = maxR - minR;
+        if (maxG - minG > range) {
+            channel = 1;
+            range = maxG - minG;
+        }
+        if (maxB - minB > range) {
+            channel = 2;
+            range = maxB - minB;
+        }
+        if ((maxA - minA) * ALPHA_WEIGHT > range) {
+            channel = 3;
+            range = (maxA - minA) * ALPHA_WEIGHT;
+        }
+        buffers.boxChannel[box] = channel;
+        buffers.boxScore[box] = population * (range + 1);
+    }
+
+    /** Counting sort of the cells in the given range, by the value of the specified channel */
+    static void sortByChannel(Buffers buffers, int from, int to, int channel) {
+        final int[] cells = buffers.cells;
+        final int[] scratch = buffers.scratch(to - from);
+        final int[] offsets = buffers.channelOffsets;
+        Arrays.fill(offsets, 0);
+        for (int i = from; i < to; i++) {
+            offsets[channel(cells[i], channel) + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        for (int i = from; i < to; i++) {
+            int cell = cells[i];
+            scratch[offsets[channel(cell, channel)]++] = cell;
+        }
+        System.arraycopy(scratch, 0, cells, from, to - from);
+    }
+
+    /** Returns the split position of a sorted box, guaranteed to leave both halves non empty */
+    static int weightedMedian(int[] cells, int[] counts, int from, int to) {
+        long total = 0;
+        for (int i = from; i < to; i++) {
+            total += counts[cells[i]];
+        }
+        long half = total / 2;
+        long sum = 0;
+        int split = from + 1;
+        for (int i = from; i < to - 1; i++) {
+            sum += counts[cells[i]];
+            if (sum >= half) {
+                split = i + 1;
+                break;
+            }
+        }
+        return split;
+    }
+
+    /** Population weighted average of the cells in the given range, as an ARGB color */
+    static int averageColor(int[] cells, int[] counts, int from, int to) {
+        long r = 0, g = 0, b = 0, a = 0, population = 0;
+        for (int i = from; i < to; i++) {
+            int cell = cells[i];
+            long count = counts[cell];
+            r += count * expandRGB(red(cell));
+            g += count * expandRGB(green(cell));
+            b += count * expandRGB(blue(cell));
+            a += count * expandAlpha(alpha(cell));
+            population += count;
+        }
+        long round = population / 2;
+        return argb(
+                (int) ((r + round) / population),
+                (int) ((g + round) / population),
+                (int) ((b + round) / population),
+                (int) ((a + round) / population));
+    }
+
+    static int cell(int r, int g, int b, int a) {
+        if (a == 0) {
+            return TRANSPARENT_CELL;
+        }
+        int qa = a == 255 ? ALPHA_LEVELS - 1 : 1 + ((a - 1) * (ALPHA_LEVELS - 2)) / 254;
+        return (qa << (3 * RGB_BITS))
+                | ((r >> (8 - RGB_BITS)) << (2 * RGB_BITS))
+                | ((g >> (8 - RGB_BITS)) << RGB_BITS)
+                | (b >> (8 - RGB_BITS));
+    }
+
+    static int red(int cell) {
+        return (cell >> (2 * RGB_BITS)) & RGB_MASK;
+    }
+
+    static int green(int cell) {
+        return (cell >> RGB_BITS) & RGB_MASK;
+    }
+
+    static int blue(int cell) {
+        return cell & RGB_MASK;
+    }
+
+    static int alpha(int cell) {
+        return cell >>> (3 * RGB_BITS);
+    }
+
+    static int channel(int cell, int channel) {
+        switch (channel) {
+            case 0:
+                return red(cell);
+            case 1:
+                return green(cell);
+            case 2:
+                return blue(cell);
+            default:
+                return alpha(cell);
+        }
+    }
+
+    /** Maps a quantized color channel back to 0-255, preserving the extremes */
+    static int expandRGB(int value) {
+        return (value << (8 - RGB_BITS)) | (value >> (2 * RGB_BITS - 8));
+    }
+
+    /** Maps a quantized alpha back to 0-255, 0 and 255 are kept exact, the rest is centered */
+    static int expandAlpha(int value) {
+        if (value == 0) {
+            return 0;
+        } else if (value == ALPHA_LEVELS - 1) {
+            return 255;
+        } else {
+            return 1 + ((value - 1) * 254 + 127) / (ALPHA_LEVELS - 2);
+        }
+    }
+
+    static int argb(int r, int g, int b, int a) {
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    /** Per thread, reusable, quantization buffers */
+    static final class Buffers {
+
+        /** Open addressing hash holding the exact colors, as long as they are few */
+        static final int EXACT_HASH_SIZE = 1024;
+
+        final int[] counts = new int[CUBE_SIZE];
+
+        int[] cells = new int[MAX_SAMPLES];
+
+        int cellCount;
+
+        int[] scratch = new int[MAX_SAMPLES];
+
+        int[] row = new int[1024];
+
+        final int[] exactColors = new int[EXACT_HASH_SIZE];
+
+        final boolean[] exactUsed = new boolean[EXACT_HASH_SIZE];
+
+        int exactCount;
+
+        final int[] boxStart = new int[256];
+
+        final int[] boxEnd = new int[256];
+
+        final long[] boxScore = new long[256];
+
+        final int[] boxChannel = new int[256];
+
+        final int[] channelOffsets = new int[RGB_MASK + 2];
+
+        int[] row(int size) {
+            if (row.length < size) {
+                row = new int[size];
+            }
+            return row;
+        }
+
+        int[] scratch(int size) {
+            if (scratch.length < size) {
+                scratch = new int[size];
+            }
+            return scratch;
+        }
+
+        void add(int r, int g, int b, int a) {
+            // exact colors tracking, stops once there are too many to fit a palette
+            if (exactCount <= 256) {
+                int color = argb(r, g, b, a);
+                int slot = hash(color) & (EXACT_HASH_SIZE - 1);
+                while (exactUsed[slot] && exactColors[slot] != color) {
+                    slot = (slot + 1) & (EXACT_HASH_SIZE - 1);
+                }
+                if (!exactUsed[slot]) {
+                    exactUsed[slot] = true;
+                    exactColors[slot] = color;
+                    exactCount++;
+                }
+            }
+
+            int cell = cell(r, g, b, a);
+            if (counts[cell]++ == 0) {
+                if (cellCount == cells.length) {
+                    cells = Arrays.copyOf(cells, Math.min(CUBE_SIZE, cellCount * 2));
+                }
+                cells[cellCount++] = cell;
+            }
+        }
+
+        /** Returns the exact colors found, sorted, mimicking the {@link PaletteExtractor} output */
+        int[] exactPalette() {
+            int[] palette = new int[exactCount];
+            for (int i = 0, j = 0; i < EXACT_HASH_SIZE && j < exactCount; i++) {
+                if (exactUsed[i]) {
+                    palette[j++] = exactColors[i];
+                }
+            }
+            Arrays.sort(palette);
+            return palette;
+        }
+
+        /** Clears only the histogram cells that have been touched, and the exact color hash */
+        void reset() {
+            for (int i = 0; i < cellCount; i++) {
+                counts[cells[i]] = 0;
+            }
+            cellCount = 0;
+            // the exact color hash is always compacted before use, clear it fully
+            Arrays.fill(exactUsed, false);
+            exactCount = 0;
+        }
+    }
+
+    static int hash(int color) {
+        int h = color * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Maps colors to the palette using a lazily filled inverse color map, one entry per color cube
+     * cell, plus an exact lookup for palettes built from the exact image colors. Thread safe, the
+     * concurrent filling of the same cell always results in the same value.
+     */
+    static final class CubeColorIndexer implements ColorIndexer {
+
+        final byte[] reds;
+
+        final byte[] greens;
+
+        final byte[] blues;
+
+        final byte[] alphas;
+
+        final int size;
+
+        /**
+         * Inverse color map, stores palette index + 1, 0 meaning not computed yet. Split in pages
+         * allocated on demand, most images only touch a small part of the cube.
+         */
+        final short[][] inverse = new short[CUBE_SIZE >> PAGE_BITS][];
+
+        /** Exact color hash (keys and palette index + 1), null if the palette is approximated */
+        final int[] exactKeys;
+
+        final short[] exactValues;
+
+        final IndexColorModel icm;
+
+        /**
+         * Builds an indexer from a palette in ARGB form. When {@code exact} is true the palette
+         * holds the exact image colors, and they will be looked up without going through the cube
+         */
+        CubeColorIndexer(int[] palette, boolean exact) {
+            this.size = palette.length;
+            this.reds = new byte[size];
+            this.greens = new byte[size];
+            this.blues = new byte[size];
+            this.alphas = new byte[size];
+            for (int i = 0; i < size; i++) {
+                int c = palette[i];
+                alphas[i] = (byte) (c >>> 24);
+                reds[i] = (byte) (c >> 16);
+                greens[i] = (byte) (c >> 8);
+                blues[i] = (byte) c;
+            }
+            if (exact) {
+                // a power of two at least twice the palette size, keeps probing short
+                int hashSize = Integer.highestOneBit(Math.max(size, 1)) << 2;
+                this.exactKeys = new int[hashSize];
+                this.exactValues = new short[hashSize];
+                for (int i = 0; i < size; i++) {
+                    putExact(palette[i], i);
+                }
+            } else {
+                this.exactKeys = null;
+                this.exactValues = null;
+            }
+            this.icm = new IndexColorModel(8, size, reds, greens, blues, alphas);
+        }
+
+        private void putExact(int color, int index) {
+            int slot = hash(color) & (exactKeys.length - 1);
+            while (exactValues[slot] != 0 && exactKeys[slot] != color) {
+                slot = (slot + 1) & (exactKeys.length - 1);
+            }
+            exactKeys[slot] = color;
+            exactValues[slot] = (short) (index + 1);
+        }
+
+        @Override
+        public IndexColorModel toIndexColorModel() {
+            return icm;
+        }
+
+        @Override
+        public int getClosestIndex(int r, int g, int b, int a) {
+            if (exactKeys != null) {
+                int color = argb(r, g, b, a);
+                int slot = hash(color) & (exactKeys.length - 1);
+                short value;
+                while ((value = exactValues[slot]) != 0) {
+                    if (exactKeys[slot] == color) {
+                        return value - 1;
+                    }
+                    slot = (slot + 1) & (exactKeys.length - 1);
+                }
+            }
+
+            int cell = cell(r, g, b, a);
+            short[] page = inverse[cell >> PAGE_BITS];
+            if (page == null) {
+                // a concurrent allocation of the same page only loses a few cached lookups
+                page = new short[PAGE_SIZE];
+                inverse[cell >> PAGE_BITS] = page;
+            }
+            int value = page[cell & (PAGE_SIZE - 1)];
+            if (value == 0) {
+                value = nearest(cell) + 1;
+                page[cell & (PAGE_SIZE - 1)] = (short) value;
+            }
+            return value - 1;
+        }
+
+        /** Linear search of the palette entry closest to the center of the cube cell */
+        int nearest(int cell) {
+            int r = expandRGB(red(cell));
+            int g = expandRGB(green(cell));
+            int b = expandRGB(blue(cell));
+            int a = expandAlpha(alpha(cell));
+            int result = 0;
+            int best = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                int dr = (reds[i] & 0xFF) - r;
+                int dg = (greens[i] & 0xFF) - g;
+                int db = (blues[i] & 0xFF) - b;
+                int da = (alphas[i] & 0xFF) - a;
+                int distance = dr * dr + dg * dg + db * db + da * da;
+                if (distance < best) {
+                    best = distance;
+                    result = i;
+                    if (distance == 0) {
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+}
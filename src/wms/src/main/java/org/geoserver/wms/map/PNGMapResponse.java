@@ -40,10 +40,12 @@ public class PNGMapResponse extends RenderedImageMapResponse {
 
     private static final String[] OUTPUT_FORMATS = {MIME_TYPE, MIME_TYPE_8BIT, "image/png8"};
 
-    /** The two quantizers available for PNG images */
+    /** The quantizers available for PNG images */
     public enum QuantizeMethod {
         Octree,
-        MedianCut
+        MedianCut,
+        /** Median cut on a fixed size color cube, see {@link ColorCubeQuantizer} */
+        ColorCube
     };
 
     /**
@@ -55,6 +55,14 @@ public abstract class RenderedImageMapResponse extends AbstractMapResponse {
     /** Which format to encode the image in if one is not supplied */
     private static final String DEFAULT_MAP_FORMAT = "image/png";
 
+    /**
+     * System property key enabling the {@link ColorCubeQuantizer} as the default translucent
+     * quantizer, instead of the JAI-EXT median cut one
+     */
+    public static final String COLOR_CUBE_QUANTIZER_KEY = "wms.png8.colorCubeQuantizer";
+
+    static boolean COLOR_CUBE_QUANTIZER = Boolean.getBoolean(COLOR_CUBE_QUANTIZER_KEY);
+
     /** WMS Service configuration * */
     protected final WMS wms;
 
@@ -178,7 +186,12 @@ public abstract class RenderedImageMapResponse extends AbstractMapResponse {
                     indexer = new CachingColorIndexer(new LRUColorIndexer(icm, 1024));
                 } else if (palettedFormatCheck.apply(format)) {
                     // build the palette and grab the optimized color indexer
-                    indexer = new Quantizer(256).subsample().buildColorIndexer(image);
+                    if (method == QuantizeMethod.ColorCube
+                            || (method == null && COLOR_CUBE_QUANTIZER)) {
+                        indexer = new ColorCubeQuantizer(256).buildColorIndexer(image);
+                    } else {
+                        indexer = new Quantizer(256).subsample().buildColorIndexer(image);
+                    }
                 }
 
                 // if we have an indexer transform the image
@@ -0,0 +1,81 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import java.awt.image.BufferedImage;
+import java.awt.image.RenderedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentAnimationFramesTest {
+
+    List<RenderedImage> frameImages = new ArrayList<>();
+
+    List<RenderedImage> scratchImages = new ArrayList<>();
+
+    List<Callable<ConcurrentAnimationFrames.Frame>> renderers = new ArrayList<>();
+
+    @Before
+    @After
+    public void clearCleaner() {
+        RasterCleaner.images.remove();
+        RasterCleaner.coverages.remove();
+    }
+
+    @Before
+    public void setupRenderers() {
+        for (int i = 0; i < 4; i++) {
+            BufferedImage frame = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            frameImages.add(frame);
+            scratchImages.add(scratch);
+            renderers.add(
+                    () -> {
+                        // an intermediate image scheduled for cleanup by the rendering
+                        RasterCleaner.addImage(scratch);
+                        return new ConcurrentAnimationFrames.Frame(frame, "image/png");
+                    });
+        }
+    }
+
+    @Test
+    public void testDisposeReleasesRenderedAhead() {
+        MaxAnimationTimeHelper timeHelper = mock(MaxAnimationTimeHelper.class);
+        when(timeHelper.getResidualTime()).thenReturn(Long.MAX_VALUE);
+        // frames rendered synchronously on submission, two at a time
+        ConcurrentAnimationFrames frames =
+                new ConcurrentAnimationFrames(
+                        MoreExecutors.newDirectExecutorService(),
+                        2,
+                        timeHelper,
+                        renderers,
+                        new ArrayList<>());
+        assertSame(frameImages.get(0), frames.get(0));
+
+        // the encoder stops early, the second frame was rendered ahead but never consumed
+        frames.dispose();
+        List<RenderedImage> cleaned = RasterCleaner.images.get();
+        assertTrue(cleaned.contains(scratchImages.get(0)));
+        assertTrue(cleaned.contains(scratchImages.get(1)));
+        assertTrue(cleaned.contains(frameImages.get(1)));
+        // the others were never rendered
+        assertFalse(cleaned.contains(scratchImages.get(2)));
+        assertEquals(3, cleaned.size());
+        assertNull(frames.get(2));
+    }
+}
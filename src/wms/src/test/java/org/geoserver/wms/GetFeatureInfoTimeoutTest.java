@@ -0,0 +1,151 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import net.opengis.wfs.FeatureCollectionType;
+import org.geoserver.platform.GeoServerExtensionsHelper;
+import org.geoserver.wms.featureinfo.LayerIdentifier;
+import org.geotools.data.DataUtilities;
+import org.geotools.data.collection.ListFeatureCollection;
+import org.geotools.data.simple.SimpleFeatureCollection;
+import org.geotools.feature.simple.SimpleFeatureBuilder;
+import org.geotools.geometry.jts.ReferencedEnvelope;
+import org.geotools.referencing.crs.DefaultGeographicCRS;
+import org.geotools.styling.Style;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.opengis.feature.simple.SimpleFeatureType;
+
+public class GetFeatureInfoTimeoutTest {
+
+    @Rule
+    public GeoServerExtensionsHelper.ExtensionsHelperRule extensions =
+            new GeoServerExtensionsHelper.ExtensionsHelperRule();
+
+    @After
+    public void shutdownPool() throws Exception {
+        new GetFeatureInfo().destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSlowLayerTimesOut() throws Exception {
+        SimpleFeatureType fastType = DataUtilities.createType("fast", "name:String");
+        SimpleFeatureType slowType = DataUtilities.createType("slow", "name:String");
+        ListFeatureCollection fast = new ListFeatureCollection(fastType);
+        fast.add(SimpleFeatureBuilder.build(fastType, new Object[] {"f1"}, "fast.1"));
+        MapLayerInfo fastLayer = new MapLayerInfo(DataUtilities.source(fast));
+        MapLayerInfo slowLayer =
+                new MapLayerInfo(DataUtilities.source(new ListFeatureCollection(slowType)));
+
+        // identification is quick, reading the features is not
+        SimpleFeatureCollection slow = mock(SimpleFeatureCollection.class);
+        when(slow.getSchema()).thenReturn(slowType);
+        when(slow.features())
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(60000);
+                            return null;
+                        });
+        when(slow.size())
+                .thenAnswer(
+                        invocation -> {
+                            Thread.sleep(60000);
+                            return 0;
+                        });
+        LayerIdentifier identifier = mock(LayerIdentifier.class);
+        when(identifier.canHandle(any())).thenReturn(true);
+        doAnswer(
+                        invocation -> {
+                            FeatureInfoRequestParameters params = invocation.getArgument(0);
+                            return Collections.singletonList(
+                                    params.getLayer() == slowLayer ? slow : fast);
+                        })
+                .when(identifier)
+                .identify(any(), anyInt());
+        extensions.singleton("identifier", identifier, LayerIdentifier.class);
+
+        GetMapRequest getMap = new GetMapRequest();
+        getMap.setLayers(Arrays.asList(slowLayer, fastLayer));
+        getMap.setStyles(Arrays.asList(mock(Style.class), mock(Style.class)));
+        getMap.setBbox(new ReferencedEnvelope(-10, 10, -10, 10, DefaultGeographicCRS.WGS84));
+        getMap.setCrs(DefaultGeographicCRS.WGS84);
+        getMap.setWidth(256);
+        getMap.setHeight(256);
+        GetFeatureInfoRequest request = new GetFeatureInfoRequest();
+        request.setGetMapRequest(getMap);
+        request.setQueryLayers(Arrays.asList(slowLayer, fastLayer));
+        request.setFeatureCount(10);
+        request.setXPixel(128);
+        request.setYPixel(128);
+
+        WMS wms = mock(WMS.class);
+        when(wms.getFeatureInfoParallelLayers()).thenReturn(2);
+        when(wms.getFeatureInfoLayerTimeout()).thenReturn(500L);
+        when(wms.getFeatureInfoMaxThreads()).thenReturn(2);
+
+        long start = System.currentTimeMillis();
+        FeatureCollectionType result = new GetFeatureInfo(wms).run(request);
+        long elapsed = System.currentTimeMillis() - start;
+
+        // the slow layer has been skipped, the fast one returned
+        assertTrue("Took " + elapsed + "ms", elapsed < 10000);
+        assertEquals(1, result.getFeature().size());
+        assertEquals(fastType, ((SimpleFeatureCollection) result.getFeature().get(0)).getSchema());
+    }
+
+    @Test
+    public void testPoolResized() throws Exception {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) GetFeatureInfo.getIdentificationPool(2);
+        assertEquals(2, pool.getMaximumPoolSize());
+        assertSame(pool, GetFeatureInfo.getIdentificationPool(4));
+        assertEquals(4, pool.getMaximumPoolSize());
+        assertEquals(4, pool.getCorePoolSize());
+        GetFeatureInfo.getIdentificationPool(1);
+        assertEquals(1, pool.getMaximumPoolSize());
+        assertEquals(1, pool.getCorePoolSize());
+    }
+
+    @Test
+    public void testCallerRunsWhenSaturated() throws Exception {
+        ThreadLocalTransferExecutor executor = new ThreadLocalTransferExecutor(1, 1);
+        CountDownLatch latch = new CountDownLatch(1);
+        try {
+            // one running, one queued
+            executor.submit(
+                    () -> {
+                        latch.await();
+                        return null;
+                    });
+            executor.submit(
+                    () -> {
+                        latch.await();
+                        return null;
+                    });
+            // no room left, runs on this thread
+            Future<Thread> future = executor.submit(() -> Thread.currentThread());
+            assertSame(Thread.currentThread(), future.get());
+            assertEquals(1, executor.getPoolSize());
+        } finally {
+            latch.countDown();
+            executor.shutdown();
+        }
+    }
+}
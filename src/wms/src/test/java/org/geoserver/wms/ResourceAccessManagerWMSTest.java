@@ -20,9 +20,11 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import javax.xml.namespace.QName;
+import net.sf.json.JSONObject;
 import org.geoserver.catalog.Catalog;
 import org.geoserver.catalog.CatalogBuilder;
 import org.geoserver.catalog.CoverageInfo;
+import org.geoserver.catalog.FeatureTypeInfo;
 import org.geoserver.catalog.LayerInfo;
 import org.geoserver.catalog.WMSLayerInfo;
 import org.geoserver.catalog.WMSStoreInfo;
@@ -36,10 +38,12 @@ import org.geoserver.security.GeoServerRoleStore;
 import org.geoserver.security.GeoServerUserGroupStore;
 import org.geoserver.security.ResourceAccessManager;
 import org.geoserver.security.TestResourceAccessManager;
+import org.geoserver.security.VectorAccessLimits;
 import org.geoserver.security.WMSAccessLimits;
 import org.geoserver.security.impl.AbstractUserGroupService;
 import org.geoserver.security.impl.GeoServerRole;
 import org.geoserver.test.RemoteOWSTestSupport;
+import org.geoserver.wms.featureinfo.FeatureInfoHitCache;
 import org.geotools.factory.CommonFactoryFinder;
 import org.geotools.filter.text.cql2.CQL;
 import org.geotools.util.logging.Logging;
@@ -137,6 +141,7 @@ public class ResourceAccessManagerWMSTest extends WMSTestSupport {
         ugStore.addUser(ugStore.createUserObject("cite_texas", "cite", true));
         ugStore.addUser(ugStore.createUserObject("cite_mosaic1", "cite", true));
         ugStore.addUser(ugStore.createUserObject("cite_mosaic2", "cite", true));
+        ugStore.addUser(ugStore.createUserObject("cite_nobridges", "cite", true));
         ugStore.store();
 
         GeoServerRoleStore roleStore = getSecurityManager().getActiveRoleService().createStore();
@@ -148,6 +153,7 @@ public class ResourceAccessManagerWMSTest extends WMSTestSupport {
         roleStore.associateRoleToUser(role, "cite_cite_texas");
         roleStore.associateRoleToUser(role, "cite_mosaic1");
         roleStore.associateRoleToUser(role, "cite_mosaic2");
+        roleStore.associateRoleToUser(role, "cite_nobridges");
         roleStore.store();
 
         prepare();
@@ -177,6 +183,13 @@ public class ResourceAccessManagerWMSTest extends WMSTestSupport {
                 coverage,
                 new CoverageAccessLimits(CatalogMode.HIDE, green, cropper, null));
 
+        // hide all bridges
+        FeatureTypeInfo bridges = catalog.getFeatureTypeByName(getLayerId(MockData.BRIDGES));
+        tam.putLimits(
+                "cite_nobridges",
+                bridges,
+                new VectorAccessLimits(CatalogMode.HIDE, null, Filter.EXCLUDE, null, null));
+
         // add a wms store too, if possible
         if (!RemoteOWSTestSupport.isRemoteWMSStatesAvailable(LOGGER)) {
             return;
@@ -343,6 +356,40 @@ public class ResourceAccessManagerWMSTest extends WMSTestSupport {
         assertTrue(california.contains("no features were found"));
     }
 
+    @Test
+    public void testGetFeatureInfoHitCacheFiltered() throws Exception {
+        String layerId = getLayerId(MockData.BRIDGES);
+        String url =
+                "wms?REQUEST=GetFeatureInfo&BBOX=1.9E-4,6.9E-4,2.1E-4,7.1E-4&SERVICE=WMS"
+                        + "&INFO_FORMAT=application/json&QUERY_LAYERS="
+                        + layerId
+                        + "&LAYERS="
+                        + layerId
+                        + "&WIDTH=100&HEIGHT=100&X=50&Y=50&FORMAT=image%2Fpng&STYLES="
+                        + "&SRS=EPSG%3A4326&VERSION=1.1.1&FEATURE_COUNT=50";
+        FeatureInfoHitCache cache = GeoServerExtensions.bean(FeatureInfoHitCache.class);
+        cache.onReset();
+        LayerInfo bridges = getCatalog().getLayerByName(layerId);
+        bridges.getMetadata().put(FeatureInfoHitCache.LAYER_ENABLED_KEY, true);
+        getCatalog().save(bridges);
+        try {
+            setRequestAuth("cite", "cite");
+            JSONObject result = (JSONObject) getAsJSON(url);
+            assertEquals(1, result.getJSONArray("features").size());
+            assertEquals(1, cache.size());
+
+            // same cell, but this user cannot see the bridges, the cached ones must not leak
+            setRequestAuth("cite_nobridges", "cite");
+            result = (JSONObject) getAsJSON(url);
+            assertEquals(0, result.getJSONArray("features").size());
+            assertEquals(2, cache.size());
+        } finally {
+            bridges.getMetadata().remove(FeatureInfoHitCache.LAYER_ENABLED_KEY);
+            getCatalog().save(bridges);
+            cache.onReset();
+        }
+    }
+
     @Test
     public void testDoubleMosaic() throws Exception {
         setRequestAuth("cite_mosaic1", "cite");
@@ -25,10 +25,14 @@ import org.apache.commons.lang3.mutable.MutableDouble;
 import org.custommonkey.xmlunit.SimpleNamespaceContext;
 import org.custommonkey.xmlunit.XMLUnit;
 import org.custommonkey.xmlunit.XpathEngine;
+import org.geoserver.catalog.LayerInfo;
 import org.geoserver.config.GeoServer;
 import org.geoserver.data.test.MockData;
 import org.geoserver.data.test.SystemTestData;
+import org.geoserver.platform.GeoServerExtensions;
 import org.geoserver.platform.ServiceException;
+import org.geoserver.wfs.TransactionEvent;
+import org.geoserver.wfs.TransactionEventType;
 import org.geoserver.wms.FeatureInfoRequestParameters;
 import org.geoserver.wms.GetFeatureInfoRequest;
 import org.geoserver.wms.GetMapOutputFormat;
@@ -177,6 +181,39 @@ public class RenderingBasedFeatureInfoTest extends WMSTestSupport {
         assertEquals(0, result2.getJSONArray("features").size());
     }
 
+    @Test
+    public void testHitCache() throws Exception {
+        String url =
+                "wms?REQUEST=GetFeatureInfo&BBOX=1.9E-4,6.9E-4,2.1E-4,7.1E-4&SERVICE=WMS&INFO_FORMAT=application/json"
+                        + "&QUERY_LAYERS=cite%3ABridges&Layers=cite%3ABridges&WIDTH=100&HEIGHT=100"
+                        + "&format=image%2Fpng&styles=box-offset&srs=EPSG%3A4326&version=1.1.1&feature_count=50";
+        FeatureInfoHitCache cache = GeoServerExtensions.bean(FeatureInfoHitCache.class);
+        cache.onReset();
+        LayerInfo bridges = getCatalog().getLayerByName(getLayerId(MockData.BRIDGES));
+        bridges.getMetadata().put(FeatureInfoHitCache.LAYER_ENABLED_KEY, true);
+        getCatalog().save(bridges);
+        try {
+            // clicking on the transparent area of the symbol, and then on the symbol itself
+            JSONObject result = (JSONObject) getAsJSON(url + "&x=50&y=63");
+            assertEquals(0, result.getJSONArray("features").size());
+            assertEquals(1, cache.size());
+            result = (JSONObject) getAsJSON(url + "&x=50&y=50");
+            assertEquals(1, result.getJSONArray("features").size());
+            // same cell, served from the cache
+            assertEquals(1, cache.size());
+
+            // a transaction on the layer drops the cached cells
+            cache.dataStoreChange(
+                    new TransactionEvent(
+                            TransactionEventType.POST_INSERT, null, MockData.BRIDGES, null));
+            assertEquals(0, cache.size());
+        } finally {
+            bridges.getMetadata().remove(FeatureInfoHitCache.LAYER_ENABLED_KEY);
+            getCatalog().save(bridges);
+            cache.onReset();
+        }
+    }
+
     @Test
     public void testRangedSize() throws Exception {
         // use a style that has a rule with a large symbolizer, but the point is
@@ -0,0 +1,131 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.legendgraphic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.geoserver.catalog.Catalog;
+import org.geoserver.catalog.StyleInfo;
+import org.geoserver.data.test.MockData;
+import org.geoserver.ows.LocalWorkspace;
+import org.geoserver.wms.GetLegendGraphic;
+import org.geoserver.wms.GetLegendGraphicRequest;
+import org.geoserver.wms.WMSTestSupport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LegendGraphicCacheTest extends WMSTestSupport {
+
+    LegendGraphicCache cache;
+
+    GetLegendGraphic getLegendGraphic;
+
+    @Before
+    public void setupCache() {
+        cache = new LegendGraphicCache(getGeoServer(), 10);
+        getLegendGraphic = new GetLegendGraphic(getWMS(), cache);
+    }
+
+    @After
+    public void removeCache() {
+        getCatalog().removeListener(cache);
+    }
+
+    @Test
+    public void testCachedAndInvalidated() throws Exception {
+        Object legend = getLegendGraphic.run(parse("cite:Ponds", "image/png"));
+        assertEquals(1, cache.size());
+        assertSame(legend, getLegendGraphic.run(parse("cite:Ponds", "image/png")));
+
+        // a different scale is a different legend
+        Map<String, String> kvp = kvp("cite:Ponds", "image/png");
+        kvp.put("SCALE", "1000");
+        assertNotSame(legend, getLegendGraphic.run(parse(kvp)));
+        assertEquals(2, cache.size());
+
+        // changing a style drops the cache
+        Catalog catalog = getCatalog();
+        StyleInfo style = catalog.getStyleByName("Ponds");
+        catalog.save(style);
+        assertEquals(0, cache.size());
+        assertNotSame(legend, getLegendGraphic.run(parse("cite:Ponds", "image/png")));
+    }
+
+    @Test
+    public void testKeyDependsOnLocalWorkspace() throws Exception {
+        String global = cache.getKey(parse("cite:Ponds", "image/png"));
+        LocalWorkspace.set(getCatalog().getWorkspaceByName("cite"));
+        try {
+            // same parameters, but resolved in the cite virtual service
+            String local = cache.getKey(parse("cite:Ponds", "image/png"));
+            assertNotEquals(global, local);
+            String id = getCatalog().getLayerByName(getLayerId(MockData.PONDS)).getId();
+            assertTrue(local.contains(id));
+        } finally {
+            LocalWorkspace.remove();
+        }
+    }
+
+    @Test
+    public void testSldNotCached() throws Exception {
+        Map<String, String> kvp = kvp("cite:Ponds", "image/png");
+        kvp.put("SLD", getClass().getResource("MultipleStyles.sld").toExternalForm());
+        kvp.put("STYLE", "Ponds");
+        getLegendGraphic.run(parse(kvp));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSprite() throws Exception {
+        LegendSprite sprite =
+                (LegendSprite)
+                        getLegendGraphic.run(
+                                parse(NATURE_GROUP, LegendSpriteOutputFormat.MIME_TYPE));
+        assertEquals(
+                Arrays.asList(getLayerId(MockData.LAKES), getLayerId(MockData.FORESTS)),
+                new ArrayList<>(sprite.getIndex().keySet()));
+        BufferedImage image = sprite.getLegend();
+        Rectangle bounds = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+        Rectangle lakes = sprite.getIndex().get(getLayerId(MockData.LAKES));
+        Rectangle forests = sprite.getIndex().get(getLayerId(MockData.FORESTS));
+        assertTrue(bounds.contains(lakes));
+        assertTrue(bounds.contains(forests));
+        assertFalse(lakes.intersects(forests));
+        // sprites are cached too
+        assertSame(
+                sprite,
+                getLegendGraphic.run(parse(NATURE_GROUP, LegendSpriteOutputFormat.MIME_TYPE)));
+    }
+
+    private Map<String, String> kvp(String layer, String format) {
+        Map<String, String> kvp = new HashMap<>();
+        kvp.put("VERSION", "1.0.0");
+        kvp.put("REQUEST", "GetLegendGraphic");
+        kvp.put("LAYER", layer);
+        kvp.put("FORMAT", format);
+        return kvp;
+    }
+
+    private GetLegendGraphicRequest parse(String layer, String format) throws Exception {
+        return parse(kvp(layer, format));
+    }
+
+    private GetLegendGraphicRequest parse(Map<String, String> kvp) throws Exception {
+        GetLegendGraphicKvpReader reader = new GetLegendGraphicKvpReader(getWMS());
+        return reader.read(new GetLegendGraphicRequest(), kvp, kvp);
+    }
+}
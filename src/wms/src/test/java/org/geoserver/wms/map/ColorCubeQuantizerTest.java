@@ -0,0 +1,127 @@
+/* (c) 2026 Open Source Geospatial Foundation - all rights reserved
+ * This code is licensed under the GPL 2.0 license, available at the root
+ * application directory.
+ */
+package org.geoserver.wms.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import it.geosolutions.jaiext.colorindexer.ColorIndexer;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import org.geoserver.wms.kvp.PaletteManager;
+import org.junit.Test;
+
+public class ColorCubeQuantizerTest {
+
+    @Test
+    public void testFewColorsExact() {
+        BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_4BYTE_ABGR);
+        Graphics2D g = image.createGraphics();
+        g.setColor(new Color(12, 34, 56));
+        g.fillRect(0, 0, 50, 100);
+        g.setColor(new Color(200, 100, 50, 128));
+        g.fillRect(50, 0, 25, 100);
+        g.dispose();
+
+        ColorIndexer indexer = new ColorCubeQuantizer(256).buildColorIndexer(image);
+        IndexColorModel icm = indexer.toIndexColorModel();
+        // transparent, opaque and translucent colors, all preserved exactly
+        assertEquals(3, icm.getMapSize());
+        assertExactMatch(indexer, image, 0, 0);
+        assertExactMatch(indexer, image, 60, 0);
+        assertExactMatch(indexer, image, 90, 0);
+    }
+
+    @Test
+    public void testManyColors() {
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_4BYTE_ABGR);
+        for (int y = 0; y < 512; y++) {
+            for (int x = 0; x < 512; x++) {
+                int alpha = x < 32 ? 0 : 255;
+                image.setRGB(x, y, new Color(x / 2, y / 2, (x + y) / 4, alpha).getRGB());
+            }
+        }
+
+        ColorIndexer indexer = new ColorCubeQuantizer(256).buildColorIndexer(image);
+        IndexColorModel icm = indexer.toIndexColorModel();
+        assertTrue(icm.getMapSize() <= 256);
+
+        // fully transparent pixels keep being fully transparent
+        int idx = indexer.getClosestIndex(10, 20, 30, 0);
+        assertEquals(0, icm.getAlpha(idx));
+
+        // opaque pixels get a close, opaque, match
+        for (int y = 0; y < 512; y += 37) {
+            for (int x = 32; x < 512; x += 41) {
+                Color expected = new Color(image.getRGB(x, y), true);
+                int i =
+                        indexer.getClosestIndex(
+                                expected.getRed(), expected.getGreen(), expected.getBlue(), 255);
+                assertEquals(255, icm.getAlpha(i));
+                assertTrue(Math.abs(icm.getRed(i) - expected.getRed()) <= 24);
+                assertTrue(Math.abs(icm.getGreen(i) - expected.getGreen()) <= 24);
+                assertTrue(Math.abs(icm.getBlue(i) - expected.getBlue()) <= 24);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIndexedImage() {
+        // paletted images are expanded before quantizing, the indices are not colors
+        IndexColorModel palette = PaletteManager.safePalette;
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_BYTE_INDEXED, palette);
+        new ColorCubeQuantizer(256).buildColorIndexer(image);
+    }
+
+    @Test
+    public void testInversePagesOnDemand() {
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_4BYTE_ABGR);
+        for (int y = 0; y < 512; y++) {
+            for (int x = 0; x < 512; x++) {
+                image.setRGB(x, y, new Color(x / 2, y / 2, 0).getRGB());
+            }
+        }
+        ColorCubeQuantizer.CubeColorIndexer indexer =
+                (ColorCubeQuantizer.CubeColorIndexer)
+                        new ColorCubeQuantizer(256).buildColorIndexer(image);
+        indexer.getClosestIndex(10, 20, 0, 255);
+        int pages = 0;
+        for (short[] page : indexer.inverse) {
+            if (page != null) {
+                pages++;
+            }
+        }
+        assertEquals(1, pages);
+    }
+
+    @Test
+    public void testBuffersReused() {
+        BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_3BYTE_BGR);
+        ColorCubeQuantizer quantizer = new ColorCubeQuantizer(256);
+        quantizer.buildColorIndexer(image);
+        ColorCubeQuantizer.Buffers buffers = ColorCubeQuantizer.getBuffers();
+        quantizer.buildColorIndexer(image);
+        assertSame(buffers, ColorCubeQuantizer.getBuffers());
+        // and left clean
+        assertEquals(0, buffers.cellCount);
+        assertEquals(0, buffers.exactCount);
+        assertEquals(0, buffers.counts[ColorCubeQuantizer.cell(0, 0, 0, 255)]);
+    }
+
+    private void assertExactMatch(ColorIndexer indexer, BufferedImage image, int x, int y) {
+        Color expected = new Color(image.getRGB(x, y), true);
+        int idx =
+                indexer.getClosestIndex(
+                        expected.getRed(),
+                        expected.getGreen(),
+                        expected.getBlue(),
+                        expected.getAlpha());
+        IndexColorModel icm = indexer.toIndexColorModel();
+        assertEquals(expected, new Color(icm.getRGB(idx), true));
+    }
+}
@@ -139,4 +139,25 @@ public class GetMapIntegrationTest extends WMSTestSupport {
         IndexColorModel cm = (IndexColorModel) bi.getColorModel();
         assertEquals(Transparency.TRANSLUCENT, cm.getTransparency());
     }
+
+    @Test
+    public void testPng8ColorCube() throws Exception {
+        MockHttpServletResponse response =
+                getAsServletResponse(
+                        "wms?bbox="
+                                + bbox
+                                + "&styles=&layers="
+                                + layers
+                                + "&Format=image/png8"
+                                + "&request=GetMap"
+                                + "&width=550"
+                                + "&height=250"
+                                + "&srs=EPSG:4326&transparent=true&format_options=quantizer:colorcube");
+        assertEquals("image/png; mode=8bit", response.getContentType());
+
+        InputStream is = getBinaryInputStream(response);
+        BufferedImage bi = ImageIO.read(is);
+        IndexColorModel cm = (IndexColorModel) bi.getColorModel();
+        assertEquals(Transparency.TRANSLUCENT, cm.getTransparency());
+    }
 }
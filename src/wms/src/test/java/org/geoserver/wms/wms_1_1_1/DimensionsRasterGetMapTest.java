@@ -10,10 +10,13 @@ import static org.junit.Assert.assertTrue;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.TreeSet;
+import javax.imageio.ImageIO;
 import org.geoserver.catalog.CoverageInfo;
 import org.geoserver.catalog.DimensionDefaultValueSetting;
 import org.geoserver.catalog.DimensionDefaultValueSetting.Strategy;
@@ -372,6 +375,68 @@ public class DimensionsRasterGetMapTest extends WMSDimensionsTestSupport {
         assertPixel(imageNovember, 68, 72, new Color(255, 187, 187));
     }
 
+    @Test
+    public void testTimeAnimationParallel() throws Exception {
+        setupRasterDimension(
+                WATTEMP,
+                ResourceInfo.ELEVATION,
+                DimensionPresentation.LIST,
+                null,
+                UNITS,
+                UNIT_SYMBOL);
+        setupRasterDimension(
+                WATTEMP, ResourceInfo.TIME, DimensionPresentation.LIST, null, null, null);
+
+        final GeoServer gs = getGeoServer();
+        WMSInfo wms = gs.getService(WMSInfo.class);
+        wms.getMetadata().put(WMS.ANIMATION_PARALLEL_FRAMES, "2");
+        gs.save(wms);
+        try {
+            List<BufferedImage> images =
+                    getAsAnimation(
+                            BASE_URL
+                                    + "&time=2008-10-01/2008-11-31&format=image/gif;subtype=animated",
+                            "image/gif");
+            assertEquals(2, images.size());
+
+            // same as the sequential rendering, and in the same order
+            assertPixel(images.get(0), 36, 31, new Color(246, 246, 255));
+            assertPixel(images.get(0), 68, 72, new Color(255, 181, 181));
+            assertPixel(images.get(1), 36, 31, new Color(246, 246, 255));
+            assertPixel(images.get(1), 68, 72, new Color(255, 187, 187));
+        } finally {
+            wms.getMetadata().remove(WMS.ANIMATION_PARALLEL_FRAMES);
+            gs.save(wms);
+        }
+    }
+
+    @Test
+    public void testTimeAnimationAPNG() throws Exception {
+        setupRasterDimension(
+                WATTEMP,
+                ResourceInfo.ELEVATION,
+                DimensionPresentation.LIST,
+                null,
+                UNITS,
+                UNIT_SYMBOL);
+        setupRasterDimension(
+                WATTEMP, ResourceInfo.TIME, DimensionPresentation.LIST, null, null, null);
+
+        MockHttpServletResponse resp =
+                getAsServletResponse(BASE_URL + "&time=2008-10-01/2008-11-31&format=image/apng");
+        assertEquals("image/apng", resp.getContentType());
+        byte[] bytes = resp.getContentAsByteArray();
+        String chunks = new String(bytes, StandardCharsets.ISO_8859_1);
+        assertTrue(chunks.contains("acTL"));
+        assertEquals(2, chunks.split("fcTL", -1).length - 1);
+        assertEquals(1, chunks.split("fdAT", -1).length - 1);
+
+        // plain PNG readers see the first frame
+        BufferedImage imageOctober = ImageIO.read(new ByteArrayInputStream(bytes));
+        assertPixel(imageOctober, 36, 31, new Color(246, 246, 255));
+        assertPixel(imageOctober, 68, 72, new Color(255, 181, 181));
+    }
+
     @Test
     public void testTimeAnimationTimeout() throws Exception {
         setupRasterDimension(
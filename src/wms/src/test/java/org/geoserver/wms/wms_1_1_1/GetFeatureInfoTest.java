@@ -44,6 +44,7 @@ import org.geoserver.data.test.SystemTestData;
 import org.geoserver.data.test.SystemTestData.LayerProperty;
 import org.geoserver.test.RemoteOWSTestSupport;
 import org.geoserver.wfs.WFSInfo;
+import org.geoserver.wms.WMS;
 import org.geoserver.wms.WMSInfo;
 import org.geoserver.wms.WMSTestSupport;
 import org.geoserver.wms.featureinfo.GML2FeatureInfoOutputFormat;
@@ -699,6 +700,43 @@ public class GetFeatureInfoTest extends WMSTestSupport {
         XMLAssert.assertXpathEvaluatesTo("1", "count(//cite:Lakes)", dom);
     }
 
+    /** Same as above, but identifying the two layers concurrently */
+    @Test
+    public void testTwoLayersFeatureCountParallel() throws Exception {
+        WMSInfo wms = getGeoServer().getService(WMSInfo.class);
+        wms.getMetadata().put(WMS.FEATURE_INFO_PARALLEL_LAYERS, 2);
+        wms.getMetadata().put(WMS.FEATURE_INFO_LAYER_TIMEOUT, 60000L);
+        getGeoServer().save(wms);
+        try {
+            String layer = getLayerId(MockData.FORESTS) + "," + getLayerId(MockData.LAKES);
+            String request =
+                    "wms?REQUEST=GetFeatureInfo&EXCEPTIONS=application%2Fvnd.ogc.se_xml&"
+                            + "BBOX=-0.002356%2C-0.004819%2C0.005631%2C0.004781&SERVICE=WMS&VERSION=1.1.0&X=267&Y=325"
+                            + "&INFO_FORMAT=application/vnd.ogc.gml"
+                            + "&QUERY_LAYERS="
+                            + layer
+                            + "&Layers="
+                            + layer
+                            + " &Styles=&WIDTH=426&HEIGHT=512"
+                            + "&format=image%2Fpng&srs=EPSG%3A4326";
+            // no feature count, just one should be returned, from the first layer
+            Document dom = getAsDOM(request);
+            XMLAssert.assertXpathEvaluatesTo("1", "count(//gml:featureMember)", dom);
+            XMLAssert.assertXpathEvaluatesTo("1", "count(//cite:Forests)", dom);
+
+            // feature count set to 2, both features should be there, in layer order
+            dom = getAsDOM(request + "&FEATURE_COUNT=2");
+            XMLAssert.assertXpathEvaluatesTo("2", "count(//gml:featureMember)", dom);
+            XMLAssert.assertXpathEvaluatesTo(
+                    "1", "count(//gml:featureMember[1]/cite:Forests)", dom);
+            XMLAssert.assertXpathEvaluatesTo("1", "count(//gml:featureMember[2]/cite:Lakes)", dom);
+        } finally {
+            wms.getMetadata().remove(WMS.FEATURE_INFO_PARALLEL_LAYERS);
+            wms.getMetadata().remove(WMS.FEATURE_INFO_LAYER_TIMEOUT);
+            getGeoServer().save(wms);
+        }
+    }
+
     /**
      * Check GetFeatureInfo returns an error if the format is not known, instead of returning the
      * text format as in https://osgeo-org.atlassian.net/browse/GEOS-1924